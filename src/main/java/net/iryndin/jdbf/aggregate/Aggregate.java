@@ -0,0 +1,133 @@
+package net.iryndin.jdbf.aggregate;
+
+import net.iryndin.jdbf.core.DbfField;
+import net.iryndin.jdbf.util.BitUtils;
+import net.iryndin.jdbf.util.JdbfUtils;
+import net.iryndin.jdbf.util.NumberUtils;
+
+/**
+ * One aggregate of {@link DbfAggregation}: function, field and the way values of the field are parsed
+ */
+final class Aggregate {
+    enum Kind {
+        /**
+         * Values are not parsed
+         */
+        NONE,
+        /**
+         * Values are parsed as longs unscaled by {@link #scale}
+         */
+        LONG,
+        /**
+         * Values are parsed as doubles
+         */
+        DOUBLE,
+        /**
+         * Values are parsed as epoch days
+         */
+        DATE
+    }
+
+    final AggregateFunction function;
+    final DbfField field;
+    final Kind kind;
+    final int scale;
+
+    private Aggregate(AggregateFunction function, DbfField field, Kind kind, int scale) {
+        this.function = function;
+        this.field = field;
+        this.kind = kind;
+        this.scale = scale;
+    }
+
+    static Aggregate count() {
+        return new Aggregate(AggregateFunction.COUNT, null, Kind.NONE, 0);
+    }
+
+    static Aggregate of(AggregateFunction function, DbfField field) {
+        switch (function) {
+            case COUNT:
+                return count();
+            case COUNT_DISTINCT:
+                switch (field.getType()) {
+                    case Memo:
+                    case General:
+                    case Picture:
+                        throw new IllegalArgumentException("Field '" + field.getName() + "' of type " + field.getType() + " cannot be aggregated");
+                    default:
+                        return new Aggregate(function, field, Kind.NONE, 0);
+                }
+            default:
+                switch (field.getType()) {
+                    case Numeric:
+                        return new Aggregate(function, field, Kind.LONG, field.getNumberOfDecimalPlaces());
+                    case Integer:
+                        return new Aggregate(function, field, Kind.LONG, 0);
+                    case Currency:
+                        return new Aggregate(function, field, Kind.LONG, JdbfUtils.CURRENCY_SCALE);
+                    case Float:
+                        // Float values may have many decimal places or exponent
+                        return new Aggregate(function, field, Kind.DOUBLE, 0);
+                    case Date:
+                        if (function == AggregateFunction.MIN || function == AggregateFunction.MAX) {
+                            return new Aggregate(function, field, Kind.DATE, 0);
+                        }
+                        throw new IllegalArgumentException("Field '" + field.getName() + "' is not numeric field!");
+                    default:
+                        throw new IllegalArgumentException("Field '" + field.getName() + "' is not numeric field!");
+                }
+        }
+    }
+
+    String getLabel() {
+        String name = function.name().toLowerCase();
+        return field == null ? name + "(*)" : name + "(" + field.getName() + ")";
+    }
+
+    boolean isNull(byte[] bytes, int start) {
+        switch (field.getType()) {
+            case Numeric:
+            case Float:
+                return NumberUtils.isNull(bytes, start, field.getLength());
+            case Date:
+                return JdbfUtils.parseEpochDay(bytes, start) == JdbfUtils.INVALID_EPOCH_DAY;
+            default:
+                return false;
+        }
+    }
+
+    long longValue(byte[] bytes, int start) {
+        switch (field.getType()) {
+            case Integer:
+                return BitUtils.makeInt(bytes, start);
+            case Currency:
+                return BitUtils.makeLong(bytes, start);
+            case Date:
+                return JdbfUtils.parseEpochDay(bytes, start);
+            default:
+                return NumberUtils.parseUnscaledLong(bytes, start, field.getLength(), scale);
+        }
+    }
+
+    double doubleValue(byte[] bytes, int start) {
+        return NumberUtils.parseDouble(bytes, start, field.getLength());
+    }
+
+    /**
+     * Binary values are compared as is, text values without leading and trailing spaces
+     */
+    boolean isBinary() {
+        switch (field.getType()) {
+            case Integer:
+            case Currency:
+            case Double:
+            case Double7:
+            case DateTime:
+            case Timestamp:
+            case NullFlags:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package net.iryndin.jdbf.aggregate;
+
+/**
+ * Functions of {@link DbfAggregation}. All functions but COUNT skip null values.
+ */
+public enum AggregateFunction {
+    /**
+     * Number of records, as Long
+     */
+    COUNT,
+    /**
+     * Sum of Numeric, Integer or Currency field as BigDecimal, of Float field as Double
+     */
+    SUM,
+    /**
+     * Minimal value: BigDecimal, Double or LocalDate, like SUM and for Date fields
+     */
+    MIN,
+    /**
+     * Maximal value, like MIN
+     */
+    MAX,
+    /**
+     * Average of numeric field, as Double
+     */
+    AVG,
+    /**
+     * Number of distinct values of any field, as Long
+     */
+    COUNT_DISTINCT
+}
@@ -0,0 +1,121 @@
+package net.iryndin.jdbf.aggregate;
+
+import java.util.Arrays;
+
+/**
+ * Hash set of byte strings with open addressing. Every key gets a sequential id.
+ * Keys are copied into one shared array, so no objects per key are created.
+ */
+final class BytesTable {
+    private int[] slots = new int[16];
+    private int mask = 15;
+    private int size = 0;
+    private int[] hashes = new int[8];
+    private int[] offsets = new int[8];
+    private int[] lengths = new int[8];
+    private byte[] arena = new byte[64];
+    private int arenaSize = 0;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return id of the key, new keys get id equal to size() before the call
+     */
+    int add(byte[] key, int offset, int length) {
+        int h = hash(key, offset, length);
+        int slot = h & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == h && keyEquals(id, key, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = size++;
+        if (id == hashes.length) {
+            hashes = Arrays.copyOf(hashes, id * 2);
+            offsets = Arrays.copyOf(offsets, id * 2);
+            lengths = Arrays.copyOf(lengths, id * 2);
+        }
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        }
+        System.arraycopy(key, offset, arena, arenaSize, length);
+        hashes[id] = h;
+        offsets[id] = arenaSize;
+        lengths[id] = length;
+        arenaSize += length;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * @return id of the key, or -1 if there is no such key
+     */
+    int find(byte[] key, int offset, int length) {
+        int h = hash(key, offset, length);
+        int slot = h & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == h && keyEquals(id, key, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    byte[] arena() {
+        return arena;
+    }
+
+    int offset(int id) {
+        return offsets[id];
+    }
+
+    int length(int id) {
+        return lengths[id];
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private boolean keyEquals(int id, byte[] key, int offset, int length) {
+        if (lengths[id] != length) {
+            return false;
+        }
+        int start = offsets[id];
+        for (int i = 0; i < length; i++) {
+            if (arena[start + i] != key[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + bytes[i];
+        }
+        // spread bits, so keys that differ in the last byte do not cluster
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+}
@@ -0,0 +1,68 @@
+package net.iryndin.jdbf.aggregate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One group of {@link DbfAggregation} result: values of group fields and values of aggregates
+ */
+public class DbfAggregateRow {
+    private final List<String> keyNames;
+    private final List<String> labels;
+    private final Object[] keys;
+    private final Object[] values;
+
+    DbfAggregateRow(List<String> keyNames, List<String> labels, Object[] keys, Object[] values) {
+        this.keyNames = keyNames;
+        this.labels = labels;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @return values of group fields, in the order of {@link DbfAggregation#groupBy(String...)}
+     */
+    public List<Object> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    public Object getKey(int index) {
+        return keys[index];
+    }
+
+    public Object getKey(String fieldName) {
+        int index = keyNames.indexOf(fieldName);
+        if (index < 0) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' is not a group field!");
+        }
+        return keys[index];
+    }
+
+    /**
+     * @return values of aggregates, in the order they were added
+     */
+    public List<Object> getValues() {
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * @param label label of aggregate, like "count(*)", "sum(AMOUNT)" or "count_distinct(CODE)"
+     */
+    public Object getValue(String label) {
+        int index = labels.indexOf(label);
+        if (index < 0) {
+            throw new IllegalArgumentException("Aggregate '" + label + "' does not exist!");
+        }
+        return values[index];
+    }
+
+    @Override
+    public String toString() {
+        return "DbfAggregateRow{keys=" + Arrays.toString(keys) + ", values=" + Arrays.toString(values) + "}";
+    }
+}
@@ -0,0 +1,302 @@
+package net.iryndin.jdbf.aggregate;
+
+import net.iryndin.jdbf.core.DbfField;
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfPredicate;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.core.DbfSchema;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.util.IOUtils;
+import net.iryndin.jdbf.util.JdbfUtils;
+import net.iryndin.jdbf.util.NumberUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Group-by and aggregation over a DBF file, run in parallel on a fork-join pool.
+ *
+ * The file is split into ranges of records, and every range is read by big chunks with positional I/O.
+ * Values are parsed right in the record bytes, records are grouped by raw bytes of group fields.
+ * Every range fills its own table of groups, and tables are merged when ranges are joined.
+ *
+ * <pre>
+ * List&lt;DbfAggregateRow&gt; rows = new DbfAggregation(file)
+ *         .groupBy("CODE")
+ *         .count()
+ *         .sum("AMOUNT")
+ *         .filter(DbfPredicates.notDeleted())
+ *         .run();
+ * </pre>
+ * All records that pass the filter are aggregated, deleted ones too.
+ * Order of result rows is not specified.
+ */
+public class DbfAggregation {
+    public static final int DEFAULT_MIN_SPLIT_SIZE = 16 * 1024;
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private final File dbfFile;
+    private final DbfMetadata metadata;
+    private final List<DbfField> groupFields = new ArrayList<>();
+    private final List<Aggregate> aggregates = new ArrayList<>();
+    private DbfPredicate filter;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int minSplitSize = DEFAULT_MIN_SPLIT_SIZE;
+
+    public DbfAggregation(File dbfFile) throws IOException {
+        this.dbfFile = dbfFile;
+        try (FileChannel channel = FileChannel.open(dbfFile.toPath(), StandardOpenOption.READ)) {
+            this.metadata = DbfMetadataUtils.readMetadata(channel);
+        }
+    }
+
+    public DbfMetadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Group records by values of the fields. Without group fields all records make one group
+     */
+    public DbfAggregation groupBy(String... fieldNames) {
+        for (String name : fieldNames) {
+            DbfField f = getField(name);
+            switch (f.getType()) {
+                case Memo:
+                case General:
+                case Picture:
+                    throw new IllegalArgumentException("Field '" + name + "' of type " + f.getType() + " cannot be a group field");
+                default:
+                    groupFields.add(f);
+            }
+        }
+        return this;
+    }
+
+    public DbfAggregation count() {
+        aggregates.add(Aggregate.count());
+        return this;
+    }
+
+    public DbfAggregation sum(String fieldName) {
+        return aggregate(AggregateFunction.SUM, fieldName);
+    }
+
+    public DbfAggregation min(String fieldName) {
+        return aggregate(AggregateFunction.MIN, fieldName);
+    }
+
+    public DbfAggregation max(String fieldName) {
+        return aggregate(AggregateFunction.MAX, fieldName);
+    }
+
+    public DbfAggregation avg(String fieldName) {
+        return aggregate(AggregateFunction.AVG, fieldName);
+    }
+
+    public DbfAggregation countDistinct(String fieldName) {
+        return aggregate(AggregateFunction.COUNT_DISTINCT, fieldName);
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no such field or function is not applicable to its type
+     */
+    public DbfAggregation aggregate(AggregateFunction function, String fieldName) {
+        aggregates.add(Aggregate.of(function, getField(fieldName)));
+        return this;
+    }
+
+    /**
+     * Aggregate only records that satisfy the filter
+     */
+    public DbfAggregation filter(DbfPredicate filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * Run on given pool instead of the common one
+     */
+    public DbfAggregation pool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * @param minSplitSize ranges smaller than this number of records are not split any further
+     */
+    public DbfAggregation minSplitSize(int minSplitSize) {
+        this.minSplitSize = Math.max(1, minSplitSize);
+        return this;
+    }
+
+    private DbfField getField(String name) {
+        DbfField f = metadata.getField(name);
+        if (f == null) {
+            throw new IllegalArgumentException("Field '" + name + "' does not exist!");
+        }
+        return f;
+    }
+
+    /**
+     * Scan the file and compute aggregates of every group
+     */
+    public List<DbfAggregateRow> run() throws IOException {
+        DbfField[] fields = groupFields.toArray(new DbfField[0]);
+        Aggregate[] functions = aggregates.toArray(new Aggregate[0]);
+        int recordLength = metadata.getOneRecordLength();
+        GroupTable table;
+        try (FileChannel channel = FileChannel.open(dbfFile.toPath(), StandardOpenOption.READ)) {
+            long dataLength = channel.size() - metadata.getFullHeaderLength();
+            int recordsQty = (int) Math.max(0, dataLength / recordLength);
+            int splitSize = Math.max(minSplitSize, recordsQty / (pool.getParallelism() * 4));
+            try {
+                table = pool.invoke(new AggregateTask(channel, fields, functions, 1, recordsQty, splitSize));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        byte[] blankRecord = new byte[recordLength];
+        Arrays.fill(blankRecord, (byte) JdbfUtils.EMPTY);
+        table.ensureEmptyGroup(blankRecord);
+        return toRows(table, functions, recordLength);
+    }
+
+    private List<DbfAggregateRow> toRows(GroupTable table, Aggregate[] functions, int recordLength) throws IOException {
+        List<String> keyNames = new ArrayList<>();
+        for (DbfField f : groupFields) {
+            keyNames.add(f.getName());
+        }
+        List<String> labels = new ArrayList<>();
+        long[][] distinctCounts = new long[functions.length][];
+        for (int i = 0; i < functions.length; i++) {
+            labels.add(functions[i].getLabel());
+            if (functions[i].function == AggregateFunction.COUNT_DISTINCT) {
+                distinctCounts[i] = table.distinctCounts(i);
+            }
+        }
+        DbfSchema schema = metadata.getSchema();
+        List<DbfAggregateRow> rows = new ArrayList<>(table.size());
+        for (int g = 0; g < table.size(); g++) {
+            byte[] bytes = Arrays.copyOfRange(table.records(), g * recordLength, (g + 1) * recordLength);
+            DbfRecord rec = DbfRecord.wrap(bytes, metadata, null, 0);
+            Object[] keys = new Object[groupFields.size()];
+            for (int k = 0; k < keys.length; k++) {
+                keys[k] = schema.get(groupFields.get(k).getName()).getValue(rec);
+            }
+            Object[] values = new Object[functions.length];
+            for (int i = 0; i < functions.length; i++) {
+                values[i] = value(table, functions[i], i, g, distinctCounts[i]);
+            }
+            rows.add(new DbfAggregateRow(keyNames, labels, keys, values));
+        }
+        return rows;
+    }
+
+    private static Object value(GroupTable table, Aggregate a, int i, int group, long[] distinctCounts) {
+        switch (a.function) {
+            case COUNT:
+                return table.count(group);
+            case COUNT_DISTINCT:
+                return distinctCounts[group];
+            default:
+                break;
+        }
+        long n = table.nonNullCount(i, group);
+        if (n == 0) {
+            return null;
+        }
+        if (a.function == AggregateFunction.AVG) {
+            double sum = a.kind == Aggregate.Kind.DOUBLE
+                    ? table.doubleState(i, group)
+                    : (double) table.longState(i, group) / NumberUtils.powerOfTen(a.scale);
+            return sum / n;
+        }
+        switch (a.kind) {
+            case DOUBLE:
+                return table.doubleState(i, group);
+            case DATE:
+                return JdbfUtils.localDateOfEpochDay(table.longState(i, group));
+            default:
+                return BigDecimal.valueOf(table.longState(i, group), a.scale);
+        }
+    }
+
+    private final class AggregateTask extends RecursiveTask<GroupTable> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final DbfField[] fields;
+        private final Aggregate[] functions;
+        private final int fromRecord;
+        private final int toRecord;
+        private final int splitSize;
+
+        AggregateTask(FileChannel channel, DbfField[] fields, Aggregate[] functions,
+                      int fromRecord, int toRecord, int splitSize) {
+            this.channel = channel;
+            this.fields = fields;
+            this.functions = functions;
+            this.fromRecord = fromRecord;
+            this.toRecord = toRecord;
+            this.splitSize = splitSize;
+        }
+
+        @Override
+        protected GroupTable compute() {
+            if (toRecord - fromRecord + 1 <= splitSize) {
+                try {
+                    return scan();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int mid = (int) (((long) fromRecord + toRecord) >>> 1);
+            AggregateTask left = new AggregateTask(channel, fields, functions, fromRecord, mid, splitSize);
+            AggregateTask right = new AggregateTask(channel, fields, functions, mid + 1, toRecord, splitSize);
+            left.fork();
+            GroupTable rightTable = right.compute();
+            GroupTable leftTable = left.join();
+            // merge smaller table into bigger one
+            if (leftTable.size() >= rightTable.size()) {
+                leftTable.merge(rightTable);
+                return leftTable;
+            }
+            rightTable.merge(leftTable);
+            return rightTable;
+        }
+
+        private GroupTable scan() throws IOException {
+            int recordLength = metadata.getOneRecordLength();
+            GroupTable table = new GroupTable(fields, functions, recordLength);
+            int chunkRecords = Math.max(1, Math.min(CHUNK_SIZE / recordLength, toRecord - fromRecord + 1));
+            byte[] buffer = new byte[chunkRecords * recordLength];
+            int recordNumber = fromRecord;
+            while (recordNumber <= toRecord) {
+                int records = Math.min(chunkRecords, toRecord - recordNumber + 1);
+                int length = records * recordLength;
+                long position = metadata.getFullHeaderLength() + (long) (recordNumber - 1) * recordLength;
+                if (IOUtils.readFully(channel, ByteBuffer.wrap(buffer, 0, length), position) < length) {
+                    throw new IOException("The file is corrupted or is not a dbf file");
+                }
+                for (int offset = 0; offset < length; offset += recordLength) {
+                    if (filter == null || filter.test(buffer, offset)) {
+                        table.add(buffer, offset);
+                    }
+                }
+                recordNumber += records;
+            }
+            return table;
+        }
+    }
+}
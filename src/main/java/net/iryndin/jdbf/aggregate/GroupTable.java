@@ -0,0 +1,252 @@
+package net.iryndin.jdbf.aggregate;
+
+import net.iryndin.jdbf.core.DbfField;
+import net.iryndin.jdbf.util.JdbfUtils;
+
+import java.util.Arrays;
+
+/**
+ * Groups and aggregate states of a part of the file. Every group is keyed by raw bytes of group fields,
+ * and keeps a copy of its first record to decode key values from.
+ * Tables of parts are merged into one at the end.
+ */
+final class GroupTable {
+    private final DbfField[] groupFields;
+    private final Aggregate[] aggregates;
+    private final int keyLength;
+    private final int recordLength;
+    private final BytesTable groups = new BytesTable();
+    private final byte[] keyBuffer;
+    private byte[] distinctBuffer;
+    private int capacity = 0;
+    private byte[] records = new byte[0];
+    private long[] counts = new long[0];
+    // per aggregate: state as long or double and count of non-null values
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final long[][] nonNulls;
+    // per aggregate: pairs of group key and distinct value
+    private final BytesTable[] distinct;
+
+    GroupTable(DbfField[] groupFields, Aggregate[] aggregates, int recordLength) {
+        this.groupFields = groupFields;
+        this.aggregates = aggregates;
+        this.recordLength = recordLength;
+        int length = 0;
+        for (DbfField f : groupFields) {
+            length += f.getLength();
+        }
+        this.keyLength = length;
+        this.keyBuffer = new byte[length];
+        this.distinctBuffer = new byte[length + 16];
+        this.longs = new long[aggregates.length][];
+        this.doubles = new double[aggregates.length][];
+        this.nonNulls = new long[aggregates.length][];
+        this.distinct = new BytesTable[aggregates.length];
+        for (int i = 0; i < aggregates.length; i++) {
+            longs[i] = new long[0];
+            doubles[i] = new double[0];
+            nonNulls[i] = new long[0];
+            if (aggregates[i].function == AggregateFunction.COUNT_DISTINCT) {
+                distinct[i] = new BytesTable();
+            }
+        }
+    }
+
+    /**
+     * Add record to its group
+     *
+     * @param bytes array that holds the record
+     * @param offset offset of the record in the array
+     */
+    void add(byte[] bytes, int offset) {
+        int k = 0;
+        for (DbfField f : groupFields) {
+            System.arraycopy(bytes, offset + f.getOffset(), keyBuffer, k, f.getLength());
+            k += f.getLength();
+        }
+        int group = group(keyBuffer, 0, bytes, offset);
+        counts[group]++;
+        for (int i = 0; i < aggregates.length; i++) {
+            Aggregate a = aggregates[i];
+            if (a.function == AggregateFunction.COUNT) {
+                continue;
+            }
+            int start = offset + a.field.getOffset();
+            if (a.function == AggregateFunction.COUNT_DISTINCT) {
+                addDistinct(i, bytes, start);
+                continue;
+            }
+            if (a.isNull(bytes, start)) {
+                continue;
+            }
+            nonNulls[i][group]++;
+            if (a.kind == Aggregate.Kind.DOUBLE) {
+                double value = a.doubleValue(bytes, start);
+                double[] state = doubles[i];
+                switch (a.function) {
+                    case MIN:
+                        state[group] = Math.min(state[group], value);
+                        break;
+                    case MAX:
+                        state[group] = Math.max(state[group], value);
+                        break;
+                    default:
+                        state[group] += value;
+                }
+            } else {
+                long value = a.longValue(bytes, start);
+                long[] state = longs[i];
+                switch (a.function) {
+                    case MIN:
+                        state[group] = Math.min(state[group], value);
+                        break;
+                    case MAX:
+                        state[group] = Math.max(state[group], value);
+                        break;
+                    default:
+                        state[group] = Math.addExact(state[group], value);
+                }
+            }
+        }
+    }
+
+    private void addDistinct(int aggregate, byte[] bytes, int start) {
+        Aggregate a = aggregates[aggregate];
+        int end = start + a.field.getLength();
+        if (!a.isBinary()) {
+            end = JdbfUtils.trimEnd(bytes, start, end);
+            start = JdbfUtils.trimStart(bytes, start, end);
+            if (start == end) {
+                // null value
+                return;
+            }
+        }
+        int length = keyLength + end - start;
+        if (distinctBuffer.length < length) {
+            distinctBuffer = new byte[length];
+        }
+        System.arraycopy(keyBuffer, 0, distinctBuffer, 0, keyLength);
+        System.arraycopy(bytes, start, distinctBuffer, keyLength, end - start);
+        distinct[aggregate].add(distinctBuffer, 0, length);
+    }
+
+    /**
+     * @return id of the group with the key, new group is created with given record
+     */
+    private int group(byte[] key, int keyOffset, byte[] record, int recordOffset) {
+        int size = groups.size();
+        int group = groups.add(key, keyOffset, keyLength);
+        if (group == size) {
+            if (group == capacity) {
+                grow();
+            }
+            System.arraycopy(record, recordOffset, records, group * recordLength, recordLength);
+            for (int i = 0; i < aggregates.length; i++) {
+                if (aggregates[i].function == AggregateFunction.MIN) {
+                    longs[i][group] = Long.MAX_VALUE;
+                    doubles[i][group] = Double.POSITIVE_INFINITY;
+                } else if (aggregates[i].function == AggregateFunction.MAX) {
+                    longs[i][group] = Long.MIN_VALUE;
+                    doubles[i][group] = Double.NEGATIVE_INFINITY;
+                }
+            }
+        }
+        return group;
+    }
+
+    private void grow() {
+        capacity = Math.max(16, capacity * 2);
+        records = Arrays.copyOf(records, capacity * recordLength);
+        counts = Arrays.copyOf(counts, capacity);
+        for (int i = 0; i < aggregates.length; i++) {
+            longs[i] = Arrays.copyOf(longs[i], capacity);
+            doubles[i] = Arrays.copyOf(doubles[i], capacity);
+            nonNulls[i] = Arrays.copyOf(nonNulls[i], capacity);
+        }
+    }
+
+    /**
+     * Add groups and states of other table to this one
+     */
+    void merge(GroupTable other) {
+        byte[] otherKeys = other.groups.arena();
+        for (int g = 0; g < other.groups.size(); g++) {
+            int group = group(otherKeys, other.groups.offset(g), other.records, g * recordLength);
+            counts[group] += other.counts[g];
+            for (int i = 0; i < aggregates.length; i++) {
+                nonNulls[i][group] += other.nonNulls[i][g];
+                switch (aggregates[i].function) {
+                    case MIN:
+                        longs[i][group] = Math.min(longs[i][group], other.longs[i][g]);
+                        doubles[i][group] = Math.min(doubles[i][group], other.doubles[i][g]);
+                        break;
+                    case MAX:
+                        longs[i][group] = Math.max(longs[i][group], other.longs[i][g]);
+                        doubles[i][group] = Math.max(doubles[i][group], other.doubles[i][g]);
+                        break;
+                    case SUM:
+                    case AVG:
+                        longs[i][group] = Math.addExact(longs[i][group], other.longs[i][g]);
+                        doubles[i][group] += other.doubles[i][g];
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        for (int i = 0; i < aggregates.length; i++) {
+            if (distinct[i] != null) {
+                BytesTable d = other.distinct[i];
+                for (int e = 0; e < d.size(); e++) {
+                    distinct[i].add(d.arena(), d.offset(e), d.length(e));
+                }
+            }
+        }
+    }
+
+    /**
+     * Make sure there is a group with empty key, for aggregation without group fields over no records
+     */
+    void ensureEmptyGroup(byte[] blankRecord) {
+        if (keyLength == 0 && groups.size() == 0) {
+            group(keyBuffer, 0, blankRecord, 0);
+        }
+    }
+
+    int size() {
+        return groups.size();
+    }
+
+    byte[] records() {
+        return records;
+    }
+
+    long count(int group) {
+        return counts[group];
+    }
+
+    long nonNullCount(int aggregate, int group) {
+        return nonNulls[aggregate][group];
+    }
+
+    long longState(int aggregate, int group) {
+        return longs[aggregate][group];
+    }
+
+    double doubleState(int aggregate, int group) {
+        return doubles[aggregate][group];
+    }
+
+    /**
+     * @return count of distinct values of the aggregate for every group
+     */
+    long[] distinctCounts(int aggregate) {
+        long[] result = new long[groups.size()];
+        BytesTable d = distinct[aggregate];
+        for (int e = 0; e < d.size(); e++) {
+            result[groups.find(d.arena(), d.offset(e), keyLength)]++;
+        }
+        return result;
+    }
+}
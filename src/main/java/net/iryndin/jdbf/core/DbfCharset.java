@@ -1,9 +1,12 @@
 package net.iryndin.jdbf.core;
 
+import net.iryndin.jdbf.util.JdbfUtils;
+
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Alexandr Zernov
@@ -79,19 +82,91 @@ public class DbfCharset {
         }
     };
 
+    // resolved charsets by code page, unsupported code pages are mapped to default charset
+    private static final Map<Integer, Charset> CODE_PAGE_CHARSETS = new ConcurrentHashMap<>();
+
+    // byte-to-char tables of single-byte charsets, NO_TABLE for multi-byte ones
+    private static final Map<Charset, char[]> DECODE_TABLES = new ConcurrentHashMap<>();
+    private static final char[] NO_TABLE = new char[0];
+
     public static Charset fromInt(byte bCharset) {
         int iCharset = 0xFF & bCharset;
         if (iCharset != 0x57) {
             final Integer cp = CHARSETS.get(iCharset);
             if (cp != null) {
-                try {
-                    return Charset.forName("cp" + cp);
-                } catch (UnsupportedCharsetException e) {
-                    // todo Log
-                }
+                return CODE_PAGE_CHARSETS.computeIfAbsent(cp, DbfCharset::forCodePage);
             }
         }
 
         return Charset.defaultCharset();
     }
+
+    private static Charset forCodePage(int cp) {
+        try {
+            return Charset.forName("cp" + cp);
+        } catch (UnsupportedCharsetException e) {
+            // todo Log
+            return Charset.defaultCharset();
+        }
+    }
+
+    /**
+     * Get table that maps every byte (as unsigned index) to a char
+     *
+     * @return copy of the table of 256 chars, or null if charset is not single-byte
+     */
+    public static char[] getDecodeTable(Charset charset) {
+        char[] table = decodeTable(charset);
+        return table == null ? null : table.clone();
+    }
+
+    /**
+     * @return cached table shared by all decoders, must not be changed
+     */
+    private static char[] decodeTable(Charset charset) {
+        char[] table = DECODE_TABLES.get(charset);
+        if (table == null) {
+            table = DECODE_TABLES.computeIfAbsent(charset, DbfCharset::buildDecodeTable);
+        }
+        return table == NO_TABLE ? null : table;
+    }
+
+    private static char[] buildDecodeTable(Charset charset) {
+        if (!charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1.0f) {
+            return NO_TABLE;
+        }
+        byte[] allBytes = new byte[256];
+        for (int i = 0; i < allBytes.length; i++) {
+            allBytes[i] = (byte) i;
+        }
+        String s = new String(allBytes, charset);
+        if (s.length() != allBytes.length) {
+            return NO_TABLE;
+        }
+        return s.toCharArray();
+    }
+
+    /**
+     * Decode string skipping leading and trailing spaces.
+     * Single-byte charsets are decoded by table lookup, others with {@link String#String(byte[], int, int, Charset)}.
+     *
+     * @return decoded string, or null if value consists of spaces only
+     */
+    public static String decodeTrimmed(byte[] bytes, int offset, int length, Charset charset) {
+        int start = offset;
+        int end = JdbfUtils.trimEnd(bytes, start, offset + length);
+        start = JdbfUtils.trimStart(bytes, start, end);
+        if (start == end) {
+            return null;
+        }
+        char[] table = decodeTable(charset);
+        if (table == null) {
+            return new String(bytes, start, end - start, charset);
+        }
+        char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = table[bytes[start + i] & 0xFF];
+        }
+        return new String(chars);
+    }
 }
@@ -8,6 +8,7 @@ public class DbfField {
 	private int length;	
 	private int numberOfDecimalPlaces;
 	private int offset;
+	private boolean nullable;
 	
 	public String getName() {
 		return name;
@@ -39,6 +40,16 @@ public class DbfField {
 	public void setOffset(int offset) {
 		this.offset = offset;
 	}
+	/**
+	 * @return true if field may hold null, that is FoxPro field with NULL flag.
+	 * Keys of such fields in FoxPro indexes start with a null flag byte
+	 */
+	public boolean isNullable() {
+		return nullable;
+	}
+	public void setNullable(boolean nullable) {
+		this.nullable = nullable;
+	}
 	@Override
 	public String toString() {
 		return "DbfField [\n  name=" + name + ", \n  type=" + type
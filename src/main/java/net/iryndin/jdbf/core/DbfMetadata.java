@@ -20,6 +20,7 @@ public class DbfMetadata {
     private byte ecnryptionFlag;
     private Charset charset;
     private Map<String, DbfField> fieldMap;
+    private volatile DbfSchema schema;
 
     public DbfFileTypeEnum getType() {
         return type;
@@ -99,7 +100,20 @@ public class DbfMetadata {
         processFields(fields);
     }
 
+    /**
+     * @return fields compiled into accessors, see {@link DbfSchema}
+     */
+    public DbfSchema getSchema() {
+        DbfSchema s = schema;
+        if (s == null) {
+            s = DbfSchema.of(this);
+            schema = s;
+        }
+        return s;
+    }
+
     private void processFields(List<DbfField> fields) {
+        schema = null;
         fieldMap = new LinkedHashMap<>(fields.size() * 2);
         int offset = 1;
         for (DbfField f : fields) {
@@ -0,0 +1,31 @@
+package net.iryndin.jdbf.core;
+
+/**
+ * Condition evaluated directly on raw record bytes, before a record is created.
+ * Standard conditions are created by {@link DbfPredicates}.
+ */
+public interface DbfPredicate {
+
+    /**
+     * @param bytes array that holds the record
+     * @param offset offset of the record in the array (the deletion flag byte)
+     * @return true if record satisfies the condition
+     */
+    boolean test(byte[] bytes, int offset);
+
+    default boolean test(DbfRecord record) {
+        return test(record.getSourceBytes(), record.getSourceOffset());
+    }
+
+    default DbfPredicate and(DbfPredicate other) {
+        return (bytes, offset) -> test(bytes, offset) && other.test(bytes, offset);
+    }
+
+    default DbfPredicate or(DbfPredicate other) {
+        return (bytes, offset) -> test(bytes, offset) || other.test(bytes, offset);
+    }
+
+    default DbfPredicate negate() {
+        return (bytes, offset) -> !test(bytes, offset);
+    }
+}
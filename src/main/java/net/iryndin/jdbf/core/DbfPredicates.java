@@ -0,0 +1,181 @@
+package net.iryndin.jdbf.core;
+
+import net.iryndin.jdbf.util.JdbfUtils;
+import net.iryndin.jdbf.util.NumberUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+
+/**
+ * Factory of predicates that compare raw record bytes.
+ *
+ * Comparison values are encoded once, when predicate is created,
+ * so testing a record allocates nothing.
+ * Values of Character fields are compared like {@link DbfRecord#getString(String)} returns them,
+ * i.e. without leading and trailing spaces.
+ */
+public class DbfPredicates {
+
+    private static final byte DELETED = 0x2A;
+
+    public static DbfPredicate deleted() {
+        return (bytes, offset) -> bytes[offset] == DELETED;
+    }
+
+    public static DbfPredicate notDeleted() {
+        return (bytes, offset) -> bytes[offset] != DELETED;
+    }
+
+    public static DbfPredicate and(DbfPredicate... predicates) {
+        final DbfPredicate[] ps = predicates.clone();
+        return (bytes, offset) -> {
+            for (DbfPredicate p : ps) {
+                if (!p.test(bytes, offset)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    public static DbfPredicate or(DbfPredicate... predicates) {
+        final DbfPredicate[] ps = predicates.clone();
+        return (bytes, offset) -> {
+            for (DbfPredicate p : ps) {
+                if (p.test(bytes, offset)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    public static DbfPredicate not(DbfPredicate predicate) {
+        return predicate.negate();
+    }
+
+    /**
+     * Character field value is equal to given one. Value is encoded in file charset.
+     */
+    public static DbfPredicate equalTo(DbfMetadata metadata, String fieldName, String value) {
+        return equalTo(metadata, fieldName, value, metadata.getCharset());
+    }
+
+    public static DbfPredicate equalTo(DbfMetadata metadata, String fieldName, String value, Charset charset) {
+        DbfField f = getField(metadata, fieldName, DbfFieldTypeEnum.Character);
+        final int fieldOffset = f.getOffset();
+        final int fieldLength = f.getLength();
+        final byte[] valueBytes = value.trim().getBytes(charset);
+        return (bytes, offset) -> {
+            int start = offset + fieldOffset;
+            int end = JdbfUtils.trimEnd(bytes, start, start + fieldLength);
+            start = JdbfUtils.trimStart(bytes, start, end);
+            return end - start == valueBytes.length && regionMatches(bytes, start, valueBytes);
+        };
+    }
+
+    /**
+     * Character field value starts with given prefix. Prefix is encoded in file charset.
+     */
+    public static DbfPredicate startsWith(DbfMetadata metadata, String fieldName, String prefix) {
+        return startsWith(metadata, fieldName, prefix, metadata.getCharset());
+    }
+
+    public static DbfPredicate startsWith(DbfMetadata metadata, String fieldName, String prefix, Charset charset) {
+        DbfField f = getField(metadata, fieldName, DbfFieldTypeEnum.Character);
+        final int fieldOffset = f.getOffset();
+        final int fieldLength = f.getLength();
+        final byte[] prefixBytes = prefix.getBytes(charset);
+        return (bytes, offset) -> {
+            int start = offset + fieldOffset;
+            int end = start + fieldLength;
+            start = JdbfUtils.trimStart(bytes, start, end);
+            return end - start >= prefixBytes.length && regionMatches(bytes, start, prefixBytes);
+        };
+    }
+
+    /**
+     * Numeric (N or F) field value is in range [min, max].
+     * Empty values and values with overflow marker never match.
+     *
+     * @param min lower bound, inclusive, or null for no bound
+     * @param max upper bound, inclusive, or null for no bound
+     */
+    public static DbfPredicate numberBetween(DbfMetadata metadata, String fieldName, BigDecimal min, BigDecimal max) {
+        DbfField f = getField(metadata, fieldName, DbfFieldTypeEnum.Numeric, DbfFieldTypeEnum.Float);
+        final int fieldOffset = f.getOffset();
+        final int fieldLength = f.getLength();
+        final int scale = f.getNumberOfDecimalPlaces();
+        if (scale > NumberUtils.MAX_SCALE) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' has more than " + NumberUtils.MAX_SCALE + " decimal places!");
+        }
+        // compare values as longs in the scale of the field
+        final long minValue = min == null ? Long.MIN_VALUE : NumberUtils.toUnscaledLong(min, scale, RoundingMode.CEILING);
+        final long maxValue = max == null ? Long.MAX_VALUE : NumberUtils.toUnscaledLong(max, scale, RoundingMode.FLOOR);
+        return (bytes, offset) -> {
+            int start = offset + fieldOffset;
+            if (NumberUtils.isNull(bytes, start, fieldLength)) {
+                return false;
+            }
+            long value = NumberUtils.parseUnscaledLong(bytes, start, fieldLength, scale);
+            return value >= minValue && value <= maxValue;
+        };
+    }
+
+    /**
+     * Date (D) field value is in range [from, to].
+     * Dates are stored as yyyyMMdd digits, so they are compared as bytes.
+     * Empty values never match.
+     *
+     * @param from lower bound, inclusive, or null for no bound
+     * @param to upper bound, inclusive, or null for no bound
+     */
+    public static DbfPredicate dateBetween(DbfMetadata metadata, String fieldName, LocalDate from, LocalDate to) {
+        DbfField f = getField(metadata, fieldName, DbfFieldTypeEnum.Date);
+        final int fieldOffset = f.getOffset();
+        final byte[] fromBytes = from == null ? null : JdbfUtils.writeDate(from);
+        final byte[] toBytes = to == null ? null : JdbfUtils.writeDate(to);
+        return (bytes, offset) -> {
+            int start = offset + fieldOffset;
+            if (bytes[start] == JdbfUtils.EMPTY || bytes[start] == 0) {
+                return false;
+            }
+            return (fromBytes == null || compare(bytes, start, fromBytes) >= 0)
+                    && (toBytes == null || compare(bytes, start, toBytes) <= 0);
+        };
+    }
+
+    private static DbfField getField(DbfMetadata metadata, String fieldName, DbfFieldTypeEnum... types) {
+        DbfField f = metadata.getField(fieldName);
+        if (f == null) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' does not exist!");
+        }
+        for (DbfFieldTypeEnum type : types) {
+            if (f.getType() == type) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("Field '" + fieldName + "' has unsupported type " + f.getType() + "!");
+    }
+
+    private static boolean regionMatches(byte[] bytes, int start, byte[] value) {
+        for (int i = 0; i < value.length; i++) {
+            if (bytes[start + i] != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compare(byte[] bytes, int start, byte[] value) {
+        for (int i = 0; i < value.length; i++) {
+            int d = (bytes[start + i] & 0xFF) - (value[i] & 0xFF);
+            if (d != 0) {
+                return d;
+            }
+        }
+        return 0;
+    }
+}
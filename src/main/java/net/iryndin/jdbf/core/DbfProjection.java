@@ -0,0 +1,107 @@
+package net.iryndin.jdbf.core;
+
+import net.iryndin.jdbf.reader.MemoReader;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Projection of records onto a subset of fields.
+ *
+ * Projected record holds only bytes of the requested fields (plus the deletion flag),
+ * and its metadata contains only those fields, so {@link DbfRecord#toMap()} and
+ * {@link DbfRecord#getStringRepresentation()} decode nothing else.
+ * Field offsets are resolved once, when projection is created.
+ */
+public class DbfProjection {
+    private final DbfMetadata metadata;
+    // copy plan: adjacent fields are copied with one arraycopy
+    private final int[] sourceOffsets;
+    private final int[] targetOffsets;
+    private final int[] lengths;
+
+    public DbfProjection(DbfMetadata sourceMetadata, String... fieldNames) {
+        List<DbfField> fields = new ArrayList<>(fieldNames.length);
+        List<int[]> segments = new ArrayList<>(fieldNames.length + 1);
+        // deletion flag
+        segments.add(new int[]{0, 0, 1});
+        int targetOffset = 1;
+        for (String name : fieldNames) {
+            DbfField f = sourceMetadata.getField(name);
+            if (f == null) {
+                throw new IllegalArgumentException("Field '" + name + "' does not exist!");
+            }
+            DbfField projected = new DbfField();
+            projected.setName(f.getName());
+            projected.setType(f.getType());
+            projected.setLength(f.getLength());
+            projected.setNumberOfDecimalPlaces(f.getNumberOfDecimalPlaces());
+            fields.add(projected);
+
+            int[] last = segments.get(segments.size() - 1);
+            if (last[0] + last[2] == f.getOffset()) {
+                last[2] += f.getLength();
+            } else {
+                segments.add(new int[]{f.getOffset(), targetOffset, f.getLength()});
+            }
+            targetOffset += f.getLength();
+        }
+
+        this.sourceOffsets = new int[segments.size()];
+        this.targetOffsets = new int[segments.size()];
+        this.lengths = new int[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            sourceOffsets[i] = segments.get(i)[0];
+            targetOffsets[i] = segments.get(i)[1];
+            lengths[i] = segments.get(i)[2];
+        }
+
+        this.metadata = new DbfMetadata();
+        try {
+            metadata.setType(sourceMetadata.getType());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Source metadata has no file type", e);
+        }
+        metadata.setUpdateDate(sourceMetadata.getUpdateDate());
+        metadata.setRecordsQty(sourceMetadata.getRecordsQty());
+        metadata.setFullHeaderLength(sourceMetadata.getFullHeaderLength());
+        metadata.setOneRecordLength(DbfMetadataUtils.calculateOneRecordLength(fields));
+        metadata.setUncompletedTxFlag(sourceMetadata.getUncompletedTxFlag());
+        metadata.setEcnryptionFlag(sourceMetadata.getEcnryptionFlag());
+        metadata.setCharset(sourceMetadata.getCharset());
+        metadata.setFields(fields);
+    }
+
+    /**
+     * @return metadata of projected records
+     */
+    public DbfMetadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Project record bytes that start at given offset of the source array
+     */
+    public DbfRecord apply(byte[] source, int sourceOffset, MemoReader memoReader, int recordNumber) {
+        byte[] b = new byte[metadata.getOneRecordLength()];
+        apply(source, sourceOffset, b, 0);
+        return DbfRecord.wrap(b, metadata, memoReader, recordNumber);
+    }
+
+    /**
+     * Copy bytes of projected fields into the target array
+     */
+    public void apply(byte[] source, int sourceOffset, byte[] target, int targetOffset) {
+        for (int i = 0; i < lengths.length; i++) {
+            System.arraycopy(source, sourceOffset + sourceOffsets[i], target, targetOffset + targetOffsets[i], lengths[i]);
+        }
+    }
+
+    public DbfRecord apply(DbfRecord record) {
+        DbfRecord projected = apply(record.getSourceBytes(), record.getSourceOffset(), record.getMemoReader(), record.getRecordNumber());
+        projected.setStringCharset(record.getStringCharset());
+        return projected;
+    }
+}
@@ -3,6 +3,7 @@ package net.iryndin.jdbf.core;
 import net.iryndin.jdbf.reader.MemoReader;
 import net.iryndin.jdbf.util.BitUtils;
 import net.iryndin.jdbf.util.JdbfUtils;
+import net.iryndin.jdbf.util.NumberUtils;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -19,10 +20,12 @@ public class DbfRecord {
     public static final String NUMERIC_OVERFLOW = "*";
 
     private byte[] bytes;
+    private int offset;
     private DbfMetadata metadata;
     private MemoReader memoReader;
     private Charset stringCharset;
-    private final int recordNumber;
+    private int recordNumber;
+    private boolean shared = false;
 
     public DbfRecord(byte[] source, DbfMetadata metadata, MemoReader memoReader, int recordNumber) {
         this.recordNumber = recordNumber;
@@ -32,6 +35,44 @@ public class DbfRecord {
         this.memoReader = memoReader;
     }
 
+    private DbfRecord(DbfMetadata metadata, MemoReader memoReader, byte[] bytes, int recordNumber) {
+        this.recordNumber = recordNumber;
+        this.bytes = bytes;
+        this.metadata = metadata;
+        this.memoReader = memoReader;
+    }
+
+    /**
+     * Create record over given bytes without copying them.
+     * The array must not be changed after this call.
+     */
+    public static DbfRecord wrap(byte[] bytes, DbfMetadata metadata, MemoReader memoReader, int recordNumber) {
+        return new DbfRecord(metadata, memoReader, bytes, recordNumber);
+    }
+
+    /**
+     * Point this record at another record's bytes, which start at given offset of the array.
+     * Used by cursors that reuse one record object for every row they read.
+     */
+    public void setSource(byte[] bytes, int offset, int recordNumber) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.recordNumber = recordNumber;
+        this.shared = true;
+    }
+
+    /**
+     * Create independent copy of this record.
+     * Records handed out by a cursor change on every step, so use this method to retain them.
+     */
+    public DbfRecord copy() {
+        byte[] b = new byte[metadata.getOneRecordLength()];
+        System.arraycopy(bytes, offset, b, 0, b.length);
+        DbfRecord rec = new DbfRecord(metadata, memoReader, b, recordNumber);
+        rec.setStringCharset(stringCharset);
+        return rec;
+    }
+
     /*
     public DbfRecord(DbfMetadata metadata) {
         this.metadata = metadata;
@@ -55,7 +96,7 @@ public class DbfRecord {
      * @return
      */
     public boolean isDeleted() {
-        return this.bytes[0] == 0x2A;
+        return this.bytes[offset] == 0x2A;
     }
 
     public Charset getStringCharset() {
@@ -66,20 +107,49 @@ public class DbfRecord {
         this.stringCharset = stringCharset;
     }
 
+    /**
+     * @return record bytes. For a record that shares a buffer with other records
+     * (see {@link #setSource(byte[], int, int)}) this is a copy.
+     */
     public byte[] getBytes() {
-        return bytes;
+        if (!shared) {
+            return bytes;
+        }
+        byte[] b = new byte[metadata.getOneRecordLength()];
+        System.arraycopy(bytes, offset, b, 0, b.length);
+        return b;
     }
 
     public int getRecordNumber() {
         return recordNumber;
     }
 
-    public String getString(String fieldName) {
+    byte[] getSourceBytes() {
+        return bytes;
+    }
+
+    int getSourceOffset() {
+        return offset;
+    }
+
+    MemoReader getMemoReader() {
+        return memoReader;
+    }
+
+    private Charset getCharset() {
         Charset charset = this.stringCharset;
         if (charset == null) {
             charset = metadata.getCharset();
         }
-        return getString(fieldName, charset);
+        return charset;
+    }
+
+    public String getString(String fieldName) {
+        return getString(getField(fieldName), getCharset());
+    }
+
+    public String getString(DbfField f) {
+        return getString(f, getCharset());
     }
 
     public String getString(String fieldName, String charsetName) {
@@ -87,100 +157,137 @@ public class DbfRecord {
     }
 
     public String getString(String fieldName, Charset charset) {
-        DbfField f = getField(fieldName);
-        int actualOffset = f.getOffset();
-        int actualLength = f.getLength();
-
-        byte[] fieldBytes = new byte[actualLength];
-        System.arraycopy(bytes, actualOffset, fieldBytes, 0, actualLength);
-
-        // check for empty strings
-        while ((actualLength > 0) && (bytes[actualOffset] == JdbfUtils.EMPTY)) {
-            actualOffset++;
-            actualLength--;
-        }
-
-        while ((actualLength > 0) && (bytes[actualOffset + actualLength - 1] == JdbfUtils.EMPTY)) {
-            actualLength--;
-        }
-
-        if (actualLength == 0) {
-            return null;
-        }
+        return getString(getField(fieldName), charset);
+    }
 
-        return new String(bytes, actualOffset, actualLength, charset);
-
-		/*
-        byte[] b = new byte[actualLength];
-		System.arraycopy(bytes, actualOffset, b, 0, actualLength);
-		// check for empty strings
-		{
-			for (int i = b.length-1; i>=0; i--) {
-				if (b[i] == JdbfUtils.EMPTY) {
-					actualLength--;
-				} else {
-					break;
-				}
-			}
-			if (actualLength == 0) {
-				return null;
-			}
-		}
-		return new String(b, 0, actualLength, charset);
-		*/
+    public String getString(DbfField f, Charset charset) {
+        return DbfCharset.decodeTrimmed(bytes, offset + f.getOffset(), f.getLength(), charset);
     }
 
     public byte[] getMemoAsBytes(String fieldName) throws IOException {
-        DbfField f = getField(fieldName);
-        if (f.getType() != DbfFieldTypeEnum.Memo) {
-            throw new IllegalArgumentException("Field '" + fieldName + "' is not MEMO field!");
-        }
-        int offsetInBlocks = 0;
-        if (f.getLength() == 10) {
-            offsetInBlocks = getBigDecimal(fieldName).intValueExact();
-        } else {
-            byte[] dbfFieldBytes = new byte[f.getLength()];
-            System.arraycopy(bytes, f.getOffset(), dbfFieldBytes, 0, f.getLength());
-            offsetInBlocks = BitUtils.makeInt(dbfFieldBytes[0], dbfFieldBytes[1], dbfFieldBytes[2], dbfFieldBytes[3]);
-        }
+        return getMemoAsBytes(getField(fieldName));
+    }
+
+    public byte[] getMemoAsBytes(DbfField f) throws IOException {
+        int offsetInBlocks = getMemoOffsetInBlocks(f);
         if (offsetInBlocks == 0) return new byte[0];
         return memoReader.read(offsetInBlocks).getValue();
     }
 
     public String getMemoAsString(String fieldName, Charset charset) throws IOException {
-        DbfField f = getField(fieldName);
-        if (f.getType() != DbfFieldTypeEnum.Memo) {
-            throw new IllegalArgumentException("Field '" + fieldName + "' is not MEMO field!");
-        }
-        int offsetInBlocks = 0;
-        if (f.getLength() == 10) {
-            offsetInBlocks = getBigDecimal(fieldName).intValueExact();
-        } else {
-            byte[] dbfFieldBytes = new byte[f.getLength()];
-            System.arraycopy(bytes, f.getOffset(), dbfFieldBytes, 0, f.getLength());
-            offsetInBlocks = BitUtils.makeInt(dbfFieldBytes[0], dbfFieldBytes[1], dbfFieldBytes[2], dbfFieldBytes[3]);
-        }
+        return getMemoAsString(getField(fieldName), charset);
+    }
+
+    public String getMemoAsString(DbfField f, Charset charset) throws IOException {
+        int offsetInBlocks = getMemoOffsetInBlocks(f);
         if (offsetInBlocks == 0) return "";
         return memoReader.read(offsetInBlocks).getValueAsString(charset);
     }
 
     public String getMemoAsString(String fieldName) throws IOException {
-        Charset charset = getStringCharset();
-        if (charset == null) {
-            charset = metadata.getCharset();
+        return getMemoAsString(getField(fieldName), getCharset());
+    }
+
+    public String getMemoAsString(DbfField f) throws IOException {
+        return getMemoAsString(f, getCharset());
+    }
+
+    private int getMemoOffsetInBlocks(DbfField f) {
+        if (f.getType() != DbfFieldTypeEnum.Memo) {
+            throw new IllegalArgumentException("Field '" + f.getName() + "' is not MEMO field!");
+        }
+        if (f.getLength() == 10) {
+            return getBigDecimal(f).intValueExact();
         }
-        return getMemoAsString(fieldName, charset);
+        return BitUtils.makeInt(bytes, offset + f.getOffset());
     }
 
     public LocalDate getDate(String fieldName) {
-        String s = getString(fieldName);
+        return getDate(getField(fieldName));
+    }
+
+    public LocalDate getDate(DbfField f) {
+        if (f.getType() == DbfFieldTypeEnum.Date && f.getLength() == 8) {
+            long epochDay = JdbfUtils.parseEpochDay(bytes, offset + f.getOffset());
+            if (epochDay != JdbfUtils.INVALID_EPOCH_DAY) {
+                return JdbfUtils.localDateOfEpochDay(epochDay);
+            }
+        }
+        String s = getString(f);
         if (s == null) {
             return null;
         }
         return JdbfUtils.parseDate(s);
     }
 
+    /**
+     * Get value of Date field as number of days since 1970-01-01, decoded right from the record bytes.
+     * Null values (see {@link #isNull(String)}) are returned as 0.
+     */
+    public long getEpochDay(String fieldName) {
+        return getEpochDay(getField(fieldName));
+    }
+
+    public long getEpochDay(DbfField f) {
+        if (f.getType() != DbfFieldTypeEnum.Date) {
+            throw new IllegalArgumentException("Field '" + f.getName() + "' is not DATE field!");
+        }
+        long epochDay = JdbfUtils.parseEpochDay(bytes, offset + f.getOffset());
+        if (epochDay != JdbfUtils.INVALID_EPOCH_DAY) {
+            return epochDay;
+        }
+        if (isNull(f)) {
+            return 0;
+        }
+        // let the formatter report what is wrong
+        return JdbfUtils.parseDate(getString(f)).toEpochDay();
+    }
+
+    /**
+     * Get value of DateTime, Timestamp or Date field as milliseconds since 1970-01-01T00:00:00,
+     * decoded right from the record bytes. Date and time are taken as UTC,
+     * while {@link #getDateTime(String)} takes them in the default time zone.
+     * Null values (see {@link #isNull(String)}) are returned as 0.
+     */
+    public long getEpochMillis(String fieldName) {
+        return getEpochMillis(getField(fieldName));
+    }
+
+    public long getEpochMillis(DbfField f) {
+        int start = offset + f.getOffset();
+        switch (f.getType()) {
+            case Date:
+                return getEpochDay(f) * JdbfUtils.MILLIS_PER_DAY;
+            case DateTime:
+            case Timestamp:
+                if (isNull(f)) {
+                    return 0;
+                }
+                if (f.getLength() == 8) {
+                    // Julian day and milliseconds since midnight
+                    int date = BitUtils.makeInt(bytes, start);
+                    int time = BitUtils.makeInt(bytes, start + 4);
+                    return (date - (long) JdbfUtils.JULIAN_DAY_OF_EPOCH) * JdbfUtils.MILLIS_PER_DAY + time;
+                }
+                // yyyyMMddHHmmss
+                long epochDay = JdbfUtils.parseEpochDay(bytes, start);
+                int hours = JdbfUtils.parseDigits(bytes, start + 8, 2);
+                int minutes = JdbfUtils.parseDigits(bytes, start + 10, 2);
+                int seconds = JdbfUtils.parseDigits(bytes, start + 12, 2);
+                if (epochDay == JdbfUtils.INVALID_EPOCH_DAY || hours < 0 || minutes < 0 || seconds < 0) {
+                    throw new IllegalArgumentException("Field '" + f.getName() + "' has invalid value '" + getString(f) + "'");
+                }
+                return epochDay * JdbfUtils.MILLIS_PER_DAY + ((hours * 60L + minutes) * 60 + seconds) * 1000;
+            default:
+                throw new IllegalArgumentException("Field '" + f.getName() + "' is not DATE/TIME field!");
+        }
+    }
+
     public ZonedDateTime getDateTime(String fieldName) {
+        return getDateTime(getField(fieldName));
+    }
+
+    public ZonedDateTime getDateTime(DbfField field) {
         // Дата и время.
         // Существует в двух вариантах: текстовом и бинарном.
         // Текстовый вариант - строка из 14 цифр в формате ГГГГММДДЧЧММСС; пустое значение - 14 пробелов.
@@ -189,10 +296,9 @@ public class DbfRecord {
         //     второе двойное слово - число миллисекунд от начала суток;
         //     пустое значение - 8 нулевых байтов
 
-        final DbfField field = getField(fieldName);
         if (field.getType() == DbfFieldTypeEnum.DateTime) {
             if (field.getLength() != 8) {
-                String s = getString(fieldName);
+                String s = getString(field);
                 if (s == null) {
                     return null;
                 }
@@ -200,15 +306,17 @@ public class DbfRecord {
             }
         }
 
-        final byte[] bytes = getBytes(fieldName);
-        final int dateInDays = BitUtils.makeInt(bytes[0], bytes[1], bytes[2], bytes[3]);
-        final int time = BitUtils.makeInt(bytes[4], bytes[5], bytes[6], bytes[7]);
+        final int dateInDays = BitUtils.makeInt(bytes, offset + field.getOffset());
+        final int time = BitUtils.makeInt(bytes, offset + field.getOffset() + 4);
         return JdbfUtils.parseJulianDateTime(dateInDays, time, ZoneId.systemDefault());
     }
 
     public BigDecimal getBigDecimal(String fieldName) {
-        DbfField f = getField(fieldName);
-        String s = getString(fieldName);
+        return getBigDecimal(getField(fieldName));
+    }
+
+    public BigDecimal getBigDecimal(DbfField f) {
+        String s = getString(f);
 
         if (s == null || s.trim().length() == 0) {
             return null;
@@ -226,16 +334,20 @@ public class DbfRecord {
     }
 
     public Boolean getBoolean(String fieldName) {
-        String s = getString(fieldName);
-        if (s == null) {
-            return null;
-        }
-        if (s.equalsIgnoreCase("t")) {
-            return Boolean.TRUE;
-        } else if (s.equalsIgnoreCase("f")) {
-            return Boolean.FALSE;
-        } else {
-            return null;
+        return getBoolean(getField(fieldName));
+    }
+
+    /**
+     * Get value of Logical field: T, t, Y or y is true, F, f, N or n is false, anything else ('?', space) is null
+     */
+    public Boolean getBoolean(DbfField f) {
+        switch (JdbfUtils.logicalValue(bytes[offset + f.getOffset()])) {
+            case 1:
+                return Boolean.TRUE;
+            case 0:
+                return Boolean.FALSE;
+            default:
+                return null;
         }
     }
 
@@ -245,9 +357,12 @@ public class DbfRecord {
     }
 
     public byte[] getBytes(String fieldName) {
-        DbfField f = getField(fieldName);
+        return getBytes(getField(fieldName));
+    }
+
+    public byte[] getBytes(DbfField f) {
         byte[] b = new byte[f.getLength()];
-        System.arraycopy(bytes, f.getOffset(), b, 0, f.getLength());
+        System.arraycopy(bytes, offset + f.getOffset(), b, 0, f.getLength());
         return b;
     }
 
@@ -255,13 +370,118 @@ public class DbfRecord {
         DbfField f = getField(fieldName);
         // TODO:
         // assert fieldBytes.length = f.getLength()
-        System.arraycopy(fieldBytes, 0, bytes, f.getOffset(), f.getLength());
+        System.arraycopy(fieldBytes, 0, bytes, offset + f.getOffset(), f.getLength());
     }
 
     public Integer getInteger(String fieldName) {
-        byte[] bytes = getBytes(fieldName);
+        return getInteger(getField(fieldName));
+    }
+
+    public Integer getInteger(DbfField f) {
+        return BitUtils.makeInt(bytes, offset + f.getOffset());
+    }
+
+    /**
+     * Check if field value is null: empty (spaces or zero bytes), for numeric fields overflowed ('*'),
+     * for Logical fields anything but T, F, Y or N.
+     * Values of binary Integer, Currency and Double fields are never null.
+     */
+    public boolean isNull(String fieldName) {
+        return isNull(getField(fieldName));
+    }
+
+    public boolean isNull(DbfField f) {
+        int start = offset + f.getOffset();
+        switch (f.getType()) {
+            case Numeric:
+            case Float:
+                return NumberUtils.isNull(bytes, start, f.getLength());
+            case Integer:
+            case Currency:
+            case Double:
+            case Double7:
+                return false;
+            case Logical:
+                return JdbfUtils.logicalValue(bytes[start]) < 0;
+            default:
+                return JdbfUtils.isBlank(bytes, start, f.getLength());
+        }
+    }
+
+    /**
+     * Get value of Numeric, Float, Integer or Currency field as long, fraction is truncated.
+     * Value is parsed right from the record bytes, without creating objects.
+     * Null values (see {@link #isNull(String)}) are returned as 0.
+     */
+    public long getLong(String fieldName) {
+        return getUnscaledLong(getField(fieldName), 0);
+    }
+
+    public long getLong(DbfField f) {
+        return getUnscaledLong(f, 0);
+    }
+
+    /**
+     * Get value of Numeric, Float, Integer or Currency field as value * 10^scale, extra fraction digits are truncated.
+     * E.g. 12.345 is returned as 1234 for scale 2. Use field's number of decimal places to get exact value.
+     * Null values (see {@link #isNull(String)}) are returned as 0.
+     *
+     * @param scale scale of the result, 0..18
+     */
+    public long getUnscaledLong(String fieldName, int scale) {
+        return getUnscaledLong(getField(fieldName), scale);
+    }
+
+    public long getUnscaledLong(DbfField f, int scale) {
+        int start = offset + f.getOffset();
+        switch (f.getType()) {
+            case Numeric:
+            case Float:
+                if (NumberUtils.isNull(bytes, start, f.getLength())) {
+                    return 0;
+                }
+                return NumberUtils.parseUnscaledLong(bytes, start, f.getLength(), scale);
+            case Integer:
+                return BitUtils.makeInt(bytes, start) * NumberUtils.powerOfTen(scale);
+            case Currency: {
+                // 8 bytes integer with 4 implied decimal places
+                long value = BitUtils.makeLong(bytes, start);
+                return scale >= JdbfUtils.CURRENCY_SCALE
+                        ? value * NumberUtils.powerOfTen(scale - JdbfUtils.CURRENCY_SCALE)
+                        : value / NumberUtils.powerOfTen(JdbfUtils.CURRENCY_SCALE - scale);
+            }
+            default:
+                throw new IllegalArgumentException("Field '" + f.getName() + "' is not numeric field!");
+        }
+    }
+
+    /**
+     * Get value of Numeric, Float, Integer, Currency or binary Double field as double.
+     * Null values (see {@link #isNull(String)}) are returned as 0.
+     */
+    public double getDouble(String fieldName) {
+        return getDouble(getField(fieldName));
+    }
 
-        return BitUtils.makeInt(bytes[0], bytes[1], bytes[2], bytes[3]);
+    public double getDouble(DbfField f) {
+        switch (f.getType()) {
+            case Numeric:
+            case Float: {
+                int start = offset + f.getOffset();
+                if (NumberUtils.isNull(bytes, start, f.getLength())) {
+                    return 0;
+                }
+                return NumberUtils.parseDouble(bytes, start, f.getLength());
+            }
+            case Currency:
+                return (double) getUnscaledLong(f, JdbfUtils.CURRENCY_SCALE) / NumberUtils.powerOfTen(JdbfUtils.CURRENCY_SCALE);
+            case Double:
+            case Double7:
+                // 8 bytes IEEE 754 value, little-endian like the other binary fields
+                return java.lang.Double.longBitsToDouble(BitUtils.makeLong(bytes, offset + f.getOffset()));
+            default:
+                return getLong(f);
+        }
     }
 
     public DbfField getField(String fieldName) {
@@ -273,39 +493,39 @@ public class DbfRecord {
     }
 
     public String getStringRepresentation() throws Exception {
-        StringBuilder sb = new StringBuilder(bytes.length * 10);
+        StringBuilder sb = new StringBuilder(metadata.getOneRecordLength() * 10);
         for (DbfField f : getFields()) {
             sb.append(f.getName()).append("=");
             switch (f.getType()) {
                 case Character: {
-                    String s = getString(f.getName());
+                    String s = getString(f);
                     sb.append(s);
                     break;
                 }
                 case Date: {
-                    LocalDate d = getDate(f.getName());
+                    LocalDate d = getDate(f);
                     sb.append(d);
                     break;
                 }
                 case Numeric: {
-                    BigDecimal bd = getBigDecimal(f.getName());
+                    BigDecimal bd = getBigDecimal(f);
                     sb.append(bd);
                     break;
                 }
                 case Logical: {
-                    Boolean b = getBoolean(f.getName());
+                    Boolean b = getBoolean(f);
                     sb.append(b);
                     break;
                 }
                 /* @deprecated */
                 case DateTime:
                 case Timestamp: {
-                    final ZonedDateTime dt = getDateTime(f.getName());
+                    final ZonedDateTime dt = getDateTime(f);
                     sb.append(dt);
                     break;
                 }
                 case Memo: {
-                    final String ms = getMemoAsString(f.getName());
+                    final String ms = getMemoAsString(f);
                     sb.append(ms);
                     break;
                 }
@@ -315,46 +535,16 @@ public class DbfRecord {
         return sb.toString();
     }
 
-    public Map<String, Object> toMap() throws IOException {
-        Map<String, Object> map = new LinkedHashMap<>(getFields().size() * 2);
-
-        for (DbfField f : getFields()) {
-            String name = f.getName();
-
-            switch (f.getType()) {
-
-                case Character:
-                    map.put(name, getString(name));
-                    break;
-
-                case Date:
-                    map.put(name, getDate(name));
-                    break;
-
-                case Numeric:
-                    map.put(name, getBigDecimal(name));
-                    break;
-
-                case Logical:
-                    map.put(name, getBoolean(name));
-                    break;
-
-                case Integer:
-                    map.put(name, getInteger(name));
-                    break;
-
-                /* @deprecated */
-                case DateTime:
-                case Timestamp:
-                    map.put(name, getDateTime(name));
-                    break;
-
-                case Memo:
-                    map.put(name, getMemoAsString(name));
-                    break;
-            }
-        }
+    /**
+     * Get value of the field by its index, decoded like {@link #toMap()} does
+     *
+     * @param index index of the field, starting from 0
+     */
+    public Object getValue(int index) throws IOException {
+        return metadata.getSchema().get(index).getValue(this);
+    }
 
-        return map;
+    public Map<String, Object> toMap() throws IOException {
+        return metadata.getSchema().toMap(this);
     }
 }
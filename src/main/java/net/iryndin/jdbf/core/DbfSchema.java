@@ -0,0 +1,109 @@
+package net.iryndin.jdbf.core;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fields of a DBF file compiled into {@link FieldAccessor}s.
+ *
+ * Use {@link DbfMetadata#getSchema()} to get the schema of a file: it is kept by the metadata instance.
+ * Up to {@link #CACHE_SIZE} recently used schemas are also cached by field structure
+ * (names, types, lengths and decimal places), so files with the same structure share one instance.
+ */
+public class DbfSchema {
+    public static final int CACHE_SIZE = 64;
+
+    private static final Map<String, DbfSchema> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final FieldAccessor[] accessors;
+    private final Map<String, FieldAccessor> accessorMap;
+
+    private DbfSchema(Iterable<DbfField> fields) {
+        Map<String, FieldAccessor> map = new HashMap<>();
+        int ordinal = 0;
+        for (DbfField f : fields) {
+            map.put(f.getName(), FieldAccessor.of(f, ordinal++));
+        }
+        this.accessors = new FieldAccessor[ordinal];
+        for (FieldAccessor a : map.values()) {
+            accessors[a.getOrdinal()] = a;
+        }
+        this.accessorMap = map;
+    }
+
+    /**
+     * @return compiled schema of given metadata, shared with metadata of the same structure
+     */
+    static DbfSchema of(DbfMetadata metadata) {
+        String key = metadata.getFieldsStringRepresentation();
+        if (key == null) {
+            throw new IllegalArgumentException("Metadata has no fields");
+        }
+        synchronized (CACHE) {
+            DbfSchema schema = CACHE.get(key);
+            if (schema == null) {
+                schema = new DbfSchema(metadata.getFields());
+                CACHE.put(key, schema);
+                if (CACHE.size() > CACHE_SIZE) {
+                    Iterator<DbfSchema> it = CACHE.values().iterator();
+                    it.next();
+                    it.remove();
+                }
+            }
+            return schema;
+        }
+    }
+
+    public int size() {
+        return accessors.length;
+    }
+
+    /**
+     * @param index index of the field, starting from 0
+     */
+    public FieldAccessor get(int index) {
+        if (index < 0 || index >= accessors.length) {
+            throw new IllegalArgumentException("Field index " + index + " is out of range [0, " + accessors.length + ")");
+        }
+        return accessors[index];
+    }
+
+    public FieldAccessor get(String fieldName) {
+        FieldAccessor a = accessorMap.get(fieldName);
+        if (a == null) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' does not exist!");
+        }
+        return a;
+    }
+
+    /**
+     * @return index of the field, or -1 if there is no such field
+     */
+    public int indexOf(String fieldName) {
+        FieldAccessor a = accessorMap.get(fieldName);
+        return a == null ? -1 : a.getOrdinal();
+    }
+
+    public List<FieldAccessor> getAccessors() {
+        return Collections.unmodifiableList(Arrays.asList(accessors));
+    }
+
+    /**
+     * @see DbfRecord#toMap()
+     */
+    public Map<String, Object> toMap(DbfRecord record) throws IOException {
+        Map<String, Object> map = new LinkedHashMap<>(accessors.length * 2);
+        for (FieldAccessor a : accessors) {
+            if (a.isMapped()) {
+                map.put(a.getName(), a.getValue(record));
+            }
+        }
+        return map;
+    }
+}
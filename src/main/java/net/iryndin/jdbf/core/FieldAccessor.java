@@ -0,0 +1,351 @@
+package net.iryndin.jdbf.core;
+
+import net.iryndin.jdbf.util.BitUtils;
+import net.iryndin.jdbf.util.JdbfUtils;
+import net.iryndin.jdbf.util.NumberUtils;
+
+import java.io.IOException;
+
+/**
+ * Compiled handle of one field of a record.
+ *
+ * Accessor is resolved once per schema (see {@link DbfSchema}), so reading a value
+ * needs neither a field lookup by name nor a switch on the field type:
+ * the decoder is chosen when accessor is created.
+ * Accessors hold no record state and may be shared between threads and files of the same structure.
+ */
+public abstract class FieldAccessor {
+    private final DbfField field;
+    private final int ordinal;
+    private final int offset;
+    private final int length;
+
+    FieldAccessor(DbfField field, int ordinal) {
+        this.field = field;
+        this.ordinal = ordinal;
+        this.offset = field.getOffset();
+        this.length = field.getLength();
+    }
+
+    /**
+     * Create accessor with a decoder specialised for the field type
+     *
+     * @param ordinal index of the field in the record, starting from 0
+     */
+    public static FieldAccessor of(DbfField field, int ordinal) {
+        switch (field.getType()) {
+            case Character:
+                return new CharacterAccessor(field, ordinal);
+            case Date:
+                return new DateAccessor(field, ordinal);
+            case Numeric:
+                return new NumericAccessor(field, ordinal, true);
+            case Float:
+                return new NumericAccessor(field, ordinal, false);
+            case Logical:
+                return new LogicalAccessor(field, ordinal);
+            case Integer:
+                return new IntegerAccessor(field, ordinal);
+            case Currency:
+                return new CurrencyAccessor(field, ordinal);
+            case DateTime:
+            case Timestamp:
+                return new DateTimeAccessor(field, ordinal);
+            case Memo:
+                return new MemoAccessor(field, ordinal);
+            default:
+                return new BytesAccessor(field, ordinal);
+        }
+    }
+
+    public DbfField getField() {
+        return field;
+    }
+
+    public String getName() {
+        return field.getName();
+    }
+
+    public DbfFieldTypeEnum getType() {
+        return field.getType();
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * @return offset of the field in the record bytes
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return index of the first byte of the field in {@link DbfRecord#getSourceBytes()}
+     */
+    final int start(DbfRecord record) {
+        return record.getSourceOffset() + offset;
+    }
+
+    /**
+     * @return value decoded according to the field type, like {@link DbfRecord#toMap()} does
+     */
+    public abstract Object getValue(DbfRecord record) throws IOException;
+
+    /**
+     * @return true if {@link DbfRecord#toMap()} puts the value of this field into the map
+     */
+    boolean isMapped() {
+        return true;
+    }
+
+    public String getString(DbfRecord record) {
+        return record.getString(field);
+    }
+
+    public boolean isNull(DbfRecord record) {
+        return record.isNull(field);
+    }
+
+    public long getLong(DbfRecord record) {
+        return record.getLong(field);
+    }
+
+    public long getUnscaledLong(DbfRecord record, int scale) {
+        return record.getUnscaledLong(field, scale);
+    }
+
+    public double getDouble(DbfRecord record) {
+        return record.getDouble(field);
+    }
+
+    public long getEpochDay(DbfRecord record) {
+        return record.getEpochDay(field);
+    }
+
+    public long getEpochMillis(DbfRecord record) {
+        return record.getEpochMillis(field);
+    }
+
+    public byte[] getBytes(DbfRecord record) {
+        return record.getBytes(field);
+    }
+
+    @Override
+    public String toString() {
+        return "FieldAccessor [" + ordinal + ": " + field.getStringRepresentation() + "]";
+    }
+
+    private static final class CharacterAccessor extends FieldAccessor {
+        CharacterAccessor(DbfField field, int ordinal) {
+            super(field, ordinal);
+        }
+
+        @Override
+        public Object getValue(DbfRecord record) {
+            return record.getString(getField());
+        }
+    }
+
+    private static final class DateAccessor extends FieldAccessor {
+        DateAccessor(DbfField field, int ordinal) {
+            super(field, ordinal);
+        }
+
+        @Override
+        public Object getValue(DbfRecord record) {
+            return record.getDate(getField());
+        }
+
+        @Override
+        public long getEpochDay(DbfRecord record) {
+            long epochDay = JdbfUtils.parseEpochDay(record.getSourceBytes(), start(record));
+            // nulls and invalid dates are left to the record
+            return epochDay != JdbfUtils.INVALID_EPOCH_DAY ? epochDay : record.getEpochDay(getField());
+        }
+    }
+
+    private static final class NumericAccessor extends FieldAccessor {
+        private final boolean mapped;
+
+        NumericAccessor(DbfField field, int ordinal, boolean mapped) {
+            super(field, ordinal);
+            this.mapped = mapped;
+        }
+
+        @Override
+        public Object getValue(DbfRecord record) {
+            return record.getBigDecimal(getField());
+        }
+
+        @Override
+        boolean isMapped() {
+            return mapped;
+        }
+
+        @Override
+        public boolean isNull(DbfRecord record) {
+            return NumberUtils.isNull(record.getSourceBytes(), start(record), getLength());
+        }
+
+        @Override
+        public long getLong(DbfRecord record) {
+            return getUnscaledLong(record, 0);
+        }
+
+        @Override
+        public long getUnscaledLong(DbfRecord record, int scale) {
+            byte[] bytes = record.getSourceBytes();
+            int start = start(record);
+            if (NumberUtils.isNull(bytes, start, getLength())) {
+                return 0;
+            }
+            return NumberUtils.parseUnscaledLong(bytes, start, getLength(), scale);
+        }
+
+        @Override
+        public double getDouble(DbfRecord record) {
+            byte[] bytes = record.getSourceBytes();
+            int start = start(record);
+            if (NumberUtils.isNull(bytes, start, getLength())) {
+                return 0;
+            }
+            return NumberUtils.parseDouble(bytes, start, getLength());
+        }
+    }
+
+    private static final class LogicalAccessor extends FieldAccessor {
+        LogicalAccessor(DbfField field, int ordinal) {
+            super(field, ordinal);
+        }
+
+        @Override
+        public Object getValue(DbfRecord record) {
+            return record.getBoolean(getField());
+        }
+    }
+
+    private static final class IntegerAccessor extends FieldAccessor {
+        IntegerAccessor(DbfField field, int ordinal) {
+            super(field, ordinal);
+        }
+
+        private int value(DbfRecord record) {
+            return BitUtils.makeInt(record.getSourceBytes(), start(record));
+        }
+
+        @Override
+        public Object getValue(DbfRecord record) {
+            return value(record);
+        }
+
+        @Override
+        public boolean isNull(DbfRecord record) {
+            return false;
+        }
+
+        @Override
+        public long getLong(DbfRecord record) {
+            return value(record);
+        }
+
+        @Override
+        public long getUnscaledLong(DbfRecord record, int scale) {
+            return value(record) * NumberUtils.powerOfTen(scale);
+        }
+
+        @Override
+        public double getDouble(DbfRecord record) {
+            return value(record);
+        }
+    }
+
+    private static final class CurrencyAccessor extends FieldAccessor {
+        CurrencyAccessor(DbfField field, int ordinal) {
+            super(field, ordinal);
+        }
+
+        /**
+         * @return 8 bytes integer with 4 implied decimal places
+         */
+        private long value(DbfRecord record) {
+            return BitUtils.makeLong(record.getSourceBytes(), start(record));
+        }
+
+        @Override
+        public Object getValue(DbfRecord record) {
+            return record.getBytes(getField());
+        }
+
+        @Override
+        boolean isMapped() {
+            return false;
+        }
+
+        @Override
+        public boolean isNull(DbfRecord record) {
+            return false;
+        }
+
+        @Override
+        public long getLong(DbfRecord record) {
+            return value(record) / NumberUtils.powerOfTen(JdbfUtils.CURRENCY_SCALE);
+        }
+
+        @Override
+        public long getUnscaledLong(DbfRecord record, int scale) {
+            long value = value(record);
+            return scale >= JdbfUtils.CURRENCY_SCALE
+                    ? value * NumberUtils.powerOfTen(scale - JdbfUtils.CURRENCY_SCALE)
+                    : value / NumberUtils.powerOfTen(JdbfUtils.CURRENCY_SCALE - scale);
+        }
+
+        @Override
+        public double getDouble(DbfRecord record) {
+            return (double) value(record) / NumberUtils.powerOfTen(JdbfUtils.CURRENCY_SCALE);
+        }
+    }
+
+    private static final class DateTimeAccessor extends FieldAccessor {
+        DateTimeAccessor(DbfField field, int ordinal) {
+            super(field, ordinal);
+        }
+
+        @Override
+        public Object getValue(DbfRecord record) {
+            return record.getDateTime(getField());
+        }
+    }
+
+    private static final class MemoAccessor extends FieldAccessor {
+        MemoAccessor(DbfField field, int ordinal) {
+            super(field, ordinal);
+        }
+
+        @Override
+        public Object getValue(DbfRecord record) throws IOException {
+            return record.getMemoAsString(getField());
+        }
+    }
+
+    private static final class BytesAccessor extends FieldAccessor {
+        BytesAccessor(DbfField field, int ordinal) {
+            super(field, ordinal);
+        }
+
+        @Override
+        public Object getValue(DbfRecord record) {
+            return record.getBytes(getField());
+        }
+
+        @Override
+        boolean isMapped() {
+            return false;
+        }
+    }
+}
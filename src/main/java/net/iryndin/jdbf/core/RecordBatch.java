@@ -0,0 +1,324 @@
+package net.iryndin.jdbf.core;
+
+import net.iryndin.jdbf.util.BitUtils;
+import net.iryndin.jdbf.util.JdbfUtils;
+import net.iryndin.jdbf.util.NumberUtils;
+
+import java.nio.charset.Charset;
+import java.util.BitSet;
+
+/**
+ * Batch of records decoded into column vectors.
+ *
+ * Every column of a supported type is decoded into a primitive array indexed by row:
+ * <ul>
+ * <li>Numeric and Float without decimal places, Integer: {@link #getLongs(int)}</li>
+ * <li>Currency: {@link #getLongs(int)}, unscaled, with 4 implied decimal places (see {@link #getScale(int)})</li>
+ * <li>Numeric and Float with decimal places, Double: {@link #getDoubles(int)}</li>
+ * <li>Date: {@link #getEpochDays(int)}</li>
+ * <li>Character: {@link #getOffsets(int)} and {@link #getLengths(int)} of the value
+ * (without padding) in the shared {@link #getArena()}</li>
+ * </ul>
+ * Null values (blank or overflowed) are 0 in the vectors and are marked in {@link #getNulls(int)}.
+ * Values of Numeric and Float columns without decimal places that do not fit into long are null too.
+ * Columns of other types (Logical, Memo, DateTime, ...) have no vectors.
+ *
+ * Batch is meant to be reused: {@link #clear()} keeps all the arrays.
+ */
+public class RecordBatch {
+    private final DbfMetadata metadata;
+    private final DbfField[] fields;
+    private final int capacity;
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final int[][] epochDays;
+    private final int[][] offsets;
+    private final int[][] lengths;
+    private final BitSet[] nulls;
+    private final BitSet deleted;
+    private final int[] recordNumbers;
+    private final byte[] arena;
+    private int arenaSize = 0;
+    private int size = 0;
+
+    /**
+     * @param capacity max number of rows in the batch
+     */
+    public RecordBatch(DbfMetadata metadata, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Batch capacity must be positive");
+        }
+        this.metadata = metadata;
+        this.fields = metadata.getFields().toArray(new DbfField[0]);
+        this.capacity = capacity;
+        this.longs = new long[fields.length][];
+        this.doubles = new double[fields.length][];
+        this.epochDays = new int[fields.length][];
+        this.offsets = new int[fields.length][];
+        this.lengths = new int[fields.length][];
+        this.nulls = new BitSet[fields.length];
+        this.deleted = new BitSet(capacity);
+        this.recordNumbers = new int[capacity];
+
+        long arenaLength = 0;
+        for (int i = 0; i < fields.length; i++) {
+            DbfField f = fields[i];
+            nulls[i] = new BitSet(capacity);
+            switch (f.getType()) {
+                case Numeric:
+                case Float:
+                    if (f.getNumberOfDecimalPlaces() > 0) {
+                        doubles[i] = new double[capacity];
+                    } else {
+                        longs[i] = new long[capacity];
+                    }
+                    break;
+                case Integer:
+                case Currency:
+                    longs[i] = new long[capacity];
+                    break;
+                case Double:
+                case Double7:
+                    doubles[i] = new double[capacity];
+                    break;
+                case Date:
+                    epochDays[i] = new int[capacity];
+                    break;
+                case Character:
+                    offsets[i] = new int[capacity];
+                    lengths[i] = new int[capacity];
+                    arenaLength += (long) f.getLength() * capacity;
+                    break;
+            }
+        }
+        if (arenaLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Batch capacity " + capacity + " is too big for this record length");
+        }
+        this.arena = new byte[(int) arenaLength];
+    }
+
+    public DbfMetadata getMetadata() {
+        return metadata;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of rows in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    public void clear() {
+        size = 0;
+        arenaSize = 0;
+        deleted.clear();
+        for (BitSet b : nulls) {
+            b.clear();
+        }
+    }
+
+    /**
+     * Decode record bytes into the next row of the batch
+     *
+     * @param bytes array with record bytes
+     * @param offset offset of the record in the array
+     * @param recordNumber number of the record in the file
+     */
+    public void add(byte[] bytes, int offset, int recordNumber) {
+        if (size == capacity) {
+            throw new IllegalStateException("Batch is full");
+        }
+        int row = size;
+        recordNumbers[row] = recordNumber;
+        if (bytes[offset] == 0x2A) {
+            deleted.set(row);
+        }
+        for (int i = 0; i < fields.length; i++) {
+            DbfField f = fields[i];
+            int start = offset + f.getOffset();
+            switch (f.getType()) {
+                case Numeric:
+                case Float:
+                    if (NumberUtils.isNull(bytes, start, f.getLength())) {
+                        nulls[i].set(row);
+                        if (doubles[i] != null) {
+                            doubles[i][row] = 0;
+                        } else {
+                            longs[i][row] = 0;
+                        }
+                    } else if (doubles[i] != null) {
+                        doubles[i][row] = NumberUtils.parseDouble(bytes, start, f.getLength());
+                    } else {
+                        longs[i][row] = decodeLong(bytes, start, f, i, row);
+                    }
+                    break;
+                case Integer:
+                    longs[i][row] = BitUtils.makeInt(bytes, start);
+                    break;
+                case Currency:
+                    longs[i][row] = BitUtils.makeLong(bytes, start);
+                    break;
+                case Double:
+                case Double7:
+                    doubles[i][row] = java.lang.Double.longBitsToDouble(BitUtils.makeLong(bytes, start));
+                    break;
+                case Date:
+                    epochDays[i][row] = decodeEpochDay(bytes, start, f, i, row);
+                    break;
+                case Character:
+                    addString(bytes, start, f.getLength(), i, row);
+                    break;
+            }
+        }
+        size++;
+    }
+
+    private long decodeLong(byte[] bytes, int start, DbfField f, int column, int row) {
+        try {
+            return NumberUtils.parseUnscaledLong(bytes, start, f.getLength(), 0);
+        } catch (NumberFormatException e) {
+            // a number that does not fit into long is null like overflowed values,
+            // anything else is reported
+            NumberUtils.parseDouble(bytes, start, f.getLength());
+            nulls[column].set(row);
+            return 0;
+        }
+    }
+
+    private int decodeEpochDay(byte[] bytes, int start, DbfField f, int column, int row) {
+        long epochDay = JdbfUtils.parseEpochDay(bytes, start);
+        if (epochDay != JdbfUtils.INVALID_EPOCH_DAY) {
+            return (int) epochDay;
+        }
+        if (!JdbfUtils.isBlank(bytes, start, f.getLength())) {
+            // let the formatter report what is wrong
+            return (int) JdbfUtils.parseDate(new String(bytes, start, f.getLength())).toEpochDay();
+        }
+        nulls[column].set(row);
+        return 0;
+    }
+
+    private void addString(byte[] bytes, int start, int length, int column, int row) {
+        int end = JdbfUtils.trimEnd(bytes, start, start + length);
+        start = JdbfUtils.trimStart(bytes, start, end);
+        if (start == end) {
+            nulls[column].set(row);
+        }
+        System.arraycopy(bytes, start, arena, arenaSize, end - start);
+        offsets[column][row] = arenaSize;
+        lengths[column][row] = end - start;
+        arenaSize += end - start;
+    }
+
+    /**
+     * @param index index of the column, starting from 0
+     */
+    public DbfField getField(int index) {
+        return fields[index];
+    }
+
+    /**
+     * @return index of the column, or -1 if there is no such field
+     */
+    public int indexOf(String fieldName) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].getName().equals(fieldName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return values of the column, or null if the column is not decoded into longs
+     */
+    public long[] getLongs(int column) {
+        return longs[column];
+    }
+
+    /**
+     * @return values of the column, or null if the column is not decoded into doubles
+     */
+    public double[] getDoubles(int column) {
+        return doubles[column];
+    }
+
+    /**
+     * @return days since 1970-01-01 of the column values, or null if the column is not a Date
+     */
+    public int[] getEpochDays(int column) {
+        return epochDays[column];
+    }
+
+    /**
+     * @return offsets of the column values in the arena, or null if the column is not Character
+     */
+    public int[] getOffsets(int column) {
+        return offsets[column];
+    }
+
+    /**
+     * @return lengths of the column values in the arena, or null if the column is not Character
+     */
+    public int[] getLengths(int column) {
+        return lengths[column];
+    }
+
+    /**
+     * @return bytes of Character values of all rows
+     */
+    public byte[] getArena() {
+        return arena;
+    }
+
+    /**
+     * @return number of implied decimal places of {@link #getLongs(int)} values
+     */
+    public int getScale(int column) {
+        return fields[column].getType() == DbfFieldTypeEnum.Currency ? JdbfUtils.CURRENCY_SCALE : 0;
+    }
+
+    public BitSet getNulls(int column) {
+        return nulls[column];
+    }
+
+    public boolean isNull(int column, int row) {
+        return nulls[column].get(row);
+    }
+
+    public BitSet getDeleted() {
+        return deleted;
+    }
+
+    public boolean isDeleted(int row) {
+        return deleted.get(row);
+    }
+
+    public int getRecordNumber(int row) {
+        return recordNumbers[row];
+    }
+
+    /**
+     * Decode Character value in the file charset
+     *
+     * @return value without padding, or null if it is blank
+     */
+    public String getString(int column, int row) {
+        return getString(column, row, metadata.getCharset());
+    }
+
+    public String getString(int column, int row, Charset charset) {
+        if (offsets[column] == null) {
+            throw new IllegalArgumentException("Field '" + fields[column].getName() + "' is not CHARACTER field!");
+        }
+        return DbfCharset.decodeTrimmed(arena, offsets[column][row], lengths[column][row], charset);
+    }
+}
@@ -0,0 +1,83 @@
+package net.iryndin.jdbf.index;
+
+import java.io.IOException;
+
+/**
+ * Cursor over keys of a {@link CdxTag} in index order.
+ * Leaf pages are followed by their right sibling links. Cursor is not thread-safe.
+ */
+public class CdxCursor {
+    private final CdxTag tag;
+    private final byte[] bound;
+    private final boolean prefixBound;
+    private CdxTag.Page page;
+    private int index;
+    private byte[] key;
+    private int recordNumber = -1;
+
+    CdxCursor(CdxTag tag, CdxTag.Page page, int index, byte[] bound, boolean prefixBound) {
+        this.tag = tag;
+        this.page = page;
+        this.index = index;
+        this.bound = bound;
+        this.prefixBound = prefixBound;
+    }
+
+    /**
+     * Move to the next key
+     *
+     * @return record number of the next key, or -1 if there are no more keys
+     */
+    public int next() throws IOException {
+        while (page != null && index >= page.keys.length) {
+            page = page.right == -1 ? null : tag.readPage(page.right & 0xFFFFFFFFL);
+            index = 0;
+        }
+        if (page == null) {
+            return finish();
+        }
+        byte[] k = page.keys[index];
+        if (bound != null && !withinBound(k)) {
+            return finish();
+        }
+        key = k;
+        recordNumber = page.recordNumbers[index++];
+        return recordNumber;
+    }
+
+    private boolean withinBound(byte[] k) {
+        if (prefixBound) {
+            if (k.length < bound.length) {
+                return false;
+            }
+            for (int i = 0; i < bound.length; i++) {
+                if (k[i] != bound[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return CdxTag.compare(k, bound) <= 0;
+    }
+
+    private int finish() {
+        page = null;
+        key = null;
+        recordNumber = -1;
+        return -1;
+    }
+
+    /**
+     * @return key at the cursor, or null if cursor is not positioned
+     */
+    public byte[] getKey() {
+        return key;
+    }
+
+    /**
+     * @return record number at the cursor, or -1 if cursor is not positioned
+     */
+    public int getRecordNumber() {
+        return recordNumber;
+    }
+}
@@ -0,0 +1,193 @@
+package net.iryndin.jdbf.index;
+
+import net.iryndin.jdbf.core.DbfField;
+import net.iryndin.jdbf.core.DbfFieldTypeEnum;
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.util.BitUtils;
+import net.iryndin.jdbf.util.IOUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Read-only reader of FoxPro index files: compound (.CDX) and single (.IDX, compact or not).
+ *
+ * Every index of the file is a {@link CdxTag}, a B-tree of keys and record numbers.
+ * Pages are read with positional I/O on demand, so reader may be shared between threads.
+ * Keys are compared as unsigned bytes, like FoxPro does with MACHINE collation.
+ *
+ * See file format:
+ * http://msdn.microsoft.com/en-us/library/aa976835(v=vs.71).aspx
+ */
+public class CdxReader implements Closeable {
+    static final int PAGE_SIZE = 512;
+
+    static final int OPTION_UNIQUE = 0x01;
+    static final int OPTION_COMPACT = 0x20;
+    static final int OPTION_COMPOUND = 0x40;
+
+    private final FileChannel channel;
+    private final DbfMetadata dbfMetadata;
+    private final Map<String, CdxTag> tags = new LinkedHashMap<>();
+
+    public CdxReader(File indexFile) throws IOException {
+        this(indexFile, null);
+    }
+
+    /**
+     * @param indexFile CDX or IDX file
+     * @param dbfMetadata metadata of the indexed DBF file, may be null.
+     *                    It is used to tell keys of non-Character fields, which are padded with zero bytes
+     */
+    public CdxReader(File indexFile, DbfMetadata dbfMetadata) throws IOException {
+        this.channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ);
+        this.dbfMetadata = dbfMetadata;
+        try {
+            CdxTag root = readTag(baseName(indexFile), 0);
+            if ((root.getOptions() & OPTION_COMPOUND) != 0) {
+                // keys of the root tag are tag names, and record numbers are offsets of tag headers
+                CdxCursor cursor = root.first();
+                while (cursor.next() > 0) {
+                    String name = new String(cursor.getKey(), StandardCharsets.ISO_8859_1).trim();
+                    tags.put(name, readTag(name, cursor.getRecordNumber()));
+                }
+            } else {
+                tags.put(root.getName(), root);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static String baseName(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name).toUpperCase();
+    }
+
+    private CdxTag readTag(String name, long headerOffset) throws IOException {
+        byte[] header = readPage(headerOffset);
+        int options = header[14] & 0xFF;
+        int rootPage = BitUtils.makeInt(header, 0);
+        int keyLength = BitUtils.makeInt(header[12], header[13]);
+        if (keyLength <= 0 || keyLength > PAGE_SIZE / 2) {
+            throw new IOException("The file is corrupted or is not an index file");
+        }
+        String keyExpression;
+        String forExpression;
+        boolean descending;
+        if ((options & OPTION_COMPACT) != 0) {
+            descending = BitUtils.makeInt(header[502], header[503]) != 0;
+            int forLength = BitUtils.makeInt(header[506], header[507]);
+            int keyExpressionLength = BitUtils.makeInt(header[510], header[511]);
+            byte[] pool = readPage(headerOffset + PAGE_SIZE);
+            keyExpression = cString(pool, 0, Math.min(keyExpressionLength, PAGE_SIZE));
+            forExpression = cString(pool, Math.min(keyExpressionLength, PAGE_SIZE),
+                    Math.min(forLength, PAGE_SIZE - Math.min(keyExpressionLength, PAGE_SIZE)));
+        } else {
+            descending = false;
+            keyExpression = cString(header, 16, 220);
+            forExpression = cString(header, 236, 220);
+        }
+        return new CdxTag(this, name, rootPage, keyLength, options, descending,
+                keyExpression, forExpression, trailByte(keyExpression), isNullable(keyExpression));
+    }
+
+    private static String cString(byte[] bytes, int offset, int maxLength) {
+        int end = offset;
+        while (end < offset + maxLength && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset).trim();
+    }
+
+    /**
+     * Compact leaf pages drop trailing padding of keys: spaces of Character keys and zero bytes of others.
+     * Key type is known only for keys that are a single field.
+     */
+    private byte trailByte(String keyExpression) {
+        if (dbfMetadata != null) {
+            String name = keyExpression.toUpperCase();
+            int dot = name.lastIndexOf('.');
+            if (dot >= 0) {
+                name = name.substring(dot + 1);
+            }
+            for (DbfField f : dbfMetadata.getFields()) {
+                if (f.getName().equalsIgnoreCase(name)) {
+                    return f.getType() == DbfFieldTypeEnum.Character ? (byte) ' ' : 0;
+                }
+            }
+        }
+        return (byte) ' ';
+    }
+
+    /**
+     * Keys of expressions with a nullable field start with a null flag byte.
+     * Fields are known only if metadata of the DBF file is given.
+     */
+    private boolean isNullable(String keyExpression) {
+        if (dbfMetadata == null) {
+            return false;
+        }
+        String expression = keyExpression.toUpperCase();
+        for (DbfField f : dbfMetadata.getFields()) {
+            if (!f.isNullable()) {
+                continue;
+            }
+            Pattern name = Pattern.compile("\\b" + Pattern.quote(f.getName().toUpperCase()) + "\\b");
+            if (name.matcher(expression).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    byte[] readPage(long offset) throws IOException {
+        byte[] page = new byte[PAGE_SIZE];
+        if (IOUtils.readFully(channel, ByteBuffer.wrap(page), offset) != PAGE_SIZE) {
+            throw new IOException("The file is corrupted or is not an index file");
+        }
+        return page;
+    }
+
+    public List<String> getTagNames() {
+        return Collections.unmodifiableList(new ArrayList<>(tags.keySet()));
+    }
+
+    /**
+     * @param name tag name, case-insensitive
+     * @return the tag
+     * @throws IllegalArgumentException if there is no such tag
+     */
+    public CdxTag getTag(String name) {
+        CdxTag tag = tags.get(name.toUpperCase());
+        if (tag == null) {
+            throw new IllegalArgumentException("Tag '" + name + "' does not exist!");
+        }
+        return tag;
+    }
+
+    /**
+     * @return the only tag of IDX file or the first tag of CDX file
+     */
+    public CdxTag getTag() {
+        return tags.values().iterator().next();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,344 @@
+package net.iryndin.jdbf.index;
+
+import net.iryndin.jdbf.util.BitUtils;
+import net.iryndin.jdbf.util.JdbfUtils;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * One index (tag) of a FoxPro index file: B-tree of keys and record numbers.
+ *
+ * Keys are fixed-length byte arrays. Search keys shorter than {@link #getKeyLength()}
+ * are padded like FoxPro pads stored keys (with spaces for Character keys).
+ * Helpers {@link #numericKey(double)}, {@link #integerKey(int)} and {@link #dateKey(LocalDate)}
+ * encode values of other types the way FoxPro stores them in keys.
+ */
+public class CdxTag {
+    /**
+     * First byte of keys of nullable tags that are not null
+     */
+    public static final byte NOT_NULL_FLAG = (byte) 0x80;
+
+    private final CdxReader reader;
+    private final String name;
+    private final long rootPage;
+    private final int keyLength;
+    private final int options;
+    private final boolean descending;
+    private final String keyExpression;
+    private final String forExpression;
+    private final byte trailByte;
+    private final boolean nullable;
+
+    CdxTag(CdxReader reader, String name, int rootPage, int keyLength, int options, boolean descending,
+           String keyExpression, String forExpression, byte trailByte, boolean nullable) {
+        this.reader = reader;
+        this.name = name;
+        this.rootPage = rootPage & 0xFFFFFFFFL;
+        this.keyLength = keyLength;
+        this.options = options;
+        this.descending = descending;
+        this.keyExpression = keyExpression;
+        this.forExpression = forExpression;
+        this.trailByte = trailByte;
+        this.nullable = nullable;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getKeyLength() {
+        return keyLength;
+    }
+
+    public String getKeyExpression() {
+        return keyExpression;
+    }
+
+    public String getForExpression() {
+        return forExpression;
+    }
+
+    public boolean isUnique() {
+        return (options & CdxReader.OPTION_UNIQUE) != 0;
+    }
+
+    /**
+     * @return true if tag is declared DESCENDING. Cursors always return keys in the stored order
+     */
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * @return true if key expression has a nullable field, so every key starts with a null flag byte:
+     * {@link #NOT_NULL_FLAG} for values that are not null
+     */
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    int getOptions() {
+        return options;
+    }
+
+    /**
+     * Find the first record with the key
+     *
+     * @return record number, or -1 if there is no such key
+     */
+    public int seek(byte[] key) throws IOException {
+        byte[] padded = pad(key);
+        CdxCursor cursor = cursorAt(padded, null, false);
+        int recordNumber = cursor.next();
+        return recordNumber > 0 && compare(cursor.getKey(), padded) == 0 ? recordNumber : -1;
+    }
+
+    /**
+     * Find the first record with Character key, encoded in given charset.
+     * Null flag byte of nullable tags is added to the key, which is then padded to the key length.
+     */
+    public int seek(String key, Charset charset) throws IOException {
+        return seek(stringKey(key, charset));
+    }
+
+    /**
+     * @return cursor over all keys in index order
+     */
+    public CdxCursor first() throws IOException {
+        return new CdxCursor(this, leftmostLeaf(), 0, null, false);
+    }
+
+    /**
+     * @return cursor over keys that start with given bytes
+     */
+    public CdxCursor seekPrefix(byte[] prefix) throws IOException {
+        return cursorAt(prefix, prefix, true);
+    }
+
+    public CdxCursor seekPrefix(String prefix, Charset charset) throws IOException {
+        return seekPrefix(stringKey(prefix, charset));
+    }
+
+    private byte[] stringKey(String key, Charset charset) {
+        byte[] b = key.getBytes(charset);
+        if (!nullable) {
+            return b;
+        }
+        byte[] flagged = new byte[b.length + 1];
+        flagged[0] = NOT_NULL_FLAG;
+        System.arraycopy(b, 0, flagged, 1, b.length);
+        return flagged;
+    }
+
+    /**
+     * @param from lower bound of keys, inclusive, or null for no bound
+     * @param to upper bound of keys, inclusive, or null for no bound
+     * @return cursor over keys in range [from, to]
+     */
+    public CdxCursor range(byte[] from, byte[] to) throws IOException {
+        byte[] upper = to == null ? null : pad(to);
+        if (from == null) {
+            return new CdxCursor(this, leftmostLeaf(), 0, upper, false);
+        }
+        return cursorAt(pad(from), upper, false);
+    }
+
+    private CdxCursor cursorAt(byte[] key, byte[] bound, boolean prefixBound) throws IOException {
+        Page page = readPage(rootPage);
+        while (!page.leaf) {
+            int i = lowerBound(page, key);
+            if (i == page.keys.length) {
+                // key is bigger than any key of the tag
+                return new CdxCursor(this, null, 0, bound, prefixBound);
+            }
+            page = readPage(page.children[i]);
+        }
+        return new CdxCursor(this, page, lowerBound(page, key), bound, prefixBound);
+    }
+
+    private Page leftmostLeaf() throws IOException {
+        Page page = readPage(rootPage);
+        while (!page.leaf) {
+            if (page.keys.length == 0) {
+                return null;
+            }
+            page = readPage(page.children[0]);
+        }
+        return page;
+    }
+
+    /**
+     * @return index of the first key of the page that is not less than given key
+     */
+    private static int lowerBound(Page page, byte[] key) {
+        int lo = 0;
+        int hi = page.keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(page.keys[mid], key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private byte[] pad(byte[] key) {
+        if (key.length >= keyLength) {
+            return key.length == keyLength ? key : Arrays.copyOf(key, keyLength);
+        }
+        byte[] padded = Arrays.copyOf(key, keyLength);
+        Arrays.fill(padded, key.length, keyLength, trailByte);
+        return padded;
+    }
+
+    /**
+     * Compare keys as unsigned bytes. Shorter key is less than longer one with the same start.
+     */
+    static int compare(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int d = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (d != 0) {
+                return d;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    Page readPage(long offset) throws IOException {
+        byte[] bytes = reader.readPage(offset);
+        int attributes = BitUtils.makeInt(bytes[0], bytes[1]);
+        int keysQty = BitUtils.makeInt(bytes[2], bytes[3]);
+        long right = BitUtils.makeInt(bytes, 8);
+        boolean leaf = (attributes & 0x02) != 0;
+        if (leaf && (options & CdxReader.OPTION_COMPACT) != 0) {
+            return readCompactLeaf(bytes, keysQty, right);
+        }
+        return readPlainPage(bytes, keysQty, right, leaf);
+    }
+
+    /**
+     * Interior pages of all indexes and leaf pages of non-compact IDX hold keys as is
+     */
+    private Page readPlainPage(byte[] bytes, int keysQty, long right, boolean leaf) throws IOException {
+        boolean compact = (options & CdxReader.OPTION_COMPACT) != 0;
+        // compact interior entries: key, record number, child page; non-compact: key, pointer
+        int entryLength = keyLength + (compact ? 8 : 4);
+        if (12 + keysQty * entryLength > CdxReader.PAGE_SIZE) {
+            throw new IOException("The file is corrupted or is not an index file");
+        }
+        Page page = new Page(leaf, keysQty, right);
+        for (int i = 0; i < keysQty; i++) {
+            int offset = 12 + i * entryLength;
+            page.keys[i] = Arrays.copyOfRange(bytes, offset, offset + keyLength);
+            long pointer = bigEndianInt(bytes, offset + entryLength - 4) & 0xFFFFFFFFL;
+            if (leaf) {
+                page.recordNumbers[i] = (int) pointer;
+            } else {
+                page.recordNumbers[i] = compact ? bigEndianInt(bytes, offset + keyLength) : 0;
+                page.children[i] = pointer;
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Compact leaf entry packs record number, count of bytes shared with the previous key
+     * and count of trailing padding bytes into a few bytes. Distinct parts of keys
+     * are stored from the end of the page backwards.
+     */
+    private Page readCompactLeaf(byte[] bytes, int keysQty, long right) throws IOException {
+        long recordMask = BitUtils.makeInt(bytes, 14) & 0xFFFFFFFFL;
+        int duplicateMask = bytes[18] & 0xFF;
+        int trailMask = bytes[19] & 0xFF;
+        int recordBits = bytes[20] & 0xFF;
+        int duplicateBits = bytes[21] & 0xFF;
+        int entryLength = bytes[23] & 0xFF;
+        if (entryLength == 0 || entryLength > 8 || 24 + keysQty * entryLength > CdxReader.PAGE_SIZE) {
+            throw new IOException("The file is corrupted or is not an index file");
+        }
+
+        Page page = new Page(true, keysQty, right);
+        byte[] previous = new byte[keyLength];
+        int keyPosition = CdxReader.PAGE_SIZE;
+        for (int i = 0; i < keysQty; i++) {
+            long entry = 0;
+            for (int b = entryLength - 1; b >= 0; b--) {
+                entry = (entry << 8) | (bytes[24 + i * entryLength + b] & 0xFF);
+            }
+            int duplicates = (int) ((entry >>> recordBits) & duplicateMask);
+            int trail = (int) ((entry >>> (recordBits + duplicateBits)) & trailMask);
+            int newLength = keyLength - duplicates - trail;
+            keyPosition -= newLength;
+            if (newLength < 0 || keyPosition < 24 + keysQty * entryLength) {
+                throw new IOException("The file is corrupted or is not an index file");
+            }
+            byte[] key = new byte[keyLength];
+            System.arraycopy(previous, 0, key, 0, duplicates);
+            System.arraycopy(bytes, keyPosition, key, duplicates, newLength);
+            Arrays.fill(key, duplicates + newLength, keyLength, trailByte);
+            page.keys[i] = key;
+            page.recordNumbers[i] = (int) (entry & recordMask);
+            previous = key;
+        }
+        return page;
+    }
+
+    private static int bigEndianInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Key of Numeric, Float or Double value: big-endian double,
+     * with sign bit set for positive values and all bits inverted for negative ones
+     */
+    public static byte[] numericKey(double value) {
+        long bits = Double.doubleToLongBits(value == 0.0 ? 0.0 : value);
+        bits = bits >= 0 ? bits | Long.MIN_VALUE : ~bits;
+        byte[] key = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            key[i] = (byte) bits;
+            bits >>>= 8;
+        }
+        return key;
+    }
+
+    /**
+     * Key of Integer value: big-endian int with inverted sign bit
+     */
+    public static byte[] integerKey(int value) {
+        int bits = value ^ Integer.MIN_VALUE;
+        return new byte[]{(byte) (bits >>> 24), (byte) (bits >>> 16), (byte) (bits >>> 8), (byte) bits};
+    }
+
+    /**
+     * Key of Date value: Julian day number as {@link #numericKey(double)}
+     */
+    public static byte[] dateKey(LocalDate date) {
+        return numericKey(date.toEpochDay() + JdbfUtils.JULIAN_DAY_OF_EPOCH);
+    }
+
+    static final class Page {
+        final boolean leaf;
+        final byte[][] keys;
+        final int[] recordNumbers;
+        final long[] children;
+        final long right;
+
+        Page(boolean leaf, int keysQty, long right) {
+            this.leaf = leaf;
+            this.keys = new byte[keysQty][];
+            this.recordNumbers = new int[keysQty];
+            this.children = leaf ? null : new long[keysQty];
+            this.right = right;
+        }
+    }
+}
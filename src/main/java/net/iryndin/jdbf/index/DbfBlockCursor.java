@@ -0,0 +1,83 @@
+package net.iryndin.jdbf.index;
+
+import net.iryndin.jdbf.core.DbfPredicate;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.reader.DbfCursor;
+import net.iryndin.jdbf.reader.DbfRandomAccessReader;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Cursor over records of selected blocks of a {@link DbfZoneMap}.
+ * Runs of adjacent blocks are read by one {@link DbfCursor}, other blocks are skipped.
+ * Records appended after the map was built are always read.
+ *
+ * Like {@link DbfCursor}, the record returned by {@link #next()} is only valid until the following call.
+ */
+public class DbfBlockCursor {
+    private final DbfRandomAccessReader reader;
+    private final DbfZoneMap zoneMap;
+    private final BitSet blocks;
+    private final DbfPredicate filter;
+    private DbfCursor cursor;
+    private int nextBlock = 0;
+    private boolean tailRead = false;
+
+    DbfBlockCursor(DbfRandomAccessReader reader, DbfZoneMap zoneMap, BitSet blocks, DbfPredicate filter) {
+        this.reader = reader;
+        this.zoneMap = zoneMap;
+        this.blocks = blocks;
+        this.filter = filter;
+    }
+
+    /**
+     * Move to the next record
+     *
+     * @return shared record that points at the next row, or null if there are no more records
+     */
+    public DbfRecord next() throws IOException {
+        while (true) {
+            if (cursor != null) {
+                DbfRecord rec = cursor.next();
+                if (rec != null) {
+                    return rec;
+                }
+                cursor = null;
+            }
+            if (!nextRange()) {
+                return null;
+            }
+        }
+    }
+
+    private boolean nextRange() {
+        int recordsQty = Math.min(zoneMap.getRecordsQty(), reader.getRecordsQty());
+        int from = nextBlock < zoneMap.getBlocksQty() ? blocks.nextSetBit(nextBlock) : -1;
+        if (from >= 0 && from < zoneMap.getBlocksQty()) {
+            int to = Math.min(blocks.nextClearBit(from), zoneMap.getBlocksQty());
+            nextBlock = to;
+            int fromRecord = from * zoneMap.getBlockSize() + 1;
+            int toRecord = (int) Math.min((long) to * zoneMap.getBlockSize(), recordsQty);
+            if (fromRecord > toRecord) {
+                return nextRange();
+            }
+            openCursor(fromRecord, toRecord);
+            return true;
+        }
+        nextBlock = zoneMap.getBlocksQty();
+        if (!tailRead) {
+            tailRead = true;
+            if (reader.getRecordsQty() > zoneMap.getRecordsQty()) {
+                openCursor(zoneMap.getRecordsQty() + 1, reader.getRecordsQty());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void openCursor(int fromRecord, int toRecord) {
+        cursor = reader.cursor(fromRecord, toRecord);
+        cursor.setFilter(filter);
+    }
+}
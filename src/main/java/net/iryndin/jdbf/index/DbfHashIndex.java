@@ -0,0 +1,398 @@
+package net.iryndin.jdbf.index;
+
+import net.iryndin.jdbf.core.DbfField;
+import net.iryndin.jdbf.core.DbfFieldTypeEnum;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.reader.DbfRandomAccessReader;
+import net.iryndin.jdbf.util.BitUtils;
+import net.iryndin.jdbf.util.JdbfUtils;
+import net.iryndin.jdbf.util.NumberUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * In-memory hash index of one field, for point lookups of records by key.
+ *
+ * Index is built in one pass over the file. Keys are kept in primitive arrays
+ * with open addressing, no objects per key are created:
+ * <ul>
+ * <li>Numeric, Float, Integer and Currency keys are stored as longs, unscaled by field decimal places
+ * (Currency by 4 implied decimal places)</li>
+ * <li>Date keys are stored as epoch days</li>
+ * <li>Character keys are stored as raw bytes without leading and trailing spaces in a shared array,
+ * and are hashed and compared as bytes</li>
+ * </ul>
+ * Keys are read right from the record bytes while the file is scanned.
+ * Records with null keys, or with Date keys that are not valid dates, are not indexed.
+ * Records with equal keys are chained, so {@link #findAll(long)} returns them in file order.
+ *
+ * Index is immutable once built and may be shared between threads.
+ */
+public class DbfHashIndex {
+    private final DbfRandomAccessReader reader;
+    private final DbfField field;
+    private final boolean bytesKeys;
+    private final int scale;
+
+    // open addressing table of entry index + 1, 0 means empty slot
+    private final int[] slots;
+    private final int mask;
+    private int entriesQty = 0;
+    private int recordsQty = 0;
+
+    // entries: distinct keys
+    private long[] longKeys;
+    private int[] hashes;
+    private int[] keyOffsets;
+    private int[] keyLengths;
+    private byte[] arena;
+    private int arenaSize = 0;
+    private int[] firstRecords;
+    private int[] lastRecords;
+
+    // chain of records with the same key, indexed by record number
+    private final int[] nextRecords;
+
+    private DbfHashIndex(DbfRandomAccessReader reader, DbfField field) {
+        this.reader = reader;
+        this.field = field;
+        switch (field.getType()) {
+            case Character:
+                this.bytesKeys = true;
+                this.scale = 0;
+                break;
+            case Numeric:
+            case Float:
+                this.bytesKeys = false;
+                this.scale = field.getNumberOfDecimalPlaces();
+                break;
+            case Currency:
+                this.bytesKeys = false;
+                this.scale = JdbfUtils.CURRENCY_SCALE;
+                break;
+            case Integer:
+            case Date:
+                this.bytesKeys = false;
+                this.scale = 0;
+                break;
+            default:
+                throw new IllegalArgumentException("Field '" + field.getName() + "' has unsupported type " + field.getType() + "!");
+        }
+        int expected = Math.max(1, reader.getRecordsQty());
+        int capacity = Integer.highestOneBit(expected * 2 - 1) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        this.firstRecords = new int[expected];
+        this.lastRecords = new int[expected];
+        if (bytesKeys) {
+            this.hashes = new int[expected];
+            this.keyOffsets = new int[expected];
+            this.keyLengths = new int[expected];
+            this.arena = new byte[Math.max(16, expected * 8)];
+        } else {
+            this.longKeys = new long[expected];
+        }
+        this.nextRecords = new int[reader.getRecordsQty() + 1];
+    }
+
+    /**
+     * Build index of the field over all records of the file.
+     * Index keeps the reader to fetch found records, so it must stay open while index is in use.
+     *
+     * @param reader reader of the file
+     * @param fieldName name of the key field
+     */
+    public static DbfHashIndex build(DbfRandomAccessReader reader, String fieldName) throws IOException {
+        DbfField field = reader.getMetadata().getField(fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' does not exist!");
+        }
+        DbfHashIndex index = new DbfHashIndex(reader, field);
+        // keys are read right from the cursor buffer, so no record is created
+        reader.cursor().forEachRow(index::add);
+        index.trim();
+        return index;
+    }
+
+    private void add(byte[] bytes, int offset, int recordNumber) {
+        int start = offset + field.getOffset();
+        int entry;
+        if (bytesKeys) {
+            int end = JdbfUtils.trimEnd(bytes, start, start + field.getLength());
+            start = JdbfUtils.trimStart(bytes, start, end);
+            if (isZeros(bytes, start, end)) {
+                return;
+            }
+            entry = findOrAddEntry(bytes, start, end - start);
+        } else {
+            long key;
+            switch (field.getType()) {
+                case Integer:
+                    key = BitUtils.makeInt(bytes, start);
+                    break;
+                case Currency:
+                    key = BitUtils.makeLong(bytes, start);
+                    break;
+                case Date:
+                    key = JdbfUtils.parseEpochDay(bytes, start);
+                    if (key == JdbfUtils.INVALID_EPOCH_DAY) {
+                        return;
+                    }
+                    break;
+                default:
+                    if (NumberUtils.isNull(bytes, start, field.getLength())) {
+                        return;
+                    }
+                    key = NumberUtils.parseUnscaledLong(bytes, start, field.getLength(), scale);
+            }
+            entry = findOrAddEntry(key);
+        }
+        if (firstRecords[entry] == 0) {
+            firstRecords[entry] = recordNumber;
+        } else {
+            nextRecords[lastRecords[entry]] = recordNumber;
+        }
+        lastRecords[entry] = recordNumber;
+        recordsQty++;
+    }
+
+    /**
+     * @return true if region is empty or has only zero bytes, i.e. the value is null
+     */
+    private static boolean isZeros(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int findOrAddEntry(long key) {
+        int slot = hash(key) & mask;
+        while (slots[slot] != 0) {
+            int entry = slots[slot] - 1;
+            if (longKeys[entry] == key) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int entry = entriesQty++;
+        longKeys[entry] = key;
+        slots[slot] = entry + 1;
+        return entry;
+    }
+
+    private int findOrAddEntry(byte[] key, int offset, int length) {
+        int h = hash(key, offset, length);
+        int slot = h & mask;
+        while (slots[slot] != 0) {
+            int entry = slots[slot] - 1;
+            if (hashes[entry] == h && keyEquals(entry, key, offset, length)) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int entry = entriesQty++;
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        }
+        System.arraycopy(key, offset, arena, arenaSize, length);
+        hashes[entry] = h;
+        keyOffsets[entry] = arenaSize;
+        keyLengths[entry] = length;
+        arenaSize += length;
+        slots[slot] = entry + 1;
+        return entry;
+    }
+
+    /**
+     * Release unused capacity of entry arrays after build
+     */
+    private void trim() {
+        firstRecords = Arrays.copyOf(firstRecords, entriesQty);
+        lastRecords = null;
+        if (bytesKeys) {
+            hashes = Arrays.copyOf(hashes, entriesQty);
+            keyOffsets = Arrays.copyOf(keyOffsets, entriesQty);
+            keyLengths = Arrays.copyOf(keyLengths, entriesQty);
+            arena = Arrays.copyOf(arena, arenaSize);
+        } else {
+            longKeys = Arrays.copyOf(longKeys, entriesQty);
+        }
+    }
+
+    public DbfField getField() {
+        return field;
+    }
+
+    /**
+     * @return number of distinct keys
+     */
+    public int getKeysQty() {
+        return entriesQty;
+    }
+
+    /**
+     * @return number of indexed records, i.e. records with non-null keys
+     */
+    public int getRecordsQty() {
+        return recordsQty;
+    }
+
+    /**
+     * Find record by numeric key. For fields with decimal places key is the unscaled value,
+     * e.g. 12.50 in N(10,2) field is 1250. Date keys are epoch days.
+     *
+     * @return number of the first record with the key, or -1 if there is none
+     */
+    public int find(long key) {
+        int entry = findEntry(key);
+        return entry < 0 ? -1 : firstRecords[entry];
+    }
+
+    public int find(BigDecimal key) {
+        checkNumericKey();
+        if (key.stripTrailingZeros().scale() > scale) {
+            // field cannot hold such a value
+            return -1;
+        }
+        return find(key.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    public int find(LocalDate key) {
+        if (field.getType() != DbfFieldTypeEnum.Date) {
+            throw new IllegalArgumentException("Field '" + field.getName() + "' is not DATE field!");
+        }
+        return find(key.toEpochDay());
+    }
+
+    /**
+     * Find record by Character key, encoded in file charset
+     *
+     * @return number of the first record with the key, or -1 if there is none
+     */
+    public int find(String key) {
+        return find(key, reader.getMetadata().getCharset());
+    }
+
+    public int find(String key, Charset charset) {
+        byte[] b = key.trim().getBytes(charset);
+        int entry = findEntry(b, 0, b.length);
+        return entry < 0 ? -1 : firstRecords[entry];
+    }
+
+    /**
+     * @return numbers of all records with the key, in file order
+     */
+    public int[] findAll(long key) {
+        return chain(findEntry(key));
+    }
+
+    public int[] findAll(String key) {
+        byte[] b = key.trim().getBytes(reader.getMetadata().getCharset());
+        return chain(findEntry(b, 0, b.length));
+    }
+
+    /**
+     * Fetch the first record with the key
+     *
+     * @return the record, or null if there is none
+     */
+    public DbfRecord get(long key) throws IOException {
+        int recordNumber = find(key);
+        return recordNumber < 0 ? null : reader.read(recordNumber);
+    }
+
+    public DbfRecord get(String key) throws IOException {
+        int recordNumber = find(key);
+        return recordNumber < 0 ? null : reader.read(recordNumber);
+    }
+
+    private int findEntry(long key) {
+        checkNumericKey();
+        int slot = hash(key) & mask;
+        while (slots[slot] != 0) {
+            int entry = slots[slot] - 1;
+            if (longKeys[entry] == key) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int findEntry(byte[] key, int offset, int length) {
+        if (!bytesKeys) {
+            throw new IllegalArgumentException("Field '" + field.getName() + "' is not CHARACTER field!");
+        }
+        int h = hash(key, offset, length);
+        int slot = h & mask;
+        while (slots[slot] != 0) {
+            int entry = slots[slot] - 1;
+            if (hashes[entry] == h && keyEquals(entry, key, offset, length)) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int[] chain(int entry) {
+        if (entry < 0) {
+            return new int[0];
+        }
+        int qty = 0;
+        for (int r = firstRecords[entry]; r != 0; r = nextRecords[r]) {
+            qty++;
+        }
+        int[] result = new int[qty];
+        int i = 0;
+        for (int r = firstRecords[entry]; r != 0; r = nextRecords[r]) {
+            result[i++] = r;
+        }
+        return result;
+    }
+
+    private void checkNumericKey() {
+        if (bytesKeys) {
+            throw new IllegalArgumentException("Field '" + field.getName() + "' is not numeric field!");
+        }
+    }
+
+    private boolean keyEquals(int entry, byte[] key, int offset, int length) {
+        if (keyLengths[entry] != length) {
+            return false;
+        }
+        int start = keyOffsets[entry];
+        for (int i = 0; i < length; i++) {
+            if (arena[start + i] != key[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(long key) {
+        // finalizer of MurmurHash3, spreads close keys over the table
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return hash((long) h);
+    }
+}
@@ -0,0 +1,502 @@
+package net.iryndin.jdbf.index;
+
+import net.iryndin.jdbf.core.DbfField;
+import net.iryndin.jdbf.core.DbfFieldTypeEnum;
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfPredicate;
+import net.iryndin.jdbf.reader.DbfRandomAccessReader;
+import net.iryndin.jdbf.util.BitUtils;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.util.IOUtils;
+import net.iryndin.jdbf.util.JdbfUtils;
+import net.iryndin.jdbf.util.NumberUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Zone map of a DBF file: statistics of every block of {@link #getBlockSize()} records,
+ * used to skip blocks that cannot hold records of a filtered scan.
+ *
+ * For every block the map keeps:
+ * <ul>
+ * <li>min and max values of all Numeric, Float, Integer, Currency and Date fields
+ * (unscaled by field decimal places, Currency by 4, dates as epoch days)</li>
+ * <li>bloom filter of trimmed values of selected Character fields</li>
+ * <li>count of deleted records</li>
+ * </ul>
+ * Methods like {@link #numberBetween(String, BigDecimal, BigDecimal)} return sets of blocks
+ * that may hold matching records. Sets are combined with {@link BitSet#and(BitSet)} and {@link BitSet#or(BitSet)}
+ * and scanned with {@link #cursor(DbfRandomAccessReader, BitSet, DbfPredicate)}.
+ *
+ * Map is built by one scan of the file and may be saved into a sidecar file (.jdz).
+ * Records appended to the file after the map was built are not skipped.
+ */
+public class DbfZoneMap {
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+    public static final int DEFAULT_BLOOM_BITS_PER_RECORD = 10;
+
+    private static final int BLOOM_HASHES = 7;
+    private static final int MAGIC = 0x4A445A31; // "JDZ1"
+
+    private final int blockSize;
+    private final int recordsQty;
+    private final int blocksQty;
+    private final Charset charset;
+    private final DbfField[] statFields;
+    private final DbfField[] bloomFields;
+    private final int bloomWords;
+    // [block * statFields.length + field]
+    private final long[] mins;
+    private final long[] maxs;
+    // [field][block * bloomWords + word]
+    private final long[][] blooms;
+    private final int[] deletedQty;
+
+    private DbfZoneMap(DbfMetadata metadata, DbfField[] statFields, DbfField[] bloomFields,
+                       int blockSize, int recordsQty, int bloomWords) {
+        this.blockSize = blockSize;
+        this.recordsQty = recordsQty;
+        this.blocksQty = (int) (((long) recordsQty + blockSize - 1) / blockSize);
+        this.charset = metadata.getCharset() == null ? Charset.defaultCharset() : metadata.getCharset();
+        this.statFields = statFields;
+        this.bloomFields = bloomFields;
+        this.bloomWords = bloomWords;
+        this.mins = new long[blocksQty * statFields.length];
+        this.maxs = new long[blocksQty * statFields.length];
+        this.blooms = new long[bloomFields.length][blocksQty * bloomWords];
+        this.deletedQty = new int[blocksQty];
+    }
+
+    public static DbfZoneMap build(File dbfFile, String... bloomFieldNames) throws IOException {
+        return build(dbfFile, DEFAULT_BLOCK_SIZE, DEFAULT_BLOOM_BITS_PER_RECORD, bloomFieldNames);
+    }
+
+    /**
+     * Build zone map by scanning the file
+     *
+     * @param dbfFile DBF file
+     * @param blockSize number of records in a block
+     * @param bloomBitsPerRecord size of bloom filters, 10 bits per record give about 1% of false positives
+     * @param bloomFieldNames names of Character fields to keep bloom filters of
+     */
+    public static DbfZoneMap build(File dbfFile, int blockSize, int bloomBitsPerRecord, String... bloomFieldNames) throws IOException {
+        if (blockSize <= 0 || bloomBitsPerRecord <= 0) {
+            throw new IllegalArgumentException("Block size and bloom bits per record must be positive");
+        }
+        try (FileChannel channel = FileChannel.open(dbfFile.toPath(), StandardOpenOption.READ)) {
+            DbfMetadata metadata = DbfMetadataUtils.readMetadata(channel);
+            int recordLength = metadata.getOneRecordLength();
+            long dataLength = channel.size() - metadata.getFullHeaderLength();
+            int recordsQty = (int) Math.max(0, dataLength / recordLength);
+            int bloomWords = (int) (((long) blockSize * bloomBitsPerRecord + 63) / 64);
+            DbfZoneMap map = new DbfZoneMap(metadata, statFields(metadata), bloomFields(metadata, bloomFieldNames),
+                    blockSize, recordsQty, bloomWords);
+            map.scan(channel, metadata);
+            return map;
+        }
+    }
+
+    private static DbfField[] statFields(DbfMetadata metadata) {
+        List<DbfField> fields = new ArrayList<>();
+        for (DbfField f : metadata.getFields()) {
+            if (isStatType(f.getType())) {
+                fields.add(f);
+            }
+        }
+        return fields.toArray(new DbfField[0]);
+    }
+
+    private static boolean isStatType(DbfFieldTypeEnum type) {
+        switch (type) {
+            case Numeric:
+            case Float:
+            case Integer:
+            case Currency:
+            case Date:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static DbfField[] bloomFields(DbfMetadata metadata, String... names) {
+        DbfField[] fields = new DbfField[names.length];
+        for (int i = 0; i < names.length; i++) {
+            fields[i] = metadata.getField(names[i]);
+            if (fields[i] == null) {
+                throw new IllegalArgumentException("Field '" + names[i] + "' does not exist!");
+            }
+            if (fields[i].getType() != DbfFieldTypeEnum.Character) {
+                throw new IllegalArgumentException("Field '" + names[i] + "' is not CHARACTER field!");
+            }
+        }
+        return fields;
+    }
+
+    private void scan(FileChannel channel, DbfMetadata metadata) throws IOException {
+        Arrays.fill(mins, Long.MAX_VALUE);
+        Arrays.fill(maxs, Long.MIN_VALUE);
+        int recordLength = metadata.getOneRecordLength();
+        ByteBuffer chunk = ByteBuffer.allocate(Math.max(1, 1024 * 1024 / recordLength) * recordLength);
+        byte[] bytes = chunk.array();
+        long position = metadata.getFullHeaderLength();
+        int recordIndex = 0;
+        while (recordIndex < recordsQty) {
+            ((Buffer) chunk).clear();
+            int records = Math.min(IOUtils.readFully(channel, chunk, position) / recordLength, recordsQty - recordIndex);
+            if (records == 0) {
+                throw new IOException("The file is corrupted or is not a dbf file");
+            }
+            position += (long) records * recordLength;
+            for (int i = 0; i < records; i++, recordIndex++) {
+                add(recordIndex / blockSize, bytes, i * recordLength);
+            }
+        }
+    }
+
+    private void add(int block, byte[] bytes, int offset) {
+        if (bytes[offset] == 0x2A) {
+            deletedQty[block]++;
+        }
+        for (int i = 0; i < statFields.length; i++) {
+            DbfField f = statFields[i];
+            int slot = block * statFields.length + i;
+            long value;
+            try {
+                value = statValue(f, bytes, offset + f.getOffset());
+            } catch (NumberFormatException e) {
+                // value cannot be compared, so the block is never skipped by this field
+                mins[slot] = Long.MIN_VALUE;
+                maxs[slot] = Long.MAX_VALUE;
+                continue;
+            }
+            if (value != JdbfUtils.INVALID_EPOCH_DAY) {
+                mins[slot] = Math.min(mins[slot], value);
+                maxs[slot] = Math.max(maxs[slot], value);
+            }
+        }
+        for (int i = 0; i < bloomFields.length; i++) {
+            DbfField f = bloomFields[i];
+            int start = offset + f.getOffset();
+            int end = JdbfUtils.trimEnd(bytes, start, start + f.getLength());
+            start = JdbfUtils.trimStart(bytes, start, end);
+            if (start < end) {
+                addToBloom(blooms[i], block, hash(bytes, start, end - start));
+            }
+        }
+    }
+
+    /**
+     * @return value of the field, or {@link JdbfUtils#INVALID_EPOCH_DAY} for null
+     */
+    private static long statValue(DbfField f, byte[] bytes, int start) {
+        switch (f.getType()) {
+            case Numeric:
+            case Float:
+                if (NumberUtils.isNull(bytes, start, f.getLength())) {
+                    return JdbfUtils.INVALID_EPOCH_DAY;
+                }
+                return NumberUtils.parseUnscaledLong(bytes, start, f.getLength(), f.getNumberOfDecimalPlaces());
+            case Integer:
+                return BitUtils.makeInt(bytes, start);
+            case Currency:
+                return BitUtils.makeLong(bytes, start);
+            default:
+                return JdbfUtils.parseEpochDay(bytes, start);
+        }
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public int getBlocksQty() {
+        return blocksQty;
+    }
+
+    /**
+     * @return number of records covered by the map
+     */
+    public int getRecordsQty() {
+        return recordsQty;
+    }
+
+    public int getDeletedQty(int block) {
+        return deletedQty[block];
+    }
+
+    /**
+     * @return set of all blocks
+     */
+    public BitSet allBlocks() {
+        BitSet blocks = new BitSet(blocksQty);
+        blocks.set(0, blocksQty);
+        return blocks;
+    }
+
+    /**
+     * @return blocks that have records which are not deleted
+     */
+    public BitSet notDeleted() {
+        BitSet blocks = new BitSet(blocksQty);
+        for (int block = 0; block < blocksQty; block++) {
+            if (deletedQty[block] < blockRecordsQty(block)) {
+                blocks.set(block);
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Blocks that may have records with Numeric, Float, Integer or Currency field value in range [min, max]
+     *
+     * @param min lower bound, inclusive, or null for no bound
+     * @param max upper bound, inclusive, or null for no bound
+     */
+    public BitSet numberBetween(String fieldName, BigDecimal min, BigDecimal max) {
+        int i = statField(fieldName);
+        DbfField f = statFields[i];
+        if (f.getType() == DbfFieldTypeEnum.Date) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' is not numeric field!");
+        }
+        int scale = f.getType() == DbfFieldTypeEnum.Currency ? JdbfUtils.CURRENCY_SCALE : f.getNumberOfDecimalPlaces();
+        long minValue = min == null ? Long.MIN_VALUE : NumberUtils.toUnscaledLong(min, scale, RoundingMode.CEILING);
+        long maxValue = max == null ? Long.MAX_VALUE : NumberUtils.toUnscaledLong(max, scale, RoundingMode.FLOOR);
+        return overlapping(i, minValue, maxValue);
+    }
+
+    /**
+     * Blocks that may have records with Date field value in range [from, to]
+     *
+     * @param from lower bound, inclusive, or null for no bound
+     * @param to upper bound, inclusive, or null for no bound
+     */
+    public BitSet dateBetween(String fieldName, LocalDate from, LocalDate to) {
+        int i = statField(fieldName);
+        if (statFields[i].getType() != DbfFieldTypeEnum.Date) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' is not DATE field!");
+        }
+        return overlapping(i, from == null ? Long.MIN_VALUE : from.toEpochDay(), to == null ? Long.MAX_VALUE : to.toEpochDay());
+    }
+
+    private BitSet overlapping(int field, long minValue, long maxValue) {
+        BitSet blocks = new BitSet(blocksQty);
+        for (int block = 0; block < blocksQty; block++) {
+            int slot = block * statFields.length + field;
+            if (mins[slot] <= maxValue && maxs[slot] >= minValue) {
+                blocks.set(block);
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Blocks that may have records with Character field value equal to given one, compared after trimming.
+     * Value is encoded in file charset
+     */
+    public BitSet mightContain(String fieldName, String value) {
+        int i = bloomField(fieldName);
+        byte[] b = value.trim().getBytes(charset);
+        BitSet blocks = new BitSet(blocksQty);
+        if (b.length == 0) {
+            // empty values are not kept in bloom filters
+            blocks.set(0, blocksQty);
+            return blocks;
+        }
+        long h = hash(b, 0, b.length);
+        for (int block = 0; block < blocksQty; block++) {
+            if (bloomContains(blooms[i], block, h)) {
+                blocks.set(block);
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Cursor over records of given blocks and records appended after the map was built
+     *
+     * @param reader reader of the file the map was built for
+     * @param blocks blocks to scan
+     * @param filter filter of records, may be null
+     */
+    public DbfBlockCursor cursor(DbfRandomAccessReader reader, BitSet blocks, DbfPredicate filter) {
+        return new DbfBlockCursor(reader, this, blocks, filter);
+    }
+
+    int blockRecordsQty(int block) {
+        return Math.min(blockSize, recordsQty - block * blockSize);
+    }
+
+    private int statField(String fieldName) {
+        for (int i = 0; i < statFields.length; i++) {
+            if (statFields[i].getName().equals(fieldName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Field '" + fieldName + "' has no statistics in zone map");
+    }
+
+    private int bloomField(String fieldName) {
+        for (int i = 0; i < bloomFields.length; i++) {
+            if (bloomFields[i].getName().equals(fieldName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Field '" + fieldName + "' has no bloom filter in zone map");
+    }
+
+    private static long hash(byte[] bytes, int offset, int length) {
+        // FNV-1a, then finalizer of MurmurHash3
+        long h = 0xcbf29ce484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            h = (h ^ (bytes[i] & 0xFF)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void addToBloom(long[] bloom, int block, long h) {
+        long bits = (long) bloomWords * 64;
+        long h2 = mix(h ^ 0x9e3779b97f4a7c15L) | 1;
+        int base = block * bloomWords;
+        for (int k = 0; k < BLOOM_HASHES; k++) {
+            long bit = Long.remainderUnsigned(h + k * h2, bits);
+            bloom[base + (int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private boolean bloomContains(long[] bloom, int block, long h) {
+        long bits = (long) bloomWords * 64;
+        long h2 = mix(h ^ 0x9e3779b97f4a7c15L) | 1;
+        int base = block * bloomWords;
+        for (int k = 0; k < BLOOM_HASHES; k++) {
+            long bit = Long.remainderUnsigned(h + k * h2, bits);
+            if ((bloom[base + (int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Save the map into a sidecar file
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(blockSize);
+            out.writeInt(recordsQty);
+            out.writeInt(bloomWords);
+            writeFields(out, statFields);
+            writeFields(out, bloomFields);
+            for (int i = 0; i < blocksQty; i++) {
+                out.writeInt(deletedQty[i]);
+            }
+            for (int i = 0; i < mins.length; i++) {
+                out.writeLong(mins[i]);
+                out.writeLong(maxs[i]);
+            }
+            for (long[] bloom : blooms) {
+                for (long word : bloom) {
+                    out.writeLong(word);
+                }
+            }
+        }
+    }
+
+    private static void writeFields(DataOutputStream out, DbfField[] fields) throws IOException {
+        out.writeInt(fields.length);
+        for (DbfField f : fields) {
+            out.writeUTF(f.getName());
+        }
+    }
+
+    /**
+     * Load the map from a sidecar file
+     *
+     * @param file sidecar file
+     * @param metadata metadata of the DBF file the map was built for
+     */
+    public static DbfZoneMap load(File file, DbfMetadata metadata) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("The file is corrupted or is not a zone map file");
+            }
+            int blockSize = in.readInt();
+            int recordsQty = in.readInt();
+            int bloomWords = in.readInt();
+            if (blockSize <= 0 || recordsQty < 0 || bloomWords <= 0) {
+                throw new IOException("The file is corrupted or is not a zone map file");
+            }
+            DbfField[] statFields = readFields(in, metadata);
+            DbfField[] bloomFields = readFields(in, metadata);
+            for (DbfField f : statFields) {
+                if (!isStatType(f.getType())) {
+                    throw new IllegalArgumentException("Zone map does not match fields of the file");
+                }
+            }
+            String[] bloomNames = new String[bloomFields.length];
+            for (int i = 0; i < bloomFields.length; i++) {
+                bloomNames[i] = bloomFields[i].getName();
+            }
+            DbfZoneMap map = new DbfZoneMap(metadata, statFields, bloomFields(metadata, bloomNames),
+                    blockSize, recordsQty, bloomWords);
+            for (int i = 0; i < map.blocksQty; i++) {
+                map.deletedQty[i] = in.readInt();
+            }
+            for (int i = 0; i < map.mins.length; i++) {
+                map.mins[i] = in.readLong();
+                map.maxs[i] = in.readLong();
+            }
+            for (long[] bloom : map.blooms) {
+                for (int i = 0; i < bloom.length; i++) {
+                    bloom[i] = in.readLong();
+                }
+            }
+            return map;
+        }
+    }
+
+    private static DbfField[] readFields(DataInputStream in, DbfMetadata metadata) throws IOException {
+        int qty = in.readInt();
+        if (qty < 0 || qty > metadata.getFields().size()) {
+            throw new IOException("The file is corrupted or is not a zone map file");
+        }
+        DbfField[] fields = new DbfField[qty];
+        for (int i = 0; i < qty; i++) {
+            String name = in.readUTF();
+            fields[i] = metadata.getField(name);
+            if (fields[i] == null) {
+                throw new IllegalArgumentException("Field '" + name + "' does not exist!");
+            }
+        }
+        return fields;
+    }
+}
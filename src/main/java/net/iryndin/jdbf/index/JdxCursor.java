@@ -0,0 +1,79 @@
+package net.iryndin.jdbf.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Cursor over entries of a {@link JdxIndex} in key order.
+ * Leaf pages are followed by their next page links. Cursor is not thread-safe.
+ */
+public class JdxCursor {
+    private final JdxIndex index;
+    private final byte[] bound;
+    private ByteBuffer page;
+    private int count;
+    private int position;
+    private int entryOffset = -1;
+    private int recordNumber = -1;
+
+    JdxCursor(JdxIndex index, ByteBuffer page, int position, byte[] bound) {
+        this.index = index;
+        this.page = page;
+        this.count = JdxIndex.count(page);
+        this.position = position;
+        this.bound = bound;
+    }
+
+    /**
+     * Move to the next entry
+     *
+     * @return record number of the next entry, or -1 if there are no more entries
+     */
+    public int next() throws IOException {
+        while (page != null && position >= count) {
+            int next = page.getInt(4);
+            page = next == 0 ? null : index.page(next);
+            count = page == null ? 0 : JdxIndex.count(page);
+            position = 0;
+        }
+        if (page == null) {
+            return finish();
+        }
+        int offset = JdxIndex.PAGE_HEADER_LENGTH + position * index.getEntryLength();
+        if (bound != null && JdxIndex.compare(page, offset, bound, bound.length) > 0) {
+            return finish();
+        }
+        position++;
+        entryOffset = offset;
+        recordNumber = page.getInt(offset + index.getKeyLength());
+        return recordNumber;
+    }
+
+    private int finish() {
+        page = null;
+        entryOffset = -1;
+        recordNumber = -1;
+        return -1;
+    }
+
+    /**
+     * @return encoded key at the cursor, or null if cursor is not positioned
+     */
+    public byte[] getKey() {
+        if (entryOffset < 0) {
+            return null;
+        }
+        byte[] key = new byte[index.getKeyLength()];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = page.get(entryOffset + i);
+        }
+        return key;
+    }
+
+    /**
+     * @return record number at the cursor, or -1 if cursor is not positioned
+     */
+    public int getRecordNumber() {
+        return recordNumber;
+    }
+}
@@ -0,0 +1,856 @@
+package net.iryndin.jdbf.index;
+
+import net.iryndin.jdbf.core.DbfField;
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.util.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Persistent B+tree index of one or more fields of a DBF file, kept in a sidecar file (.jdx).
+ *
+ * Index entries are keys encoded by {@link JdxKeyEncoder} followed by record numbers,
+ * so entries are unique and are compared as unsigned bytes. All records are indexed, deleted ones too.
+ *
+ * File consists of pages of {@link #PAGE_SIZE} bytes. Page 0 is the header,
+ * leaf pages hold entries and a link to the next leaf, interior pages hold
+ * the first entry of every child page and the child page number.
+ *
+ * Index is built with {@link #build(File, File, String...)} by an external sort,
+ * so the file may be bigger than memory. Index opened with {@link #open(File)} is mapped into memory
+ * and may be shared between threads. Index opened with {@link #openForUpdate(File)}
+ * accepts new records, e.g. from {@link net.iryndin.jdbf.writer.DbfWriter#addIndex(JdxIndex)}, and is not thread-safe.
+ * It keeps recently used pages in memory: changed pages are written when they are evicted,
+ * and on {@link #flush()} and {@link #close()}. Cursors of such index must not be used across inserts.
+ */
+public class JdxIndex implements Closeable {
+    public static final int PAGE_SIZE = 4096;
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    static final int PAGE_HEADER_LENGTH = 8;
+    private static final byte LEAF = 1;
+    private static final byte INTERIOR = 2;
+    private static final byte[] MAGIC = "JDX1".getBytes(StandardCharsets.US_ASCII);
+    private static final long SEGMENT_SIZE = 1L << 30;
+    // number of pages cached by index opened for update, power of 2
+    private static final int CACHE_PAGES = 256;
+
+    private final FileChannel channel;
+    private final boolean writable;
+    private final JdxKeyEncoder encoder;
+    private final int keyLength;
+    private final int entryLength;
+    private final int leafCapacity;
+    private final int interiorCapacity;
+    private ByteBuffer[] segments;
+    private int rootPage;
+    private int height;
+    private int pagesQty;
+    private long entriesQty;
+    private boolean dirty = false;
+    private byte[] entryBuffer;
+    // direct-mapped page cache of index opened for update, slot is page number modulo cache size.
+    // Page 0 is the header, so 0 marks an empty slot
+    private final int[] cachedPageNos;
+    private final ByteBuffer[] cachedPages;
+    private final boolean[] changedPages;
+    // pages and positions of the path from the root to the leaf of the last insert
+    private int[] pathPages = new int[0];
+    private int[] pathPositions = new int[0];
+
+    private JdxIndex(FileChannel channel, boolean writable, JdxKeyEncoder encoder) {
+        this.channel = channel;
+        this.writable = writable;
+        this.encoder = encoder;
+        this.keyLength = encoder.getKeyLength();
+        this.entryLength = keyLength + 4;
+        this.leafCapacity = (PAGE_SIZE - PAGE_HEADER_LENGTH) / entryLength;
+        this.interiorCapacity = (PAGE_SIZE - PAGE_HEADER_LENGTH) / (entryLength + 4);
+        if (interiorCapacity < 3) {
+            throw new IllegalArgumentException("Index key is too long: " + keyLength + " bytes");
+        }
+        this.entryBuffer = new byte[entryLength];
+        this.cachedPageNos = writable ? new int[CACHE_PAGES] : null;
+        this.cachedPages = writable ? new ByteBuffer[CACHE_PAGES] : null;
+        this.changedPages = writable ? new boolean[CACHE_PAGES] : null;
+    }
+
+    /**
+     * Build index of the DBF file with default memory budget
+     *
+     * @param dbfFile DBF file
+     * @param indexFile index file to create, existing file is overwritten
+     * @param fieldNames names of key fields
+     */
+    public static void build(File dbfFile, File indexFile, String... fieldNames) throws IOException {
+        build(dbfFile, indexFile, DEFAULT_MEMORY_BUDGET, fieldNames);
+    }
+
+    /**
+     * Build index of the DBF file. Entries are sorted in runs that fit into memory budget,
+     * runs are kept in temporary files next to the index file and merged.
+     *
+     * @param memoryBudget approximate memory to use for sorting, in bytes
+     */
+    public static void build(File dbfFile, File indexFile, long memoryBudget, String... fieldNames) throws IOException {
+        try (FileChannel dbfChannel = FileChannel.open(dbfFile.toPath(), StandardOpenOption.READ)) {
+            DbfMetadata metadata = DbfMetadataUtils.readMetadata(dbfChannel);
+            JdxKeyEncoder encoder = new JdxKeyEncoder(metadata, fieldNames);
+            try (JdxIndex index = create(indexFile, encoder)) {
+                index.load(dbfChannel, metadata, memoryBudget, indexFile.getAbsoluteFile().getParentFile());
+            }
+        }
+    }
+
+    /**
+     * Create empty index for the DBF file described by metadata, e.g. for a file that is being written.
+     *
+     * @return index opened for update
+     */
+    public static JdxIndex create(File indexFile, DbfMetadata metadata, String... fieldNames) throws IOException {
+        JdxIndex index = create(indexFile, new JdxKeyEncoder(metadata, fieldNames));
+        try {
+            index.writeEmptyTree();
+        } catch (IOException | RuntimeException e) {
+            index.channel.close();
+            throw e;
+        }
+        return index;
+    }
+
+    private static JdxIndex create(File indexFile, JdxKeyEncoder encoder) throws IOException {
+        FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new JdxIndex(channel, true, encoder);
+        } catch (RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open index for lookups. Index file is mapped into memory
+     */
+    public static JdxIndex open(File indexFile) throws IOException {
+        JdxIndex index = open(indexFile, false);
+        try {
+            index.map();
+        } catch (IOException | RuntimeException e) {
+            index.close();
+            throw e;
+        }
+        return index;
+    }
+
+    /**
+     * Open index for lookups and inserts. Pages are read with positional I/O and cached
+     */
+    public static JdxIndex openForUpdate(File indexFile) throws IOException {
+        return open(indexFile, true);
+    }
+
+    private static JdxIndex open(File indexFile, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(indexFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(indexFile.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+            if (IOUtils.readFully(channel, header, 0) != PAGE_SIZE) {
+                throw new IOException("The file is corrupted or is not a jdx file");
+            }
+            byte[] magic = new byte[MAGIC.length];
+            ((Buffer) header).rewind();
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || header.getInt(4) != PAGE_SIZE) {
+                throw new IOException("The file is corrupted or is not a jdx file");
+            }
+            int keyLength = header.getInt(8);
+            int specLength = header.getShort(32) & 0xFFFF;
+            if (34 + specLength > PAGE_SIZE) {
+                throw new IOException("The file is corrupted or is not a jdx file");
+            }
+            JdxKeyEncoder encoder = parseSpec(new String(header.array(), 34, specLength, StandardCharsets.UTF_8));
+            if (encoder.getKeyLength() != keyLength) {
+                throw new IOException("The file is corrupted or is not a jdx file");
+            }
+            JdxIndex index = new JdxIndex(channel, writable, encoder);
+            index.rootPage = header.getInt(12);
+            index.height = header.getInt(16);
+            index.pagesQty = header.getInt(20);
+            index.entriesQty = header.getLong(24);
+            if (index.rootPage <= 0 || index.rootPage >= index.pagesQty || index.height <= 0
+                    || channel.size() < (long) index.pagesQty * PAGE_SIZE) {
+                throw new IOException("The file is corrupted or is not a jdx file");
+            }
+            return index;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void map() throws IOException {
+        long size = (long) pagesQty * PAGE_SIZE;
+        segments = new ByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < segments.length; i++) {
+            long position = i * SEGMENT_SIZE;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+        }
+    }
+
+    /**
+     * Spec holds key fields as "name,type,length,decimals,offset" separated by ';' and then the charset after '|'
+     */
+    private String spec() {
+        StringBuilder sb = new StringBuilder();
+        for (DbfField f : encoder.getFields()) {
+            if (sb.length() > 0) {
+                sb.append(';');
+            }
+            sb.append(f.getStringRepresentation()).append(',').append(f.getOffset());
+        }
+        return sb.append('|').append(encoder.getCharset().name()).toString();
+    }
+
+    private static JdxKeyEncoder parseSpec(String spec) throws IOException {
+        int bar = spec.lastIndexOf('|');
+        if (bar < 0) {
+            throw new IOException("The file is corrupted or is not a jdx file");
+        }
+        String[] items = spec.substring(0, bar).split(";");
+        DbfField[] fields = new DbfField[items.length];
+        for (int i = 0; i < items.length; i++) {
+            int comma = items[i].lastIndexOf(',');
+            fields[i] = DbfField.fromStringRepresentation(items[i].substring(0, comma));
+            fields[i].setOffset(Integer.parseInt(items[i].substring(comma + 1)));
+        }
+        return new JdxKeyEncoder(fields, Charset.forName(spec.substring(bar + 1)));
+    }
+
+    private void writeHeader() throws IOException {
+        byte[] spec = spec().getBytes(StandardCharsets.UTF_8);
+        if (34 + spec.length > PAGE_SIZE) {
+            throw new IllegalArgumentException("Too many index fields");
+        }
+        ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+        header.put(MAGIC);
+        header.putInt(PAGE_SIZE);
+        header.putInt(keyLength);
+        header.putInt(rootPage);
+        header.putInt(height);
+        header.putInt(pagesQty);
+        header.putLong(entriesQty);
+        header.putShort((short) spec.length);
+        header.put(spec);
+        writePage(0, header);
+    }
+
+    private void writeEmptyTree() throws IOException {
+        ByteBuffer leaf = ByteBuffer.allocate(PAGE_SIZE);
+        leaf.put(0, LEAF);
+        writePage(1, leaf);
+        rootPage = 1;
+        height = 1;
+        pagesQty = 2;
+        entriesQty = 0;
+        writeHeader();
+    }
+
+    public JdxKeyEncoder getKeyEncoder() {
+        return encoder;
+    }
+
+    /**
+     * @return number of entries, i.e. indexed records
+     */
+    public long getEntriesQty() {
+        return entriesQty;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return true if key fields of the index are found in metadata with the same type, length and offset
+     */
+    public boolean isCompatibleWith(DbfMetadata metadata) {
+        for (DbfField f : encoder.getFields()) {
+            DbfField other = metadata.getField(f.getName());
+            if (other == null || other.getType() != f.getType() || other.getLength() != f.getLength()
+                    || other.getNumberOfDecimalPlaces() != f.getNumberOfDecimalPlaces()
+                    || other.getOffset() != f.getOffset()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find record by key values, given in the order of index fields.
+     * If values cover only the first fields, the first record that matches them is found.
+     *
+     * @return number of the first record with the key, in key order, or -1 if there is none
+     */
+    public int find(Object... values) throws IOException {
+        return seekPrefix(encoder.encode(values)).next();
+    }
+
+    /**
+     * @return numbers of all records with the key, in key order.
+     * Records with equal keys are in record number order
+     */
+    public int[] findAll(Object... values) throws IOException {
+        JdxCursor cursor = seekPrefix(encoder.encode(values));
+        int[] result = new int[8];
+        int qty = 0;
+        int recordNumber;
+        while ((recordNumber = cursor.next()) > 0) {
+            if (qty == result.length) {
+                result = Arrays.copyOf(result, qty * 2);
+            }
+            result[qty++] = recordNumber;
+        }
+        return Arrays.copyOf(result, qty);
+    }
+
+    /**
+     * @return cursor over all entries in key order
+     */
+    public JdxCursor first() throws IOException {
+        return cursorAt(new byte[0], null);
+    }
+
+    /**
+     * @param prefix encoded key or first bytes of it
+     * @return cursor over entries that start with given bytes
+     */
+    public JdxCursor seekPrefix(byte[] prefix) throws IOException {
+        return cursorAt(prefix, prefix);
+    }
+
+    /**
+     * Keys of range bounds may be shorter than full keys, e.g. cover only the first index fields.
+     * Upper bound includes all keys that start with it.
+     *
+     * @param from lower bound of keys, inclusive, or null for no bound
+     * @param to upper bound of keys, inclusive, or null for no bound
+     * @return cursor over entries in range [from, to]
+     */
+    public JdxCursor range(byte[] from, byte[] to) throws IOException {
+        return cursorAt(from == null ? new byte[0] : from, to);
+    }
+
+    private JdxCursor cursorAt(byte[] key, byte[] bound) throws IOException {
+        if (key.length > entryLength || (bound != null && bound.length > entryLength)) {
+            throw new IllegalArgumentException("Key is longer than index key");
+        }
+        ByteBuffer page = page(rootPage);
+        for (int level = 1; level < height; level++) {
+            int child = Math.max(0, lowerBound(page, entryLength + 4, key, key.length) - 1);
+            page = page(page.getInt(PAGE_HEADER_LENGTH + child * (entryLength + 4) + entryLength));
+        }
+        return new JdxCursor(this, page, lowerBound(page, entryLength, key, key.length), bound);
+    }
+
+    /**
+     * @return index of the first item of the page which starts with bytes not less than given key
+     */
+    private static int lowerBound(ByteBuffer page, int itemLength, byte[] key, int length) {
+        int lo = 0;
+        int hi = count(page);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(page, PAGE_HEADER_LENGTH + mid * itemLength, key, length) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Compare bytes of the page with the first bytes of the key as unsigned bytes
+     */
+    static int compare(ByteBuffer page, int offset, byte[] key, int length) {
+        for (int i = 0; i < length; i++) {
+            int d = (page.get(offset + i) & 0xFF) - (key[i] & 0xFF);
+            if (d != 0) {
+                return d;
+            }
+        }
+        return 0;
+    }
+
+    private static int compare(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            int d = (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+            if (d != 0) {
+                return d;
+            }
+        }
+        return 0;
+    }
+
+    static int count(ByteBuffer page) {
+        return page.getShort(2) & 0xFFFF;
+    }
+
+    int getKeyLength() {
+        return keyLength;
+    }
+
+    int getEntryLength() {
+        return entryLength;
+    }
+
+    ByteBuffer page(int pageNo) throws IOException {
+        if (pageNo <= 0 || pageNo >= pagesQty) {
+            throw new IOException("The file is corrupted or is not a jdx file");
+        }
+        if (segments == null) {
+            if (cachedPages == null) {
+                return readPage(pageNo);
+            }
+            int slot = pageNo & (CACHE_PAGES - 1);
+            if (cachedPageNos[slot] == pageNo) {
+                return cachedPages[slot];
+            }
+            ByteBuffer page = readPage(pageNo);
+            cachePage(slot, pageNo, page);
+            return page;
+        }
+        long position = (long) pageNo * PAGE_SIZE;
+        ByteBuffer page = segments[(int) (position / SEGMENT_SIZE)].duplicate();
+        int offset = (int) (position % SEGMENT_SIZE);
+        ((Buffer) page).position(offset);
+        ((Buffer) page).limit(offset + PAGE_SIZE);
+        return page.slice();
+    }
+
+    private ByteBuffer readPage(int pageNo) throws IOException {
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        if (IOUtils.readFully(channel, page, (long) pageNo * PAGE_SIZE) != PAGE_SIZE) {
+            throw new IOException("The file is corrupted or is not a jdx file");
+        }
+        return page;
+    }
+
+    /**
+     * Put page into the cache, writing out changed page that is evicted from the slot
+     */
+    private void cachePage(int slot, int pageNo, ByteBuffer page) throws IOException {
+        if (changedPages[slot]) {
+            writePage(cachedPageNos[slot], cachedPages[slot]);
+            changedPages[slot] = false;
+        }
+        cachedPageNos[slot] = pageNo;
+        cachedPages[slot] = page;
+    }
+
+    /**
+     * Mark page of index opened for update as changed, it is written later
+     */
+    private void pageChanged(int pageNo, ByteBuffer page) throws IOException {
+        int slot = pageNo & (CACHE_PAGES - 1);
+        if (cachedPageNos[slot] != pageNo || cachedPages[slot] != page) {
+            cachePage(slot, pageNo, page);
+        }
+        changedPages[slot] = true;
+    }
+
+    private void writePage(int pageNo, ByteBuffer page) throws IOException {
+        ((Buffer) page).rewind();
+        long position = (long) pageNo * PAGE_SIZE;
+        while (page.hasRemaining()) {
+            position += channel.write(page, position);
+        }
+    }
+
+    /**
+     * Add record to the index. Index must be opened for update.
+     *
+     * @param record array with record bytes, as they are stored in DBF file
+     * @param recordOffset offset of the record in the array
+     * @param recordNumber number of the record, 1-based
+     */
+    public void insert(byte[] record, int recordOffset, int recordNumber) throws IOException {
+        if (!writable) {
+            throw new IllegalStateException("Index is opened read-only");
+        }
+        byte[] entry = entryBuffer;
+        encoder.encode(record, recordOffset, entry, 0);
+        putInt(entry, keyLength, recordNumber);
+
+        int interiorLength = entryLength + 4;
+        if (pathPages.length < height) {
+            pathPages = new int[height];
+            pathPositions = new int[height];
+        }
+        int[] pages = pathPages;
+        int[] positions = pathPositions;
+        int pageNo = rootPage;
+        ByteBuffer page = page(pageNo);
+        for (int level = 0; level < height - 1; level++) {
+            int child = Math.max(0, lowerBound(page, interiorLength, entry, entryLength) - 1);
+            pages[level] = pageNo;
+            positions[level] = child;
+            pageNo = page.getInt(PAGE_HEADER_LENGTH + child * interiorLength + entryLength);
+            page = page(pageNo);
+        }
+        int position = lowerBound(page, entryLength, entry, entryLength);
+        if (position < count(page) && compare(page, PAGE_HEADER_LENGTH + position * entryLength, entry, entryLength) == 0) {
+            // record is indexed already
+            return;
+        }
+        entriesQty++;
+        dirty = true;
+        byte[] promoted = insertIntoPage(pageNo, page, position, entry, entryLength, leafCapacity, true);
+        for (int level = height - 2; promoted != null && level >= 0; level--) {
+            promoted = insertIntoPage(pages[level], page(pages[level]), positions[level] + 1,
+                    promoted, interiorLength, interiorCapacity, false);
+        }
+        if (promoted != null) {
+            // root is split, new root has two children
+            ByteBuffer oldRoot = page(rootPage);
+            ByteBuffer root = ByteBuffer.allocate(PAGE_SIZE);
+            root.put(0, INTERIOR);
+            root.putShort(2, (short) 2);
+            for (int i = 0; i < entryLength; i++) {
+                root.put(PAGE_HEADER_LENGTH + i, oldRoot.get(PAGE_HEADER_LENGTH + i));
+            }
+            root.putInt(PAGE_HEADER_LENGTH + entryLength, rootPage);
+            System.arraycopy(promoted, 0, root.array(), PAGE_HEADER_LENGTH + interiorLength, interiorLength);
+            rootPage = pagesQty++;
+            height++;
+            pageChanged(rootPage, root);
+        }
+    }
+
+    /**
+     * Insert item into the page, splitting the page if it is full.
+     *
+     * @return item to insert into the parent page if the page is split, otherwise null
+     */
+    private byte[] insertIntoPage(int pageNo, ByteBuffer page, int position, byte[] item, int itemLength,
+                                  int capacity, boolean leaf) throws IOException {
+        int count = count(page);
+        byte[] bytes = page.array();
+        int offset = PAGE_HEADER_LENGTH + position * itemLength;
+        if (count < capacity) {
+            System.arraycopy(bytes, offset, bytes, offset + itemLength, (count - position) * itemLength);
+            System.arraycopy(item, 0, bytes, offset, itemLength);
+            page.putShort(2, (short) (count + 1));
+            pageChanged(pageNo, page);
+            return null;
+        }
+
+        byte[] items = new byte[(count + 1) * itemLength];
+        System.arraycopy(bytes, PAGE_HEADER_LENGTH, items, 0, offset - PAGE_HEADER_LENGTH);
+        System.arraycopy(item, 0, items, offset - PAGE_HEADER_LENGTH, itemLength);
+        System.arraycopy(bytes, offset, items, offset - PAGE_HEADER_LENGTH + itemLength, (count - position) * itemLength);
+        // appending to the end of the page keeps it full, like bulk load does
+        int leftCount = position == count ? count : (count + 1) / 2;
+        int rightCount = count + 1 - leftCount;
+        int rightPageNo = pagesQty++;
+
+        ByteBuffer right = ByteBuffer.allocate(PAGE_SIZE);
+        right.put(0, leaf ? LEAF : INTERIOR);
+        right.putShort(2, (short) rightCount);
+        if (leaf) {
+            right.putInt(4, page.getInt(4));
+            page.putInt(4, rightPageNo);
+        }
+        System.arraycopy(items, leftCount * itemLength, right.array(), PAGE_HEADER_LENGTH, rightCount * itemLength);
+        System.arraycopy(items, 0, bytes, PAGE_HEADER_LENGTH, leftCount * itemLength);
+        page.putShort(2, (short) leftCount);
+        pageChanged(rightPageNo, right);
+        pageChanged(pageNo, page);
+
+        byte[] promoted = new byte[entryLength + 4];
+        System.arraycopy(items, leftCount * itemLength, promoted, 0, entryLength);
+        putInt(promoted, entryLength, rightPageNo);
+        return promoted;
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Write changed pages and header if index is changed
+     */
+    public void flush() throws IOException {
+        if (changedPages != null) {
+            for (int slot = 0; slot < CACHE_PAGES; slot++) {
+                if (changedPages[slot]) {
+                    writePage(cachedPageNos[slot], cachedPages[slot]);
+                    changedPages[slot] = false;
+                }
+            }
+        }
+        if (dirty) {
+            writeHeader();
+            dirty = false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        segments = null;
+        try {
+            if (writable) {
+                flush();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    // ---------------------------------------------------------------- build
+
+    private void load(FileChannel dbfChannel, DbfMetadata metadata, long memoryBudget, File runDirectory) throws IOException {
+        int recordLength = metadata.getOneRecordLength();
+        long dataLength = dbfChannel.size() - metadata.getFullHeaderLength();
+        int recordsQty = (int) Math.max(0, dataLength / recordLength);
+        // entry, its index and scratch index of merge sort
+        int runCapacity = (int) Math.max(1, Math.min(recordsQty, Math.min(memoryBudget / (entryLength + 8),
+                Integer.MAX_VALUE / entryLength)));
+        byte[] run = new byte[runCapacity * entryLength];
+        int[] order = new int[runCapacity];
+        int[] scratch = new int[runCapacity];
+        ByteBuffer chunk = ByteBuffer.allocate(Math.max(1, 1024 * 1024 / recordLength) * recordLength);
+        List<File> runFiles = new ArrayList<>();
+        try {
+            int runSize = 0;
+            int recordNumber = 0;
+            long position = metadata.getFullHeaderLength();
+            while (recordNumber < recordsQty) {
+                ((Buffer) chunk).clear();
+                int read = IOUtils.readFully(dbfChannel, chunk, position);
+                int records = Math.min(read / recordLength, recordsQty - recordNumber);
+                if (records == 0) {
+                    break;
+                }
+                position += (long) records * recordLength;
+                for (int i = 0; i < records; i++) {
+                    if (runSize == runCapacity) {
+                        runFiles.add(writeRun(runDirectory, run, sort(run, runSize, order, scratch), runSize));
+                        runSize = 0;
+                    }
+                    encoder.encode(chunk.array(), i * recordLength, run, runSize * entryLength);
+                    putInt(run, runSize * entryLength + keyLength, ++recordNumber);
+                    runSize++;
+                }
+            }
+
+            BulkLoader loader = new BulkLoader();
+            if (runFiles.isEmpty()) {
+                int[] sorted = sort(run, runSize, order, scratch);
+                for (int i = 0; i < runSize; i++) {
+                    loader.add(run, sorted[i] * entryLength);
+                }
+            } else {
+                runFiles.add(writeRun(runDirectory, run, sort(run, runSize, order, scratch), runSize));
+                run = null;
+                merge(runFiles, loader);
+            }
+            loader.finish();
+            writeHeader();
+        } finally {
+            for (File f : runFiles) {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * Merge sort of entry indexes, stable
+     *
+     * @return array with sorted indexes
+     */
+    private int[] sort(byte[] entries, int size, int[] order, int[] scratch) {
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            scratch[i] = i;
+        }
+        mergeSort(entries, scratch, order, 0, size);
+        return order;
+    }
+
+    /**
+     * Sort dst[from, to) using src as scratch, both arrays have the same items in the range
+     */
+    private void mergeSort(byte[] entries, int[] src, int[] dst, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(entries, dst, src, from, mid);
+        mergeSort(entries, dst, src, mid, to);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && compare(entries, src[i] * entryLength, entries, src[j] * entryLength, entryLength) <= 0)) {
+                dst[k] = src[i++];
+            } else {
+                dst[k] = src[j++];
+            }
+        }
+    }
+
+    private File writeRun(File directory, byte[] entries, int[] sorted, int size) throws IOException {
+        File file = File.createTempFile("jdx", ".run", directory);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024)) {
+            for (int i = 0; i < size; i++) {
+                out.write(entries, sorted[i] * entryLength, entryLength);
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        return file;
+    }
+
+    private void merge(List<File> runFiles, BulkLoader loader) throws IOException {
+        PriorityQueue<Run> queue = new PriorityQueue<>(runFiles.size(),
+                (a, b) -> compare(a.entry, 0, b.entry, 0, entryLength));
+        List<Run> runs = new ArrayList<>();
+        try {
+            for (File f : runFiles) {
+                Run run = new Run(f, entryLength);
+                runs.add(run);
+                if (run.next()) {
+                    queue.add(run);
+                }
+            }
+            Run run;
+            while ((run = queue.poll()) != null) {
+                loader.add(run.entry, 0);
+                if (run.next()) {
+                    queue.add(run);
+                }
+            }
+        } finally {
+            for (Run r : runs) {
+                r.in.close();
+            }
+        }
+    }
+
+    private static final class Run {
+        final InputStream in;
+        final byte[] entry;
+
+        Run(File file, int entryLength) throws IOException {
+            this.in = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+            this.entry = new byte[entryLength];
+        }
+
+        boolean next() throws IOException {
+            int read = IOUtils.readFully(in, entry);
+            if (read == 0) {
+                return false;
+            }
+            if (read != entry.length) {
+                throw new EOFException("Unexpected end of index run file");
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Writes sorted entries into full leaf pages one after another, then builds interior levels over them
+     */
+    private final class BulkLoader {
+        private final ByteBuffer leaf = ByteBuffer.allocate(PAGE_SIZE);
+        private int leafCount = 0;
+        private int pageNo = 1;
+        // first entries of pages of the level being built, with page numbers
+        private ByteArrayOutputStream level = new ByteArrayOutputStream();
+        private long entries = 0;
+
+        void add(byte[] entry, int offset) throws IOException {
+            if (leafCount == leafCapacity) {
+                writeLeaf(pageNo + 1);
+            }
+            if (leafCount == 0) {
+                addToLevel(level, entry, offset, pageNo);
+            }
+            System.arraycopy(entry, offset, leaf.array(), PAGE_HEADER_LENGTH + leafCount * entryLength, entryLength);
+            leafCount++;
+            entries++;
+        }
+
+        private void writeLeaf(int next) throws IOException {
+            leaf.put(0, LEAF);
+            leaf.putShort(2, (short) leafCount);
+            leaf.putInt(4, next);
+            writePage(pageNo++, leaf);
+            Arrays.fill(leaf.array(), (byte) 0);
+            leafCount = 0;
+        }
+
+        private void addToLevel(ByteArrayOutputStream level, byte[] entry, int offset, int page) {
+            level.write(entry, offset, entryLength);
+            byte[] b = new byte[4];
+            putInt(b, 0, page);
+            level.write(b, 0, 4);
+        }
+
+        void finish() throws IOException {
+            if (leafCount > 0 || pageNo == 1) {
+                writeLeaf(0);
+            }
+            int levels = 1;
+            int itemLength = entryLength + 4;
+            byte[] items = level.toByteArray();
+            level = null;
+            while (items.length > itemLength) {
+                ByteArrayOutputStream upper = new ByteArrayOutputStream();
+                int itemsQty = items.length / itemLength;
+                for (int first = 0; first < itemsQty; first += interiorCapacity) {
+                    int qty = Math.min(interiorCapacity, itemsQty - first);
+                    ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+                    page.put(0, INTERIOR);
+                    page.putShort(2, (short) qty);
+                    System.arraycopy(items, first * itemLength, page.array(), PAGE_HEADER_LENGTH, qty * itemLength);
+                    addToLevel(upper, items, first * itemLength, pageNo);
+                    writePage(pageNo++, page);
+                }
+                items = upper.toByteArray();
+                levels++;
+            }
+            rootPage = items.length == 0 ? 1 : ByteBuffer.wrap(items).getInt(entryLength);
+            height = levels;
+            pagesQty = pageNo;
+            entriesQty = entries;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package net.iryndin.jdbf.index;
+
+import net.iryndin.jdbf.core.DbfField;
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.util.BitUtils;
+import net.iryndin.jdbf.util.JdbfUtils;
+import net.iryndin.jdbf.util.NumberUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encoder of keys of a {@link JdxIndex}: values of one or more fields
+ * encoded so that keys compare as unsigned bytes in the order of the values.
+ *
+ * Every field takes a fixed number of bytes: a flag byte (0 for null, 1 for a value) and the value:
+ * <ul>
+ * <li>Character: bytes as stored, padded with spaces</li>
+ * <li>Numeric, Float: 8 bytes, unscaled by field decimal places, big-endian with inverted sign bit</li>
+ * <li>Integer: 4 bytes, Currency: 8 bytes, big-endian with inverted sign bit</li>
+ * <li>Date: 8 bytes, yyyyMMdd digits as stored</li>
+ * <li>Logical: 1 byte, 1 for false and 2 for true</li>
+ * </ul>
+ */
+public class JdxKeyEncoder {
+    private final DbfField[] fields;
+    private final int[] keyOffsets;
+    private final int keyLength;
+    private final Charset charset;
+
+    public JdxKeyEncoder(DbfMetadata metadata, String... fieldNames) {
+        this(fields(metadata, fieldNames), metadata.getCharset());
+    }
+
+    JdxKeyEncoder(DbfField[] fields, Charset charset) {
+        if (fields.length == 0) {
+            throw new IllegalArgumentException("Index must have at least one field");
+        }
+        this.fields = fields;
+        this.charset = charset == null ? Charset.defaultCharset() : charset;
+        this.keyOffsets = new int[fields.length];
+        int length = 0;
+        for (int i = 0; i < fields.length; i++) {
+            keyOffsets[i] = length;
+            length += 1 + valueLength(fields[i]);
+        }
+        this.keyLength = length;
+    }
+
+    private static DbfField[] fields(DbfMetadata metadata, String... fieldNames) {
+        DbfField[] fields = new DbfField[fieldNames.length];
+        for (int i = 0; i < fieldNames.length; i++) {
+            fields[i] = metadata.getField(fieldNames[i]);
+            if (fields[i] == null) {
+                throw new IllegalArgumentException("Field '" + fieldNames[i] + "' does not exist!");
+            }
+        }
+        return fields;
+    }
+
+    private static int valueLength(DbfField f) {
+        switch (f.getType()) {
+            case Character:
+                return f.getLength();
+            case Numeric:
+            case Float:
+            case Currency:
+            case Date:
+                return 8;
+            case Integer:
+                return 4;
+            case Logical:
+                return 1;
+            default:
+                throw new IllegalArgumentException("Field '" + f.getName() + "' has unsupported type " + f.getType() + "!");
+        }
+    }
+
+    public int getKeyLength() {
+        return keyLength;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    List<DbfField> getFields() {
+        return new ArrayList<>(Arrays.asList(fields));
+    }
+
+    /**
+     * Encode key of the record
+     *
+     * @param record array with record bytes
+     * @param recordOffset offset of the record in the array
+     * @param key target array
+     * @param keyOffset offset of the key in the target array
+     */
+    public void encode(byte[] record, int recordOffset, byte[] key, int keyOffset) {
+        for (int i = 0; i < fields.length; i++) {
+            DbfField f = fields[i];
+            int start = recordOffset + f.getOffset();
+            int k = keyOffset + keyOffsets[i];
+            switch (f.getType()) {
+                case Character:
+                    if (JdbfUtils.isBlank(record, start, f.getLength())) {
+                        putNull(key, k, f);
+                    } else {
+                        key[k] = 1;
+                        System.arraycopy(record, start, key, k + 1, f.getLength());
+                    }
+                    break;
+                case Numeric:
+                case Float:
+                    if (NumberUtils.isNull(record, start, f.getLength())) {
+                        putNull(key, k, f);
+                    } else {
+                        key[k] = 1;
+                        putLong(key, k + 1, NumberUtils.parseUnscaledLong(record, start, f.getLength(), f.getNumberOfDecimalPlaces()));
+                    }
+                    break;
+                case Integer:
+                    key[k] = 1;
+                    putInt(key, k + 1, BitUtils.makeInt(record, start));
+                    break;
+                case Currency:
+                    key[k] = 1;
+                    putLong(key, k + 1, BitUtils.makeLong(record, start));
+                    break;
+                case Date:
+                    if (JdbfUtils.isBlank(record, start, f.getLength())) {
+                        putNull(key, k, f);
+                    } else {
+                        key[k] = 1;
+                        System.arraycopy(record, start, key, k + 1, 8);
+                    }
+                    break;
+                case Logical:
+                    putBoolean(key, k, f, JdbfUtils.logicalValue(record[start]));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Encode key of given values. Values are given in the order of index fields,
+     * and may cover only first fields: such a key is a prefix of full keys.
+     * Supported values are String, Number (BigDecimal for exact decimals), LocalDate, Boolean and null.
+     *
+     * @throws IllegalArgumentException if value does not fit the field
+     */
+    public byte[] encode(Object... values) {
+        if (values.length > fields.length) {
+            throw new IllegalArgumentException("Index has only " + fields.length + " fields");
+        }
+        int length = values.length == fields.length ? keyLength : keyOffsets[values.length];
+        byte[] key = new byte[length];
+        for (int i = 0; i < values.length; i++) {
+            DbfField f = fields[i];
+            int k = keyOffsets[i];
+            Object v = values[i];
+            if (v == null) {
+                putNull(key, k, f);
+                continue;
+            }
+            try {
+                switch (f.getType()) {
+                    case Character: {
+                        byte[] b = ((String) v).getBytes(charset);
+                        if (b.length > f.getLength()) {
+                            throw new IllegalArgumentException("Value '" + v + "' is too long for field '" + f.getName() + "'");
+                        }
+                        key[k] = 1;
+                        System.arraycopy(b, 0, key, k + 1, b.length);
+                        Arrays.fill(key, k + 1 + b.length, k + 1 + f.getLength(), (byte) JdbfUtils.EMPTY);
+                        break;
+                    }
+                    case Numeric:
+                    case Float:
+                        key[k] = 1;
+                        putLong(key, k + 1, unscaled(f, (Number) v, f.getNumberOfDecimalPlaces()));
+                        break;
+                    case Integer:
+                        key[k] = 1;
+                        putInt(key, k + 1, intValue(f, (Number) v));
+                        break;
+                    case Currency:
+                        key[k] = 1;
+                        putLong(key, k + 1, unscaled(f, (Number) v, JdbfUtils.CURRENCY_SCALE));
+                        break;
+                    case Date:
+                        key[k] = 1;
+                        System.arraycopy(JdbfUtils.writeDate((LocalDate) v), 0, key, k + 1, 8);
+                        break;
+                    case Logical:
+                        putBoolean(key, k, f, (Boolean) v ? 1 : 0);
+                        break;
+                }
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException("Value '" + v + "' does not fit field '" + f.getName() + "' of type " + f.getType());
+            }
+        }
+        return key;
+    }
+
+    private static long unscaled(DbfField f, Number n, int scale) {
+        BigDecimal d = n instanceof BigDecimal ? (BigDecimal) n : new BigDecimal(n.toString());
+        try {
+            return d.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Value '" + n + "' does not fit field '" + f.getName() + "'");
+        }
+    }
+
+    private static int intValue(DbfField f, Number n) {
+        try {
+            return Math.toIntExact(unscaled(f, n, 0));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Value '" + n + "' does not fit field '" + f.getName() + "'");
+        }
+    }
+
+    private static void putNull(byte[] key, int k, DbfField f) {
+        Arrays.fill(key, k, k + 1 + valueLength(f), (byte) 0);
+    }
+
+    private static void putBoolean(byte[] key, int k, DbfField f, int value) {
+        if (value < 0) {
+            putNull(key, k, f);
+        } else {
+            key[k] = 1;
+            key[k + 1] = (byte) (value + 1);
+        }
+    }
+
+    private static void putLong(byte[] key, int k, long value) {
+        long bits = value ^ Long.MIN_VALUE;
+        for (int i = 7; i >= 0; i--) {
+            key[k + i] = (byte) bits;
+            bits >>>= 8;
+        }
+    }
+
+    private static void putInt(byte[] key, int k, int value) {
+        int bits = value ^ Integer.MIN_VALUE;
+        key[k] = (byte) (bits >>> 24);
+        key[k + 1] = (byte) (bits >>> 16);
+        key[k + 2] = (byte) (bits >>> 8);
+        key[k + 3] = (byte) bits;
+    }
+}
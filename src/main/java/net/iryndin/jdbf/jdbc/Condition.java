@@ -0,0 +1,461 @@
+package net.iryndin.jdbf.jdbc;
+
+import net.iryndin.jdbf.core.DbfCharset;
+import net.iryndin.jdbf.core.DbfField;
+import net.iryndin.jdbf.core.DbfFieldTypeEnum;
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfPredicate;
+import net.iryndin.jdbf.core.DbfPredicates;
+import net.iryndin.jdbf.util.BitUtils;
+import net.iryndin.jdbf.util.JdbfUtils;
+import net.iryndin.jdbf.util.NumberUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Condition of WHERE clause. It is compiled into a {@link DbfPredicate} on raw record bytes,
+ * so records are filtered right in the read buffer, before any value is decoded.
+ *
+ * Comparisons never match null values, neither do their negations: like in SQL, a comparison with null is unknown
+ * and NOT of unknown is unknown. Character values are compared as bytes, without leading and trailing spaces.
+ */
+abstract class Condition {
+    abstract DbfPredicate toPredicate(DbfMetadata metadata) throws SQLException;
+
+    /**
+     * Predicate of records where the condition is either true or false, but not unknown because of null values
+     */
+    abstract DbfPredicate known(DbfMetadata metadata) throws SQLException;
+
+    static DbfPredicate notNull(DbfMetadata metadata, String fieldName) throws SQLException {
+        return new IsNull(fieldName).toPredicate(metadata).negate();
+    }
+
+    /**
+     * Find field by case-insensitive name
+     */
+    static DbfField findField(DbfMetadata metadata, String name) throws SQLException {
+        DbfField f = metadata.getField(name);
+        if (f != null) {
+            return f;
+        }
+        for (DbfField field : metadata.getFields()) {
+            if (field.getName().equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        throw new SQLException("Column '" + name + "' does not exist");
+    }
+
+    static final class And extends Condition {
+        private final List<Condition> conditions;
+
+        And(List<Condition> conditions) {
+            this.conditions = conditions;
+        }
+
+        @Override
+        DbfPredicate toPredicate(DbfMetadata metadata) throws SQLException {
+            DbfPredicate[] ps = new DbfPredicate[conditions.size()];
+            for (int i = 0; i < ps.length; i++) {
+                ps[i] = conditions.get(i).toPredicate(metadata);
+            }
+            return DbfPredicates.and(ps);
+        }
+
+        @Override
+        DbfPredicate known(DbfMetadata metadata) throws SQLException {
+            // known if all parts are known or any of them is false
+            DbfPredicate[] allKnown = new DbfPredicate[conditions.size()];
+            DbfPredicate[] anyFalse = new DbfPredicate[conditions.size()];
+            for (int i = 0; i < allKnown.length; i++) {
+                Condition c = conditions.get(i);
+                allKnown[i] = c.known(metadata);
+                anyFalse[i] = allKnown[i].and(c.toPredicate(metadata).negate());
+            }
+            return DbfPredicates.and(allKnown).or(DbfPredicates.or(anyFalse));
+        }
+    }
+
+    static final class Or extends Condition {
+        private final List<Condition> conditions;
+
+        Or(List<Condition> conditions) {
+            this.conditions = conditions;
+        }
+
+        @Override
+        DbfPredicate toPredicate(DbfMetadata metadata) throws SQLException {
+            DbfPredicate[] ps = new DbfPredicate[conditions.size()];
+            for (int i = 0; i < ps.length; i++) {
+                ps[i] = conditions.get(i).toPredicate(metadata);
+            }
+            return DbfPredicates.or(ps);
+        }
+
+        @Override
+        DbfPredicate known(DbfMetadata metadata) throws SQLException {
+            // known if all parts are known or any of them is true
+            DbfPredicate[] allKnown = new DbfPredicate[conditions.size()];
+            for (int i = 0; i < allKnown.length; i++) {
+                allKnown[i] = conditions.get(i).known(metadata);
+            }
+            return DbfPredicates.and(allKnown).or(toPredicate(metadata));
+        }
+    }
+
+    static final class Not extends Condition {
+        private final Condition condition;
+
+        Not(Condition condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        DbfPredicate toPredicate(DbfMetadata metadata) throws SQLException {
+            return condition.known(metadata).and(DbfPredicates.not(condition.toPredicate(metadata)));
+        }
+
+        @Override
+        DbfPredicate known(DbfMetadata metadata) throws SQLException {
+            return condition.known(metadata);
+        }
+    }
+
+    /**
+     * Comparison of a field with a literal: =, &lt;&gt;, &lt;, &lt;=, &gt; or &gt;=
+     */
+    static final class Comparison extends Condition {
+        private final String fieldName;
+        private final String operator;
+        private final Object value;
+
+        Comparison(String fieldName, String operator, Object value) {
+            this.fieldName = fieldName;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        DbfPredicate toPredicate(DbfMetadata metadata) throws SQLException {
+            DbfField f = findField(metadata, fieldName);
+            if (value == null) {
+                // comparison with NULL is never true
+                return (bytes, offset) -> false;
+            }
+            if (f.getType() == DbfFieldTypeEnum.Logical) {
+                return logical(f, operator, toBoolean(f, value));
+            }
+            DbfPredicate equal = between(metadata, f, value, value);
+            switch (operator) {
+                case "=":
+                    return equal;
+                case "<>":
+                    return between(metadata, f, null, null).and(equal.negate());
+                case "<":
+                    return between(metadata, f, null, value).and(equal.negate());
+                case "<=":
+                    return between(metadata, f, null, value);
+                case ">":
+                    return between(metadata, f, value, null).and(equal.negate());
+                case ">=":
+                    return between(metadata, f, value, null);
+                default:
+                    throw new SQLException("Unknown operator " + operator);
+            }
+        }
+
+        @Override
+        DbfPredicate known(DbfMetadata metadata) throws SQLException {
+            return value == null ? (bytes, offset) -> false : notNull(metadata, fieldName);
+        }
+    }
+
+    static final class Between extends Condition {
+        private final String fieldName;
+        private final Object from;
+        private final Object to;
+
+        Between(String fieldName, Object from, Object to) {
+            this.fieldName = fieldName;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        DbfPredicate toPredicate(DbfMetadata metadata) throws SQLException {
+            if (from == null || to == null) {
+                return (bytes, offset) -> false;
+            }
+            return between(metadata, findField(metadata, fieldName), from, to);
+        }
+
+        @Override
+        DbfPredicate known(DbfMetadata metadata) throws SQLException {
+            if (from == null || to == null) {
+                return (bytes, offset) -> false;
+            }
+            return notNull(metadata, fieldName);
+        }
+    }
+
+    static final class In extends Condition {
+        private final String fieldName;
+        private final List<Object> values;
+
+        In(String fieldName, List<Object> values) {
+            this.fieldName = fieldName;
+            this.values = values;
+        }
+
+        @Override
+        DbfPredicate toPredicate(DbfMetadata metadata) throws SQLException {
+            DbfPredicate[] ps = new DbfPredicate[values.size()];
+            for (int i = 0; i < ps.length; i++) {
+                ps[i] = new Comparison(fieldName, "=", values.get(i)).toPredicate(metadata);
+            }
+            return DbfPredicates.or(ps);
+        }
+
+        @Override
+        DbfPredicate known(DbfMetadata metadata) throws SQLException {
+            // with null in the list, a value that is not found is unknown
+            return values.contains(null) ? toPredicate(metadata) : notNull(metadata, fieldName);
+        }
+    }
+
+    /**
+     * LIKE with % and _ wildcards. Patterns like 'abc%' and 'abc' are tested on bytes,
+     * others on decoded values.
+     */
+    static final class Like extends Condition {
+        private final String fieldName;
+        private final String pattern;
+
+        Like(String fieldName, String pattern) {
+            this.fieldName = fieldName;
+            this.pattern = pattern;
+        }
+
+        @Override
+        DbfPredicate toPredicate(DbfMetadata metadata) throws SQLException {
+            DbfField f = findField(metadata, fieldName);
+            if (f.getType() != DbfFieldTypeEnum.Character) {
+                throw unsupported(f, "LIKE");
+            }
+            int wildcard = indexOfWildcard(pattern);
+            if (wildcard < 0) {
+                return DbfPredicates.equalTo(metadata, f.getName(), pattern, charset(metadata));
+            }
+            if (wildcard == pattern.length() - 1 && pattern.charAt(wildcard) == '%') {
+                return DbfPredicates.startsWith(metadata, f.getName(), pattern.substring(0, wildcard), charset(metadata));
+            }
+            final Pattern regex = toRegex(pattern);
+            final int fieldOffset = f.getOffset();
+            final int fieldLength = f.getLength();
+            final Charset charset = charset(metadata);
+            return (bytes, offset) -> {
+                String s = DbfCharset.decodeTrimmed(bytes, offset + fieldOffset, fieldLength, charset);
+                return s != null && regex.matcher(s).matches();
+            };
+        }
+
+        @Override
+        DbfPredicate known(DbfMetadata metadata) throws SQLException {
+            return notNull(metadata, fieldName);
+        }
+
+        private static int indexOfWildcard(String pattern) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '%' || c == '_') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static Pattern toRegex(String pattern) {
+            StringBuilder sb = new StringBuilder();
+            int literalStart = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '%' || c == '_') {
+                    if (i > literalStart) {
+                        sb.append(Pattern.quote(pattern.substring(literalStart, i)));
+                    }
+                    sb.append(c == '%' ? ".*" : ".");
+                    literalStart = i + 1;
+                }
+            }
+            if (literalStart < pattern.length()) {
+                sb.append(Pattern.quote(pattern.substring(literalStart)));
+            }
+            return Pattern.compile(sb.toString(), Pattern.DOTALL);
+        }
+    }
+
+    static final class IsNull extends Condition {
+        private final String fieldName;
+
+        IsNull(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        DbfPredicate toPredicate(DbfMetadata metadata) throws SQLException {
+            DbfField f = findField(metadata, fieldName);
+            final int fieldOffset = f.getOffset();
+            final int fieldLength = f.getLength();
+            switch (f.getType()) {
+                case Numeric:
+                case Float:
+                    return (bytes, offset) -> NumberUtils.isNull(bytes, offset + fieldOffset, fieldLength);
+                case Integer:
+                case Currency:
+                case Double:
+                case Double7:
+                    return (bytes, offset) -> false;
+                case Logical:
+                    return (bytes, offset) -> JdbfUtils.logicalValue(bytes[offset + fieldOffset]) < 0;
+                default:
+                    return (bytes, offset) -> JdbfUtils.isBlank(bytes, offset + fieldOffset, fieldLength);
+            }
+        }
+
+        @Override
+        DbfPredicate known(DbfMetadata metadata) {
+            return (bytes, offset) -> true;
+        }
+    }
+
+    /**
+     * Predicate of values in range [from, to], bounds are inclusive and may be null for no bound.
+     * Null values never match.
+     */
+    private static DbfPredicate between(DbfMetadata metadata, DbfField f, Object from, Object to) throws SQLException {
+        switch (f.getType()) {
+            case Character:
+                return characterBetween(f, from == null ? null : toString(from).trim().getBytes(charset(metadata)),
+                        to == null ? null : toString(to).trim().getBytes(charset(metadata)));
+            case Numeric:
+            case Float:
+                return DbfPredicates.numberBetween(metadata, f.getName(), toNumber(f, from), toNumber(f, to));
+            case Integer:
+                return binaryBetween(f, 0, toNumber(f, from), toNumber(f, to));
+            case Currency:
+                return binaryBetween(f, JdbfUtils.CURRENCY_SCALE, toNumber(f, from), toNumber(f, to));
+            case Date:
+                return DbfPredicates.dateBetween(metadata, f.getName(), toDate(f, from), toDate(f, to));
+            default:
+                throw unsupported(f, "Comparison");
+        }
+    }
+
+    private static DbfPredicate characterBetween(DbfField f, byte[] from, byte[] to) {
+        final int fieldOffset = f.getOffset();
+        final int fieldLength = f.getLength();
+        return (bytes, offset) -> {
+            int start = offset + fieldOffset;
+            int end = JdbfUtils.trimEnd(bytes, start, start + fieldLength);
+            start = JdbfUtils.trimStart(bytes, start, end);
+            if (start == end) {
+                return false;
+            }
+            return (from == null || compare(bytes, start, end, from) >= 0)
+                    && (to == null || compare(bytes, start, end, to) <= 0);
+        };
+    }
+
+    /**
+     * Range of binary Integer (scale 0) or Currency (scale 4) values
+     */
+    private static DbfPredicate binaryBetween(DbfField f, int scale, BigDecimal min, BigDecimal max) {
+        final int fieldOffset = f.getOffset();
+        final boolean currency = scale > 0;
+        final long minValue = min == null ? Long.MIN_VALUE : NumberUtils.toUnscaledLong(min, scale, RoundingMode.CEILING);
+        final long maxValue = max == null ? Long.MAX_VALUE : NumberUtils.toUnscaledLong(max, scale, RoundingMode.FLOOR);
+        return (bytes, offset) -> {
+            int start = offset + fieldOffset;
+            long value = currency ? BitUtils.makeLong(bytes, start) : BitUtils.makeInt(bytes, start);
+            return value >= minValue && value <= maxValue;
+        };
+    }
+
+    private static DbfPredicate logical(DbfField f, String operator, boolean value) throws SQLException {
+        final int fieldOffset = f.getOffset();
+        final int expected = value ? 1 : 0;
+        switch (operator) {
+            case "=":
+                return (bytes, offset) -> JdbfUtils.logicalValue(bytes[offset + fieldOffset]) == expected;
+            case "<>":
+                return (bytes, offset) -> JdbfUtils.logicalValue(bytes[offset + fieldOffset]) == 1 - expected;
+            default:
+                throw unsupported(f, "Operator " + operator);
+        }
+    }
+
+    private static Charset charset(DbfMetadata metadata) {
+        return metadata.getCharset() == null ? Charset.defaultCharset() : metadata.getCharset();
+    }
+
+    private static String toString(Object value) {
+        return value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+    }
+
+    private static BigDecimal toNumber(DbfField f, Object value) throws SQLException {
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        try {
+            return new BigDecimal(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new SQLException("Value '" + value + "' cannot be compared with numeric column '" + f.getName() + "'");
+        }
+    }
+
+    private static LocalDate toDate(DbfField f, Object value) throws SQLException {
+        if (value == null || value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        try {
+            return LocalDate.parse(value.toString().trim());
+        } catch (DateTimeParseException e) {
+            throw new SQLException("Value '" + value + "' cannot be compared with date column '" + f.getName() + "'");
+        }
+    }
+
+    private static boolean toBoolean(DbfField f, Object value) throws SQLException {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        String s = value.toString().trim();
+        if (s.length() == 1 && JdbfUtils.logicalValue((byte) s.charAt(0)) >= 0) {
+            return JdbfUtils.logicalValue((byte) s.charAt(0)) == 1;
+        }
+        throw new SQLException("Value '" + value + "' cannot be compared with logical column '" + f.getName() + "'");
+    }
+
+    private static SQLException unsupported(DbfField f, String what) {
+        return new SQLFeatureNotSupportedException(what + " is not supported for column '" + f.getName() + "' of type " + f.getType());
+    }
+
+    private static int compare(byte[] bytes, int start, int end, byte[] value) {
+        int length = Math.min(end - start, value.length);
+        for (int i = 0; i < length; i++) {
+            int d = (bytes[start + i] & 0xFF) - (value[i] & 0xFF);
+            if (d != 0) {
+                return d;
+            }
+        }
+        return (end - start) - value.length;
+    }
+}
@@ -0,0 +1,76 @@
+package net.iryndin.jdbf.jdbc;
+
+import net.iryndin.jdbf.core.DbfField;
+import net.iryndin.jdbf.util.JdbfUtils;
+
+import java.sql.Types;
+
+/**
+ * Column of a {@link JdbfResultSet}: name, label and SQL type
+ */
+final class JdbfColumn {
+    final String name;
+    final String label;
+    final String tableName;
+    final int sqlType;
+    final String typeName;
+    final int precision;
+    final int scale;
+    final String className;
+
+    JdbfColumn(String name, String label, String tableName, int sqlType, String typeName,
+               int precision, int scale, String className) {
+        this.name = name;
+        this.label = label;
+        this.tableName = tableName;
+        this.sqlType = sqlType;
+        this.typeName = typeName;
+        this.precision = precision;
+        this.scale = scale;
+        this.className = className;
+    }
+
+    /**
+     * Column of a field, with SQL type mapped from the field type
+     */
+    static JdbfColumn of(DbfField f, String label, String tableName) {
+        int length = f.getLength();
+        switch (f.getType()) {
+            case Character:
+                return new JdbfColumn(f.getName(), label, tableName, Types.VARCHAR, "VARCHAR", length, 0, "java.lang.String");
+            case Numeric:
+            case Float:
+                // length includes sign and decimal point
+                return new JdbfColumn(f.getName(), label, tableName, Types.DECIMAL, "DECIMAL",
+                        length, f.getNumberOfDecimalPlaces(), "java.math.BigDecimal");
+            case Double:
+            case Double7:
+                return new JdbfColumn(f.getName(), label, tableName, Types.BINARY, "BINARY", length, 0, "[B");
+            case Currency:
+                return new JdbfColumn(f.getName(), label, tableName, Types.DECIMAL, "DECIMAL", 19, JdbfUtils.CURRENCY_SCALE, "java.math.BigDecimal");
+            case Integer:
+                return new JdbfColumn(f.getName(), label, tableName, Types.INTEGER, "INTEGER", 10, 0, "java.lang.Integer");
+            case Date:
+                return new JdbfColumn(f.getName(), label, tableName, Types.DATE, "DATE", 10, 0, "java.sql.Date");
+            case DateTime:
+            case Timestamp:
+                return new JdbfColumn(f.getName(), label, tableName, Types.TIMESTAMP, "TIMESTAMP", 23, 0, "java.sql.Timestamp");
+            case Logical:
+                return new JdbfColumn(f.getName(), label, tableName, Types.BOOLEAN, "BOOLEAN", 1, 0, "java.lang.Boolean");
+            case Memo:
+                return new JdbfColumn(f.getName(), label, tableName, Types.LONGVARCHAR, "LONGVARCHAR", Integer.MAX_VALUE, 0, "java.lang.String");
+            default:
+                return new JdbfColumn(f.getName(), label, tableName, Types.BINARY, "BINARY", length, 0, "[B");
+        }
+    }
+
+    /**
+     * Column of a metadata result set: INTEGER or VARCHAR
+     */
+    static JdbfColumn of(String name, int sqlType) {
+        if (sqlType == Types.INTEGER) {
+            return new JdbfColumn(name, name, "", sqlType, "INTEGER", 10, 0, "java.lang.Integer");
+        }
+        return new JdbfColumn(name, name, "", Types.VARCHAR, "VARCHAR", 255, 0, "java.lang.String");
+    }
+}
@@ -0,0 +1,431 @@
+package net.iryndin.jdbf.jdbc;
+
+import net.iryndin.jdbf.aggregate.DbfAggregation;
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.reader.DbfRandomAccessReader;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.util.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * Read-only connection to a directory of DBF files. Every .dbf file is a table named as the file without extension;
+ * table names are case-insensitive. Memo files (.fpt or .dbt) next to DBF files are used for Memo fields.
+ *
+ * Files are opened by every query, so a query sees the current state of the file.
+ */
+public class JdbfConnection implements Connection {
+    /**
+     * Connection property: charset of Character fields, overrides code page of DBF files
+     */
+    public static final String CHARSET_PROPERTY = "charset";
+
+    private static final String DBF_EXTENSION = ".dbf";
+
+    private final String url;
+    private final File directory;
+    private final Charset charset;
+    private boolean closed;
+
+    JdbfConnection(String url, File directory, Properties info) throws SQLException {
+        if (!directory.isDirectory()) {
+            throw new SQLException("Directory '" + directory + "' does not exist");
+        }
+        this.url = url;
+        this.directory = directory;
+        String charsetName = info.getProperty(CHARSET_PROPERTY);
+        try {
+            this.charset = charsetName == null ? null : Charset.forName(charsetName);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("Unknown charset '" + charsetName + "'", e);
+        }
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return DBF files of the directory, sorted by name
+     */
+    List<File> getTableFiles() {
+        List<File> files = new ArrayList<>();
+        File[] list = directory.listFiles();
+        if (list != null) {
+            for (File f : list) {
+                if (f.isFile() && f.getName().toLowerCase().endsWith(DBF_EXTENSION)) {
+                    files.add(f);
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    static String tableName(File dbfFile) {
+        String name = dbfFile.getName();
+        return name.substring(0, name.length() - DBF_EXTENSION.length());
+    }
+
+    /**
+     * @param tableName table name, with or without .dbf extension, case-insensitive
+     */
+    File getTableFile(String tableName) throws SQLException {
+        String name = tableName;
+        if (name.toLowerCase().endsWith(DBF_EXTENSION)) {
+            name = name.substring(0, name.length() - DBF_EXTENSION.length());
+        }
+        checkOpen();
+        for (File f : getTableFiles()) {
+            if (tableName(f).equalsIgnoreCase(name)) {
+                return f;
+            }
+        }
+        throw new SQLException("Table '" + tableName + "' does not exist");
+    }
+
+    DbfRandomAccessReader openReader(File dbfFile) throws SQLException {
+        try {
+            File memoFile = IOUtils.findMemoFile(dbfFile);
+            DbfRandomAccessReader reader = memoFile == null
+                    ? new DbfRandomAccessReader(dbfFile)
+                    : new DbfRandomAccessReader(dbfFile, memoFile);
+            if (charset != null) {
+                reader.getMetadata().setCharset(charset);
+            }
+            return reader;
+        } catch (IOException e) {
+            throw new SQLException("Cannot open table file '" + dbfFile + "': " + e.getMessage(), e);
+        }
+    }
+
+    DbfAggregation openAggregation(File dbfFile) throws SQLException {
+        try {
+            DbfAggregation aggregation = new DbfAggregation(dbfFile);
+            if (charset != null) {
+                aggregation.getMetadata().setCharset(charset);
+            }
+            return aggregation;
+        } catch (IOException e) {
+            throw new SQLException("Cannot open table file '" + dbfFile + "': " + e.getMessage(), e);
+        }
+    }
+
+    DbfMetadata readMetadata(File dbfFile) throws SQLException {
+        try (FileChannel channel = FileChannel.open(dbfFile.toPath(), StandardOpenOption.READ)) {
+            return DbfMetadataUtils.readMetadata(channel);
+        } catch (IOException e) {
+            throw new SQLException("Cannot open table file '" + dbfFile + "': " + e.getMessage(), e);
+        }
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection is closed");
+        }
+    }
+
+    private static void checkResultSetType(int resultSetType, int resultSetConcurrency) throws SQLException {
+        if (resultSetType != ResultSet.TYPE_FORWARD_ONLY || resultSetConcurrency != ResultSet.CONCUR_READ_ONLY) {
+            throw new SQLFeatureNotSupportedException("Only forward-only read-only result sets are supported");
+        }
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        checkOpen();
+        return new JdbfStatement(this);
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkResultSetType(resultSetType, resultSetConcurrency);
+        return createStatement();
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        checkResultSetType(resultSetType, resultSetConcurrency);
+        return createStatement();
+    }
+
+    @Override
+    public String nativeSQL(String sql) {
+        return sql;
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) {
+    }
+
+    @Override
+    public boolean getAutoCommit() {
+        return true;
+    }
+
+    @Override
+    public void commit() {
+    }
+
+    @Override
+    public void rollback() {
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        checkOpen();
+        return new JdbfDatabaseMetaData(this);
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) {
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public void setCatalog(String catalog) {
+    }
+
+    @Override
+    public String getCatalog() {
+        return null;
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) {
+    }
+
+    @Override
+    public int getTransactionIsolation() {
+        return TRANSACTION_NONE;
+    }
+
+    @Override
+    public SQLWarning getWarnings() {
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() {
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() {
+        return new HashMap<>();
+    }
+
+    @Override
+    public void setHoldability(int holdability) {
+    }
+
+    @Override
+    public int getHoldability() {
+        return ResultSet.CLOSE_CURSORS_AT_COMMIT;
+    }
+
+    @Override
+    public boolean isValid(int timeout) {
+        return !closed && directory.isDirectory();
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+    }
+
+    @Override
+    public String getClientInfo(String name) {
+        return null;
+    }
+
+    @Override
+    public Properties getClientInfo() {
+        return new Properties();
+    }
+
+    @Override
+    public void setSchema(String schema) {
+    }
+
+    @Override
+    public String getSchema() {
+        return null;
+    }
+
+    @Override
+    public void abort(Executor executor) {
+        closed = true;
+    }
+
+    @Override
+    public int getNetworkTimeout() {
+        return 0;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
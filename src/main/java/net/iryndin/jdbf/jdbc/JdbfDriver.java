@@ -0,0 +1,107 @@
+package net.iryndin.jdbf.jdbc;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Read-only JDBC driver over directories of DBF files.
+ *
+ * URL is jdbc:jdbf:&lt;directory&gt;[?property=value[&amp;...]], e.g. jdbc:jdbf:/data/215451?charset=cp866.
+ * Every .dbf file of the directory is a table, see {@link JdbfConnection}.
+ * Supported properties:
+ * <ul>
+ * <li>charset - charset of Character fields, overrides code page of DBF files</li>
+ * </ul>
+ * Driver is registered with {@link DriverManager} when the class is loaded, and by service loader.
+ */
+public class JdbfDriver implements Driver {
+    public static final String URL_PREFIX = "jdbc:jdbf:";
+
+    static final String NAME = "jdbf";
+    static final int MAJOR_VERSION = 2;
+    static final int MINOR_VERSION = 1;
+
+    static {
+        try {
+            DriverManager.registerDriver(new JdbfDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        String path = url.substring(URL_PREFIX.length());
+        Properties properties = new Properties();
+        if (info != null) {
+            properties.putAll(info);
+        }
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            for (String pair : path.substring(query + 1).split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    properties.setProperty(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+                }
+            }
+            path = path.substring(0, query);
+        }
+        if (path.isEmpty()) {
+            throw new SQLException("Directory is not specified in URL " + url);
+        }
+        return new JdbfConnection(url, new File(path), properties);
+    }
+
+    private static String decode(String s) throws SQLException {
+        try {
+            return URLDecoder.decode(s, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            throw new SQLException("Invalid URL parameter '" + s + "'", e);
+        }
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        DriverPropertyInfo charset = new DriverPropertyInfo(JdbfConnection.CHARSET_PROPERTY,
+                info == null ? null : info.getProperty(JdbfConnection.CHARSET_PROPERTY));
+        charset.description = "Charset of Character fields, overrides code page of DBF files";
+        return new DriverPropertyInfo[]{charset};
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return MAJOR_VERSION;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return MINOR_VERSION;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
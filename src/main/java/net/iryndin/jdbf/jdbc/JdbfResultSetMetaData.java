@@ -0,0 +1,162 @@
+package net.iryndin.jdbf.jdbc;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Columns of a {@link JdbfResultSet}
+ */
+public class JdbfResultSetMetaData implements ResultSetMetaData {
+    private final List<JdbfColumn> columns;
+
+    JdbfResultSetMetaData(List<JdbfColumn> columns) {
+        this.columns = columns;
+    }
+
+    private JdbfColumn column(int column) throws SQLException {
+        if (column < 1 || column > columns.size()) {
+            throw new SQLException("Column index " + column + " is out of range 1.." + columns.size());
+        }
+        return columns.get(column - 1);
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) throws SQLException {
+        column(column);
+        return false;
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) throws SQLException {
+        int type = column(column).sqlType;
+        return type == Types.VARCHAR || type == Types.LONGVARCHAR;
+    }
+
+    @Override
+    public boolean isSearchable(int column) throws SQLException {
+        column(column);
+        return true;
+    }
+
+    @Override
+    public boolean isCurrency(int column) throws SQLException {
+        column(column);
+        return false;
+    }
+
+    @Override
+    public int isNullable(int column) throws SQLException {
+        column(column);
+        return columnNullable;
+    }
+
+    @Override
+    public boolean isSigned(int column) throws SQLException {
+        switch (column(column).sqlType) {
+            case Types.DECIMAL:
+            case Types.DOUBLE:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) throws SQLException {
+        JdbfColumn c = column(column);
+        return Math.max(c.precision, c.label.length());
+    }
+
+    @Override
+    public String getColumnLabel(int column) throws SQLException {
+        return column(column).label;
+    }
+
+    @Override
+    public String getColumnName(int column) throws SQLException {
+        return column(column).name;
+    }
+
+    @Override
+    public String getSchemaName(int column) throws SQLException {
+        column(column);
+        return "";
+    }
+
+    @Override
+    public int getPrecision(int column) throws SQLException {
+        return column(column).precision;
+    }
+
+    @Override
+    public int getScale(int column) throws SQLException {
+        return column(column).scale;
+    }
+
+    @Override
+    public String getTableName(int column) throws SQLException {
+        return column(column).tableName;
+    }
+
+    @Override
+    public String getCatalogName(int column) throws SQLException {
+        column(column);
+        return "";
+    }
+
+    @Override
+    public int getColumnType(int column) throws SQLException {
+        return column(column).sqlType;
+    }
+
+    @Override
+    public String getColumnTypeName(int column) throws SQLException {
+        return column(column).typeName;
+    }
+
+    @Override
+    public boolean isReadOnly(int column) throws SQLException {
+        column(column);
+        return true;
+    }
+
+    @Override
+    public boolean isWritable(int column) throws SQLException {
+        column(column);
+        return false;
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) throws SQLException {
+        column(column);
+        return false;
+    }
+
+    @Override
+    public String getColumnClassName(int column) throws SQLException {
+        return column(column).className;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,472 @@
+package net.iryndin.jdbf.jdbc;
+
+import net.iryndin.jdbf.aggregate.AggregateFunction;
+import net.iryndin.jdbf.aggregate.DbfAggregateRow;
+import net.iryndin.jdbf.aggregate.DbfAggregation;
+import net.iryndin.jdbf.core.DbfField;
+import net.iryndin.jdbf.core.DbfFieldTypeEnum;
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfPredicate;
+import net.iryndin.jdbf.core.DbfPredicates;
+import net.iryndin.jdbf.core.DbfSchema;
+import net.iryndin.jdbf.core.FieldAccessor;
+import net.iryndin.jdbf.reader.DbfCursor;
+import net.iryndin.jdbf.reader.DbfRandomAccessReader;
+import net.iryndin.jdbf.util.BitUtils;
+import net.iryndin.jdbf.util.JdbfUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statement that runs SELECT queries (see {@link SqlParser} for the supported subset).
+ *
+ * A query without aggregates scans the table with a {@link DbfCursor}:
+ * WHERE clause is compiled into a predicate on raw record bytes and tested in the read buffer,
+ * and result set getters decode only the selected fields.
+ * A query with GROUP BY or aggregates runs as a {@link DbfAggregation}.
+ * Deleted records are skipped.
+ */
+public class JdbfStatement implements Statement {
+    private final JdbfConnection connection;
+    private JdbfResultSet resultSet;
+    private int maxRows;
+    private int fetchSize;
+    private int queryTimeout;
+    private boolean closeOnCompletion;
+    private boolean closed;
+
+    JdbfStatement(JdbfConnection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        checkOpen();
+        closeResultSet();
+        SelectQuery query = SqlParser.parse(sql);
+        File file = connection.getTableFile(query.tableName);
+        resultSet = query.isAggregate() ? aggregate(query, file) : scan(query, file);
+        return resultSet;
+    }
+
+    private JdbfResultSet scan(SelectQuery query, File file) throws SQLException {
+        DbfRandomAccessReader reader = connection.openReader(file);
+        try {
+            DbfMetadata metadata = reader.getMetadata();
+            DbfSchema schema = metadata.getSchema();
+            String tableName = JdbfConnection.tableName(file);
+            List<FieldAccessor> accessors = new ArrayList<>();
+            List<JdbfColumn> columns = new ArrayList<>();
+            for (SelectQuery.Item item : query.items) {
+                if (item.allFields) {
+                    for (FieldAccessor a : schema.getAccessors()) {
+                        if (a.getType() != DbfFieldTypeEnum.NullFlags) {
+                            accessors.add(a);
+                            columns.add(JdbfColumn.of(a.getField(), a.getName(), tableName));
+                        }
+                    }
+                } else {
+                    DbfField f = Condition.findField(metadata, item.fieldName);
+                    accessors.add(schema.get(f.getName()));
+                    columns.add(JdbfColumn.of(f, item.alias == null ? f.getName() : item.alias, tableName));
+                }
+            }
+            DbfCursor cursor = reader.cursor();
+            cursor.setFilter(filter(query, metadata));
+            return new JdbfResultSet(this, columns,
+                    new ScanRows(reader, cursor, accessors.toArray(new FieldAccessor[0]), limit(query)));
+        } catch (SQLException | RuntimeException e) {
+            try {
+                reader.close();
+            } catch (IOException ignored) {
+            }
+            throw e;
+        }
+    }
+
+    private JdbfResultSet aggregate(SelectQuery query, File file) throws SQLException {
+        DbfAggregation aggregation = connection.openAggregation(file);
+        DbfMetadata metadata = aggregation.getMetadata();
+        String tableName = JdbfConnection.tableName(file);
+
+        List<DbfField> groupFields = new ArrayList<>();
+        for (String name : query.groupBy) {
+            groupFields.add(Condition.findField(metadata, name));
+        }
+        List<JdbfColumn> columns = new ArrayList<>();
+        // for every column: index of group field, or -(index of aggregate + 1)
+        int[] sources = new int[query.items.size()];
+        int aggregatesQty = 0;
+        try {
+            for (DbfField f : groupFields) {
+                aggregation.groupBy(f.getName());
+            }
+            for (int i = 0; i < sources.length; i++) {
+                SelectQuery.Item item = query.items.get(i);
+                if (item.allFields) {
+                    throw new SQLException("* cannot be selected with GROUP BY or aggregates");
+                }
+                if (!item.isAggregate()) {
+                    DbfField f = Condition.findField(metadata, item.fieldName);
+                    sources[i] = groupFields.indexOf(f);
+                    if (sources[i] < 0) {
+                        throw new SQLException("Column '" + item.fieldName + "' must appear in GROUP BY clause");
+                    }
+                    columns.add(JdbfColumn.of(f, item.alias == null ? f.getName() : item.alias, tableName));
+                    continue;
+                }
+                DbfField f = null;
+                if (item.function == AggregateFunction.COUNT) {
+                    aggregation.count();
+                } else {
+                    f = Condition.findField(metadata, item.fieldName);
+                    aggregation.aggregate(item.function, f.getName());
+                }
+                sources[i] = -(++aggregatesQty);
+                columns.add(aggregateColumn(item, f, tableName));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+        aggregation.filter(filter(query, metadata));
+
+        List<DbfAggregateRow> result;
+        try {
+            result = aggregation.run();
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        } catch (UncheckedIOException e) {
+            throw new SQLException(e.getCause().getMessage(), e.getCause());
+        }
+        long limit = limit(query);
+        List<Object[]> rows = new ArrayList<>();
+        for (DbfAggregateRow r : result) {
+            if (limit >= 0 && rows.size() >= limit) {
+                break;
+            }
+            Object[] row = new Object[sources.length];
+            for (int i = 0; i < sources.length; i++) {
+                row[i] = sources[i] >= 0
+                        ? keyValue(groupFields.get(sources[i]), r.getKey(sources[i]))
+                        : r.getValue(-sources[i] - 1);
+            }
+            rows.add(row);
+        }
+        return new JdbfResultSet(this, columns, new ListRows(rows));
+    }
+
+    private static JdbfColumn aggregateColumn(SelectQuery.Item item, DbfField f, String tableName) {
+        String label = item.alias;
+        if (label == null) {
+            label = item.function == AggregateFunction.COUNT ? "COUNT(*)"
+                    : item.function == AggregateFunction.COUNT_DISTINCT ? "COUNT(DISTINCT " + f.getName() + ")"
+                    : item.function.name() + "(" + f.getName() + ")";
+        }
+        switch (item.function) {
+            case COUNT:
+            case COUNT_DISTINCT:
+                return new JdbfColumn(label, label, tableName, Types.BIGINT, "BIGINT", 19, 0, "java.lang.Long");
+            case AVG:
+                return new JdbfColumn(label, label, tableName, Types.DOUBLE, "DOUBLE", 15, 0, "java.lang.Double");
+            default:
+                // SUM, MIN and MAX are BigDecimal, Double for Float fields and LocalDate for Date fields
+                switch (f.getType()) {
+                    case Float:
+                        return new JdbfColumn(label, label, tableName, Types.DOUBLE, "DOUBLE", 15, 0, "java.lang.Double");
+                    case Date:
+                        return new JdbfColumn(label, label, tableName, Types.DATE, "DATE", 10, 0, "java.sql.Date");
+                    default:
+                        JdbfColumn c = JdbfColumn.of(f, label, tableName);
+                        return new JdbfColumn(label, label, tableName, Types.DECIMAL, "DECIMAL", 19, c.scale, "java.math.BigDecimal");
+                }
+        }
+    }
+
+    /**
+     * Group keys are values of {@link FieldAccessor#getValue}; Currency ones are raw bytes
+     */
+    private static Object keyValue(DbfField f, Object value) {
+        if (f.getType() == DbfFieldTypeEnum.Currency && value instanceof byte[]) {
+            return BigDecimal.valueOf(BitUtils.makeLong((byte[]) value, 0), JdbfUtils.CURRENCY_SCALE);
+        }
+        return value;
+    }
+
+    private static DbfPredicate filter(SelectQuery query, DbfMetadata metadata) throws SQLException {
+        DbfPredicate filter = DbfPredicates.notDeleted();
+        if (query.where != null) {
+            filter = filter.and(query.where.toPredicate(metadata));
+        }
+        return filter;
+    }
+
+    private long limit(SelectQuery query) {
+        if (maxRows > 0) {
+            return query.limit < 0 ? maxRows : Math.min(query.limit, maxRows);
+        }
+        return query.limit;
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Statement is closed");
+        }
+    }
+
+    private void closeResultSet() throws SQLException {
+        if (resultSet != null) {
+            resultSet.close();
+            resultSet = null;
+        }
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        executeQuery(sql);
+        return true;
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        checkOpen();
+        return resultSet;
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        checkOpen();
+        return -1;
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        checkOpen();
+        closeResultSet();
+        return false;
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        return getMoreResults();
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Tables are read-only");
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (!closed) {
+            closeResultSet();
+            closed = true;
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        checkOpen();
+        return connection;
+    }
+
+    @Override
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        if (max < 0) {
+            throw new SQLException("Max rows must be >= 0");
+        }
+        this.maxRows = max;
+    }
+
+    @Override
+    public long getLargeMaxRows() {
+        return maxRows;
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        setMaxRows((int) Math.min(max, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public int getMaxFieldSize() {
+        return 0;
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) {
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) {
+    }
+
+    @Override
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) {
+        this.queryTimeout = seconds;
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public SQLWarning getWarnings() {
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() {
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        if (direction != ResultSet.FETCH_FORWARD) {
+            throw new SQLFeatureNotSupportedException("Result sets are forward-only");
+        }
+    }
+
+    @Override
+    public int getFetchDirection() {
+        return ResultSet.FETCH_FORWARD;
+    }
+
+    @Override
+    public void setFetchSize(int rows) {
+        this.fetchSize = rows;
+    }
+
+    @Override
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    @Override
+    public int getResultSetConcurrency() {
+        return ResultSet.CONCUR_READ_ONLY;
+    }
+
+    @Override
+    public int getResultSetType() {
+        return ResultSet.TYPE_FORWARD_ONLY;
+    }
+
+    @Override
+    public int getResultSetHoldability() {
+        return ResultSet.CLOSE_CURSORS_AT_COMMIT;
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) {
+    }
+
+    @Override
+    public boolean isPoolable() {
+        return false;
+    }
+
+    @Override
+    public void closeOnCompletion() {
+        this.closeOnCompletion = true;
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() {
+        return closeOnCompletion;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -0,0 +1,70 @@
+package net.iryndin.jdbf.jdbc;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Rows held in memory: results of aggregation and of database metadata queries
+ */
+final class ListRows implements RowSource {
+    private final Iterator<Object[]> iterator;
+    private Object[] row;
+
+    ListRows(List<Object[]> rows) {
+        this.iterator = rows.iterator();
+    }
+
+    @Override
+    public boolean next() {
+        row = iterator.hasNext() ? iterator.next() : null;
+        return row != null;
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return row[column] == null;
+    }
+
+    @Override
+    public Object getObject(int column) {
+        return row[column];
+    }
+
+    @Override
+    public String getString(int column) {
+        Object value = row[column];
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public long getLong(int column) {
+        Object value = row[column];
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return Long.parseLong(value.toString().trim());
+    }
+
+    @Override
+    public double getDouble(int column) {
+        Object value = row[column];
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return Double.parseDouble(value.toString().trim());
+    }
+
+    @Override
+    public void close() {
+        row = null;
+    }
+}
@@ -0,0 +1,41 @@
+package net.iryndin.jdbf.jdbc;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Rows behind a {@link JdbfResultSet}. Columns are numbered from 0.
+ *
+ * Typed getters let a source read values without boxing them;
+ * {@link JdbfResultSet} converts between types only when asked for a type the source does not have.
+ */
+interface RowSource extends Closeable {
+
+    /**
+     * Move to the next row
+     *
+     * @return false if there are no more rows
+     */
+    boolean next() throws IOException;
+
+    boolean isNull(int column) throws IOException;
+
+    /**
+     * @return value as String, LocalDate, ZonedDateTime, Number, Boolean or byte array, or null
+     */
+    Object getObject(int column) throws IOException;
+
+    String getString(int column) throws IOException;
+
+    /**
+     * @return value as long, fraction is truncated. Null values are returned as 0
+     * @throws NumberFormatException if value is not a number
+     */
+    long getLong(int column) throws IOException;
+
+    /**
+     * @return value as double. Null values are returned as 0
+     * @throws NumberFormatException if value is not a number
+     */
+    double getDouble(int column) throws IOException;
+}
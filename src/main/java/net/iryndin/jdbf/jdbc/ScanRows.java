@@ -0,0 +1,115 @@
+package net.iryndin.jdbf.jdbc;
+
+import net.iryndin.jdbf.core.DbfFieldTypeEnum;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.core.FieldAccessor;
+import net.iryndin.jdbf.reader.DbfCursor;
+import net.iryndin.jdbf.reader.DbfRandomAccessReader;
+import net.iryndin.jdbf.util.JdbfUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Rows of a table scan. Values are read right from the cursor buffer by accessors of selected fields,
+ * so fields that are not selected are never decoded.
+ */
+final class ScanRows implements RowSource {
+    private final DbfRandomAccessReader reader;
+    private final DbfCursor cursor;
+    private final FieldAccessor[] columns;
+    private final long limit;
+    private long rowsQty;
+    private DbfRecord record;
+
+    /**
+     * @param limit maximal number of rows, or -1 for no limit
+     */
+    ScanRows(DbfRandomAccessReader reader, DbfCursor cursor, FieldAccessor[] columns, long limit) {
+        this.reader = reader;
+        this.cursor = cursor;
+        this.columns = columns;
+        this.limit = limit;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (limit >= 0 && rowsQty >= limit) {
+            record = null;
+            return false;
+        }
+        record = cursor.next();
+        if (record == null) {
+            return false;
+        }
+        rowsQty++;
+        return true;
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return columns[column].isNull(record);
+    }
+
+    @Override
+    public Object getObject(int column) throws IOException {
+        FieldAccessor a = columns[column];
+        if (a.isNull(record)) {
+            return null;
+        }
+        if (a.getType() == DbfFieldTypeEnum.Currency) {
+            return BigDecimal.valueOf(a.getUnscaledLong(record, JdbfUtils.CURRENCY_SCALE), JdbfUtils.CURRENCY_SCALE);
+        }
+        return a.getValue(record);
+    }
+
+    @Override
+    public String getString(int column) throws IOException {
+        FieldAccessor a = columns[column];
+        switch (a.getType()) {
+            case Character:
+                return a.getString(record);
+            case Memo:
+                return a.isNull(record) ? null : (String) a.getValue(record);
+            default:
+                Object value = getObject(column);
+                return value == null ? null : value.toString();
+        }
+    }
+
+    @Override
+    public long getLong(int column) throws IOException {
+        FieldAccessor a = columns[column];
+        switch (a.getType()) {
+            case Numeric:
+            case Float:
+            case Integer:
+            case Currency:
+                return a.getLong(record);
+            default:
+                String s = getString(column);
+                return s == null ? 0 : Long.parseLong(s);
+        }
+    }
+
+    @Override
+    public double getDouble(int column) throws IOException {
+        FieldAccessor a = columns[column];
+        switch (a.getType()) {
+            case Numeric:
+            case Float:
+            case Integer:
+            case Currency:
+                return a.getDouble(record);
+            default:
+                String s = getString(column);
+                return s == null ? 0 : Double.parseDouble(s);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        record = null;
+        reader.close();
+    }
+}
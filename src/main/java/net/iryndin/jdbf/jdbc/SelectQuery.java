@@ -0,0 +1,51 @@
+package net.iryndin.jdbf.jdbc;
+
+import net.iryndin.jdbf.aggregate.AggregateFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parsed SELECT statement, see {@link SqlParser}
+ */
+final class SelectQuery {
+
+    /**
+     * One item of the select list: all fields, a field or an aggregate of a field
+     */
+    static final class Item {
+        final boolean allFields;
+        final String fieldName;
+        final AggregateFunction function;
+        final String alias;
+
+        Item(boolean allFields, String fieldName, AggregateFunction function, String alias) {
+            this.allFields = allFields;
+            this.fieldName = fieldName;
+            this.function = function;
+            this.alias = alias;
+        }
+
+        boolean isAggregate() {
+            return function != null;
+        }
+    }
+
+    final List<Item> items = new ArrayList<>();
+    final List<String> groupBy = new ArrayList<>();
+    String tableName;
+    Condition where;
+    long limit = -1;
+
+    boolean isAggregate() {
+        if (!groupBy.isEmpty()) {
+            return true;
+        }
+        for (Item item : items) {
+            if (item.isAggregate()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,425 @@
+package net.iryndin.jdbf.jdbc;
+
+import net.iryndin.jdbf.aggregate.AggregateFunction;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser of the SQL subset supported by the driver:
+ * <pre>
+ * SELECT item [, item ...] FROM table
+ *     [WHERE condition]
+ *     [GROUP BY column [, column ...]]
+ *     [LIMIT n]
+ *
+ * item:      * | column [[AS] alias] | function(column) [[AS] alias]
+ * function:  COUNT(*), COUNT(DISTINCT column), SUM, MIN, MAX, AVG
+ * condition: column =|&lt;&gt;|!=|&lt;|&lt;=|&gt;|&gt;= literal
+ *            | column [NOT] BETWEEN literal AND literal
+ *            | column [NOT] LIKE 'pattern'
+ *            | column [NOT] IN (literal [, literal ...])
+ *            | column IS [NOT] NULL
+ *            | condition AND condition | condition OR condition | NOT condition | (condition)
+ * literal:   'string' | number | DATE 'yyyy-MM-dd' | TRUE | FALSE | NULL
+ * </pre>
+ * Keywords are case-insensitive, identifiers may be quoted with double quotes.
+ */
+final class SqlParser {
+    private static final String EOF = "";
+
+    private final String sql;
+    private final List<String> tokens = new ArrayList<>();
+    // true for tokens that are quoted identifiers or string literals
+    private final List<Boolean> quoted = new ArrayList<>();
+    private int position;
+
+    private SqlParser(String sql) throws SQLException {
+        this.sql = sql;
+        tokenize();
+    }
+
+    static SelectQuery parse(String sql) throws SQLException {
+        return new SqlParser(sql).select();
+    }
+
+    private void tokenize() throws SQLException {
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'' || c == '"') {
+                StringBuilder sb = new StringBuilder();
+                int j = i + 1;
+                while (true) {
+                    if (j >= length) {
+                        throw error("Unterminated " + (c == '\'' ? "string" : "identifier"));
+                    }
+                    char d = sql.charAt(j);
+                    if (d == c) {
+                        if (j + 1 < length && sql.charAt(j + 1) == c) {
+                            sb.append(c);
+                            j += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    sb.append(d);
+                    j++;
+                }
+                // string literals keep their quote to tell them from identifiers
+                add(c == '\'' ? "'" + sb : sb.toString(), true);
+                i = j + 1;
+            } else if (Character.isLetter(c) || c == '_') {
+                int j = i;
+                while (j < length && (Character.isLetterOrDigit(sql.charAt(j)) || sql.charAt(j) == '_' || sql.charAt(j) == '$')) {
+                    j++;
+                }
+                add(sql.substring(i, j), false);
+                i = j;
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)))) {
+                int j = i;
+                while (j < length && (Character.isDigit(sql.charAt(j)) || sql.charAt(j) == '.')) {
+                    j++;
+                }
+                add(sql.substring(i, j), false);
+                i = j;
+            } else if ((c == '<' || c == '>' || c == '!') && i + 1 < length
+                    && (sql.charAt(i + 1) == '=' || (c == '<' && sql.charAt(i + 1) == '>'))) {
+                add(sql.substring(i, i + 2), false);
+                i += 2;
+            } else if ("=<>(),*;-+.".indexOf(c) >= 0) {
+                add(String.valueOf(c), false);
+                i++;
+            } else {
+                throw error("Unexpected character '" + c + "'");
+            }
+        }
+        // trailing semicolon is allowed
+        if (!tokens.isEmpty() && tokens.get(tokens.size() - 1).equals(";") && !quoted.get(tokens.size() - 1)) {
+            tokens.remove(tokens.size() - 1);
+            quoted.remove(quoted.size() - 1);
+        }
+    }
+
+    private void add(String token, boolean isQuoted) {
+        tokens.add(token);
+        quoted.add(isQuoted);
+    }
+
+    private SelectQuery select() throws SQLException {
+        SelectQuery query = new SelectQuery();
+        expectKeyword("SELECT");
+        do {
+            query.items.add(item());
+        } while (accept(","));
+        expectKeyword("FROM");
+        query.tableName = tableName();
+        if (acceptKeyword("WHERE")) {
+            query.where = or();
+        }
+        if (acceptKeyword("GROUP")) {
+            expectKeyword("BY");
+            do {
+                query.groupBy.add(columnName());
+            } while (accept(","));
+        }
+        if (acceptKeyword("LIMIT")) {
+            String n = next();
+            try {
+                query.limit = Long.parseLong(n);
+            } catch (NumberFormatException e) {
+                throw error("Invalid LIMIT " + n);
+            }
+        }
+        if (!peek().equals(EOF)) {
+            throw error("Unexpected '" + peek() + "'");
+        }
+        return query;
+    }
+
+    private SelectQuery.Item item() throws SQLException {
+        if (accept("*")) {
+            return new SelectQuery.Item(true, null, null, null);
+        }
+        String name = identifier();
+        SelectQuery.Item item;
+        if (accept("(")) {
+            AggregateFunction function = function(name);
+            String fieldName = null;
+            if (function == AggregateFunction.COUNT) {
+                if (acceptKeyword("DISTINCT")) {
+                    function = AggregateFunction.COUNT_DISTINCT;
+                    fieldName = columnName();
+                } else if (!accept("*")) {
+                    throw error("Only COUNT(*) and COUNT(DISTINCT column) are supported");
+                }
+            } else {
+                fieldName = columnName();
+            }
+            expect(")");
+            item = new SelectQuery.Item(false, fieldName, function, alias());
+        } else {
+            while (accept(".")) {
+                name = identifier();
+            }
+            item = new SelectQuery.Item(false, name, null, alias());
+        }
+        return item;
+    }
+
+    private AggregateFunction function(String name) throws SQLException {
+        switch (name.toUpperCase()) {
+            case "COUNT":
+                return AggregateFunction.COUNT;
+            case "SUM":
+                return AggregateFunction.SUM;
+            case "MIN":
+                return AggregateFunction.MIN;
+            case "MAX":
+                return AggregateFunction.MAX;
+            case "AVG":
+                return AggregateFunction.AVG;
+            default:
+                throw error("Unknown function " + name);
+        }
+    }
+
+    private String alias() throws SQLException {
+        if (acceptKeyword("AS")) {
+            return identifier();
+        }
+        String token = peek();
+        if (!token.equals(EOF) && (isQuoted() || isWord(token)) && !isKeyword(token)) {
+            return identifier();
+        }
+        return null;
+    }
+
+    private Condition or() throws SQLException {
+        List<Condition> conditions = new ArrayList<>();
+        conditions.add(and());
+        while (acceptKeyword("OR")) {
+            conditions.add(and());
+        }
+        return conditions.size() == 1 ? conditions.get(0) : new Condition.Or(conditions);
+    }
+
+    private Condition and() throws SQLException {
+        List<Condition> conditions = new ArrayList<>();
+        conditions.add(not());
+        while (acceptKeyword("AND")) {
+            conditions.add(not());
+        }
+        return conditions.size() == 1 ? conditions.get(0) : new Condition.And(conditions);
+    }
+
+    private Condition not() throws SQLException {
+        if (acceptKeyword("NOT")) {
+            return new Condition.Not(not());
+        }
+        if (accept("(")) {
+            Condition condition = or();
+            expect(")");
+            return condition;
+        }
+        return predicate();
+    }
+
+    private Condition predicate() throws SQLException {
+        String fieldName = columnName();
+        if (acceptKeyword("IS")) {
+            boolean negated = acceptKeyword("NOT");
+            expectKeyword("NULL");
+            Condition condition = new Condition.IsNull(fieldName);
+            return negated ? new Condition.Not(condition) : condition;
+        }
+        boolean negated = acceptKeyword("NOT");
+        Condition condition;
+        if (acceptKeyword("BETWEEN")) {
+            Object from = literal();
+            expectKeyword("AND");
+            condition = new Condition.Between(fieldName, from, literal());
+        } else if (acceptKeyword("LIKE")) {
+            Object pattern = literal();
+            if (!(pattern instanceof String)) {
+                throw error("LIKE pattern must be a string");
+            }
+            condition = new Condition.Like(fieldName, (String) pattern);
+        } else if (acceptKeyword("IN")) {
+            expect("(");
+            List<Object> values = new ArrayList<>();
+            do {
+                values.add(literal());
+            } while (accept(","));
+            expect(")");
+            condition = new Condition.In(fieldName, values);
+        } else if (negated) {
+            throw error("Expected BETWEEN, LIKE or IN after NOT");
+        } else {
+            String operator = next();
+            switch (operator) {
+                case "=":
+                case "<>":
+                case "<":
+                case "<=":
+                case ">":
+                case ">=":
+                    break;
+                case "!=":
+                    operator = "<>";
+                    break;
+                default:
+                    throw error("Expected comparison operator instead of '" + operator + "'");
+            }
+            return new Condition.Comparison(fieldName, operator, literal());
+        }
+        return negated ? new Condition.Not(condition) : condition;
+    }
+
+    private Object literal() throws SQLException {
+        String token = peek();
+        if (isQuoted() && token.startsWith("'")) {
+            position++;
+            return token.substring(1);
+        }
+        if (acceptKeyword("NULL")) {
+            return null;
+        }
+        if (acceptKeyword("TRUE")) {
+            return Boolean.TRUE;
+        }
+        if (acceptKeyword("FALSE")) {
+            return Boolean.FALSE;
+        }
+        if (acceptKeyword("DATE")) {
+            Object value = literal();
+            try {
+                return LocalDate.parse(String.valueOf(value));
+            } catch (DateTimeParseException e) {
+                throw error("Invalid date '" + value + "'");
+            }
+        }
+        String sign = "";
+        if (accept("-")) {
+            sign = "-";
+        } else {
+            accept("+");
+        }
+        String number = next();
+        try {
+            return new BigDecimal(sign + number);
+        } catch (NumberFormatException e) {
+            throw error("Expected literal instead of '" + number + "'");
+        }
+    }
+
+    /**
+     * Table name, which may have an extension, like gds_im.dbf
+     */
+    private String tableName() throws SQLException {
+        StringBuilder name = new StringBuilder(identifier());
+        while (accept(".")) {
+            name.append('.').append(identifier());
+        }
+        return name.toString();
+    }
+
+    /**
+     * Column name, which may be qualified with table name
+     */
+    private String columnName() throws SQLException {
+        String name = identifier();
+        while (accept(".")) {
+            name = identifier();
+        }
+        return name;
+    }
+
+    private String identifier() throws SQLException {
+        String token = peek();
+        if (isQuoted() && !token.startsWith("'")) {
+            position++;
+            return token;
+        }
+        if (!isWord(token)) {
+            throw error(token.equals(EOF) ? "Unexpected end of statement" : "Expected identifier instead of '" + token + "'");
+        }
+        position++;
+        return token;
+    }
+
+    private static boolean isWord(String token) {
+        return !token.isEmpty() && (Character.isLetter(token.charAt(0)) || token.charAt(0) == '_');
+    }
+
+    private static boolean isKeyword(String token) {
+        switch (token.toUpperCase()) {
+            case "FROM":
+            case "WHERE":
+            case "GROUP":
+            case "BY":
+            case "LIMIT":
+            case "AND":
+            case "OR":
+            case "NOT":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private String peek() {
+        return position < tokens.size() ? tokens.get(position) : EOF;
+    }
+
+    private boolean isQuoted() {
+        return position < tokens.size() && quoted.get(position);
+    }
+
+    private String next() throws SQLException {
+        if (position >= tokens.size()) {
+            throw error("Unexpected end of statement");
+        }
+        return tokens.get(position++);
+    }
+
+    private boolean accept(String symbol) {
+        if (!isQuoted() && peek().equals(symbol)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (!isQuoted() && peek().equalsIgnoreCase(keyword)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String symbol) throws SQLException {
+        if (!accept(symbol)) {
+            throw error("Expected '" + symbol + "' instead of '" + peek() + "'");
+        }
+    }
+
+    private void expectKeyword(String keyword) throws SQLException {
+        if (!acceptKeyword(keyword)) {
+            throw error("Expected " + keyword + " instead of '" + peek() + "'");
+        }
+    }
+
+    private SQLException error(String message) {
+        return new SQLSyntaxErrorException(message + " in: " + sql);
+    }
+}
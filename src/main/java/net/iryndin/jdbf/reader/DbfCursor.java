@@ -0,0 +1,132 @@
+package net.iryndin.jdbf.reader;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfPredicate;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.util.IOUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Cursor over a range of records of a DBF file.
+ *
+ * Records are read by big chunks into one buffer, and {@link #next()} re-points
+ * one and the same {@link DbfRecord} at the current row of the buffer.
+ * So scanning allocates nothing per row, but the record returned by next()
+ * is only valid until the following call. Use {@link DbfRecord#copy()} to retain it.
+ *
+ * Cursor reads with positional I/O, so several cursors may scan
+ * the same file concurrently. A single cursor is not thread-safe.
+ */
+public class DbfCursor {
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Visits raw rows of the cursor buffer
+     */
+    public interface RowVisitor {
+        /**
+         * @param bytes array that holds the record, valid only during the call
+         * @param offset offset of the record in the array (the deletion flag byte)
+         * @param recordNumber number of the record, starting from 1
+         */
+        void visit(byte[] bytes, int offset, int recordNumber) throws IOException;
+    }
+
+    private final FileChannel dbfChannel;
+    private final DbfMetadata metadata;
+    private final int recordLength;
+    private final int lastRecordNumber;
+    private final byte[] buffer;
+    private final DbfRecord record;
+    private DbfPredicate filter;
+    private int nextRecordNumber;
+    private int bufferFirstRecordNumber;
+    private int bufferRecordsQty = 0;
+
+    /**
+     * @param fromRecord number of the first record to read, starting from 1
+     * @param toRecord number of the last record to read, inclusive
+     */
+    DbfCursor(FileChannel dbfChannel, DbfMetadata metadata, MemoReader memoReader,
+              int fromRecord, int toRecord, int bufferSize) {
+        this.dbfChannel = dbfChannel;
+        this.metadata = metadata;
+        this.recordLength = metadata.getOneRecordLength();
+        this.nextRecordNumber = fromRecord;
+        this.bufferFirstRecordNumber = fromRecord;
+        this.lastRecordNumber = toRecord;
+        int bufferRecords = Math.max(1, Math.min(bufferSize / recordLength, toRecord - fromRecord + 1));
+        this.buffer = new byte[bufferRecords * recordLength];
+        this.record = DbfRecord.wrap(buffer, metadata, memoReader, 0);
+    }
+
+    public DbfMetadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Make {@link #next()} skip records that do not satisfy the filter.
+     * Filter is tested on raw bytes of the buffer.
+     */
+    public void setFilter(DbfPredicate filter) {
+        this.filter = filter;
+    }
+
+    public DbfPredicate getFilter() {
+        return filter;
+    }
+
+    /**
+     * Move to the next record
+     *
+     * @return shared record that points at the next row, or null if there are no more records
+     * @throws IOException
+     */
+    public DbfRecord next() throws IOException {
+        while (nextRecordNumber <= lastRecordNumber) {
+            int index = nextRecordNumber - bufferFirstRecordNumber;
+            if (index >= bufferRecordsQty) {
+                fillBuffer();
+                index = 0;
+            }
+            int recordNumber = nextRecordNumber++;
+            if (filter == null || filter.test(buffer, index * recordLength)) {
+                record.setSource(buffer, index * recordLength, recordNumber);
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Visit all remaining records that satisfy the filter, in file order, without creating records.
+     * Cursor is at the end afterwards.
+     */
+    public void forEachRow(RowVisitor visitor) throws IOException {
+        while (nextRecordNumber <= lastRecordNumber) {
+            int index = nextRecordNumber - bufferFirstRecordNumber;
+            if (index >= bufferRecordsQty) {
+                fillBuffer();
+                index = 0;
+            }
+            int recordNumber = nextRecordNumber++;
+            if (filter == null || filter.test(buffer, index * recordLength)) {
+                visitor.visit(buffer, index * recordLength, recordNumber);
+            }
+        }
+    }
+
+    private void fillBuffer() throws IOException {
+        int recordsQty = Math.min(buffer.length / recordLength, lastRecordNumber - nextRecordNumber + 1);
+        long position = metadata.getFullHeaderLength() + (long) (nextRecordNumber - 1) * recordLength;
+        int length = recordsQty * recordLength;
+        if (IOUtils.readFully(dbfChannel, ByteBuffer.wrap(buffer, 0, length), position) < length) {
+            throw new IOException("The file is corrupted or is not a dbf file");
+        }
+        bufferFirstRecordNumber = nextRecordNumber;
+        bufferRecordsQty = recordsQty;
+    }
+}
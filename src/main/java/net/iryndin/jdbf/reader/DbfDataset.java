@@ -0,0 +1,272 @@
+package net.iryndin.jdbf.reader;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfPredicate;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.util.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Set of DBF files of the same schema, read as one table.
+ *
+ * Typical layout is one directory per batch, every one holding a file of the same name:
+ * <pre>
+ * DbfDataset dataset = DbfDataset.discover(new File("data"), "gds_im.dbf")
+ *         .directoryFilter(dir -&gt; dir.getName().compareTo("215000") &gt;= 0)
+ *         .updatedBetween(LocalDate.of(2015, 1, 1), null);
+ * long n = dataset.forEach(rec -&gt; ...);
+ * </pre>
+ * Files are pruned by directory and by update date of the header, then schemas of the rest are
+ * checked to be the same by {@link DbfMetadata#getFieldsStringRepresentation()}.
+ * Files are scanned in parallel, one file per task, on a fixed pool of {@link #threads(int)} threads,
+ * or on a given executor. Memo files (.fpt or .dbt) next to DBF files are used for Memo fields.
+ */
+public class DbfDataset {
+
+    /**
+     * Scans one file of the dataset
+     */
+    public interface FileScanner<R> {
+        /**
+         * @param dbfFile file being scanned
+         * @param cursor cursor over all records of the file, with the dataset filter set
+         * @return result of the file
+         */
+        R scan(File dbfFile, DbfCursor cursor) throws IOException;
+    }
+
+    private final List<File> candidates;
+    private Predicate<File> directoryFilter;
+    private LocalDate updatedFrom;
+    private LocalDate updatedTo;
+    private DbfPredicate filter;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private ExecutorService executor;
+    private List<File> files;
+    private DbfMetadata metadata;
+
+    public DbfDataset(List<File> dbfFiles) {
+        this.candidates = new ArrayList<>(dbfFiles);
+    }
+
+    /**
+     * Find all files with given name, case-insensitive, in the directory and all its subdirectories.
+     * Files are ordered by path.
+     */
+    public static DbfDataset discover(File rootDirectory, String fileName) throws IOException {
+        if (!rootDirectory.isDirectory()) {
+            throw new IOException("Directory '" + rootDirectory + "' does not exist");
+        }
+        List<File> found;
+        try (Stream<Path> paths = Files.walk(rootDirectory.toPath())) {
+            found = paths
+                    .filter(p -> p.getFileName().toString().equalsIgnoreCase(fileName) && Files.isRegularFile(p))
+                    .sorted()
+                    .map(Path::toFile)
+                    .collect(Collectors.toList());
+        }
+        return new DbfDataset(found);
+    }
+
+    /**
+     * Skip files whose directory does not satisfy the filter
+     */
+    public DbfDataset directoryFilter(Predicate<File> directoryFilter) {
+        this.directoryFilter = directoryFilter;
+        this.files = null;
+        return this;
+    }
+
+    /**
+     * Skip files whose header update date is out of the range
+     *
+     * @param from first date, inclusive, or null
+     * @param to last date, inclusive, or null
+     */
+    public DbfDataset updatedBetween(LocalDate from, LocalDate to) {
+        this.updatedFrom = from;
+        this.updatedTo = to;
+        this.files = null;
+        return this;
+    }
+
+    /**
+     * Scan only records that satisfy the filter, see {@link DbfCursor#setFilter(DbfPredicate)}.
+     * Build the filter on {@link #getMetadata()}: it fits every file, as all of them have the same fields.
+     */
+    public DbfDataset filter(DbfPredicate filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * Number of threads of the pool created for every scan
+     */
+    public DbfDataset threads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Scan on given executor instead of a pool of {@link #threads(int)} threads.
+     * The executor is not shut down by the dataset.
+     */
+    public DbfDataset executor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @return files left after pruning, in the order of scan results
+     * @throws IOException if a header cannot be read or schemas of files differ
+     */
+    public List<File> getFiles() throws IOException {
+        resolve();
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * @return metadata of the first file left after pruning, or null if no files are left
+     */
+    public DbfMetadata getMetadata() throws IOException {
+        resolve();
+        return metadata;
+    }
+
+    private void resolve() throws IOException {
+        if (files != null) {
+            return;
+        }
+        List<File> result = new ArrayList<>();
+        DbfMetadata first = null;
+        File firstFile = null;
+        for (File f : candidates) {
+            if (directoryFilter != null && !directoryFilter.test(f.getAbsoluteFile().getParentFile())) {
+                continue;
+            }
+            DbfMetadata m;
+            try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+                m = DbfMetadataUtils.readMetadata(channel);
+            }
+            LocalDate updateDate = m.getUpdateDate();
+            if ((updatedFrom != null && updateDate.isBefore(updatedFrom))
+                    || (updatedTo != null && updateDate.isAfter(updatedTo))) {
+                continue;
+            }
+            if (first == null) {
+                first = m;
+                firstFile = f;
+            } else if (!first.getFieldsStringRepresentation().equals(m.getFieldsStringRepresentation())) {
+                throw new IOException("Schema of '" + f + "' differs from schema of '" + firstFile + "': "
+                        + m.getFieldsStringRepresentation() + " vs " + first.getFieldsStringRepresentation());
+            }
+            result.add(f);
+        }
+        files = result;
+        metadata = first;
+    }
+
+    /**
+     * Scan all files in parallel, one task per file
+     *
+     * @return results of files, in the order of {@link #getFiles()}
+     */
+    public <R> List<R> scan(FileScanner<R> scanner) throws IOException {
+        resolve();
+        ExecutorService service = executor != null ? executor : Executors.newFixedThreadPool(threads);
+        List<Future<R>> futures = new ArrayList<>(files.size());
+        try {
+            for (File f : files) {
+                futures.add(service.submit(() -> scanFile(f, scanner)));
+            }
+            List<R> results = new ArrayList<>(futures.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Scan of dataset is interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            for (Future<R> future : futures) {
+                future.cancel(true);
+            }
+            if (service != executor) {
+                service.shutdownNow();
+            }
+        }
+    }
+
+    private <R> R scanFile(File dbfFile, FileScanner<R> scanner) throws IOException {
+        File memoFile = IOUtils.findMemoFile(dbfFile);
+        try (DbfRandomAccessReader reader = memoFile == null
+                ? new DbfRandomAccessReader(dbfFile)
+                : new DbfRandomAccessReader(dbfFile, memoFile)) {
+            DbfCursor cursor = reader.cursor();
+            cursor.setFilter(filter);
+            return scanner.scan(dbfFile, cursor);
+        }
+    }
+
+    /**
+     * Pass every record of all files to the action.
+     * The action is called concurrently from several threads, and every record is only valid
+     * during the call, see {@link DbfCursor}.
+     *
+     * @return number of records passed to the action
+     */
+    public long forEach(Consumer<DbfRecord> action) throws IOException {
+        AtomicLong total = new AtomicLong();
+        scan((dbfFile, cursor) -> {
+            long n = 0;
+            DbfRecord rec;
+            while ((rec = cursor.next()) != null) {
+                action.accept(rec);
+                n++;
+            }
+            total.addAndGet(n);
+            return null;
+        });
+        return total.get();
+    }
+}
@@ -0,0 +1,120 @@
+package net.iryndin.jdbf.reader;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential reader of DBF files that maps the file into memory.
+ *
+ * A single mapping is limited to 2 GB, so the file is mapped window by window.
+ * Every window holds a whole number of records, and each record is copied
+ * once, straight from the mapped region into the record.
+ */
+public class DbfMappedReader implements Closeable {
+    public static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private FileChannel dbfChannel;
+    private MemoReader memoReader;
+    private DbfMetadata metadata;
+    private int recordsQty;
+    private final int windowRecordsQty;
+    private MappedByteBuffer window;
+    private int windowEnd = 0;
+    private int recordsCounter = 0;
+
+    public DbfMappedReader(File dbfFile) throws IOException {
+        this(dbfFile, null, DEFAULT_WINDOW_SIZE);
+    }
+
+    public DbfMappedReader(File dbfFile, File memoFile) throws IOException {
+        this(dbfFile, memoFile, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param dbfFile DBF file
+     * @param memoFile memo file, may be null
+     * @param windowSize maximum size of one mapped window in bytes, at most Integer.MAX_VALUE
+     */
+    public DbfMappedReader(File dbfFile, File memoFile, long windowSize) throws IOException {
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Window size must be in range [1, " + Integer.MAX_VALUE + "]");
+        }
+        this.dbfChannel = FileChannel.open(dbfFile.toPath(), StandardOpenOption.READ);
+        try {
+            if (memoFile != null) {
+                this.memoReader = new MemoReader(FileChannel.open(memoFile.toPath(), StandardOpenOption.READ));
+            }
+            readMetadata();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        this.windowRecordsQty = (int) Math.max(1, windowSize / metadata.getOneRecordLength());
+    }
+
+    private void readMetadata() throws IOException {
+        metadata = DbfMetadataUtils.readMetadata(dbfChannel);
+        long dataLength = dbfChannel.size() - metadata.getFullHeaderLength();
+        recordsQty = (int) Math.max(0, dataLength / metadata.getOneRecordLength());
+    }
+
+    public DbfMetadata getMetadata() {
+        return metadata;
+    }
+
+    public int getRecordsQty() {
+        return recordsQty;
+    }
+
+    public void findFirstRecord() {
+        window = null;
+        windowEnd = 0;
+        recordsCounter = 0;
+    }
+
+    public DbfRecord read() throws IOException {
+        if (recordsCounter >= recordsQty) {
+            return null;
+        }
+        if (recordsCounter >= windowEnd) {
+            mapWindow(recordsCounter);
+        }
+        byte[] recordBytes = new byte[metadata.getOneRecordLength()];
+        window.get(recordBytes);
+        return DbfRecord.wrap(recordBytes, metadata, memoReader, ++recordsCounter);
+    }
+
+    /**
+     * Map window that starts with the record of given index (0-based)
+     */
+    private void mapWindow(int firstRecordIndex) throws IOException {
+        int recordLength = metadata.getOneRecordLength();
+        int windowRecords = Math.min(windowRecordsQty, recordsQty - firstRecordIndex);
+        long position = metadata.getFullHeaderLength() + (long) firstRecordIndex * recordLength;
+        // previous window is unmapped when it is garbage collected
+        window = dbfChannel.map(FileChannel.MapMode.READ_ONLY, position, (long) windowRecords * recordLength);
+        windowEnd = firstRecordIndex + windowRecords;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        if (memoReader != null) {
+            memoReader.close();
+            memoReader = null;
+        }
+        if (dbfChannel != null) {
+            dbfChannel.close();
+            dbfChannel = null;
+        }
+        recordsCounter = 0;
+    }
+}
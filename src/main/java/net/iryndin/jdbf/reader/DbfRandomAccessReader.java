@@ -0,0 +1,152 @@
+package net.iryndin.jdbf.reader;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.util.IOUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reader of DBF files that fetches any record by its number with a single positional read.
+ *
+ * Position of record N is fullHeaderLength + (N-1) * oneRecordLength.
+ * Positional reads do not touch the channel position, so one reader
+ * may be shared by many threads without any locking.
+ */
+public class DbfRandomAccessReader implements Closeable {
+    private FileChannel dbfChannel;
+    private MemoReader memoReader;
+    private DbfMetadata metadata;
+    private int recordsQty;
+
+    public DbfRandomAccessReader(File dbfFile) throws IOException {
+        this(FileChannel.open(dbfFile.toPath(), StandardOpenOption.READ));
+    }
+
+    public DbfRandomAccessReader(File dbfFile, File memoFile) throws IOException {
+        this(FileChannel.open(dbfFile.toPath(), StandardOpenOption.READ),
+                FileChannel.open(memoFile.toPath(), StandardOpenOption.READ));
+    }
+
+    public DbfRandomAccessReader(FileChannel dbfChannel) throws IOException {
+        this.dbfChannel = dbfChannel;
+        readMetadata();
+    }
+
+    public DbfRandomAccessReader(FileChannel dbfChannel, FileChannel memoChannel) throws IOException {
+        this.dbfChannel = dbfChannel;
+        this.memoReader = new MemoReader(memoChannel);
+        readMetadata();
+    }
+
+    private void readMetadata() throws IOException {
+        metadata = DbfMetadataUtils.readMetadata(dbfChannel);
+        // count only records that are really present in the file, like DbfReader does
+        long dataLength = dbfChannel.size() - metadata.getFullHeaderLength();
+        recordsQty = (int) Math.max(0, dataLength / metadata.getOneRecordLength());
+    }
+
+    public DbfMetadata getMetadata() {
+        return metadata;
+    }
+
+    public MemoReader getMemoReader() {
+        return memoReader;
+    }
+
+    /**
+     * @return number of records that can be read from the file
+     */
+    public int getRecordsQty() {
+        return recordsQty;
+    }
+
+    /**
+     * @param recordNumber record number, starting from 1
+     * @return file position of the record
+     */
+    public long getRecordPosition(int recordNumber) {
+        return metadata.getFullHeaderLength() + (long) (recordNumber - 1) * metadata.getOneRecordLength();
+    }
+
+    /**
+     * Read record by its number
+     *
+     * @param recordNumber record number, starting from 1
+     * @return record
+     * @throws IOException
+     */
+    public DbfRecord read(int recordNumber) throws IOException {
+        if (recordNumber < 1 || recordNumber > recordsQty) {
+            throw new IllegalArgumentException("Record number " + recordNumber + " is out of range [1, " + recordsQty + "]");
+        }
+        byte[] recordBytes = new byte[metadata.getOneRecordLength()];
+        if (IOUtils.readFully(dbfChannel, ByteBuffer.wrap(recordBytes), getRecordPosition(recordNumber)) < recordBytes.length) {
+            throw new IOException("The file is corrupted or is not a dbf file");
+        }
+        return DbfRecord.wrap(recordBytes, metadata, memoReader, recordNumber);
+    }
+
+    /**
+     * @return cursor over all records of the file
+     */
+    public DbfCursor cursor() {
+        return cursor(1, recordsQty);
+    }
+
+    /**
+     * @param fromRecord number of the first record, starting from 1
+     * @param toRecord number of the last record, inclusive
+     * @return cursor over given range of records
+     */
+    public DbfCursor cursor(int fromRecord, int toRecord) {
+        return cursor(fromRecord, toRecord, DbfCursor.DEFAULT_BUFFER_SIZE);
+    }
+
+    public DbfCursor cursor(int fromRecord, int toRecord, int bufferSize) {
+        if (fromRecord < 1 || toRecord > recordsQty) {
+            throw new IllegalArgumentException("Records range [" + fromRecord + ", " + toRecord + "] is out of range [1, " + recordsQty + "]");
+        }
+        return new DbfCursor(dbfChannel, metadata, memoReader, fromRecord, toRecord, bufferSize);
+    }
+
+    public Spliterator<DbfRecord> spliterator() {
+        return new DbfRecordSpliterator(this, 1, recordsQty, DbfRecordSpliterator.DEFAULT_MIN_SPLIT_SIZE);
+    }
+
+    /**
+     * @return sequential stream of all records. Reader must stay open until the stream is consumed.
+     */
+    public Stream<DbfRecord> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * @return parallel stream of all records, where every worker reads its own range of records.
+     * Reader must stay open until the stream is consumed.
+     */
+    public Stream<DbfRecord> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (memoReader != null) {
+            memoReader.close();
+            memoReader = null;
+        }
+        if (dbfChannel != null) {
+            dbfChannel.close();
+            dbfChannel = null;
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package net.iryndin.jdbf.reader;
 
 import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfPredicate;
+import net.iryndin.jdbf.core.DbfProjection;
 import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.core.RecordBatch;
 import net.iryndin.jdbf.util.DbfMetadataUtils;
 import net.iryndin.jdbf.util.IOUtils;
 
 import java.io.*;
-import java.util.Arrays;
 
 import static net.iryndin.jdbf.util.JdbfUtils.FILE_HEADER_SIZE;
 
@@ -14,7 +16,10 @@ public class DbfReader implements Closeable {
     private InputStream dbfInputStream;
     private MemoReader memoReader;
     private DbfMetadata metadata;
+    private DbfProjection projection;
+    private DbfPredicate filter;
     private byte[] oneRecordBuffer;
+    private byte[] projectedRecordBuffer;
     private int recordsCounter = 0;
     private static final int BUFFER_SIZE = 8192;
 
@@ -41,14 +46,51 @@ public class DbfReader implements Closeable {
         return metadata;
     }
 
+    /**
+     * Make {@link #read()} return records that contain only given fields
+     *
+     * @param fieldNames names of fields to keep
+     * @return this reader
+     */
+    public DbfReader project(String... fieldNames) {
+        setProjection(new DbfProjection(metadata, fieldNames));
+        return this;
+    }
+
+    public void setProjection(DbfProjection projection) {
+        this.projection = projection;
+        this.projectedRecordBuffer = null;
+        if (projection != null && oneRecordBuffer == null) {
+            oneRecordBuffer = new byte[metadata.getOneRecordLength()];
+        }
+    }
+
+    /**
+     * Make {@link #read()} skip records that do not satisfy the filter.
+     * Filter is tested on raw bytes, so skipped records allocate nothing.
+     * Record numbers still count every record of the file.
+     */
+    public void setFilter(DbfPredicate filter) {
+        this.filter = filter;
+        if (filter != null && oneRecordBuffer == null) {
+            oneRecordBuffer = new byte[metadata.getOneRecordLength()];
+        }
+    }
+
+    public DbfPredicate getFilter() {
+        return filter;
+    }
+
+    public DbfProjection getProjection() {
+        return projection;
+    }
+
     private void readMetadata() throws IOException {
         this.dbfInputStream.mark(1024 * 1024);
         metadata = new DbfMetadata();
         readHeader();
         DbfMetadataUtils.readFields(metadata, dbfInputStream);
 
-        oneRecordBuffer = new byte[metadata.getOneRecordLength()];
-
         findFirstRecord();
     }
 
@@ -83,17 +125,71 @@ public class DbfReader implements Closeable {
     }
 
     public DbfRecord read() throws IOException {
-        Arrays.fill(oneRecordBuffer, (byte) 0x0);
-        int readLength = IOUtils.readFully(dbfInputStream, oneRecordBuffer);
+        if (projection != null || filter != null) {
+            return readIntoBuffer();
+        }
+
+        // read straight into the array of a new record, so it needs no extra copy
+        byte[] recordBytes = new byte[metadata.getOneRecordLength()];
+        int readLength = IOUtils.readFully(dbfInputStream, recordBytes);
 
         if (readLength < metadata.getOneRecordLength()) {
             return null;
         }
 
-        return createDbfRecord();
+        return DbfRecord.wrap(recordBytes, metadata, memoReader, ++recordsCounter);
     }
 
-    private DbfRecord createDbfRecord() {
-        return new DbfRecord(oneRecordBuffer, metadata, memoReader, ++recordsCounter);
+    private DbfRecord readIntoBuffer() throws IOException {
+        while (IOUtils.readFully(dbfInputStream, oneRecordBuffer) == metadata.getOneRecordLength()) {
+            recordsCounter++;
+            if (filter != null && !filter.test(oneRecordBuffer, 0)) {
+                continue;
+            }
+            if (projection != null) {
+                // only bytes of projected fields are copied out of the shared buffer
+                return projection.apply(oneRecordBuffer, 0, memoReader, recordsCounter);
+            }
+            return DbfRecord.wrap(oneRecordBuffer.clone(), metadata, memoReader, recordsCounter);
+        }
+        return null;
+    }
+
+    /**
+     * Read next records into column vectors.
+     * Projection and filter are applied like in {@link #read()}.
+     *
+     * @param maxRows max number of records to read
+     * @param reuse batch to fill, if it fits the metadata and maxRows; may be null
+     * @return batch with at least one row, or null if there are no more records
+     * @throws IOException
+     */
+    public RecordBatch readBatch(int maxRows, RecordBatch reuse) throws IOException {
+        DbfMetadata batchMetadata = projection != null ? projection.getMetadata() : metadata;
+        RecordBatch batch = reuse;
+        if (batch == null || batch.getMetadata() != batchMetadata || batch.getCapacity() < maxRows) {
+            batch = new RecordBatch(batchMetadata, maxRows);
+        }
+        batch.clear();
+        if (oneRecordBuffer == null) {
+            oneRecordBuffer = new byte[metadata.getOneRecordLength()];
+        }
+        if (projection != null && projectedRecordBuffer == null) {
+            projectedRecordBuffer = new byte[batchMetadata.getOneRecordLength()];
+        }
+        while (batch.size() < maxRows
+                && IOUtils.readFully(dbfInputStream, oneRecordBuffer) == metadata.getOneRecordLength()) {
+            recordsCounter++;
+            if (filter != null && !filter.test(oneRecordBuffer, 0)) {
+                continue;
+            }
+            if (projection != null) {
+                projection.apply(oneRecordBuffer, 0, projectedRecordBuffer, 0);
+                batch.add(projectedRecordBuffer, 0, recordsCounter);
+            } else {
+                batch.add(oneRecordBuffer, 0, recordsCounter);
+            }
+        }
+        return batch.size() > 0 ? batch : null;
     }
 }
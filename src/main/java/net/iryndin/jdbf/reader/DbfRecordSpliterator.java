@@ -0,0 +1,98 @@
+package net.iryndin.jdbf.reader;
+
+import net.iryndin.jdbf.core.DbfRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a range of records of a DBF file.
+ *
+ * Any range of records can be addressed independently, so the range is split in halves,
+ * and every part is read by its own {@link DbfCursor} with positional I/O.
+ * Elements are independent copies of the records, so they can be retained.
+ */
+public class DbfRecordSpliterator implements Spliterator<DbfRecord> {
+    public static final int DEFAULT_MIN_SPLIT_SIZE = 1024;
+
+    private final DbfRandomAccessReader reader;
+    private final int minSplitSize;
+    private int fromRecord;
+    private final int toRecord;
+    private DbfCursor cursor;
+
+    /**
+     * @param reader reader of the file
+     * @param fromRecord number of the first record, starting from 1
+     * @param toRecord number of the last record, inclusive
+     * @param minSplitSize ranges smaller than this are not split any further
+     */
+    public DbfRecordSpliterator(DbfRandomAccessReader reader, int fromRecord, int toRecord, int minSplitSize) {
+        this.reader = reader;
+        this.fromRecord = fromRecord;
+        this.toRecord = toRecord;
+        this.minSplitSize = Math.max(1, minSplitSize);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super DbfRecord> action) {
+        DbfRecord rec = nextRecord();
+        if (rec == null) {
+            return false;
+        }
+        action.accept(rec.copy());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super DbfRecord> action) {
+        DbfRecord rec;
+        while ((rec = nextRecord()) != null) {
+            action.accept(rec.copy());
+        }
+    }
+
+    private DbfRecord nextRecord() {
+        if (fromRecord > toRecord) {
+            return null;
+        }
+        try {
+            if (cursor == null) {
+                cursor = reader.cursor(fromRecord, toRecord);
+            }
+            DbfRecord rec = cursor.next();
+            fromRecord++;
+            return rec;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Spliterator<DbfRecord> trySplit() {
+        // the cursor has already buffered its range
+        if (cursor != null) {
+            return null;
+        }
+        int size = toRecord - fromRecord + 1;
+        if (size < 2 * minSplitSize) {
+            return null;
+        }
+        int mid = fromRecord + size / 2;
+        DbfRecordSpliterator prefix = new DbfRecordSpliterator(reader, fromRecord, mid - 1, minSplitSize);
+        fromRecord = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Math.max(0, toRecord - fromRecord + 1);
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+}
@@ -0,0 +1,247 @@
+package net.iryndin.jdbf.reader;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.core.DbfSchema;
+import net.iryndin.jdbf.core.FieldAccessor;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.util.IOUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * DBF file loaded into memory outside of the Java heap.
+ *
+ * Records are kept in direct buffers, segment by segment (a single buffer is limited to 2 GB),
+ * and every segment holds a whole number of records. Memo file, if any, is loaded into
+ * a direct buffer too. So the table costs the heap next to nothing, whatever its size,
+ * and the garbage collector never scans its data.
+ *
+ * Table is immutable and thread-safe. Values are decoded from a per-thread scratch array,
+ * and only bytes of the requested field are copied to the heap.
+ * Direct memory is limited by -XX:MaxDirectMemorySize.
+ */
+public class DbfTable implements Closeable {
+    public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024 * 1024;
+
+    private final DbfMetadata metadata;
+    private final DbfSchema schema;
+    private final int recordsQty;
+    private final int recordLength;
+    private final int segmentRecordsQty;
+    private final long sizeInBytes;
+    private volatile ByteBuffer[] segments;
+    private volatile MemoReader memoReader;
+    // holds no reference to the table, so it does not keep buffers of closed tables alive
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private DbfTable(DbfMetadata metadata, ByteBuffer[] segments, int recordsQty, int segmentRecordsQty,
+                     MemoReader memoReader, long sizeInBytes) {
+        this.metadata = metadata;
+        this.schema = metadata.getSchema();
+        this.segments = segments;
+        this.recordsQty = recordsQty;
+        this.recordLength = metadata.getOneRecordLength();
+        this.segmentRecordsQty = segmentRecordsQty;
+        this.memoReader = memoReader;
+        this.sizeInBytes = sizeInBytes;
+    }
+
+    public static DbfTable load(File dbfFile) throws IOException {
+        return load(dbfFile, null, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public static DbfTable load(File dbfFile, File memoFile) throws IOException {
+        return load(dbfFile, memoFile, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Load the file with large sequential reads straight into direct buffers
+     *
+     * @param dbfFile DBF file
+     * @param memoFile memo file, may be null
+     * @param segmentSize maximum size of one buffer in bytes
+     */
+    public static DbfTable load(File dbfFile, File memoFile, int segmentSize) throws IOException {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive");
+        }
+        try (FileChannel channel = FileChannel.open(dbfFile.toPath(), StandardOpenOption.READ)) {
+            DbfMetadata metadata = DbfMetadataUtils.readMetadata(channel);
+            int recordLength = metadata.getOneRecordLength();
+            long dataLength = channel.size() - metadata.getFullHeaderLength();
+            int recordsQty = (int) Math.max(0, Math.min(Integer.MAX_VALUE, dataLength / recordLength));
+            int segmentRecordsQty = Math.max(1, segmentSize / recordLength);
+
+            int segmentsQty = (recordsQty + segmentRecordsQty - 1) / segmentRecordsQty;
+            ByteBuffer[] segments = new ByteBuffer[segmentsQty];
+            long position = metadata.getFullHeaderLength();
+            for (int i = 0; i < segmentsQty; i++) {
+                int qty = Math.min(segmentRecordsQty, recordsQty - i * segmentRecordsQty);
+                ByteBuffer segment = ByteBuffer.allocateDirect(qty * recordLength);
+                if (IOUtils.readFully(channel, segment, position) < segment.capacity()) {
+                    throw new IOException("The file is corrupted or is not a dbf file");
+                }
+                position += segment.capacity();
+                segments[i] = segment;
+            }
+
+            MemoReader memoReader = null;
+            long sizeInBytes = (long) recordsQty * recordLength;
+            if (memoFile != null) {
+                ByteBuffer memoBuffer = loadMemo(memoFile);
+                memoReader = new MemoReader(memoBuffer);
+                sizeInBytes += memoBuffer.capacity();
+            }
+            return new DbfTable(metadata, segments, recordsQty, segmentRecordsQty, memoReader, sizeInBytes);
+        }
+    }
+
+    private static ByteBuffer loadMemo(File memoFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(memoFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Memo file " + memoFile + " is bigger than 2 GB");
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) channel.size());
+            if (IOUtils.readFully(channel, buffer, 0) < buffer.capacity()) {
+                throw new IOException("Cannot read memo file " + memoFile);
+            }
+            return buffer;
+        }
+    }
+
+    public DbfMetadata getMetadata() {
+        return metadata;
+    }
+
+    public DbfSchema getSchema() {
+        return schema;
+    }
+
+    public int getRecordsQty() {
+        return recordsQty;
+    }
+
+    /**
+     * @return size of off-heap memory occupied by records and memo file
+     */
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /**
+     * Read the record by its number
+     *
+     * @param recordNumber number of the record, starting from 1
+     * @return independent copy of the record
+     */
+    public DbfRecord read(int recordNumber) {
+        ByteBuffer[] segments = openSegments(recordNumber);
+        byte[] bytes = new byte[recordLength];
+        copy(segments, recordNumber, 0, bytes, recordLength);
+        return DbfRecord.wrap(bytes, metadata, memoReader, recordNumber);
+    }
+
+    public boolean isDeleted(int recordNumber) {
+        ByteBuffer[] segments = openSegments(recordNumber);
+        int index = recordNumber - 1;
+        return segments[index / segmentRecordsQty].get((index % segmentRecordsQty) * recordLength) == 0x2A;
+    }
+
+    /**
+     * @param recordNumber number of the record, starting from 1
+     * @param column index of the field, starting from 0
+     * @return value decoded like {@link DbfRecord#toMap()} does
+     */
+    public Object getValue(int recordNumber, int column) throws IOException {
+        FieldAccessor a = schema.get(column);
+        return a.getValue(field(recordNumber, a));
+    }
+
+    public String getString(int recordNumber, int column) {
+        FieldAccessor a = schema.get(column);
+        return a.getString(field(recordNumber, a));
+    }
+
+    public boolean isNull(int recordNumber, int column) {
+        FieldAccessor a = schema.get(column);
+        return a.isNull(field(recordNumber, a));
+    }
+
+    public long getLong(int recordNumber, int column) {
+        FieldAccessor a = schema.get(column);
+        return a.getLong(field(recordNumber, a));
+    }
+
+    public double getDouble(int recordNumber, int column) {
+        FieldAccessor a = schema.get(column);
+        return a.getDouble(field(recordNumber, a));
+    }
+
+    public long getEpochDay(int recordNumber, int column) {
+        FieldAccessor a = schema.get(column);
+        return a.getEpochDay(field(recordNumber, a));
+    }
+
+    public long getEpochMillis(int recordNumber, int column) {
+        FieldAccessor a = schema.get(column);
+        return a.getEpochMillis(field(recordNumber, a));
+    }
+
+    /**
+     * Copy bytes of one field into the scratch array of this thread
+     *
+     * @return record over the scratch array, valid until the next call in this thread
+     */
+    private DbfRecord field(int recordNumber, FieldAccessor accessor) {
+        ByteBuffer[] segments = openSegments(recordNumber);
+        byte[] bytes = SCRATCH.get();
+        if (bytes.length < recordLength) {
+            bytes = new byte[recordLength];
+            SCRATCH.set(bytes);
+        }
+        copy(segments, recordNumber, accessor.getOffset(), bytes, accessor.getLength());
+        return DbfRecord.wrap(bytes, metadata, memoReader, recordNumber);
+    }
+
+    private void copy(ByteBuffer[] segments, int recordNumber, int offsetInRecord, byte[] target, int length) {
+        int index = recordNumber - 1;
+        ByteBuffer segment = segments[index / segmentRecordsQty];
+        int position = (index % segmentRecordsQty) * recordLength + offsetInRecord;
+        // absolute gets do not touch the position shared by all threads
+        for (int i = 0; i < length; i++) {
+            target[offsetInRecord + i] = segment.get(position + i);
+        }
+    }
+
+    /**
+     * Check the record number and that the table is open
+     *
+     * @return segments to read the record from. The field is read once, so that a concurrent
+     * {@link #close()} is reported as closed table rather than NullPointerException.
+     */
+    private ByteBuffer[] openSegments(int recordNumber) {
+        ByteBuffer[] segments = this.segments;
+        if (segments == null) {
+            throw new IllegalStateException("Table is closed");
+        }
+        if (recordNumber < 1 || recordNumber > recordsQty) {
+            throw new IllegalArgumentException("Record number " + recordNumber + " is out of range [1, " + recordsQty + "]");
+        }
+        return segments;
+    }
+
+    /**
+     * Drop references to the buffers, so their memory is freed with the next GC.
+     */
+    @Override
+    public void close() throws IOException {
+        segments = null;
+        memoReader = null;
+    }
+}
@@ -0,0 +1,372 @@
+package net.iryndin.jdbf.reader;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache of loaded {@link DbfTable}s.
+ *
+ * Tables are keyed by canonical path of the DBF file, and every entry remembers size and
+ * last-modified time of the DBF and memo files. When any of them changes, the next
+ * {@link #get(File, File)} loads the table again. Least recently used tables are evicted
+ * when total size of cached tables exceeds the budget. Evicted tables are not closed,
+ * as they may still be in use: their memory is freed by GC.
+ *
+ * Metadata of files is cached separately by {@link #getMetadata(File)}, with the same stamps,
+ * so that headers of tables that do not fit the budget are not read again either.
+ * Up to {@link #MAX_METADATA_ENTRIES} least recently used headers are kept.
+ *
+ * Files rewritten in place within the resolution of file time may keep the same stamp,
+ * so {@link #startWatching()} additionally invalidates entries on file system events.
+ *
+ * The cache is thread-safe.
+ */
+public class DbfTableCache implements Closeable {
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    public static final int MAX_METADATA_ENTRIES = 1024;
+
+    private static volatile DbfTableCache defaultCache;
+
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, MetadataEntry> metadataEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeInBytes = 0;
+    private WatchService watchService;
+    private final Set<Path> watchedDirectories = new HashSet<>();
+
+    /**
+     * @param maxBytes budget for total size of cached tables, see {@link DbfTable#getSizeInBytes()}
+     */
+    public DbfTableCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return process-wide cache with {@link #DEFAULT_MAX_BYTES} budget
+     */
+    public static DbfTableCache getDefault() {
+        DbfTableCache cache = defaultCache;
+        if (cache == null) {
+            synchronized (DbfTableCache.class) {
+                cache = defaultCache;
+                if (cache == null) {
+                    cache = new DbfTableCache(DEFAULT_MAX_BYTES);
+                    defaultCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    public DbfTable get(File dbfFile) throws IOException {
+        return get(dbfFile, null);
+    }
+
+    /**
+     * Get cached table, or load it if it is not cached or its files have changed
+     *
+     * @param dbfFile DBF file
+     * @param memoFile memo file, may be null
+     */
+    public DbfTable get(File dbfFile, File memoFile) throws IOException {
+        Path dbfPath = dbfFile.toPath().toRealPath();
+        Path memoPath = memoFile == null ? null : memoFile.toPath().toRealPath();
+        String key = dbfPath.toString();
+        Stamp stamp = new Stamp(dbfPath, memoPath);
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.stamp.equals(stamp)) {
+                    return entry.table;
+                }
+                remove(key);
+            }
+        }
+
+        // load outside of the lock, so a big table does not block hits of other ones
+        DbfTable table = DbfTable.load(dbfPath.toFile(), memoPath == null ? null : memoPath.toFile());
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.stamp.equals(stamp)) {
+                // loaded concurrently by another thread
+                return entry.table;
+            }
+            if (entry != null) {
+                remove(key);
+            }
+            if (table.getSizeInBytes() <= maxBytes) {
+                // watch before publishing, so an entry is never cached without a watch
+                watch(dbfPath);
+                if (memoPath != null) {
+                    watch(memoPath);
+                }
+                entries.put(key, new Entry(stamp, table));
+                sizeInBytes += table.getSizeInBytes();
+                evict();
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Get cached metadata, or read the header of the file if it is not cached or the file has changed.
+     * Records are not loaded, so this works for files of any size.
+     */
+    public DbfMetadata getMetadata(File dbfFile) throws IOException {
+        Path dbfPath = dbfFile.toPath().toRealPath();
+        String key = dbfPath.toString();
+        Stamp stamp = new Stamp(dbfPath, null);
+
+        synchronized (this) {
+            MetadataEntry entry = metadataEntries.get(key);
+            if (entry != null && entry.stamp.equals(stamp)) {
+                return entry.metadata;
+            }
+        }
+
+        DbfMetadata metadata;
+        try (FileChannel channel = FileChannel.open(dbfPath, StandardOpenOption.READ)) {
+            metadata = DbfMetadataUtils.readMetadata(channel);
+        }
+        synchronized (this) {
+            // watch before publishing, so an entry is never cached without a watch
+            watch(dbfPath);
+            metadataEntries.put(key, new MetadataEntry(stamp, metadata));
+            if (metadataEntries.size() > MAX_METADATA_ENTRIES) {
+                Iterator<MetadataEntry> it = metadataEntries.values().iterator();
+                it.next();
+                it.remove();
+            }
+        }
+        return metadata;
+    }
+
+    public void invalidate(File dbfFile) throws IOException {
+        String key = dbfFile.toPath().toRealPath().toString();
+        synchronized (this) {
+            remove(key);
+            metadataEntries.remove(key);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        metadataEntries.clear();
+        sizeInBytes = 0;
+    }
+
+    /**
+     * @return number of cached tables
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            sizeInBytes -= entry.table.getSizeInBytes();
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        // the most recently used entry, that is just added, is the last one
+        while (sizeInBytes > maxBytes && entries.size() > 1) {
+            Entry eldest = it.next();
+            sizeInBytes -= eldest.table.getSizeInBytes();
+            it.remove();
+        }
+    }
+
+    /**
+     * Start a daemon thread that invalidates entries when their files are modified, replaced or deleted
+     */
+    public synchronized void startWatching() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        final WatchService ws = FileSystems.getDefault().newWatchService();
+        watchService = ws;
+        try {
+            for (Entry entry : entries.values()) {
+                watch(entry.stamp.dbfPath);
+                if (entry.stamp.memoPath != null) {
+                    watch(entry.stamp.memoPath);
+                }
+            }
+            for (MetadataEntry entry : metadataEntries.values()) {
+                watch(entry.stamp.dbfPath);
+            }
+            Thread watchThread = new Thread(() -> processEvents(ws), "jdbf-table-cache-watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        } catch (IOException | RuntimeException | Error e) {
+            // leave the cache not watching, so that the call may be repeated
+            watchService = null;
+            watchedDirectories.clear();
+            ws.close();
+            throw e;
+        }
+    }
+
+    private void watch(Path file) throws IOException {
+        if (watchService == null) {
+            return;
+        }
+        Path dir = file.getParent();
+        if (!watchedDirectories.contains(dir)) {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirectories.add(dir);
+        }
+    }
+
+    private void processEvents(WatchService ws) {
+        try {
+            while (true) {
+                WatchKey watchKey = ws.take();
+                Path dir = (Path) watchKey.watchable();
+                for (WatchEvent<?> event : watchKey.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        invalidateAll();
+                    } else {
+                        invalidatePath(dir.resolve((Path) event.context()));
+                    }
+                }
+                if (!watchKey.reset()) {
+                    synchronized (this) {
+                        watchedDirectories.remove(dir);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+
+    private synchronized void invalidatePath(Path changed) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (changed.equals(entry.stamp.dbfPath) || changed.equals(entry.stamp.memoPath)) {
+                sizeInBytes -= entry.table.getSizeInBytes();
+                it.remove();
+            }
+        }
+        metadataEntries.values().removeIf(entry -> changed.equals(entry.stamp.dbfPath));
+    }
+
+    /**
+     * Stop watching and drop all entries
+     */
+    @Override
+    public void close() throws IOException {
+        WatchService ws;
+        synchronized (this) {
+            ws = watchService;
+            watchService = null;
+            watchedDirectories.clear();
+            invalidateAll();
+        }
+        if (ws != null) {
+            ws.close();
+        }
+    }
+
+    private static final class Entry {
+        final Stamp stamp;
+        final DbfTable table;
+
+        Entry(Stamp stamp, DbfTable table) {
+            this.stamp = stamp;
+            this.table = table;
+        }
+    }
+
+    private static final class MetadataEntry {
+        final Stamp stamp;
+        final DbfMetadata metadata;
+
+        MetadataEntry(Stamp stamp, DbfMetadata metadata) {
+            this.stamp = stamp;
+            this.metadata = metadata;
+        }
+    }
+
+    /**
+     * Size and last-modified time of the DBF and memo files
+     */
+    private static final class Stamp {
+        final Path dbfPath;
+        final Path memoPath;
+        final long dbfSize;
+        final long dbfModified;
+        final long memoSize;
+        final long memoModified;
+
+        Stamp(Path dbfPath, Path memoPath) throws IOException {
+            this.dbfPath = dbfPath;
+            this.memoPath = memoPath;
+            BasicFileAttributes attrs = Files.readAttributes(dbfPath, BasicFileAttributes.class);
+            this.dbfSize = attrs.size();
+            this.dbfModified = attrs.lastModifiedTime().toMillis();
+            if (memoPath != null) {
+                attrs = Files.readAttributes(memoPath, BasicFileAttributes.class);
+                this.memoSize = attrs.size();
+                this.memoModified = attrs.lastModifiedTime().toMillis();
+            } else {
+                this.memoSize = -1;
+                this.memoModified = -1;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Stamp)) {
+                return false;
+            }
+            Stamp s = (Stamp) o;
+            return dbfSize == s.dbfSize && dbfModified == s.dbfModified
+                    && memoSize == s.memoSize && memoModified == s.memoModified
+                    && (memoPath == null ? s.memoPath == null : memoPath.equals(s.memoPath));
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (dbfSize * 31 + dbfModified);
+        }
+    }
+}
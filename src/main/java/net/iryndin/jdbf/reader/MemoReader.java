@@ -7,6 +7,9 @@ import net.iryndin.jdbf.util.IOUtils;
 import net.iryndin.jdbf.util.JdbfUtils;
 
 import java.io.*;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * Reader of memo files (tested of *.FPT files - Visual FoxPro)
@@ -23,6 +26,8 @@ public class MemoReader implements Closeable {
 
     private static final int BUFFER_SIZE = 8192;
     private InputStream memoInputStream;
+    private FileChannel memoChannel;
+    private ByteBuffer memoBuffer;
     private MemoFileHeader memoHeader;
 
     public MemoReader(File memoFile) throws IOException {
@@ -34,6 +39,35 @@ public class MemoReader implements Closeable {
         readMetadata();
     }
 
+    /**
+     * Create reader that uses positional reads on the channel.
+     * Such a reader may be shared between threads.
+     */
+    public MemoReader(FileChannel memoChannel) throws IOException {
+        this.memoChannel = memoChannel;
+        byte[] headerBytes = new byte[JdbfUtils.MEMO_HEADER_LENGTH];
+        if (IOUtils.readFully(memoChannel, ByteBuffer.wrap(headerBytes), 0) != JdbfUtils.MEMO_HEADER_LENGTH)
+            throw new IOException("The file is corrupted or is not a dbf file");
+
+        this.memoHeader = MemoFileHeader.create(headerBytes);
+    }
+
+    /**
+     * Create reader of memo file contents loaded into memory (e.g. a direct buffer).
+     * Buffer is never modified, and such a reader may be shared between threads.
+     */
+    public MemoReader(ByteBuffer memoBuffer) throws IOException {
+        this.memoBuffer = memoBuffer;
+        byte[] headerBytes = new byte[JdbfUtils.MEMO_HEADER_LENGTH];
+        if (memoBuffer.capacity() < JdbfUtils.MEMO_HEADER_LENGTH)
+            throw new IOException("The file is corrupted or is not a dbf file");
+        ByteBuffer view = memoBuffer.duplicate();
+        ((Buffer) view).position(0);
+        view.get(headerBytes);
+
+        this.memoHeader = MemoFileHeader.create(headerBytes);
+    }
+
     private void readMetadata() throws IOException {
         byte[] headerBytes = new byte[JdbfUtils.MEMO_HEADER_LENGTH];
         memoInputStream.mark(8192);
@@ -49,6 +83,9 @@ public class MemoReader implements Closeable {
         if (memoInputStream != null) {
             memoInputStream.close();
         }
+        if (memoChannel != null) {
+            memoChannel.close();
+        }
     }
 
     public MemoFileHeader getMemoHeader() {
@@ -56,6 +93,12 @@ public class MemoReader implements Closeable {
     }
 
     public MemoRecord read(int offsetInBlocks) throws IOException {
+        if (memoChannel != null) {
+            return readFromChannel(offsetInBlocks);
+        }
+        if (memoBuffer != null) {
+            return readFromBuffer(offsetInBlocks);
+        }
         memoInputStream.reset();
         memoInputStream.skip(memoHeader.getBlockSize()*offsetInBlocks);
         byte[] recordHeader = new byte[JdbfUtils.RECORD_HEADER_LENGTH];
@@ -70,4 +113,37 @@ public class MemoReader implements Closeable {
 
         return new MemoRecord(recordHeader, recordBody, memoHeader.getBlockSize(), offsetInBlocks);
     }
+
+    private MemoRecord readFromChannel(int offsetInBlocks) throws IOException {
+        long position = (long) memoHeader.getBlockSize() * offsetInBlocks;
+        byte[] recordHeader = new byte[JdbfUtils.RECORD_HEADER_LENGTH];
+        if (IOUtils.readFully(memoChannel, ByteBuffer.wrap(recordHeader), position) != JdbfUtils.RECORD_HEADER_LENGTH)
+            throw new IOException("The file is corrupted or is not a dbf file");
+
+        int memoRecordLength = BitUtils.makeInt(recordHeader[7], recordHeader[6], recordHeader[5], recordHeader[4]);
+        byte[] recordBody = new byte[memoRecordLength];
+
+        if (IOUtils.readFully(memoChannel, ByteBuffer.wrap(recordBody), position + JdbfUtils.RECORD_HEADER_LENGTH) != memoRecordLength)
+            throw new IOException("The file is corrupted or is not a dbf file");
+
+        return new MemoRecord(recordHeader, recordBody, memoHeader.getBlockSize(), offsetInBlocks);
+    }
+
+    private MemoRecord readFromBuffer(int offsetInBlocks) throws IOException {
+        long position = (long) memoHeader.getBlockSize() * offsetInBlocks;
+        if (position + JdbfUtils.RECORD_HEADER_LENGTH > memoBuffer.capacity())
+            throw new IOException("The file is corrupted or is not a dbf file");
+        ByteBuffer view = memoBuffer.duplicate();
+        ((Buffer) view).position((int) position);
+        byte[] recordHeader = new byte[JdbfUtils.RECORD_HEADER_LENGTH];
+        view.get(recordHeader);
+
+        int memoRecordLength = BitUtils.makeInt(recordHeader[7], recordHeader[6], recordHeader[5], recordHeader[4]);
+        if (memoRecordLength < 0 || memoRecordLength > view.remaining())
+            throw new IOException("The file is corrupted or is not a dbf file");
+        byte[] recordBody = new byte[memoRecordLength];
+        view.get(recordBody);
+
+        return new MemoRecord(recordHeader, recordBody, memoHeader.getBlockSize(), offsetInBlocks);
+    }
 }
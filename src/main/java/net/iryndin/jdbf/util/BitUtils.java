@@ -13,6 +13,20 @@ public class BitUtils {
 		       ((b4 << 24) & 0xFF000000);
 	}
 	
+	/**
+	 * Little-endian int from 4 bytes of the array, starting from offset
+	 */
+	public static int makeInt(byte[] bytes, int offset) {
+		return makeInt(bytes[offset], bytes[offset + 1], bytes[offset + 2], bytes[offset + 3]);
+	}
+
+	/**
+	 * Little-endian long from 8 bytes of the array, starting from offset
+	 */
+	public static long makeLong(byte[] bytes, int offset) {
+		return (makeInt(bytes, offset) & 0xFFFFFFFFL) | ((long) makeInt(bytes, offset + 4) << 32);
+	}
+	
 	public static byte[] makeByte4(int i) {
 		byte[] b = {
 			(byte)(i & 0x000000FF),
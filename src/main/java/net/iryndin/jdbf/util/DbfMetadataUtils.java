@@ -2,8 +2,11 @@ package net.iryndin.jdbf.util;
 
 import net.iryndin.jdbf.core.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -76,6 +79,31 @@ public class DbfMetadataUtils {
         metadata.setCharset(DbfCharset.fromInt(headerBytes[29]));
     }
 
+    /**
+     * Read header and fields of a DBF file using positional reads,
+     * so the channel position is left untouched.
+     */
+    public static DbfMetadata readMetadata(FileChannel channel) throws IOException {
+        byte[] headerBytes = new byte[FILE_HEADER_SIZE];
+        if (IOUtils.readFully(channel, ByteBuffer.wrap(headerBytes), 0) != FILE_HEADER_SIZE)
+            throw new IOException("The file is corrupted or is not a dbf file");
+
+        DbfMetadata metadata = new DbfMetadata();
+        fillHeaderFields(metadata, headerBytes);
+
+        int fullHeaderLength = metadata.getFullHeaderLength();
+        if (fullHeaderLength <= FILE_HEADER_SIZE || metadata.getOneRecordLength() <= 0)
+            throw new IOException("The file is corrupted or is not a dbf file");
+
+        byte[] fullHeaderBytes = new byte[fullHeaderLength];
+        int readLength = IOUtils.readFully(channel, ByteBuffer.wrap(fullHeaderBytes), 0);
+        // readFields() rewinds to the beginning of the stream, so give it the whole header
+        InputStream inputStream = new ByteArrayInputStream(fullHeaderBytes, 0, readLength);
+        inputStream.skip(FILE_HEADER_SIZE);
+        readFields(metadata, inputStream);
+        return metadata;
+    }
+
     public static LocalDate parseHeaderUpdateDate(byte yearByte, byte monthByte, byte dayByte, DbfFileTypeEnum fileType) {
         int year = yearByte + 2000 - 1900;
         switch (fileType) {
@@ -145,6 +173,8 @@ public class DbfMetadataUtils {
         }
         // 4. Set number of decimal places
         field.setNumberOfDecimalPlaces(fieldBytes[17]);
+        // 5. Set FoxPro NULL flag
+        field.setNullable((fieldBytes[18] & 0x02) != 0);
 
         return field;
     }
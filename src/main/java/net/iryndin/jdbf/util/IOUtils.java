@@ -1,12 +1,17 @@
 package net.iryndin.jdbf.util;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 
 public class IOUtils {
 
+    private static final String[] MEMO_EXTENSIONS = {".fpt", ".dbt"};
+
     public static byte[] toByteArray(InputStream input) throws IOException {
         try {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -56,4 +61,46 @@ public class IOUtils {
         }
         return byteCount;
     }
+
+    /**
+     * @param channel the file channel
+     * @param dst a buffer to fill from the channel, from its position up to its limit
+     * @param position file position to start reading from
+     * @return the number of bytes really read, between 0 and dst.remaining().
+     * A return value lower than dst.remaining() means that the end of the file was reached.
+     * The channel position is not changed, so this method can be called concurrently.
+     * @throws IOException
+     */
+    public static int readFully(FileChannel channel, ByteBuffer dst, long position) throws IOException {
+        int byteCount = 0;
+        while (dst.hasRemaining()) {
+            int ret = channel.read(dst, position + byteCount);
+            if (ret == -1)
+                break;
+            byteCount += ret;
+        }
+        return byteCount;
+    }
+
+    /**
+     * Find memo file (.fpt or .dbt) next to a DBF file, with the same base name in any case
+     *
+     * @return memo file, or null if there is none
+     */
+    public static File findMemoFile(File dbfFile) {
+        String name = dbfFile.getName();
+        int dot = name.lastIndexOf('.');
+        String baseName = dot > 0 ? name.substring(0, dot) : name;
+        File[] list = dbfFile.getAbsoluteFile().getParentFile().listFiles();
+        if (list != null) {
+            for (String extension : MEMO_EXTENSIONS) {
+                for (File f : list) {
+                    if (f.isFile() && f.getName().equalsIgnoreCase(baseName + extension)) {
+                        return f;
+                    }
+                }
+            }
+        }
+        return null;
+    }
 }
@@ -20,6 +20,10 @@ public class JdbfUtils {
     public static int EMPTY = 0x20;
     public static final int FIELD_RECORD_LENGTH = 32;
     public static final int HEADER_TERMINATOR = 0x0D;
+    /**
+     * Number of decimal places of Currency (Y) values, which are stored as 8-byte integers
+     */
+    public static final int CURRENCY_SCALE = 4;
 
     public static final int MEMO_HEADER_LENGTH = 0x200; // 512 bytes
 
@@ -69,6 +73,137 @@ public class JdbfUtils {
         return LocalDate.parse(s, dateFormat);
     }
 
+    /**
+     * Value returned by {@link #parseEpochDay(byte[], int)} for bytes that are not a valid date
+     */
+    public static final long INVALID_EPOCH_DAY = Long.MIN_VALUE;
+
+    private static final int[] DAYS_IN_MONTH = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    /**
+     * Parse date stored as 8 ASCII digits yyyyMMdd right from the bytes
+     *
+     * @return number of days since 1970-01-01, or {@link #INVALID_EPOCH_DAY}
+     */
+    public static long parseEpochDay(byte[] bytes, int offset) {
+        int year = parseDigits(bytes, offset, 4);
+        int month = parseDigits(bytes, offset + 4, 2);
+        int day = parseDigits(bytes, offset + 6, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]) {
+            return INVALID_EPOCH_DAY;
+        }
+        if (month == 2 && day == 29 && !isLeapYear(year)) {
+            return INVALID_EPOCH_DAY;
+        }
+        return epochDay(year, month, day);
+    }
+
+    /**
+     * Decode Logical (L) value
+     *
+     * @return 1 for true, 0 for false and -1 for null
+     */
+    public static int logicalValue(byte b) {
+        switch (b) {
+            case 'T':
+            case 't':
+            case 'Y':
+            case 'y':
+                return 1;
+            case 'F':
+            case 'f':
+            case 'N':
+            case 'n':
+                return 0;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * @return true if there are only spaces and zero bytes in the range
+     */
+    public static boolean isBlank(byte[] bytes, int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            if (bytes[i] != EMPTY && bytes[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return index of the first byte in [start, end) that is not a space, or end
+     */
+    public static int trimStart(byte[] bytes, int start, int end) {
+        while (start < end && bytes[start] == EMPTY) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * @return index after the last byte in [start, end) that is not a space, or start
+     */
+    public static int trimEnd(byte[] bytes, int start, int end) {
+        while (end > start && bytes[end - 1] == EMPTY) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * @return value of length ASCII digits, or -1 if there is anything but digits
+     */
+    public static int parseDigits(byte[] bytes, int offset, int length) {
+        int result = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int d = bytes[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            result = result * 10 + d;
+        }
+        return result;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Number of days since 1970-01-01 for proleptic Gregorian date, the same as LocalDate.toEpochDay()
+     */
+    public static long epochDay(int year, int month, int day) {
+        // count years from March, so leap day is the last day of a year
+        int y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static final long CACHED_DATES_FROM = LocalDate.of(1900, 1, 1).toEpochDay();
+    private static final LocalDate[] CACHED_DATES = new LocalDate[(int) (LocalDate.of(2100, 1, 1).toEpochDay() - CACHED_DATES_FROM)];
+
+    /**
+     * The same as LocalDate.ofEpochDay(), but instances for years 1900-2099 are cached
+     */
+    public static LocalDate localDateOfEpochDay(long epochDay) {
+        long index = epochDay - CACHED_DATES_FROM;
+        if (index < 0 || index >= CACHED_DATES.length) {
+            return LocalDate.ofEpochDay(epochDay);
+        }
+        // LocalDate is immutable, so racy initialization is harmless
+        LocalDate date = CACHED_DATES[(int) index];
+        if (date == null) {
+            date = LocalDate.ofEpochDay(epochDay);
+            CACHED_DATES[(int) index] = date;
+        }
+        return date;
+    }
+
     public static boolean compareMaps(Map<String, Object> m1, Map<String, Object> m2) {
         if (!compareSets(m1.keySet(), m2.keySet())) {
             return false;
@@ -112,17 +247,14 @@ public class JdbfUtils {
     }
 
     /**
-     * The difference between the ISO and Julian epoch day count (Julian 0001-01-01 to ISO 1970-01-01).
+     * Julian day number of 1970-01-01. Julian days are counted from 1 January 4713 BC.
      */
-    private static final int JULIAN_0001_TO_ISO_1970 = 678577 + 40587;  // MJD values
+    public static final int JULIAN_DAY_OF_EPOCH = 2440588;
+
+    public static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
 
     public static ZonedDateTime parseJulianDateTime(int date, int time, ZoneId zoneId) {
-        // Начала юлианского периода = 1 января 4713год до н.э.
-        long year = 1 - 4713;
-        long dayOfYear = 1;
-        long julianEpochDay = ((year - 1) * 365) + Math.floorDiv((year - 1), 4) + (dayOfYear - 1);
-        return LocalDate.ofEpochDay(julianEpochDay - JULIAN_0001_TO_ISO_1970)
-                .plusDays(date)
+        return localDateOfEpochDay(date - JULIAN_DAY_OF_EPOCH)
                 .atStartOfDay(zoneId)
                 .plus(time, ChronoUnit.MILLIS);
     }
@@ -136,7 +268,10 @@ public class JdbfUtils {
         return bb.array();
     }
 
-    private static int julianDay(ZonedDateTime d) {
+    /**
+     * @return julian day number as stored in dBASE 7 Timestamp fields
+     */
+    public static int julianDay(ZonedDateTime d) {
         int year = d.getYear();
         int month = d.getMonth().getValue();
         int day = d.getDayOfMonth();
@@ -0,0 +1,170 @@
+package net.iryndin.jdbf.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Parsing of numeric (N, F) field values right in the record bytes, without creating Strings.
+ */
+public class NumberUtils {
+
+    /**
+     * Largest scale that unscaled long values support
+     */
+    public static final int MAX_SCALE = 18;
+
+    private static final byte OVERFLOW = '*';
+
+    // any 15-digits integer is exact double, so mantissa / 10^n is correctly rounded
+    private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+            10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+            1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+    };
+
+    /**
+     * @return true if value is empty (only spaces) or contains numeric overflow marker '*'
+     */
+    public static boolean isNull(byte[] bytes, int offset, int length) {
+        boolean empty = true;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = bytes[i];
+            if (b == OVERFLOW) {
+                return true;
+            }
+            if (b != JdbfUtils.EMPTY && b != 0) {
+                empty = false;
+            }
+        }
+        return empty;
+    }
+
+    /**
+     * Parse numeric value as unscaled long, that is value * 10^scale.
+     * Fraction digits beyond given scale are truncated.
+     * Empty value is parsed as 0.
+     *
+     * @throws NumberFormatException if value contains anything but spaces, sign, digits and decimal point,
+     *                               or does not fit into long
+     */
+    public static long parseUnscaledLong(byte[] bytes, int offset, int length, int scale) {
+        int i = offset;
+        int end = offset + length;
+        while (i < end && (bytes[i] == JdbfUtils.EMPTY || bytes[i] == 0)) {
+            i++;
+        }
+        while (end > i && (bytes[end - 1] == JdbfUtils.EMPTY || bytes[end - 1] == 0)) {
+            end--;
+        }
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long result = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                if (fractionDigits >= 0) {
+                    if (fractionDigits == scale) {
+                        continue;
+                    }
+                    fractionDigits++;
+                }
+                if (result > (Long.MAX_VALUE - 9) / 10) {
+                    throw numberFormatException(bytes, offset, length);
+                }
+                result = result * 10 + (b - '0');
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                throw numberFormatException(bytes, offset, length);
+            }
+        }
+        int missingDigits = scale - Math.max(fractionDigits, 0);
+        if (missingDigits > 0) {
+            if (missingDigits >= POWERS_OF_TEN.length || result > Long.MAX_VALUE / POWERS_OF_TEN[missingDigits]) {
+                throw numberFormatException(bytes, offset, length);
+            }
+            result *= POWERS_OF_TEN[missingDigits];
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parse numeric value as double. Empty value is parsed as 0.
+     * Values with up to 15 digits are parsed right from the bytes,
+     * longer ones are passed to {@link Double#parseDouble(String)}.
+     *
+     * @throws NumberFormatException if value is not a number
+     */
+    public static double parseDouble(byte[] bytes, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        while (i < end && (bytes[i] == JdbfUtils.EMPTY || bytes[i] == 0)) {
+            i++;
+        }
+        while (end > i && (bytes[end - 1] == JdbfUtils.EMPTY || bytes[end - 1] == 0)) {
+            end--;
+        }
+        int start = i;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9' && digits < MAX_EXACT_DOUBLE_DIGITS) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                // too many digits or exponent: slow path
+                return Double.parseDouble(new String(bytes, start, end - start));
+            }
+        }
+        double result = fractionDigits > 0 ? (double) mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -result : result;
+    }
+
+    /**
+     * Convert value to unscaled long in given scale, that is value * 10^scale, rounded with given mode.
+     * Values out of long range are saturated to Long.MIN_VALUE or Long.MAX_VALUE,
+     * so that they still can be used as bounds of a range.
+     *
+     * @throws IllegalArgumentException if scale is not in range [0, {@link #MAX_SCALE}]
+     */
+    public static long toUnscaledLong(BigDecimal value, int scale, RoundingMode roundingMode) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale " + scale + " is out of range [0, " + MAX_SCALE + "]");
+        }
+        BigInteger unscaled = value.setScale(scale, roundingMode).unscaledValue();
+        if (unscaled.bitLength() > 63) {
+            return unscaled.signum() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return unscaled.longValue();
+    }
+
+    /**
+     * @return 10^exponent for exponent in range [0, 18]
+     */
+    public static long powerOfTen(int exponent) {
+        return POWERS_OF_TEN[exponent];
+    }
+
+    private static NumberFormatException numberFormatException(byte[] bytes, int offset, int length) {
+        return new NumberFormatException("Cannot parse numeric value '" + new String(bytes, offset, length) + "'");
+    }
+}
@@ -0,0 +1,214 @@
+package net.iryndin.jdbf.writer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writer that encodes records on several threads and writes them in order.
+ *
+ * Records passed to {@link #write(Map)} are collected into chunks. Every chunk is encoded
+ * into its own byte array by a pool thread, each thread with its own encoder, and one sink thread
+ * appends encoded chunks to the underlying {@link DbfWriter} in the order they were written,
+ * see {@link DbfWriter#writeBatch(byte[], int, int)}.
+ * At most maxPendingChunks chunks wait for the sink: when there are more, write blocks,
+ * so memory stays bounded when encoding is faster than the output.
+ *
+ * Maps are encoded after write returns, so they must not be changed after they are passed to it.
+ * Set the string charset of the underlying writer before creating this one.
+ * The writer is not thread-safe: write records from one thread.
+ * <pre>
+ * try (DbfParallelWriter writer = new DbfParallelWriter(new DbfWriter(metadata, file))) {
+ *     for (...) {
+ *         writer.write(map);
+ *     }
+ * }
+ * </pre>
+ */
+public class DbfParallelWriter implements Closeable {
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private static final CompletableFuture<byte[]> END = CompletableFuture.completedFuture(null);
+
+    private final DbfWriter writer;
+    private final int recordLength;
+    private final int chunkSize;
+    private final ExecutorService pool;
+    private final ThreadLocal<RecordEncoder> encoders;
+    private final BlockingQueue<Future<byte[]>> pending;
+    private final Thread sink;
+    private List<Map<String, Object>> chunk;
+    private volatile Throwable failure;
+    private boolean closed = false;
+
+    /**
+     * Encode on as many threads as there are processors, by chunks of {@link #DEFAULT_CHUNK_SIZE} records
+     */
+    public DbfParallelWriter(DbfWriter writer) {
+        this(writer, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE,
+                2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param writer writer to append records to, closed when this writer is closed
+     * @param threads number of encoding threads
+     * @param chunkSize number of records encoded by one task
+     * @param maxPendingChunks number of chunks, encoded or not, that may wait for the sink
+     */
+    public DbfParallelWriter(DbfWriter writer, int threads, int chunkSize, int maxPendingChunks) {
+        if (threads <= 0 || chunkSize <= 0 || maxPendingChunks <= 0) {
+            throw new IllegalArgumentException("Number of threads, chunk size and number of pending chunks must be positive");
+        }
+        this.writer = writer;
+        this.chunkSize = chunkSize;
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "dbf-encoder");
+            t.setDaemon(true);
+            return t;
+        });
+        this.recordLength = writer.getRecordLength();
+        this.encoders = ThreadLocal.withInitial(writer::newEncoder);
+        this.pending = new ArrayBlockingQueue<>(maxPendingChunks);
+        this.chunk = new ArrayList<>(chunkSize);
+        this.sink = new Thread(this::drain, "dbf-writer-sink");
+        this.sink.setDaemon(true);
+        this.sink.start();
+    }
+
+    /**
+     * Add record to the current chunk, and pass the chunk to encoding when it is full
+     *
+     * @throws IOException if encoding or writing of an earlier chunk has failed
+     */
+    public void write(Map<String, Object> map) throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+        checkFailure();
+        chunk.add(map);
+        if (chunk.size() == chunkSize) {
+            submitChunk();
+        }
+    }
+
+    /**
+     * Write records in the order of the list
+     */
+    public void write(List<Map<String, Object>> maps) throws IOException {
+        for (Map<String, Object> map : maps) {
+            write(map);
+        }
+    }
+
+    private void submitChunk() throws IOException {
+        List<Map<String, Object>> rows = chunk;
+        chunk = new ArrayList<>(chunkSize);
+        enqueue(pool.submit(() -> encode(rows)));
+    }
+
+    private void enqueue(Future<byte[]> future) throws IOException {
+        try {
+            pending.put(future);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the writer");
+        }
+    }
+
+    private byte[] encode(List<Map<String, Object>> rows) {
+        RecordEncoder encoder = encoders.get();
+        byte[] bytes = new byte[rows.size() * recordLength];
+        int offset = 0;
+        for (Map<String, Object> map : rows) {
+            encoder.clear();
+            encoder.putAll(map);
+            System.arraycopy(encoder.buffer, 0, bytes, offset, recordLength);
+            offset += recordLength;
+        }
+        return bytes;
+    }
+
+    /**
+     * Body of the sink thread: write chunks in order until the end marker
+     */
+    private void drain() {
+        while (true) {
+            Future<byte[]> future;
+            try {
+                future = pending.take();
+            } catch (InterruptedException e) {
+                failure = e;
+                return;
+            }
+            if (future == END) {
+                return;
+            }
+            if (failure != null) {
+                // keep taking chunks, so that writing thread is not blocked
+                future.cancel(false);
+                continue;
+            }
+            try {
+                byte[] bytes = future.get();
+                writer.writeBatch(bytes, 0, bytes.length / recordLength);
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            } catch (Throwable e) {
+                failure = e;
+            }
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable t = failure;
+        if (t == null) {
+            return;
+        }
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new IOException(t);
+    }
+
+    /**
+     * Write the last chunk, wait for all chunks to be written and close the underlying writer
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!chunk.isEmpty() && failure == null) {
+                submitChunk();
+            }
+            enqueue(END);
+            sink.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the writer");
+        } finally {
+            pool.shutdownNow();
+            writer.close();
+        }
+        checkFailure();
+    }
+}
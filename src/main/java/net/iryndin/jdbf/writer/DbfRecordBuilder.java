@@ -0,0 +1,127 @@
+package net.iryndin.jdbf.writer;
+
+import net.iryndin.jdbf.core.DbfField;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Typed builder of records of a {@link DbfWriter}.
+ *
+ * Setters encode values right into the record buffer of the writer, so writing a record
+ * needs neither a map nor boxed values. Columns are indexes of fields in the metadata, starting from 0.
+ * Fields not set since the last {@link #writeRecord()} are written empty.
+ * <pre>
+ * DbfRecordBuilder builder = writer.recordBuilder();
+ * int code = builder.indexOf("CODE");
+ * int amount = builder.indexOf("AMOUNT");
+ * for (...) {
+ *     builder.setString(code, "A1")
+ *            .setDecimal(amount, 12345, 2)
+ *            .writeRecord();
+ * }
+ * </pre>
+ * Setters throw IllegalArgumentException if the field cannot hold a value of that type,
+ * or if a number does not fit the field.
+ * Builder shares the buffer of its writer and is not thread-safe.
+ */
+public class DbfRecordBuilder {
+    private final DbfWriter writer;
+    private final RecordEncoder encoder;
+
+    DbfRecordBuilder(DbfWriter writer, RecordEncoder encoder) {
+        this.writer = writer;
+        this.encoder = encoder;
+    }
+
+    /**
+     * @return column of the field with given name
+     * @throws IllegalArgumentException if there is no such field
+     */
+    public int indexOf(String fieldName) {
+        DbfField[] fields = encoder.fields;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].getName().equals(fieldName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Field '" + fieldName + "' does not exist!");
+    }
+
+    private DbfField field(int column) {
+        if (column < 0 || column >= encoder.fields.length) {
+            throw new IndexOutOfBoundsException("Column " + column + " is out of range 0.." + (encoder.fields.length - 1));
+        }
+        return encoder.fields[column];
+    }
+
+    /**
+     * Set Character field, value is cut to the field length
+     */
+    public DbfRecordBuilder setString(int column, CharSequence value) {
+        if (value == null) {
+            return setNull(column);
+        }
+        encoder.putString(field(column), value);
+        return this;
+    }
+
+    /**
+     * Set Numeric, Float, Integer or Currency field
+     */
+    public DbfRecordBuilder setLong(int column, long value) {
+        encoder.putDecimal(field(column), value, 0);
+        return this;
+    }
+
+    /**
+     * Set Numeric, Float, Integer or Currency field to unscaled * 10^-scale,
+     * rounded half up to the decimal places of the field
+     */
+    public DbfRecordBuilder setDecimal(int column, long unscaled, int scale) {
+        encoder.putDecimal(field(column), unscaled, scale);
+        return this;
+    }
+
+    /**
+     * Set Numeric, Float, Integer or Currency field, rounded half up to the decimal places of the field
+     */
+    public DbfRecordBuilder setDecimal(int column, BigDecimal value) {
+        if (value == null) {
+            return setNull(column);
+        }
+        encoder.putDecimal(field(column), value);
+        return this;
+    }
+
+    /**
+     * Set Date field to the date given as number of days since 1970-01-01
+     */
+    public DbfRecordBuilder setEpochDay(int column, long epochDay) {
+        encoder.putEpochDay(field(column), epochDay);
+        return this;
+    }
+
+    /**
+     * Set Logical field
+     */
+    public DbfRecordBuilder setBoolean(int column, boolean value) {
+        encoder.putBoolean(field(column), value);
+        return this;
+    }
+
+    /**
+     * Make field empty
+     */
+    public DbfRecordBuilder setNull(int column) {
+        encoder.putNull(field(column));
+        return this;
+    }
+
+    /**
+     * Write the record and make all fields empty for the next one
+     */
+    public void writeRecord() throws IOException {
+        writer.writeRecord();
+    }
+}
@@ -2,31 +2,92 @@ package net.iryndin.jdbf.writer;
 
 import net.iryndin.jdbf.core.DbfField;
 import net.iryndin.jdbf.core.DbfMetadata;
-import net.iryndin.jdbf.util.BitUtils;
+import net.iryndin.jdbf.index.JdxIndex;
 import net.iryndin.jdbf.util.DbfMetadataUtils;
 import net.iryndin.jdbf.util.JdbfUtils;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.math.BigDecimal;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
-import java.time.ZonedDateTime;
-import java.util.Arrays;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Writer of DBF files.
+ *
+ * Writer over an {@link OutputStream} puts {@link DbfMetadata#getRecordsQty()} into the header,
+ * so the number of records must be known before writing.
+ * Writer over a file or a {@link FileChannel} streams any number of records and rewrites
+ * the number of records and the update date of the header on {@link #close()}.
+ * It collects records in a big direct buffer and writes them to the channel when the buffer is full,
+ * so that one system call writes many records. Batches bigger than the buffer are written
+ * together with the buffer by one gathering write, without copying.
+ */
 public class DbfWriter {
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final byte[] HEADER_TERMINATOR = {JdbfUtils.HEADER_TERMINATOR};
+
     private OutputStream out;
     private DbfMetadata metadata;
-    private Charset stringCharset = Charset.defaultCharset();
-    private byte[] recordBuffer;
+    private final RecordEncoder encoder;
+    private int recordsCounter = 0;
+    private final List<JdxIndex> indexes = new ArrayList<>();
+    private FileChannel channel;
+    private ByteBuffer channelBuffer;
+    private long headerPosition;
 
     public DbfWriter(DbfMetadata metadata, OutputStream out) throws IOException {
         this.out = out;
         this.metadata = metadata;
-        recordBuffer = new byte[metadata.getOneRecordLength()];
+        this.encoder = new RecordEncoder(metadata);
+        writeHeaderAndFields();
+    }
+
+    /**
+     * Create or truncate the file and write records of unknown number into it
+     */
+    public DbfWriter(DbfMetadata metadata, File file) throws IOException {
+        this(metadata, file, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create or truncate the file and write records of unknown number into it
+     *
+     * @param bufferSize size of the buffer that collects records between writes to the file
+     */
+    public DbfWriter(DbfMetadata metadata, File file, int bufferSize) throws IOException {
+        this(metadata, FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), bufferSize);
+    }
+
+    /**
+     * Write records of unknown number from the current position of the channel.
+     * The channel is closed when writer is closed.
+     */
+    public DbfWriter(DbfMetadata metadata, FileChannel channel) throws IOException {
+        this(metadata, channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Write records of unknown number from the current position of the channel.
+     * The channel is closed when writer is closed.
+     *
+     * @param bufferSize size of the buffer that collects records between writes to the channel
+     */
+    public DbfWriter(DbfMetadata metadata, FileChannel channel, int bufferSize) throws IOException {
+        this.metadata = metadata;
+        this.encoder = new RecordEncoder(metadata);
+        this.channel = channel;
+        this.headerPosition = channel.position();
+        this.channelBuffer = ByteBuffer.allocateDirect(Math.max(bufferSize, metadata.getOneRecordLength()));
         writeHeaderAndFields();
     }
 
@@ -37,196 +98,158 @@ public class DbfWriter {
 
     private void writeHeader() throws IOException {
         byte[] bytes = DbfMetadataUtils.toByteArrayHeader(metadata);
-        out.write(bytes);
+        writeBytes(bytes, 0, bytes.length);
     }
 
     private void writeFields() throws IOException {
         byte[] bytes = new byte[JdbfUtils.FIELD_RECORD_LENGTH];
         for (DbfField f : metadata.getFields()) {
             DbfMetadataUtils.writeDbfField(f, bytes);
-            out.write(bytes);
-        }
-        out.write(JdbfUtils.HEADER_TERMINATOR);
-    }
-
-    public void write(Map<String, Object> map) throws IOException {
-        BitUtils.memset(recordBuffer, JdbfUtils.EMPTY);
-        for (DbfField f : metadata.getFields()) {
-            Object o = map.get(f.getName());
-            writeIntoRecordBuffer(f, o);
+            writeBytes(bytes, 0, bytes.length);
         }
-        out.write(recordBuffer);
+        writeBytes(HEADER_TERMINATOR, 0, HEADER_TERMINATOR.length);
     }
 
-    private void writeIntoRecordBuffer(DbfField f, Object o) {
-        if (o == null) {
+    private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (channel == null) {
+            out.write(bytes, offset, length);
             return;
         }
-        // TODO: for all methods add length checkings
-        // TODO: for all methods add type checkings
-        switch (f.getType()) {
-            case Character:
-                writeString(f, (String) o);
-                break;
-            case Date:
-                writeDate(f, (LocalDate) o);
-                break;
-            case Logical:
-                writeBoolean(f, (Boolean) o);
-                break;
-            case Numeric:
-                writeBigDecimal(f, (BigDecimal) o);
-                break;
-            case Float:
-                if (o instanceof Double)
-                    writeDouble(f, (Double) o);
-                else
-                    writeFloat(f, (Float) o);
-                break;
-
-            // FOXPRO
-            case DateTime:
-                writeDateTime(f, (ZonedDateTime) o);
-                break;
-            case Double: // Behaves like dBASE 7 double but uses different column type identifier
-                writeDouble7(f, (Double) o);
-                break;
-		/*case Integer: // exactly like dBASE 7
-			writeInteger(f, (Integer)o);
-			break;*/
-
-            // dBASE 7
-            case Timestamp:
-                writeTimestamp(f, (ZonedDateTime) o);
-                break;
-            case Double7:
-                writeDouble7(f, (Double) o);
-                break;
-            case Integer:
-                writeInteger(f, (Integer) o);
-                break;
-
-            default:
-                throw new UnsupportedOperationException("Unknown or unsupported field type " + f.getType().name() + " for " + f.getName());
+        if (length > channelBuffer.remaining()) {
+            if (length > channelBuffer.capacity()) {
+                // write collected records and these bytes by one call
+                ((Buffer) channelBuffer).flip();
+                ByteBuffer[] buffers = {channelBuffer, ByteBuffer.wrap(bytes, offset, length)};
+                long remaining = channelBuffer.remaining() + (long) length;
+                while (remaining > 0) {
+                    remaining -= channel.write(buffers);
+                }
+                ((Buffer) channelBuffer).clear();
+                return;
+            }
+            flushBuffer();
         }
+        channelBuffer.put(bytes, offset, length);
     }
 
-    private void writeBigDecimal(DbfField f, BigDecimal value) {
-        if (value != null) {
-            String s = value.toPlainString();
-            byte[] bytes = s.getBytes();
-            if (bytes.length > f.getLength()) {
-                byte[] newBytes = new byte[f.getLength()];
-                System.arraycopy(bytes, 0, newBytes, 0, f.getLength());
-                bytes = newBytes;
-            }
-            System.arraycopy(bytes, 0, recordBuffer, f.getOffset(), bytes.length);
-        } else {
-            blankify(f);
+    private void flushBuffer() throws IOException {
+        ((Buffer) channelBuffer).flip();
+        while (channelBuffer.hasRemaining()) {
+            channel.write(channelBuffer);
         }
+        ((Buffer) channelBuffer).clear();
     }
 
-    private void writeBoolean(DbfField f, Boolean value) {
-        if (value != null) {
-            String s = value.booleanValue() ? "T" : "F";
-            byte[] bytes = s.getBytes();
-            System.arraycopy(bytes, 0, recordBuffer, f.getOffset(), bytes.length);
-        } else {
-            // dBASE 7 explicitly requires ? for uninitialized, some systems may use ' ' as well
-            byte[] bytes = "?".getBytes();
-            System.arraycopy(bytes, 0, recordBuffer, f.getOffset(), bytes.length);
-        }
+    public void write(Map<String, Object> map) throws IOException {
+        encoder.putAll(map);
+        writeRecord();
     }
 
-    private void writeDate(DbfField f, LocalDate value) {
-        if (value != null) {
-            byte[] bytes = JdbfUtils.writeDate(value);
-            // TODO: check that bytes.length = f.getLength();
-            System.arraycopy(bytes, 0, recordBuffer, f.getOffset(), bytes.length);
-        } else {
-            blankify(f);
+    /**
+     * Write records in the order of the list
+     */
+    public void write(List<Map<String, Object>> maps) throws IOException {
+        for (Map<String, Object> map : maps) {
+            write(map);
         }
     }
 
-    private void writeString(DbfField f, String value) {
-        if (value != null) {
-            byte[] bytes = value.getBytes(stringCharset);
-            if (bytes.length > f.getLength()) {
-                byte[] newBytes = new byte[f.getLength()];
-                System.arraycopy(bytes, 0, newBytes, 0, f.getLength());
-                bytes = newBytes;
+    /**
+     * Write records given as raw bytes, e.g. copied from a file of the same fields
+     *
+     * @param records bytes of records, {@link DbfMetadata#getOneRecordLength()} bytes each, deletion flag included
+     * @param offset offset of the first record in the array
+     * @param recordsQty number of records to write
+     */
+    public void writeBatch(byte[] records, int offset, int recordsQty) throws IOException {
+        int recordLength = encoder.buffer.length;
+        long length = (long) recordsQty * recordLength;
+        if (offset < 0 || recordsQty < 0 || offset + length > records.length) {
+            throw new IndexOutOfBoundsException("Array of " + records.length + " bytes does not hold "
+                    + recordsQty + " records of " + recordLength + " bytes from offset " + offset);
+        }
+        writeBytes(records, offset, (int) length);
+        for (int i = 0; i < recordsQty; i++) {
+            recordsCounter++;
+            for (JdxIndex index : indexes) {
+                index.insert(records, offset + i * recordLength, recordsCounter);
             }
-            System.arraycopy(bytes, 0, recordBuffer, f.getOffset(), bytes.length);
-        } else {
-            blankify(f);
         }
     }
 
-    private void writeFloat(DbfField f, Float value) {
-        writeDouble(f, value.doubleValue());
+    int getRecordLength() {
+        return encoder.buffer.length;
     }
 
-    private void writeDouble(DbfField f, Double value) {
-        if (value != null) {
-            String str = String.format("% 20.18f", value); // Whitespace pad; 20 min length; 18 max precision
-            if (str.length() > 20) { // Trim to 20 places, if longer
-                str = str.substring(0, 20);
-            }
-            writeString(f, str);
-        } else {
-            blankify(f);
-        }
+    /**
+     * @return new encoder of records of this writer, with its string charset
+     */
+    RecordEncoder newEncoder() {
+        RecordEncoder e = new RecordEncoder(metadata);
+        e.setStringCharset(encoder.getStringCharset());
+        return e;
     }
 
-    private void writeTimestamp(DbfField f, ZonedDateTime d) {
-        if (d != null) {
-            byte[] bytes = JdbfUtils.writeJulianDate(d);
-            System.arraycopy(bytes, 0, recordBuffer, f.getOffset(), bytes.length);
-        } else {
-            blankify(f);
-        }
+    /**
+     * @return builder that encodes typed values right into the record buffer of this writer
+     */
+    public DbfRecordBuilder recordBuilder() {
+        return new DbfRecordBuilder(this, encoder);
     }
 
-    // TODO: Appears to be 64 bit epoch timestamp, but there was no reliable source for that
-    private void writeDateTime(DbfField f, ZonedDateTime d) {
-        if (d != null) {
-            ByteBuffer bb = ByteBuffer.allocate(8);
-            bb.putLong(d.toInstant().toEpochMilli());
-            System.arraycopy(bb.array(), 0, recordBuffer, f.getOffset(), bb.capacity());
-        } else {
-            blankify(f);
+    /**
+     * Write the record buffer as the next record and make all its fields empty
+     */
+    void writeRecord() throws IOException {
+        byte[] recordBuffer = encoder.buffer;
+        writeBytes(recordBuffer, 0, recordBuffer.length);
+        recordsCounter++;
+        for (JdxIndex index : indexes) {
+            index.insert(recordBuffer, 0, recordsCounter);
         }
+        encoder.clear();
     }
 
-    private void writeDouble7(DbfField f, Double d) {
-        if (d != null) {
-            ByteBuffer bb = ByteBuffer.allocate(8);
-            bb.putDouble(d);
-            System.arraycopy(bb.array(), 0, recordBuffer, f.getOffset(), bb.capacity());
-        } else {
-            blankify(f);
+    /**
+     * Add index to update with every written record. Index is closed when writer is closed.
+     *
+     * @param index index opened for update, e.g. by {@link JdxIndex#create}
+     */
+    public void addIndex(JdxIndex index) {
+        if (!index.isCompatibleWith(metadata)) {
+            throw new IllegalArgumentException("Index fields do not match fields of the file");
         }
+        indexes.add(index);
     }
 
-    private void writeInteger(DbfField f, Integer i) {
-        if (i != null) {
-            ByteBuffer bb = ByteBuffer.allocate(4);
-            bb.putInt(i);
-            System.arraycopy(bb.array(), 0, recordBuffer, f.getOffset(), bb.capacity());
-        } else {
-            blankify(f);
+    public void close() throws IOException {
+        try {
+            if (channel != null) {
+                try {
+                    flushBuffer();
+                    rewriteHeader();
+                } finally {
+                    channel.close();
+                }
+            } else {
+                this.out.flush();
+                this.out.close();
+            }
+        } finally {
+            for (JdxIndex index : indexes) {
+                index.close();
+            }
         }
     }
 
-    private void blankify(DbfField f) {
-        byte[] bytes = new byte[f.getLength()];
-        Arrays.fill(bytes, (byte) ' ');
-        System.arraycopy(bytes, 0, recordBuffer, f.getOffset(), bytes.length);
-    }
-
-    public void close() throws IOException {
-        this.out.flush();
-        this.out.close();
+    private void rewriteHeader() throws IOException {
+        metadata.setRecordsQty(recordsCounter);
+        metadata.setUpdateDate(LocalDate.now());
+        ByteBuffer header = ByteBuffer.wrap(DbfMetadataUtils.toByteArrayHeader(metadata));
+        long position = headerPosition;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
     }
 
     public void setStringCharset(String charsetName) {
@@ -234,6 +257,6 @@ public class DbfWriter {
     }
 
     public void setStringCharset(Charset stringCharset) {
-        this.stringCharset = stringCharset;
+        encoder.setStringCharset(stringCharset);
     }
 }
@@ -0,0 +1,440 @@
+package net.iryndin.jdbf.writer;
+
+import net.iryndin.jdbf.core.DbfField;
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.util.JdbfUtils;
+import net.iryndin.jdbf.util.NumberUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Encodes values of fields into the bytes of one record.
+ *
+ * Digits, dates and ASCII text are written right into the record buffer,
+ * other text is encoded into it by a reused {@link CharsetEncoder}, so encoding allocates nothing.
+ * Numbers are right-aligned with the decimal places of the field.
+ * Typed put methods throw IllegalArgumentException if a number does not fit the field,
+ * while {@link #put(DbfField, Object)} marks such field with '*', as dBASE does.
+ */
+final class RecordEncoder {
+    private static final byte OVERFLOW = '*';
+    private static final int MAX_SCALE = 18;
+    // doubles below 2^53 are exact integers, so they may be rounded without BigDecimal
+    private static final double MAX_EXACT_DOUBLE = 9007199254740992.0;
+
+    final byte[] buffer;
+    final DbfField[] fields;
+    private final ByteBuffer byteBuffer;
+    private Charset stringCharset;
+    private CharsetEncoder charsetEncoder;
+    private boolean asciiCompatible;
+    private char[] chars = new char[64];
+    private CharBuffer charBuffer = CharBuffer.wrap(chars);
+
+    RecordEncoder(DbfMetadata metadata) {
+        this.buffer = new byte[metadata.getOneRecordLength()];
+        this.byteBuffer = ByteBuffer.wrap(buffer);
+        this.fields = metadata.getFields().toArray(new DbfField[0]);
+        setStringCharset(Charset.defaultCharset());
+        clear();
+    }
+
+    void setStringCharset(Charset stringCharset) {
+        this.stringCharset = stringCharset;
+        this.charsetEncoder = stringCharset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.asciiCompatible = isAsciiCompatible(stringCharset);
+    }
+
+    Charset getStringCharset() {
+        return stringCharset;
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        char[] ascii = new char[128];
+        byte[] expected = new byte[128];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (char) i;
+            expected[i] = (byte) i;
+        }
+        return charset.canEncode() && Arrays.equals(expected, new String(ascii).getBytes(charset));
+    }
+
+    /**
+     * Make all fields empty and the record not deleted
+     */
+    void clear() {
+        Arrays.fill(buffer, (byte) JdbfUtils.EMPTY);
+    }
+
+    /**
+     * Put values of all fields, keyed by field names. Fields missing from the map are left as they are
+     */
+    void putAll(Map<String, Object> map) {
+        for (DbfField f : fields) {
+            put(f, map.get(f.getName()));
+        }
+    }
+
+    /**
+     * Put value of the type the field is read as, do nothing if value is null
+     */
+    void put(DbfField f, Object o) {
+        if (o == null) {
+            return;
+        }
+        switch (f.getType()) {
+            case Character:
+                encodeString(f, (String) o);
+                break;
+            case Date:
+                LocalDate date = (LocalDate) o;
+                encodeDate(f, date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+                break;
+            case Logical:
+                buffer[f.getOffset()] = (byte) ((Boolean) o ? 'T' : 'F');
+                break;
+            case Numeric:
+                if (!encodeBigDecimal(f, (BigDecimal) o)) {
+                    markOverflow(f);
+                }
+                break;
+            case Float:
+                double d = o instanceof Double ? (Double) o : ((Float) o).doubleValue();
+                if (!encodeDouble(f, d)) {
+                    markOverflow(f);
+                }
+                break;
+
+            // FOXPRO
+            // TODO: Appears to be 64 bit epoch timestamp, but there was no reliable source for that
+            case DateTime:
+                putBigEndian(f.getOffset(), ((ZonedDateTime) o).toInstant().toEpochMilli(), 8);
+                break;
+            case Double: // Behaves like dBASE 7 double but uses different column type identifier
+            case Double7:
+                putBigEndian(f.getOffset(), java.lang.Double.doubleToLongBits((Double) o), 8);
+                break;
+
+            // dBASE 7
+            case Timestamp:
+                ZonedDateTime t = (ZonedDateTime) o;
+                putBigEndian(f.getOffset(), JdbfUtils.julianDay(t), 4);
+                putBigEndian(f.getOffset() + 4, t.getHour() * 60 * 60 * 1000 + t.getMinute() * 60 * 1000 + t.getSecond() * 1000, 4);
+                break;
+            case Integer:
+                // little-endian, as read by DbfRecord.getInteger()
+                putLittleEndian(f.getOffset(), (Integer) o, 4);
+                break;
+
+            default:
+                throw new UnsupportedOperationException("Unknown or unsupported field type " + f.getType().name() + " for " + f.getName());
+        }
+    }
+
+    void putNull(DbfField f) {
+        blankify(f);
+    }
+
+    /**
+     * Put string into a Character field, cut to the field length
+     */
+    void putString(DbfField f, CharSequence value) {
+        switch (f.getType()) {
+            case Character:
+                encodeString(f, value);
+                break;
+            default:
+                throw typeMismatch(f, "a string");
+        }
+    }
+
+    void putBoolean(DbfField f, boolean value) {
+        switch (f.getType()) {
+            case Logical:
+                buffer[f.getOffset()] = (byte) (value ? 'T' : 'F');
+                break;
+            default:
+                throw typeMismatch(f, "a boolean");
+        }
+    }
+
+    /**
+     * Put date given as number of days since 1970-01-01 into a Date field
+     */
+    void putEpochDay(DbfField f, long epochDay) {
+        switch (f.getType()) {
+            case Date:
+                // civil date from days, by H. Hinnant's algorithm
+                long z = epochDay + 719468;
+                long era = Math.floorDiv(z, 146097);
+                long dayOfEra = z - era * 146097;
+                long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+                long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+                long mp = (5 * dayOfYear + 2) / 153;
+                int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+                int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+                long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+                if (year < 0 || year > 9999) {
+                    throw new IllegalArgumentException("Date of epoch day " + epochDay + " does not fit field '" + f.getName() + "'");
+                }
+                encodeDate(f, (int) year, month, day);
+                break;
+            default:
+                throw typeMismatch(f, "a date");
+        }
+    }
+
+    /**
+     * Put number unscaled * 10^-scale into a Numeric, Float, Integer or Currency field.
+     * Value is rounded half up to the scale of the field.
+     */
+    void putDecimal(DbfField f, long unscaled, int scale) {
+        checkNumberField(f);
+        if (!encodeDecimal(f, unscaled, scale)) {
+            throw doesNotFit(f);
+        }
+    }
+
+    /**
+     * Put number into a Numeric, Float, Integer or Currency field, like {@link #put(DbfField, Object)} does:
+     * value of more than 18 digits is rounded half up to the scale of the field first.
+     */
+    void putDecimal(DbfField f, BigDecimal value) {
+        checkNumberField(f);
+        if (!encodeBigDecimal(f, value)) {
+            throw doesNotFit(f);
+        }
+    }
+
+    private static void checkNumberField(DbfField f) {
+        switch (f.getType()) {
+            case Numeric:
+            case Float:
+            case Integer:
+            case Currency:
+                break;
+            default:
+                throw typeMismatch(f, "a number");
+        }
+    }
+
+    private IllegalArgumentException doesNotFit(DbfField f) {
+        blankify(f);
+        return new IllegalArgumentException("Value does not fit field '" + f.getName() + "'");
+    }
+
+    private static IllegalArgumentException typeMismatch(DbfField f, String what) {
+        return new IllegalArgumentException("Field '" + f.getName() + "' of type " + f.getType() + " cannot hold " + what);
+    }
+
+    /**
+     * @return false if the value does not fit the field
+     */
+    private boolean encodeDecimal(DbfField f, long unscaled, int scale) {
+        try {
+            switch (f.getType()) {
+                case Integer:
+                    long value = rescale(unscaled, scale, 0);
+                    if (value < java.lang.Integer.MIN_VALUE || value > java.lang.Integer.MAX_VALUE) {
+                        return false;
+                    }
+                    putLittleEndian(f.getOffset(), value, 4);
+                    return true;
+                case Currency:
+                    putLittleEndian(f.getOffset(), rescale(unscaled, scale, 4), 8);
+                    return true;
+                default:
+                    return encodeNumber(f, rescale(unscaled, scale, f.getNumberOfDecimalPlaces()));
+            }
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    private boolean encodeBigDecimal(DbfField f, BigDecimal value) {
+        if (value.precision() <= MAX_SCALE) {
+            return encodeDecimal(f, value.unscaledValue().longValue(), value.scale());
+        }
+        BigDecimal rounded = value.setScale(f.getNumberOfDecimalPlaces(), RoundingMode.HALF_UP);
+        return rounded.precision() <= MAX_SCALE
+                && encodeDecimal(f, rounded.unscaledValue().longValue(), rounded.scale());
+    }
+
+    private boolean encodeDouble(DbfField f, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return false;
+        }
+        int decimals = Math.min(f.getNumberOfDecimalPlaces(), MAX_SCALE);
+        double scaled = value * NumberUtils.powerOfTen(decimals);
+        // value is rounded half up from its shortest decimal representation, like BigDecimal.valueOf(value),
+        // so 1.005 is 1.01. Scaled value may be a few ulps off that representation, so it is rounded directly
+        // only when it is not that close to a tie.
+        double fraction = Math.abs(scaled - Math.floor(scaled) - 0.5);
+        if (Math.abs(scaled) < MAX_EXACT_DOUBLE && fraction > 4 * Math.ulp(scaled)) {
+            return encodeDecimal(f, Math.round(scaled), decimals);
+        }
+        return encodeBigDecimal(f, BigDecimal.valueOf(value));
+    }
+
+    /**
+     * @throws ArithmeticException if the result does not fit into long
+     */
+    private static long rescale(long unscaled, int scale, int newScale) {
+        if (scale == newScale) {
+            return unscaled;
+        }
+        if (scale < newScale) {
+            if (newScale - scale > MAX_SCALE) {
+                if (unscaled == 0) {
+                    return 0;
+                }
+                throw new ArithmeticException("long overflow");
+            }
+            return Math.multiplyExact(unscaled, NumberUtils.powerOfTen(newScale - scale));
+        }
+        if (scale - newScale > MAX_SCALE) {
+            return 0;
+        }
+        long divisor = NumberUtils.powerOfTen(scale - newScale);
+        long result = unscaled / divisor;
+        long remainder = Math.abs(unscaled % divisor);
+        if (remainder >= divisor - remainder) {
+            result += unscaled < 0 ? -1 : 1;
+        }
+        return result;
+    }
+
+    /**
+     * Write unscaled value right-aligned, with decimal places of the field
+     *
+     * @return false if the value does not fit the field
+     */
+    private boolean encodeNumber(DbfField f, long unscaled) {
+        int decimals = f.getNumberOfDecimalPlaces();
+        int start = f.getOffset();
+        int pos = start + f.getLength();
+        // accumulate negative value, as -Long.MIN_VALUE does not exist
+        long v = unscaled > 0 ? -unscaled : unscaled;
+        int digits = 0;
+        do {
+            if (digits == decimals && decimals > 0) {
+                if (--pos < start) {
+                    return false;
+                }
+                buffer[pos] = '.';
+            }
+            if (--pos < start) {
+                return false;
+            }
+            buffer[pos] = (byte) ('0' - v % 10);
+            v /= 10;
+            digits++;
+        } while (v != 0 || digits <= decimals);
+        if (unscaled < 0) {
+            if (--pos < start) {
+                return false;
+            }
+            buffer[pos] = '-';
+        }
+        Arrays.fill(buffer, start, pos, (byte) JdbfUtils.EMPTY);
+        return true;
+    }
+
+    private void markOverflow(DbfField f) {
+        Arrays.fill(buffer, f.getOffset(), f.getOffset() + f.getLength(), OVERFLOW);
+    }
+
+    private void encodeDate(DbfField f, int year, int month, int day) {
+        if (year < 0 || year > 9999) {
+            throw new IllegalArgumentException("Year " + year + " does not fit field '" + f.getName() + "'");
+        }
+        int offset = f.getOffset();
+        putDigits(year, offset, 4);
+        putDigits(month, offset + 4, 2);
+        putDigits(day, offset + 6, 2);
+    }
+
+    private void putDigits(int value, int offset, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Write text cut to the field length, on a character boundary, and pad it with spaces
+     */
+    private void encodeString(DbfField f, CharSequence value) {
+        int pos = f.getOffset();
+        int end = pos + f.getLength();
+        int length = value.length();
+        int i = 0;
+        if (asciiCompatible) {
+            for (; i < length && pos < end; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                buffer[pos++] = (byte) c;
+            }
+        }
+        if (i < length && pos < end) {
+            pos = encodeChars(value, i, length, pos, end);
+        }
+        Arrays.fill(buffer, pos, end, (byte) JdbfUtils.EMPTY);
+    }
+
+    private int encodeChars(CharSequence value, int from, int to, int pos, int end) {
+        // no more chars than bytes left are needed, but keep a surrogate pair whole
+        int count = Math.min(to - from, end - pos + 1);
+        if (chars.length < count) {
+            chars = new char[Math.max(count, chars.length * 2)];
+            charBuffer = CharBuffer.wrap(chars);
+        }
+        if (value instanceof String) {
+            ((String) value).getChars(from, from + count, chars, 0);
+        } else {
+            for (int i = 0; i < count; i++) {
+                chars[i] = value.charAt(from + i);
+            }
+        }
+        ((Buffer) charBuffer).clear();
+        ((Buffer) charBuffer).limit(count);
+        ((Buffer) byteBuffer).clear();
+        ((Buffer) byteBuffer).limit(end);
+        ((Buffer) byteBuffer).position(pos);
+        charsetEncoder.reset();
+        charsetEncoder.encode(charBuffer, byteBuffer, true);
+        charsetEncoder.flush(byteBuffer);
+        return byteBuffer.position();
+    }
+
+    private void putLittleEndian(int offset, long value, int length) {
+        for (int i = 0; i < length; i++) {
+            buffer[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private void putBigEndian(int offset, long value, int length) {
+        for (int i = 0; i < length; i++) {
+            buffer[offset + i] = (byte) (value >>> (8 * (length - 1 - i)));
+        }
+    }
+
+    private void blankify(DbfField f) {
+        Arrays.fill(buffer, f.getOffset(), f.getOffset() + f.getLength(), (byte) JdbfUtils.EMPTY);
+    }
+}
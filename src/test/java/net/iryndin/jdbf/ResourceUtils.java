@@ -0,0 +1,37 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.reader.DbfReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers shared by tests that need test resources as files
+ */
+public final class ResourceUtils {
+
+    private ResourceUtils() {
+    }
+
+    public static File getResourceFile(String name) throws URISyntaxException {
+        return new File(ResourceUtils.class.getClassLoader().getResource(name).toURI());
+    }
+
+    /**
+     * Read all records of the file with {@link DbfReader}
+     */
+    public static List<DbfRecord> readAll(File file) throws IOException {
+        List<DbfRecord> records = new ArrayList<>();
+        try (DbfReader reader = new DbfReader(file)) {
+            DbfRecord rec;
+            while ((rec = reader.read()) != null) {
+                records.add(rec);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,126 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.index.CdxCursor;
+import net.iryndin.jdbf.index.CdxReader;
+import net.iryndin.jdbf.index.CdxTag;
+import net.iryndin.jdbf.reader.DbfRandomAccessReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static net.iryndin.jdbf.ResourceUtils.getResourceFile;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestCdxReader {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] key(String s) {
+        // keys of nullable fields start with a null flag byte
+        byte[] b = s.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] key = new byte[b.length + 1];
+        key[0] = (byte) 0x80;
+        System.arraycopy(b, 0, key, 1, b.length);
+        return key;
+    }
+
+    private static List<Integer> collect(CdxCursor cursor) throws IOException {
+        List<Integer> result = new ArrayList<>();
+        int recordNumber;
+        while ((recordNumber = cursor.next()) > 0) {
+            result.add(recordNumber);
+        }
+        return result;
+    }
+
+    @Test
+    public void testCompoundIndex() throws Exception {
+        try (DbfRandomAccessReader dbf = new DbfRandomAccessReader(getResourceFile("memo1/texto.dbf"));
+             CdxReader cdx = new CdxReader(getResourceFile("memo1/TEXTO.CDX"), dbf.getMetadata())) {
+            assertEquals(Arrays.asList("ITEXTO"), cdx.getTagNames());
+            CdxTag tag = cdx.getTag("itexto");
+            assertEquals("PADR(texver,5)", tag.getKeyExpression());
+            assertEquals(6, tag.getKeyLength());
+
+            // keys are sorted by TEXVER
+            CdxCursor cursor = tag.first();
+            String previous = "";
+            int qty = 0;
+            while (cursor.next() > 0) {
+                DbfRecord rec = dbf.read(cursor.getRecordNumber());
+                String value = rec.getString("TEXVER");
+                assertArrayEquals(key(String.format("%-5s", value)), cursor.getKey());
+                assertTrue(value.compareTo(previous) > 0);
+                previous = value;
+                qty++;
+            }
+            assertEquals(dbf.getRecordsQty(), qty);
+
+            assertTrue(tag.isNullable());
+            assertEquals(2, tag.seek("1.02", StandardCharsets.ISO_8859_1));
+            assertEquals(Arrays.asList(3, 4, 5), collect(tag.seekPrefix("1.03", StandardCharsets.ISO_8859_1)));
+            assertEquals(2, tag.seek(key("1.02")));
+            assertEquals(4, tag.seek(key("1.03A")));
+            assertEquals(-1, tag.seek(key("1.0")));
+            assertEquals(Arrays.asList(3, 4, 5), collect(tag.seekPrefix(key("1.03"))));
+            assertEquals(Arrays.asList(2, 3), collect(tag.range(key("1.02"), key("1.03"))));
+            assertEquals(Arrays.asList(1, 2), collect(tag.range(null, key("1.02"))));
+            assertEquals(Arrays.asList(), collect(tag.range(key("2"), null)));
+        }
+    }
+
+    @Test
+    public void testMultiLevelIndex() throws Exception {
+        // non-compact IDX: interior root and two leaves linked by sibling pointers
+        byte[] file = new byte[4 * 512];
+        putInt(file, 0, 512, false);
+        file[12] = 1;
+        System.arraycopy("NAME".getBytes(StandardCharsets.ISO_8859_1), 0, file, 16, 4);
+        page(file, 512, 1, -1, new String[]{"B", "D"}, new int[]{1024, 1536});
+        page(file, 1024, 2, 1536, new String[]{"A", "B"}, new int[]{1, 2});
+        page(file, 1536, 2, -1, new String[]{"C", "D"}, new int[]{3, 4});
+        File idx = folder.newFile("name.idx");
+        Files.write(idx.toPath(), file);
+
+        try (CdxReader reader = new CdxReader(idx)) {
+            CdxTag tag = reader.getTag();
+            assertEquals("NAME", tag.getName());
+            assertEquals("NAME", tag.getKeyExpression());
+            assertFalse(tag.isNullable());
+            assertEquals(Arrays.asList(1, 2, 3, 4), collect(tag.first()));
+            assertEquals(3, tag.seek("C", StandardCharsets.ISO_8859_1));
+            assertEquals(-1, tag.seek("E", StandardCharsets.ISO_8859_1));
+            assertEquals(Arrays.asList(2, 3), collect(tag.range("B".getBytes(), "C".getBytes())));
+        }
+    }
+
+    private static void page(byte[] file, int offset, int attributes, int right, String[] keys, int[] pointers) {
+        file[offset] = (byte) attributes;
+        file[offset + 2] = (byte) keys.length;
+        putInt(file, offset + 4, -1, false);
+        putInt(file, offset + 8, right, false);
+        for (int i = 0; i < keys.length; i++) {
+            file[offset + 12 + i * 5] = (byte) keys[i].charAt(0);
+            putInt(file, offset + 12 + i * 5 + 1, pointers[i], true);
+        }
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value, boolean bigEndian) {
+        for (int i = 0; i < 4; i++) {
+            bytes[offset + (bigEndian ? 3 - i : i)] = (byte) (value >>> (8 * i));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.aggregate.DbfAggregateRow;
+import net.iryndin.jdbf.aggregate.DbfAggregation;
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfPredicates;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.writer.DbfWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static net.iryndin.jdbf.ResourceUtils.getResourceFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestDbfAggregation {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGroupBy() throws Exception {
+        List<DbfAggregateRow> rows = new DbfAggregation(getResourceFile("data1/gds_im.dbf"))
+                .groupBy("G33")
+                .count()
+                .sum("G35")
+                .min("G35")
+                .max("G35")
+                .avg("G35")
+                .run();
+        assertEquals(3, rows.size());
+        Map<Object, DbfAggregateRow> byKey = new HashMap<>();
+        for (DbfAggregateRow row : rows) {
+            byKey.put(row.getKey("G33"), row);
+        }
+        DbfAggregateRow row = byKey.get("5407619000");
+        assertEquals(2L, row.getValue("count(*)"));
+        assertEquals(0, new BigDecimal("2308").compareTo((BigDecimal) row.getValue("sum(G35)")));
+        assertEquals(0, new BigDecimal("1000").compareTo((BigDecimal) row.getValue("min(G35)")));
+        assertEquals(0, new BigDecimal("1308").compareTo((BigDecimal) row.getValue("max(G35)")));
+        assertEquals(1154.0, (Double) row.getValue("avg(G35)"), 1e-9);
+
+        row = byKey.get("6006321000");
+        assertEquals(2L, row.getValue(0));
+        assertEquals(0, new BigDecimal("13578").compareTo((BigDecimal) row.getValue(1)));
+
+        row = byKey.get("6005329000");
+        assertEquals(1L, row.getValue(0));
+        assertEquals(0, new BigDecimal("654").compareTo((BigDecimal) row.getValue(1)));
+    }
+
+    @Test
+    public void testWithoutGroups() throws Exception {
+        DbfAggregation aggregation = new DbfAggregation(getResourceFile("data1/gds_im.dbf"));
+        List<DbfAggregateRow> rows = aggregation.count().sum("G35").countDistinct("G33").run();
+        assertEquals(1, rows.size());
+        assertEquals(5L, rows.get(0).getValue(0));
+        assertEquals(0, new BigDecimal("16540").compareTo((BigDecimal) rows.get(0).getValue(1)));
+        assertEquals(3L, rows.get(0).getValue("count_distinct(G33)"));
+
+        rows = new DbfAggregation(getResourceFile("data1/gds_im.dbf"))
+                .count()
+                .sum("G35")
+                .filter(DbfPredicates.equalTo(aggregation.getMetadata(), "G33", "0"))
+                .run();
+        assertEquals(1, rows.size());
+        assertEquals(0L, rows.get(0).getValue(0));
+        assertNull(rows.get(0).getValue(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSumOfCharacterField() throws Exception {
+        new DbfAggregation(getResourceFile("data1/gds_im.dbf")).sum("G33");
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        DbfMetadata metadata = DbfMetadataUtils.fromFieldsString("CODE,C,10,0|AMOUNT,N,12,2|DAY,D,8,0");
+        File dbf = folder.newFile("big.dbf");
+        int recordsQty = 50000;
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        long[] expectedSums = new long[7];
+        int[] expectedCounts = new int[7];
+        try (FileOutputStream out = new FileOutputStream(dbf)) {
+            DbfWriter writer = new DbfWriter(metadata, out);
+            Map<String, Object> map = new HashMap<>();
+            for (int i = 0; i < recordsQty; i++) {
+                int code = i % 7;
+                long cents = (i * 31L) % 100000 - 20000;
+                map.put("CODE", "C" + code);
+                map.put("AMOUNT", BigDecimal.valueOf(cents, 2));
+                map.put("DAY", start.plusDays(i % 1000));
+                writer.write(map);
+                expectedSums[code] += cents;
+                expectedCounts[code]++;
+            }
+            writer.close();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<DbfAggregateRow> rows = new DbfAggregation(dbf)
+                    .groupBy("CODE")
+                    .count()
+                    .sum("AMOUNT")
+                    .min("DAY")
+                    .max("DAY")
+                    .countDistinct("DAY")
+                    .pool(pool)
+                    .minSplitSize(1000)
+                    .run();
+            assertEquals(7, rows.size());
+            for (DbfAggregateRow row : rows) {
+                int code = Integer.parseInt(((String) row.getKey(0)).substring(1));
+                assertEquals((long) expectedCounts[code], row.getValue("count(*)"));
+                assertEquals(BigDecimal.valueOf(expectedSums[code], 2), row.getValue("sum(AMOUNT)"));
+                assertEquals(start, row.getValue("min(DAY)"));
+                assertEquals(start.plusDays(999), row.getValue("max(DAY)"));
+                assertEquals(1000L, row.getValue("count_distinct(DAY)"));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfCharset;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TestDbfCharset {
+
+    @Test
+    public void testDecodeTableMatchesCharset() {
+        byte[] allBytes = new byte[256];
+        for (int i = 0; i < allBytes.length; i++) {
+            allBytes[i] = (byte) i;
+        }
+        for (String name : new String[]{"Cp866", "Cp1251", "Cp437", "Cp850", "Cp1252"}) {
+            Charset charset = Charset.forName(name);
+            char[] table = DbfCharset.getDecodeTable(charset);
+            assertNotNull(name, table);
+            assertEquals(name, new String(allBytes, charset), new String(table));
+            // changing the returned table does not affect decoding
+            table['A'] = '?';
+            assertEquals("A", DbfCharset.decodeTrimmed(new byte[]{'A'}, 0, 1, charset));
+        }
+        assertNull(DbfCharset.getDecodeTable(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDecodeTrimmed() {
+        Charset cp866 = Charset.forName("Cp866");
+        byte[] bytes = "*  Привет мир   *".getBytes(cp866);
+        assertEquals("Привет мир", DbfCharset.decodeTrimmed(bytes, 1, bytes.length - 2, cp866));
+        assertNull(DbfCharset.decodeTrimmed(bytes, 1, 2, cp866));
+        byte[] utf8 = " Привет ".getBytes(StandardCharsets.UTF_8);
+        assertEquals("Привет", DbfCharset.decodeTrimmed(utf8, 0, utf8.length, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testFromIntIsCached() {
+        Charset charset = DbfCharset.fromInt((byte) 0x65);
+        assertEquals(Charset.forName("Cp866"), charset);
+        assertSame(charset, DbfCharset.fromInt((byte) 0x26));
+    }
+}
@@ -0,0 +1,124 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfPredicates;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.reader.DbfDataset;
+import net.iryndin.jdbf.reader.DbfRandomAccessReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestDbfDataset {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File copyResource(String name, String directory, String fileName) throws IOException {
+        File dir = new File(folder.getRoot(), directory);
+        dir.mkdirs();
+        File file = new File(dir, fileName);
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(name)) {
+            Files.copy(is, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    @Test
+    public void testScan() throws IOException {
+        for (String batch : Arrays.asList("215451", "218864", "220001")) {
+            copyResource("data1/gds_im.dbf", batch, "gds_im.dbf");
+            copyResource("data1/tir_im.dbf", batch, "tir_im.dbf");
+        }
+        copyResource("data1/gds_im.dbf", "220002", "GDS_IM.DBF");
+
+        DbfDataset dataset = DbfDataset.discover(folder.getRoot(), "gds_im.dbf").threads(3);
+        List<File> files = dataset.getFiles();
+        assertEquals(4, files.size());
+        assertEquals("215451", files.get(0).getParentFile().getName());
+        assertEquals("GDS_IM.DBF", files.get(3).getName());
+        assertTrue(dataset.getMetadata().getField("G33") != null);
+
+        AtomicLong sum = new AtomicLong();
+        assertEquals(20, dataset.forEach(rec -> sum.addAndGet(rec.getBigDecimal("G35").longValue())));
+        assertEquals(4 * (1000 + 9000 + 1308 + 4578 + 654), sum.get());
+
+        dataset.filter(DbfPredicates.equalTo(dataset.getMetadata(), "G33", "5407619000"));
+        List<Integer> counts = dataset.scan((dbfFile, cursor) -> {
+            int n = 0;
+            DbfRecord rec;
+            while ((rec = cursor.next()) != null) {
+                assertEquals("5407619000", rec.getString("G33"));
+                n++;
+            }
+            return n;
+        });
+        assertEquals(Arrays.asList(2, 2, 2, 2), counts);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            dataset.directoryFilter(dir -> dir.getName().compareTo("218864") >= 0).executor(executor);
+            assertEquals(3, dataset.getFiles().size());
+            assertEquals(6, dataset.forEach(rec -> { }));
+            assertTrue(!executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+
+        LocalDate updateDate = dataset.getMetadata().getUpdateDate();
+        dataset.updatedBetween(updateDate.plusDays(1), null);
+        assertEquals(0, dataset.getFiles().size());
+        assertNull(dataset.getMetadata());
+        dataset.updatedBetween(null, updateDate);
+        assertEquals(3, dataset.getFiles().size());
+    }
+
+    @Test
+    public void testDifferentSchemas() throws IOException {
+        copyResource("data1/gds_im.dbf", "1", "gds_im.dbf");
+        File other = copyResource("data1/tir_im.dbf", "2", "gds_im.dbf");
+        DbfDataset dataset = DbfDataset.discover(folder.getRoot(), "gds_im.dbf");
+        try {
+            dataset.getFiles();
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("differs"));
+        }
+        dataset.directoryFilter(dir -> dir.getName().equals("2"));
+        assertEquals(1, dataset.getFiles().size());
+        try (DbfRandomAccessReader reader = new DbfRandomAccessReader(other)) {
+            assertEquals(reader.getRecordsQty(), dataset.forEach(rec -> { }));
+        }
+    }
+
+    @Test
+    public void testFailureOfScanner() throws IOException {
+        copyResource("data1/gds_im.dbf", "1", "gds_im.dbf");
+        copyResource("data1/gds_im.dbf", "2", "gds_im.dbf");
+        DbfDataset dataset = DbfDataset.discover(folder.getRoot(), "gds_im.dbf");
+        try {
+            dataset.scan((dbfFile, cursor) -> {
+                throw new IOException("Broken " + dbfFile.getParentFile().getName());
+            });
+            fail();
+        } catch (IOException e) {
+            assertEquals("Broken 1", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.reader.DbfReader;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.writer.DbfWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TestDbfFileWriter {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void writeRecords(DbfWriter writer, int n) throws IOException {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            map.put("ID", BigDecimal.valueOf(i));
+            map.put("CODE", "C" + (i % 7));
+            writer.write(map);
+        }
+        writer.close();
+    }
+
+    private static void checkRecords(File file, int n) throws IOException {
+        try (DbfReader reader = new DbfReader(file)) {
+            assertEquals(n, reader.getMetadata().getRecordsQty());
+            DbfRecord rec;
+            int i = 0;
+            while ((rec = reader.read()) != null) {
+                assertEquals(i, rec.getBigDecimal("ID").intValue());
+                assertEquals("C" + (i % 7), rec.getString("CODE"));
+                i++;
+            }
+            assertEquals(n, i);
+        }
+    }
+
+    @Test
+    public void testUnknownNumberOfRecords() throws IOException {
+        File file = folder.newFile("out.dbf");
+        DbfMetadata metadata = DbfMetadataUtils.fromFieldsString("ID,N,10,0|CODE,C,10,0");
+        assertEquals(0, metadata.getRecordsQty());
+        writeRecords(new DbfWriter(metadata, file), 100000);
+        checkRecords(file, 100000);
+        assertEquals(metadata.getFullHeaderLength() + 100000L * metadata.getOneRecordLength(), file.length());
+
+        // rewriting an existing file truncates it
+        writeRecords(new DbfWriter(DbfMetadataUtils.fromFieldsString("ID,N,10,0|CODE,C,10,0"), file), 3);
+        checkRecords(file, 3);
+    }
+
+    @Test
+    public void testChannel() throws IOException {
+        File file = folder.newFile("out.dbf");
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        writeRecords(new DbfWriter(DbfMetadataUtils.fromFieldsString("ID,N,10,0|CODE,C,10,0"), channel), 0);
+        assertFalse(channel.isOpen());
+        checkRecords(file, 0);
+    }
+
+    @Test
+    public void testBatches() throws IOException {
+        File source = folder.newFile("source.dbf");
+        writeRecords(new DbfWriter(DbfMetadataUtils.fromFieldsString("ID,N,10,0|CODE,C,10,0"), source), 1000);
+        byte[] sourceBytes = Files.readAllBytes(source.toPath());
+
+        // buffer smaller than a record, than a batch and than the header
+        for (int bufferSize : new int[]{1, 100, 1000, DbfWriter.DEFAULT_BUFFER_SIZE}) {
+            File file = folder.newFile("batch" + bufferSize + ".dbf");
+            DbfMetadata metadata = DbfMetadataUtils.fromFieldsString("ID,N,10,0|CODE,C,10,0");
+            DbfWriter writer = new DbfWriter(metadata, file, bufferSize);
+            int headerLength = metadata.getFullHeaderLength();
+            int recordLength = metadata.getOneRecordLength();
+            writer.writeBatch(sourceBytes, headerLength, 1);
+            writer.writeBatch(sourceBytes, headerLength + recordLength, 499);
+            List<Map<String, Object>> maps = new ArrayList<>();
+            for (int i = 500; i < 1000; i++) {
+                Map<String, Object> map = new HashMap<>();
+                map.put("ID", BigDecimal.valueOf(i));
+                map.put("CODE", "C" + (i % 7));
+                maps.add(map);
+            }
+            writer.write(maps);
+            writer.close();
+            assertArrayEquals(sourceBytes, Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testBatchOutOfArray() throws IOException {
+        DbfMetadata metadata = DbfMetadataUtils.fromFieldsString("ID,N,10,0|CODE,C,10,0");
+        DbfWriter writer = new DbfWriter(metadata, folder.newFile("out.dbf"));
+        try {
+            writer.writeBatch(new byte[metadata.getOneRecordLength() * 2], 1, 2);
+        } finally {
+            writer.close();
+        }
+    }
+}
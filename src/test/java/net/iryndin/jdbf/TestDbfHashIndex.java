@@ -0,0 +1,58 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.index.DbfHashIndex;
+import net.iryndin.jdbf.reader.DbfRandomAccessReader;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static net.iryndin.jdbf.ResourceUtils.getResourceFile;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestDbfHashIndex {
+
+    @Test
+    public void testCharacterKey() throws Exception {
+        try (DbfRandomAccessReader reader = new DbfRandomAccessReader(getResourceFile("data1/gds_im.dbf"))) {
+            DbfHashIndex index = DbfHashIndex.build(reader, "G33");
+            assertEquals(5, index.getRecordsQty());
+            assertEquals(3, index.getKeysQty());
+            assertEquals(1, index.find("5407619000"));
+            assertArrayEquals(new int[]{1, 3}, index.findAll("5407619000"));
+            assertArrayEquals(new int[]{2, 4}, index.findAll(" 6006321000 "));
+            assertEquals(5, index.find("6005329000"));
+            assertEquals(-1, index.find("600532900"));
+            assertArrayEquals(new int[0], index.findAll("0"));
+
+            DbfRecord rec = index.get("6005329000");
+            assertEquals(5, rec.getRecordNumber());
+            assertEquals("6005329000", rec.getString("G33"));
+            assertNull(index.get("1"));
+        }
+    }
+
+    @Test
+    public void testNumericKey() throws Exception {
+        try (DbfRandomAccessReader reader = new DbfRandomAccessReader(getResourceFile("data1/gds_im.dbf"))) {
+            DbfHashIndex index = DbfHashIndex.build(reader, "G35");
+            for (int i = 1; i <= reader.getRecordsQty(); i++) {
+                BigDecimal value = reader.read(i).getBigDecimal("G35");
+                assertEquals(i, index.find(value));
+                assertEquals(i, index.find(value.setScale(value.scale() + 2)));
+                assertEquals(i, index.get(value.unscaledValue().longValue()).getRecordNumber());
+            }
+            assertEquals(-1, index.find(new BigDecimal("1000.0001")));
+            assertEquals(-1, index.find(new BigDecimal("1")));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongKeyType() throws Exception {
+        try (DbfRandomAccessReader reader = new DbfRandomAccessReader(getResourceFile("data1/gds_im.dbf"))) {
+            DbfHashIndex.build(reader, "G33").find(1L);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.reader.DbfMappedReader;
+import net.iryndin.jdbf.reader.DbfReader;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestDbfMappedReader {
+
+    @Test
+    public void testSameRecordsAsDbfReader() throws Exception {
+        File file = new File(getClass().getClassLoader().getResource("data1/gds_im.dbf").toURI());
+
+        List<DbfRecord> expected = new ArrayList<>();
+        try (DbfReader reader = new DbfReader(file)) {
+            DbfRecord rec;
+            while ((rec = reader.read()) != null) {
+                expected.add(rec);
+            }
+        }
+
+        // window sizes: smaller than a record, not a multiple of record length, whole file
+        for (long windowSize : new long[]{1, 1000, DbfMappedReader.DEFAULT_WINDOW_SIZE}) {
+            try (DbfMappedReader reader = new DbfMappedReader(file, null, windowSize)) {
+                for (int pass = 0; pass < 2; pass++) {
+                    reader.findFirstRecord();
+                    for (DbfRecord e : expected) {
+                        DbfRecord rec = reader.read();
+                        assertEquals(e.getRecordNumber(), rec.getRecordNumber());
+                        assertArrayEquals(e.getBytes(), rec.getBytes());
+                    }
+                    assertNull(reader.read());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.writer.DbfParallelWriter;
+import net.iryndin.jdbf.writer.DbfWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TestDbfParallelWriter {
+    private static final String FIELDS = "ID,N,10,0|NAME,C,20,0|AMOUNT,N,12,2|DAY,D,8,0";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Map<String, Object> row(int i) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("ID", BigDecimal.valueOf(i));
+        map.put("NAME", "Имя " + i);
+        map.put("AMOUNT", BigDecimal.valueOf(i * 7L, 2));
+        map.put("DAY", LocalDate.of(2000, 1, 1).plusDays(i % 1000));
+        return map;
+    }
+
+    @Test
+    public void testSameOutputAsSerialWriter() throws IOException {
+        int n = 25000;
+        File serial = folder.newFile("serial.dbf");
+        DbfWriter writer = new DbfWriter(DbfMetadataUtils.fromFieldsString(FIELDS), serial);
+        writer.setStringCharset("Cp866");
+        for (int i = 0; i < n; i++) {
+            writer.write(row(i));
+        }
+        writer.close();
+
+        for (int chunkSize : new int[]{1, 1000, DbfParallelWriter.DEFAULT_CHUNK_SIZE}) {
+            File parallel = folder.newFile("parallel" + chunkSize + ".dbf");
+            DbfWriter out = new DbfWriter(DbfMetadataUtils.fromFieldsString(FIELDS), parallel);
+            out.setStringCharset("Cp866");
+            try (DbfParallelWriter parallelWriter = new DbfParallelWriter(out, 4, chunkSize, 3)) {
+                for (int i = 0; i < n; i++) {
+                    parallelWriter.write(row(i));
+                }
+            }
+            assertArrayEquals(Files.readAllBytes(serial.toPath()), Files.readAllBytes(parallel.toPath()));
+        }
+    }
+
+    @Test
+    public void testFailure() throws IOException {
+        File file = folder.newFile("failure.dbf");
+        DbfMetadata metadata = DbfMetadataUtils.fromFieldsString(FIELDS);
+        DbfParallelWriter writer = new DbfParallelWriter(new DbfWriter(metadata, file), 2, 10, 2);
+        Map<String, Object> bad = row(0);
+        bad.put("DAY", "not a date");
+        try {
+            try {
+                for (int i = 0; i < 1000; i++) {
+                    writer.write(i == 15 ? bad : row(i));
+                }
+            } finally {
+                // close reports the failure too
+                writer.close();
+            }
+            fail();
+        } catch (ClassCastException e) {
+            // expected
+        }
+        // records of chunks before the failed one are written
+        assertEquals(metadata.getFullHeaderLength() + 10L * metadata.getOneRecordLength(), file.length());
+    }
+}
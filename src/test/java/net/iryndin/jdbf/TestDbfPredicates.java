@@ -0,0 +1,123 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfPredicate;
+import net.iryndin.jdbf.core.DbfPredicates;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.reader.DbfCursor;
+import net.iryndin.jdbf.reader.DbfRandomAccessReader;
+import net.iryndin.jdbf.reader.DbfReader;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static net.iryndin.jdbf.ResourceUtils.getResourceFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestDbfPredicates {
+    private static final Charset CP866 = Charset.forName("Cp866");
+
+    private List<Integer> select(File file, DbfPredicate filter) throws IOException {
+        List<Integer> result = new ArrayList<>();
+        try (DbfRandomAccessReader reader = new DbfRandomAccessReader(file)) {
+            DbfCursor cursor = reader.cursor();
+            cursor.setFilter(filter);
+            DbfRecord rec;
+            while ((rec = cursor.next()) != null) {
+                result.add(rec.getRecordNumber());
+            }
+        }
+        return result;
+    }
+
+    private DbfMetadata metadata(File file) throws IOException {
+        try (DbfRandomAccessReader reader = new DbfRandomAccessReader(file)) {
+            return reader.getMetadata();
+        }
+    }
+
+    @Test
+    public void testCharacter() throws Exception {
+        File file = getResourceFile("data1/gds_im.dbf");
+        DbfMetadata meta = metadata(file);
+
+        assertEquals(Arrays.asList(1, 3), select(file, DbfPredicates.equalTo(meta, "G33", "5407619000", CP866)));
+        assertEquals(Arrays.asList(2, 4, 5), select(file, DbfPredicates.startsWith(meta, "G33", "600", CP866)));
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), select(file, DbfPredicates.equalTo(meta, "G221", "USD", CP866)));
+        assertEquals(Arrays.asList(), select(file, DbfPredicates.equalTo(meta, "G221", "US", CP866)));
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), select(file, DbfPredicates.notDeleted()));
+        assertEquals(Arrays.asList(), select(file, DbfPredicates.deleted()));
+    }
+
+    @Test
+    public void testNumeric() throws Exception {
+        File file = getResourceFile("data1/gds_im.dbf");
+        DbfMetadata meta = metadata(file);
+
+        // G35: 1000.00, 9000.00, 1308.00, 4578.00, 654.00
+        assertEquals(Arrays.asList(1, 3, 5), select(file, DbfPredicates.numberBetween(meta, "G35", null, new BigDecimal("1308"))));
+        assertEquals(Arrays.asList(2, 4), select(file, DbfPredicates.numberBetween(meta, "G35", new BigDecimal("1308.001"), null)));
+        assertEquals(Arrays.asList(3), select(file, DbfPredicates.numberBetween(meta, "G35", new BigDecimal("1308"), new BigDecimal("1308"))));
+        // empty values never match
+        assertEquals(Arrays.asList(), select(file, DbfPredicates.numberBetween(meta, "G405", null, null)));
+        // bounds out of long range
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), select(file, DbfPredicates.numberBetween(meta, "G35", new BigDecimal("-1e17"), new BigDecimal("1e17"))));
+        assertEquals(Arrays.asList(), select(file, DbfPredicates.numberBetween(meta, "G35", new BigDecimal("1e17"), null)));
+
+        DbfPredicate p = DbfPredicates.numberBetween(meta, "G35", new BigDecimal("1000"), null)
+                .and(DbfPredicates.startsWith(meta, "G33", "54", CP866).negate());
+        assertEquals(Arrays.asList(2, 4), select(file, p));
+        assertEquals(Arrays.asList(1, 2, 3, 4), select(file, DbfPredicates.or(p, DbfPredicates.equalTo(meta, "G33", "5407619000", CP866))));
+    }
+
+    @Test
+    public void testDate() throws Exception {
+        File file = getResourceFile("data1/tir_im.dbf");
+        DbfMetadata meta = metadata(file);
+
+        LocalDate date = LocalDate.of(2012, 9, 6);
+        assertEquals(Arrays.asList(1), select(file, DbfPredicates.dateBetween(meta, "G542", date, date)));
+        assertEquals(Arrays.asList(), select(file, DbfPredicates.dateBetween(meta, "G542", date.plusDays(1), null)));
+        assertEquals(Arrays.asList(), select(file, DbfPredicates.dateBetween(meta, "G542", null, date.minusDays(1))));
+        // empty date
+        assertEquals(Arrays.asList(), select(file, DbfPredicates.dateBetween(meta, "A_DLIC", null, null)));
+    }
+
+    @Test
+    public void testDbfReaderFilter() throws Exception {
+        File file = getResourceFile("data1/gds_im.dbf");
+        try (DbfReader reader = new DbfReader(file)) {
+            DbfPredicate p = DbfPredicates.startsWith(reader.getMetadata(), "G33", "600", CP866);
+            reader.setFilter(p);
+            reader.project("G33", "G35");
+
+            List<Integer> numbers = new ArrayList<>();
+            DbfRecord rec;
+            while ((rec = reader.read()) != null) {
+                assertTrue(rec.getString("G33").startsWith("600"));
+                numbers.add(rec.getRecordNumber());
+            }
+            assertEquals(Arrays.asList(2, 4, 5), numbers);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyDecimalPlaces() throws Exception {
+        DbfPredicates.numberBetween(DbfMetadataUtils.fromFieldsString("X,N,20,19"), "X", null, BigDecimal.ONE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongFieldType() throws Exception {
+        File file = getResourceFile("data1/gds_im.dbf");
+        DbfPredicates.equalTo(metadata(file), "G35", "1000");
+    }
+}
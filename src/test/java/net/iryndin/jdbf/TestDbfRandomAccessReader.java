@@ -0,0 +1,174 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.reader.DbfCursor;
+import net.iryndin.jdbf.reader.DbfRandomAccessReader;
+import net.iryndin.jdbf.reader.DbfReader;
+import net.iryndin.jdbf.reader.DbfRecordSpliterator;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static net.iryndin.jdbf.ResourceUtils.getResourceFile;
+import static net.iryndin.jdbf.ResourceUtils.readAll;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestDbfRandomAccessReader {
+
+    @Test
+    public void testReadByRecordNumber() throws Exception {
+        File file = getResourceFile("data1/gds_im.dbf");
+        List<DbfRecord> expected = readAll(file);
+
+        try (DbfRandomAccessReader reader = new DbfRandomAccessReader(file)) {
+            assertEquals(5, reader.getRecordsQty());
+            // read backwards to be sure nothing depends on the previous read
+            for (int i = reader.getRecordsQty(); i >= 1; i--) {
+                DbfRecord rec = reader.read(i);
+                assertEquals(i, rec.getRecordNumber());
+                assertArrayEquals(expected.get(i - 1).getBytes(), rec.getBytes());
+                assertEquals(expected.get(i - 1).toMap(), rec.toMap());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecordNumberOutOfRange() throws Exception {
+        try (DbfRandomAccessReader reader = new DbfRandomAccessReader(getResourceFile("data1/tir_im.dbf"))) {
+            reader.read(reader.getRecordsQty() + 1);
+        }
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        File file = getResourceFile("data1/gds_im.dbf");
+        final List<DbfRecord> expected = readAll(file);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (final DbfRandomAccessReader reader = new DbfRandomAccessReader(file)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int n = 0; n < 100; n++) {
+                        int i = 1 + n % reader.getRecordsQty();
+                        assertArrayEquals(expected.get(i - 1).getBytes(), reader.read(i).getBytes());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMemo() throws Exception {
+        File dbf = getResourceFile("memo1/texto.dbf");
+        File memo = getResourceFile("memo1/texto.fpt");
+
+        List<String> expected = new ArrayList<>();
+        try (DbfReader reader = new DbfReader(dbf, memo)) {
+            DbfRecord rec;
+            while ((rec = reader.read()) != null) {
+                expected.add(rec.getMemoAsString("TEXTEX"));
+            }
+        }
+
+        try (DbfRandomAccessReader reader = new DbfRandomAccessReader(dbf, memo)) {
+            assertEquals(expected.size(), reader.getRecordsQty());
+            for (int i = reader.getRecordsQty(); i >= 1; i--) {
+                assertEquals(expected.get(i - 1), reader.read(i).getMemoAsString("TEXTEX"));
+            }
+        }
+    }
+
+    @Test
+    public void testCursor() throws Exception {
+        File file = getResourceFile("data1/gds_im.dbf");
+        List<DbfRecord> expected = readAll(file);
+
+        try (DbfRandomAccessReader reader = new DbfRandomAccessReader(file)) {
+            // buffer holds two records, so the last chunk is incomplete
+            DbfCursor cursor = reader.cursor(1, reader.getRecordsQty(), 1000);
+            List<DbfRecord> copies = new ArrayList<>();
+            DbfRecord first = cursor.next();
+            DbfRecord rec = first;
+            while (rec != null) {
+                assertSame(first, rec);
+                assertEquals(expected.get(rec.getRecordNumber() - 1).toMap(), rec.toMap());
+                copies.add(rec.copy());
+                rec = cursor.next();
+            }
+            assertNull(cursor.next());
+
+            assertEquals(expected.size(), copies.size());
+            for (int i = 0; i < copies.size(); i++) {
+                assertEquals(i + 1, copies.get(i).getRecordNumber());
+                assertArrayEquals(expected.get(i).getBytes(), copies.get(i).getBytes());
+            }
+
+            cursor = reader.cursor(2, 3);
+            assertEquals(2, cursor.next().getRecordNumber());
+            assertArrayEquals(expected.get(2).getBytes(), cursor.next().getBytes());
+            assertNull(cursor.next());
+
+            // buffer of a one-record cursor is shared too, so bytes are copied
+            rec = reader.cursor(4, 4).next();
+            rec.getBytes()[1] = '#';
+            assertArrayEquals(expected.get(3).getBytes(), rec.getBytes());
+
+            // rows are visited right in the buffer, after the ones already read by next()
+            cursor = reader.cursor(1, reader.getRecordsQty(), 1000);
+            cursor.next();
+            List<Integer> visited = new ArrayList<>();
+            cursor.forEachRow((bytes, offset, recordNumber) -> {
+                byte[] row = Arrays.copyOfRange(bytes, offset, offset + reader.getMetadata().getOneRecordLength());
+                assertArrayEquals(expected.get(recordNumber - 1).getBytes(), row);
+                visited.add(recordNumber);
+            });
+            assertEquals(Arrays.asList(2, 3, 4, 5), visited);
+            assertNull(cursor.next());
+        }
+    }
+
+    @Test
+    public void testParallelStream() throws Exception {
+        File file = getResourceFile("data1/gds_im.dbf");
+        List<DbfRecord> expected = readAll(file);
+
+        try (DbfRandomAccessReader reader = new DbfRandomAccessReader(file)) {
+            assertEquals(expected.size(), reader.stream().count());
+
+            Spliterator<DbfRecord> spliterator = new DbfRecordSpliterator(reader, 1, reader.getRecordsQty(), 1);
+            assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+            assertEquals(5, spliterator.estimateSize());
+            Spliterator<DbfRecord> prefix = spliterator.trySplit();
+            assertEquals(2, prefix.estimateSize());
+            assertEquals(3, spliterator.estimateSize());
+
+            List<DbfRecord> records = StreamSupport.stream(new DbfRecordSpliterator(reader, 1, reader.getRecordsQty(), 1), true)
+                    .collect(Collectors.toList());
+            assertEquals(expected.size(), records.size());
+            for (int i = 0; i < records.size(); i++) {
+                assertEquals(i + 1, records.get(i).getRecordNumber());
+                assertArrayEquals(expected.get(i).getBytes(), records.get(i).getBytes());
+            }
+        }
+    }
+}
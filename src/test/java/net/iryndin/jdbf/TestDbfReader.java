@@ -1,8 +1,13 @@
 package net.iryndin.jdbf;
 
+import net.iryndin.jdbf.core.DbfFieldTypeEnum;
 import net.iryndin.jdbf.core.DbfMetadata;
 import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.core.DbfSchema;
+import net.iryndin.jdbf.core.FieldAccessor;
+import net.iryndin.jdbf.core.RecordBatch;
 import net.iryndin.jdbf.reader.DbfReader;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
 import net.iryndin.jdbf.util.JdbfUtils;
 
 import org.junit.Rule;
@@ -12,11 +17,21 @@ import org.junit.rules.ExpectedException;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigDecimal;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class TestDbfReader {
 	@Rule
@@ -76,6 +91,213 @@ public class TestDbfReader {
         }
     }
     
+    @Test
+    public void testProjection() throws IOException {
+        Charset stringCharset = Charset.forName("Cp866");
+
+        List<Map<String, Object>> expected = new ArrayList<>();
+        try (DbfReader reader = new DbfReader(getClass().getClassLoader().getResourceAsStream("data1/gds_im.dbf"))) {
+            DbfRecord rec;
+            while ((rec = reader.read()) != null) {
+                rec.setStringCharset(stringCharset);
+                expected.add(rec.toMap());
+            }
+        }
+
+        try (DbfReader reader = new DbfReader(getClass().getClassLoader().getResourceAsStream("data1/gds_im.dbf"))) {
+            reader.project("G33", "N_MDP", "KONTR", "CREATEDATE", "G35");
+            assertEquals(5, reader.getProjection().getMetadata().getFields().size());
+
+            DbfRecord rec;
+            int recCounter = 0;
+            while ((rec = reader.read()) != null) {
+                rec.setStringCharset(stringCharset);
+                Map<String, Object> map = rec.toMap();
+                Map<String, Object> e = expected.get(recCounter++);
+
+                assertEquals(recCounter, rec.getRecordNumber());
+                assertEquals(Arrays.asList("G33", "N_MDP", "KONTR", "CREATEDATE", "G35"), new ArrayList<>(map.keySet()));
+                assertEquals(1 + 10 + 8 + 1 + 8 + 13, rec.getBytes().length);
+                for (String name : map.keySet()) {
+                    assertEquals(e.get(name), map.get(name));
+                }
+            }
+            assertEquals(5, recCounter);
+        }
+    }
+
+    @Test
+    public void testProjectionOfUnknownField() throws IOException {
+        try (DbfReader reader = new DbfReader(getClass().getClassLoader().getResourceAsStream("data1/gds_im.dbf"))) {
+            exception.expect(IllegalArgumentException.class);
+            reader.project("NO_SUCH_FIELD");
+        }
+    }
+
+    @Test
+    public void testPrimitiveNumericGetters() throws IOException {
+        try (DbfReader reader = new DbfReader(getClass().getClassLoader().getResourceAsStream("data1/gds_im.dbf"))) {
+            DbfRecord rec;
+            while ((rec = reader.read()) != null) {
+                for (String name : new String[]{"W_LIST_NO", "G32", "G35", "G42", "G405", "ARM_ID"}) {
+                    BigDecimal expected = rec.getBigDecimal(name);
+                    assertEquals(expected == null, rec.isNull(name));
+                    if (expected == null) {
+                        assertEquals(0, rec.getLong(name));
+                        continue;
+                    }
+                    int scale = rec.getField(name).getNumberOfDecimalPlaces();
+                    assertEquals(expected.unscaledValue().longValue(), rec.getUnscaledLong(name, scale));
+                    assertEquals(expected.longValue(), rec.getLong(name));
+                    assertEquals(expected.doubleValue(), rec.getDouble(name), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEpochDateGetters() throws IOException {
+        try (DbfReader reader = new DbfReader(getClass().getClassLoader().getResourceAsStream("data1/tir_im.dbf"))) {
+            DbfRecord rec = reader.read();
+            assertEquals(rec.getDate("G542").toEpochDay(), rec.getEpochDay("G542"));
+            assertEquals(rec.getDate("G542").toEpochDay() * 24 * 60 * 60 * 1000, rec.getEpochMillis("G542"));
+            // empty date
+            assertNull(rec.getDate("A_DLIC"));
+            assertTrue(rec.isNull("A_DLIC"));
+            assertEquals(0, rec.getEpochDay("A_DLIC"));
+        }
+    }
+
+    @Test
+    public void testSchemaAccessors() throws IOException {
+        try (DbfReader reader = new DbfReader(getClass().getClassLoader().getResourceAsStream("data1/gds_im.dbf"))) {
+            DbfMetadata meta = reader.getMetadata();
+            DbfSchema schema = meta.getSchema();
+            // compiled once per metadata
+            assertSame(schema, meta.getSchema());
+            assertEquals(meta.getFields().size(), schema.size());
+            FieldAccessor g35 = schema.get("G35");
+            assertEquals(schema.indexOf("G35"), g35.getOrdinal());
+            assertSame(g35, schema.get(g35.getOrdinal()));
+            DbfRecord rec;
+            while ((rec = reader.read()) != null) {
+                Map<String, Object> map = rec.toMap();
+                for (FieldAccessor a : schema.getAccessors()) {
+                    if (map.containsKey(a.getName())) {
+                        assertEquals(map.get(a.getName()), a.getValue(rec));
+                        assertEquals(map.get(a.getName()), rec.getValue(a.getOrdinal()));
+                    }
+                }
+                for (FieldAccessor a : schema.getAccessors()) {
+                    assertEquals(rec.isNull(a.getField()), a.isNull(rec));
+                    if (a.getType() == DbfFieldTypeEnum.Numeric || a.getType() == DbfFieldTypeEnum.Float) {
+                        assertEquals(rec.getLong(a.getField()), a.getLong(rec));
+                        assertEquals(rec.getUnscaledLong(a.getField(), 2), a.getUnscaledLong(rec, 2));
+                        assertEquals(rec.getDouble(a.getField()), a.getDouble(rec), 0.0);
+                    } else if (a.getType() == DbfFieldTypeEnum.Date) {
+                        assertEquals(rec.getEpochDay(a.getField()), a.getEpochDay(rec));
+                    }
+                }
+            }
+        }
+        // files of the same structure share the schema
+        try (DbfReader reader1 = new DbfReader(getClass().getClassLoader().getResourceAsStream("data1/gds_im.dbf"));
+             DbfReader reader2 = new DbfReader(getClass().getClassLoader().getResourceAsStream("data1/gds_im.dbf"))) {
+            assertSame(reader1.getMetadata().getSchema(), reader2.getMetadata().getSchema());
+        }
+    }
+
+    @Test
+    public void testBinaryAccessors() throws IOException {
+        DbfMetadata metadata = DbfMetadataUtils.fromFieldsString("I,I,4,0|Y,Y,8,0");
+        byte[] bytes = new byte[metadata.getOneRecordLength()];
+        bytes[0] = ' ';
+        int i = -7;
+        long y = -123456; // -12.3456
+        for (int k = 0; k < 4; k++) {
+            bytes[1 + k] = (byte) (i >>> (8 * k));
+        }
+        for (int k = 0; k < 8; k++) {
+            bytes[5 + k] = (byte) (y >>> (8 * k));
+        }
+        DbfRecord rec = DbfRecord.wrap(bytes, metadata, null, 1);
+        for (FieldAccessor a : metadata.getSchema().getAccessors()) {
+            assertFalse(a.isNull(rec));
+            assertEquals(rec.getLong(a.getField()), a.getLong(rec));
+            assertEquals(rec.getUnscaledLong(a.getField(), 2), a.getUnscaledLong(rec, 2));
+            assertEquals(rec.getUnscaledLong(a.getField(), 6), a.getUnscaledLong(rec, 6));
+            assertEquals(rec.getDouble(a.getField()), a.getDouble(rec), 0.0);
+        }
+        assertEquals(-1234, metadata.getSchema().get("Y").getUnscaledLong(rec, 2));
+        assertEquals(-12.3456, metadata.getSchema().get("Y").getDouble(rec), 0.0);
+    }
+
+    @Test
+    public void testReadBatch() throws IOException {
+        List<DbfRecord> expected = new ArrayList<>();
+        try (DbfReader reader = new DbfReader(getClass().getClassLoader().getResourceAsStream("data1/gds_im.dbf"))) {
+            DbfRecord rec;
+            while ((rec = reader.read()) != null) {
+                expected.add(rec);
+            }
+        }
+
+        try (DbfReader reader = new DbfReader(getClass().getClassLoader().getResourceAsStream("data1/gds_im.dbf"))) {
+            reader.project("G33", "G35", "CREATEDATE");
+            RecordBatch batch = null;
+            int row = 0;
+            while ((batch = reader.readBatch(2, batch)) != null) {
+                assertTrue(batch.size() <= 2);
+                for (int i = 0; i < batch.size(); i++, row++) {
+                    DbfRecord e = expected.get(row);
+                    assertEquals(e.getRecordNumber(), batch.getRecordNumber(i));
+                    assertEquals(e.isDeleted(), batch.isDeleted(i));
+                    assertEquals(e.getString("G33"), batch.getString(0, i));
+                    assertEquals(e.getDouble("G35"), batch.getDoubles(1)[i], 0.0);
+                    assertEquals(e.isNull("G35"), batch.isNull(1, i));
+                    assertTrue(batch.isNull(2, i));
+                    assertEquals(0, batch.getEpochDays(2)[i]);
+                }
+            }
+            assertEquals(expected.size(), row);
+        }
+    }
+
+    @Test
+    public void testBatchValues() throws IOException {
+        DbfMetadata metadata = DbfMetadataUtils.fromFieldsString("D,D,8,0|BIG,N,20,0|N,N,5,0");
+        RecordBatch batch = new RecordBatch(metadata, 2);
+        byte[] row1 = (" 20240229" + "12345678901234567890" + "   42").getBytes(StandardCharsets.US_ASCII);
+        byte[] row2 = (" 19691231" + "                -123" + "     ").getBytes(StandardCharsets.US_ASCII);
+        batch.add(row1, 0, 1);
+        batch.add(row2, 0, 2);
+
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), batch.getEpochDays(0)[0]);
+        assertEquals(-1, batch.getEpochDays(0)[1]);
+        assertFalse(batch.isNull(0, 0));
+        // does not fit into long, so it is null like an overflowed value
+        assertTrue(batch.isNull(1, 0));
+        assertEquals(0, batch.getLongs(1)[0]);
+        assertEquals(-123, batch.getLongs(1)[1]);
+        assertEquals(42, batch.getLongs(2)[0]);
+        assertTrue(batch.isNull(2, 1));
+    }
+
+    @Test
+    public void testBinaryDouble() throws IOException {
+        DbfMetadata metadata = DbfMetadataUtils.fromFieldsString("D,B,8,0|E,O,8,0");
+        byte[] bytes = new byte[metadata.getOneRecordLength()];
+        bytes[0] = ' ';
+        long bits = Double.doubleToLongBits(-2.5);
+        for (int i = 0; i < 8; i++) {
+            bytes[1 + i] = (byte) (bits >>> (8 * i));
+        }
+        DbfRecord rec = DbfRecord.wrap(bytes, metadata, null, 1);
+        assertEquals(-2.5, rec.getDouble("D"), 0.0);
+        assertEquals(0.0, rec.getDouble("E"), 0.0);
+        assertEquals(false, rec.isNull("D"));
+    }
+
     @Test
     public void testEmptyStream() throws IOException {
     	InputStream dbf = new ByteArrayInputStream(new byte[] {});
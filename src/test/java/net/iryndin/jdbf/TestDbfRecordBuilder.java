@@ -0,0 +1,214 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.reader.DbfReader;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.writer.DbfRecordBuilder;
+import net.iryndin.jdbf.writer.DbfWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestDbfRecordBuilder {
+    private static final String FIELDS = "CODE,C,10,0|AMOUNT,N,12,2|QTY,N,5,0|DAY,D,8,0|OK,L,1,0|NUM,I,4,0|PRICE,Y,8,4";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        File file = folder.newFile("builder.dbf");
+        DbfWriter writer = new DbfWriter(DbfMetadataUtils.fromFieldsString(FIELDS), file);
+        writer.setStringCharset("Cp866");
+        DbfRecordBuilder builder = writer.recordBuilder();
+        int code = builder.indexOf("CODE");
+        int amount = builder.indexOf("AMOUNT");
+        int qty = builder.indexOf("QTY");
+        int day = builder.indexOf("DAY");
+        int ok = builder.indexOf("OK");
+        int num = builder.indexOf("NUM");
+        int price = builder.indexOf("PRICE");
+        LocalDate date = LocalDate.of(2016, 2, 29);
+
+        builder.setString(code, "Привет")
+                .setDecimal(amount, 12345, 2)
+                .setLong(qty, -42)
+                .setEpochDay(day, date.toEpochDay())
+                .setBoolean(ok, true)
+                .setLong(num, -7)
+                .setDecimal(price, new BigDecimal("1.5"))
+                .writeRecord();
+        // rounding half up, fields not set are empty
+        builder.setString(code, "a very long code")
+                .setDecimal(amount, -5, 3)
+                .setDecimal(qty, 12345, 1)
+                .writeRecord();
+        // more than 18 digits are rounded to the field scale first, like write(Map) does
+        builder.setNull(code).setBoolean(ok, false)
+                .setDecimal(qty, new BigDecimal("12.5456789012345678901"));
+        try {
+            builder.setDecimal(num, new BigDecimal("12345678901234567890.1"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            // does not fit, field stays empty
+        }
+        builder.writeRecord();
+        writer.close();
+
+        try (DbfReader reader = new DbfReader(file)) {
+            DbfRecord rec = reader.read();
+            rec.setStringCharset(Charset.forName("Cp866"));
+            assertEquals("Привет", rec.getString("CODE"));
+            assertEquals(new BigDecimal("123.45"), rec.getBigDecimal("AMOUNT"));
+            assertEquals(new BigDecimal("-42"), rec.getBigDecimal("QTY"));
+            assertEquals(date, rec.getDate("DAY"));
+            assertEquals(Boolean.TRUE, rec.getBoolean("OK"));
+            assertEquals(-7, (int) rec.getInteger("NUM"));
+            assertEquals(15000L, rec.getUnscaledLong("PRICE", 4));
+
+            rec = reader.read();
+            assertEquals("a very lon", rec.getString("CODE"));
+            assertEquals(new BigDecimal("-0.01"), rec.getBigDecimal("AMOUNT"));
+            assertEquals(new BigDecimal("1235"), rec.getBigDecimal("QTY"));
+            assertNull(rec.getDate("DAY"));
+            assertNull(rec.getBoolean("OK"));
+            assertTrue(rec.isNull("DAY"));
+
+            rec = reader.read();
+            assertNull(rec.getString("CODE"));
+            assertTrue(rec.isNull("AMOUNT"));
+            assertEquals(new BigDecimal("13"), rec.getBigDecimal("QTY"));
+            assertEquals(Boolean.FALSE, rec.getBoolean("OK"));
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testSameBytesAsMap() throws IOException {
+        File byMap = folder.newFile("map.dbf");
+        File byBuilder = folder.newFile("builder.dbf");
+        DbfMetadata metadata = DbfMetadataUtils.fromFieldsString("CODE,C,10,0|DAY,D,8,0|OK,L,1,0|NUM,I,4,0");
+        DbfWriter writer = new DbfWriter(metadata, byMap);
+        Map<String, Object> map = new HashMap<>();
+        map.put("CODE", "X1");
+        map.put("DAY", LocalDate.of(1999, 12, 31));
+        map.put("OK", Boolean.FALSE);
+        map.put("NUM", 123456789);
+        writer.write(map);
+        writer.close();
+
+        writer = new DbfWriter(DbfMetadataUtils.fromFieldsString("CODE,C,10,0|DAY,D,8,0|OK,L,1,0|NUM,I,4,0"), byBuilder);
+        writer.recordBuilder()
+                .setString(0, "X1")
+                .setEpochDay(1, LocalDate.of(1999, 12, 31).toEpochDay())
+                .setBoolean(2, false)
+                .setLong(3, 123456789)
+                .writeRecord();
+        writer.close();
+
+        assertArrayEquals(Files.readAllBytes(byMap.toPath()), Files.readAllBytes(byBuilder.toPath()));
+        try (DbfReader reader = new DbfReader(byMap)) {
+            assertEquals(123456789, (int) reader.read().getInteger("NUM"));
+        }
+    }
+
+    @Test
+    public void testEncoding() throws IOException {
+        File file = folder.newFile("encoding.dbf");
+        DbfMetadata metadata = DbfMetadataUtils.fromFieldsString("NAME,C,5,0|AMOUNT,N,8,2|RATE,F,10,3|DAY,D,8,0|PRICE,F,6,2");
+        DbfWriter writer = new DbfWriter(metadata, file);
+        writer.setStringCharset("UTF-8");
+        Map<String, Object> map = new HashMap<>();
+        map.put("NAME", "ab");
+        map.put("AMOUNT", new BigDecimal("-1.005"));
+        map.put("RATE", 2.5);
+        map.put("DAY", LocalDate.of(1, 1, 1));
+        // 1.00499999999999989... as binary, but 1.005 as decimal
+        map.put("PRICE", 1.005);
+        writer.write(map);
+        // does not fit: marked as overflow
+        map.put("NAME", "abcде");
+        map.put("AMOUNT", new BigDecimal("123456.7"));
+        map.put("RATE", Double.NaN);
+        map.put("PRICE", -2.675);
+        writer.write(map);
+        writer.recordBuilder().setString(0, new StringBuilder("ёжик")).writeRecord();
+        writer.close();
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int offset = metadata.getFullHeaderLength();
+        assertEquals(" " + "ab   " + "   -1.01" + "     2.500" + "00010101" + "  1.01", new String(bytes, offset, 38, "UTF-8"));
+        try (DbfReader reader = new DbfReader(file)) {
+            DbfRecord rec = reader.read();
+            assertEquals(new BigDecimal("-1.01"), rec.getBigDecimal("AMOUNT"));
+            assertEquals(2.5, rec.getDouble("RATE"), 0.0);
+            assertEquals(LocalDate.of(1, 1, 1), rec.getDate("DAY"));
+
+            rec = reader.read();
+            assertEquals("abcд", rec.getString("NAME", "UTF-8"));
+            assertTrue(rec.isNull("AMOUNT"));
+            assertTrue(rec.isNull("RATE"));
+            assertEquals(new BigDecimal("-2.68"), rec.getBigDecimal("PRICE"));
+
+            rec = reader.read();
+            // "и" would be cut in half, so it is not written
+            assertEquals("ёж", rec.getString("NAME", "UTF-8"));
+            assertTrue(rec.isNull("AMOUNT"));
+        }
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        DbfWriter writer = new DbfWriter(DbfMetadataUtils.fromFieldsString(FIELDS), folder.newFile("errors.dbf"));
+        DbfRecordBuilder builder = writer.recordBuilder();
+        try {
+            builder.indexOf("NOPE");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Field 'NOPE' does not exist!", e.getMessage());
+        }
+        try {
+            builder.setLong(builder.indexOf("CODE"), 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("CODE"));
+        }
+        try {
+            builder.setLong(builder.indexOf("QTY"), 123456);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("QTY"));
+        }
+        try {
+            builder.setLong(builder.indexOf("NUM"), 1L << 40);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("NUM"));
+        }
+        try {
+            builder.setBoolean(99, true);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertFalse(e.getMessage().isEmpty());
+        }
+        builder.setLong(builder.indexOf("QTY"), -9999).writeRecord();
+        writer.close();
+    }
+}
@@ -0,0 +1,67 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.core.FieldAccessor;
+import net.iryndin.jdbf.reader.DbfReader;
+import net.iryndin.jdbf.reader.DbfTable;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static net.iryndin.jdbf.ResourceUtils.getResourceFile;
+import static net.iryndin.jdbf.ResourceUtils.readAll;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TestDbfTable {
+
+    @Test
+    public void testLoad() throws Exception {
+        File file = getResourceFile("data1/gds_im.dbf");
+        List<DbfRecord> expected = readAll(file);
+
+        // small segments to have records spread over several buffers
+        try (DbfTable table = DbfTable.load(file, null, 2 * 1024)) {
+            assertEquals(expected.size(), table.getRecordsQty());
+            for (int i = 1; i <= table.getRecordsQty(); i++) {
+                DbfRecord e = expected.get(i - 1);
+                assertArrayEquals(e.getBytes(), table.read(i).getBytes());
+                assertEquals(e.isDeleted(), table.isDeleted(i));
+                Map<String, Object> map = e.toMap();
+                for (FieldAccessor a : table.getSchema().getAccessors()) {
+                    if (map.containsKey(a.getName())) {
+                        assertEquals(map.get(a.getName()), table.getValue(i, a.getOrdinal()));
+                    }
+                    assertEquals(e.isNull(a.getName()), table.isNull(i, a.getOrdinal()));
+                }
+                int g35 = table.getSchema().indexOf("G35");
+                assertEquals(e.getDouble("G35"), table.getDouble(i, g35), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testMemo() throws Exception {
+        File dbf = getResourceFile("memo1/texto.dbf");
+        File memo = getResourceFile("memo1/texto.fpt");
+        List<String> expected = new ArrayList<>();
+        try (DbfReader reader = new DbfReader(dbf, memo)) {
+            DbfRecord rec;
+            while ((rec = reader.read()) != null) {
+                expected.add(rec.getMemoAsString("TEXTEX"));
+            }
+        }
+
+        try (DbfTable table = DbfTable.load(dbf, memo)) {
+            assertEquals(expected.size(), table.getRecordsQty());
+            int column = table.getSchema().indexOf("TEXTEX");
+            for (int i = 1; i <= table.getRecordsQty(); i++) {
+                assertEquals(expected.get(i - 1), table.getValue(i, column));
+                assertEquals(expected.get(i - 1), table.read(i).getMemoAsString("TEXTEX"));
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.reader.DbfTable;
+import net.iryndin.jdbf.reader.DbfTableCache;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TestDbfTableCache {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File copyResource(String name, String fileName) throws IOException {
+        File file = new File(folder.getRoot(), fileName);
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(name)) {
+            Files.copy(is, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    @Test
+    public void testHitAndReloadOnChange() throws IOException {
+        File file = copyResource("data1/gds_im.dbf", "gds_im.dbf");
+        try (DbfTableCache cache = new DbfTableCache(DbfTableCache.DEFAULT_MAX_BYTES)) {
+            DbfTable table = cache.get(file);
+            assertSame(table, cache.get(new File(folder.getRoot(), "./gds_im.dbf")));
+            assertEquals(1, cache.size());
+            assertEquals(table.getSizeInBytes(), cache.getSizeInBytes());
+
+            assertEquals(true, file.setLastModified(file.lastModified() - 10000));
+            DbfTable reloaded = cache.get(file);
+            assertNotSame(table, reloaded);
+            assertEquals(1, cache.size());
+
+            cache.invalidate(file);
+            assertEquals(0, cache.size());
+            assertEquals(0, cache.getSizeInBytes());
+        }
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        File file1 = copyResource("data1/gds_im.dbf", "gds_im1.dbf");
+        File file2 = copyResource("data1/gds_im.dbf", "gds_im2.dbf");
+        File file3 = copyResource("data1/gds_im.dbf", "gds_im3.dbf");
+        long tableSize;
+        try (DbfTable table = DbfTable.load(file1)) {
+            tableSize = table.getSizeInBytes();
+        }
+        try (DbfTableCache cache = new DbfTableCache(tableSize * 2)) {
+            DbfTable table1 = cache.get(file1);
+            cache.get(file2);
+            // file1 becomes the most recently used
+            cache.get(file1);
+            cache.get(file3);
+            assertEquals(2, cache.size());
+            assertSame(table1, cache.get(file1));
+        }
+    }
+
+    @Test
+    public void testMetadataOfTableOverBudget() throws IOException {
+        File file = copyResource("data1/gds_im.dbf", "gds_im.dbf");
+        try (DbfTableCache cache = new DbfTableCache(file.length() / 2)) {
+            DbfMetadata metadata = cache.getMetadata(file);
+            assertEquals(5, metadata.getRecordsQty());
+            assertSame(metadata, cache.getMetadata(file));
+            // the table itself does not fit the budget and is not loaded
+            assertEquals(0, cache.size());
+
+            assertEquals(true, file.setLastModified(file.lastModified() - 10000));
+            DbfMetadata reread = cache.getMetadata(file);
+            assertNotSame(metadata, reread);
+            assertSame(reread, cache.getMetadata(file));
+
+            cache.invalidate(file);
+            assertNotSame(reread, cache.getMetadata(file));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testWatching() throws Exception {
+        File file = copyResource("data1/gds_im.dbf", "gds_im.dbf");
+        try (DbfTableCache cache = new DbfTableCache(DbfTableCache.DEFAULT_MAX_BYTES)) {
+            cache.startWatching();
+            cache.get(file);
+            assertEquals(1, cache.size());
+            copyResource("data1/gds_im.dbf", "gds_im.dbf");
+            while (cache.size() > 0) {
+                Thread.sleep(50);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfPredicate;
+import net.iryndin.jdbf.core.DbfPredicates;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.index.DbfBlockCursor;
+import net.iryndin.jdbf.index.DbfZoneMap;
+import net.iryndin.jdbf.reader.DbfCursor;
+import net.iryndin.jdbf.reader.DbfRandomAccessReader;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.writer.DbfWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.iryndin.jdbf.ResourceUtils.getResourceFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestDbfZoneMap {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBlocks() throws Exception {
+        DbfZoneMap map = DbfZoneMap.build(getResourceFile("data1/gds_im.dbf"), 2, 10, "G33");
+        assertEquals(3, map.getBlocksQty());
+        assertEquals(5, map.getRecordsQty());
+        // G35: 1000, 9000 | 1308, 4578 | 654
+        assertEquals(bits(0), map.numberBetween("G35", new BigDecimal("5000"), null));
+        assertEquals(bits(0, 1), map.numberBetween("G35", new BigDecimal("1001"), new BigDecimal("4578")));
+        assertEquals(bits(0, 2), map.numberBetween("G35", null, new BigDecimal("1000")));
+        // bounds out of long range do not skip blocks
+        assertEquals(bits(0, 1, 2), map.numberBetween("G35", new BigDecimal("-1e17"), new BigDecimal("1e17")));
+        assertEquals(bits(), map.numberBetween("G35", new BigDecimal("1e17"), null));
+        assertTrue(map.mightContain("G33", "6005329000").get(2));
+        assertTrue(map.mightContain("G33", " 5407619000").get(0));
+        assertEquals(bits(0, 1, 2), map.dateBetween("CREATEDATE", null, null));
+        assertEquals(bits(), map.dateBetween("CREATEDATE", LocalDate.of(2100, 1, 1), null));
+        assertEquals(bits(0, 1, 2), map.notDeleted());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoBloomFilter() throws Exception {
+        DbfZoneMap.build(getResourceFile("data1/gds_im.dbf"), "G33").mightContain("G32", "1");
+    }
+
+    @Test
+    public void testSkippingScan() throws Exception {
+        DbfMetadata metadata = DbfMetadataUtils.fromFieldsString("ID,N,10,0|CODE,C,10,0|CREATEDATE,D,8,0");
+        File dbf = folder.newFile("daily.dbf");
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        try (FileOutputStream out = new FileOutputStream(dbf)) {
+            DbfWriter writer = new DbfWriter(metadata, out);
+            Map<String, Object> map = new HashMap<>();
+            for (int i = 0; i < 10000; i++) {
+                map.put("ID", BigDecimal.valueOf(i));
+                map.put("CODE", "C" + (i % 37));
+                map.put("CREATEDATE", start.plusDays(i / 100));
+                writer.write(map);
+            }
+            writer.close();
+        }
+
+        DbfZoneMap built = DbfZoneMap.build(dbf, 500, 10, "CODE");
+        File jdz = folder.newFile("daily.jdz");
+        built.save(jdz);
+
+        try (DbfRandomAccessReader reader = new DbfRandomAccessReader(dbf)) {
+            DbfZoneMap map = DbfZoneMap.load(jdz, reader.getMetadata());
+            assertEquals(20, map.getBlocksQty());
+            LocalDate from = start.plusDays(30);
+            LocalDate to = start.plusDays(39);
+            BitSet blocks = map.dateBetween("CREATEDATE", from, to);
+            assertEquals(bits(6, 7), blocks);
+            blocks.and(map.mightContain("CODE", "C5"));
+
+            DbfPredicate filter = DbfPredicates.dateBetween(reader.getMetadata(), "CREATEDATE", from, to)
+                    .and(DbfPredicates.equalTo(reader.getMetadata(), "CODE", "C5"));
+            assertEquals(ids(reader.cursor(), filter), ids(map.cursor(reader, blocks, filter)));
+            assertEquals(27, ids(map.cursor(reader, blocks, filter)).size());
+        }
+    }
+
+    private static BitSet bits(int... indexes) {
+        BitSet bits = new BitSet();
+        for (int i : indexes) {
+            bits.set(i);
+        }
+        return bits;
+    }
+
+    private static List<Integer> ids(DbfCursor cursor, DbfPredicate filter) throws Exception {
+        cursor.setFilter(filter);
+        List<Integer> ids = new ArrayList<>();
+        DbfRecord rec;
+        while ((rec = cursor.next()) != null) {
+            ids.add(rec.getRecordNumber());
+        }
+        return ids;
+    }
+
+    private static List<Integer> ids(DbfBlockCursor cursor) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        DbfRecord rec;
+        while ((rec = cursor.next()) != null) {
+            ids.add(rec.getRecordNumber());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,262 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.core.DbfRecord;
+import net.iryndin.jdbf.jdbc.JdbfDriver;
+import net.iryndin.jdbf.reader.DbfReader;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.writer.DbfWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.iryndin.jdbf.ResourceUtils.getResourceFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestJdbcDriver {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connect(String dir) throws Exception {
+        return DriverManager.getConnection(JdbfDriver.URL_PREFIX + getResourceFile(dir).getAbsolutePath());
+    }
+
+    @Test
+    public void testMetaData() throws Exception {
+        try (Connection conn = connect("data1")) {
+            DatabaseMetaData md = conn.getMetaData();
+            List<String> tables = new ArrayList<>();
+            try (ResultSet rs = md.getTables(null, null, "%", null)) {
+                while (rs.next()) {
+                    tables.add(rs.getString("TABLE_NAME"));
+                    assertEquals("TABLE", rs.getString("TABLE_TYPE"));
+                }
+            }
+            assertEquals(2, tables.size());
+            assertTrue(tables.contains("gds_im"));
+
+            Map<String, Integer> types = new HashMap<>();
+            try (ResultSet rs = md.getColumns(null, null, "GDS_IM", null)) {
+                while (rs.next()) {
+                    assertEquals("gds_im", rs.getString("TABLE_NAME"));
+                    types.put(rs.getString("COLUMN_NAME"), rs.getInt("DATA_TYPE"));
+                }
+            }
+            assertEquals(Types.VARCHAR, (int) types.get("G33"));
+            assertEquals(Types.DECIMAL, (int) types.get("G35"));
+            assertEquals(Types.DATE, (int) types.get("CREATEDATE"));
+        }
+    }
+
+    @Test
+    public void testSelect() throws Exception {
+        try (Connection conn = connect("data1"); Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery("select g33, G35 as amount, CREATEDATE from gds_im where G35 >= 1000 and G33 like '54%'")) {
+                ResultSetMetaData md = rs.getMetaData();
+                assertEquals(3, md.getColumnCount());
+                assertEquals("G33", md.getColumnName(1));
+                assertEquals("AMOUNT", md.getColumnLabel(2).toUpperCase());
+                assertEquals(Types.DATE, md.getColumnType(3));
+
+                List<Integer> amounts = new ArrayList<>();
+                while (rs.next()) {
+                    assertEquals("5407619000", rs.getString(1));
+                    amounts.add(rs.getInt("amount"));
+                    assertFalse(rs.wasNull());
+                    assertNull(rs.getDate("CREATEDATE"));
+                    assertTrue(rs.wasNull());
+                }
+                assertEquals(2, amounts.size());
+                assertTrue(amounts.contains(1000));
+                assertTrue(amounts.contains(1308));
+            }
+
+            try (ResultSet rs = st.executeQuery("SELECT * FROM \"gds_im.dbf\" LIMIT 2")) {
+                List<String> expected = new ArrayList<>();
+                try (DbfReader reader = new DbfReader(getResourceFile("data1/gds_im.dbf"))) {
+                    DbfRecord rec;
+                    while ((rec = reader.read()) != null) {
+                        expected.add(rec.getString("G33"));
+                    }
+                }
+                int n = 0;
+                while (rs.next()) {
+                    assertEquals(expected.get(n++), rs.getString("G33"));
+                }
+                assertEquals(2, n);
+            }
+
+            assertEquals(3, count(st, "SELECT G33 FROM gds_im WHERE G33 IN ('6006321000', '6005329000')"));
+            assertEquals(2, count(st, "SELECT G33 FROM gds_im WHERE NOT (G33 = '6006321000' OR G35 < 1000)"));
+            assertEquals(2, count(st, "SELECT G33 FROM gds_im WHERE G35 BETWEEN 1000 AND 1308.5"));
+            assertEquals(0, count(st, "SELECT G33 FROM gds_im WHERE CREATEDATE >= DATE '1900-01-01'"));
+            assertEquals(5, count(st, "SELECT G33 FROM gds_im WHERE CREATEDATE IS NULL"));
+            assertEquals(0, count(st, "SELECT G33 FROM gds_im WHERE NOT CREATEDATE = DATE '1900-01-01'"));
+            assertEquals(0, count(st, "SELECT G33 FROM gds_im WHERE NOT CREATEDATE BETWEEN DATE '1900-01-01' AND DATE '2100-01-01'"));
+            assertEquals(4, count(st, "SELECT G33 FROM gds_im WHERE NOT (G35 = 1000 AND CREATEDATE = DATE '1900-01-01')"));
+            assertEquals(0, count(st, "SELECT G33 FROM gds_im WHERE NOT (G35 = 1000 OR CREATEDATE = DATE '1900-01-01')"));
+            assertEquals(5, count(st, "SELECT G33 FROM gds_im WHERE NOT NOT CREATEDATE IS NULL"));
+            assertEquals(0, count(st, "SELECT G33 FROM gds_im WHERE G33 IS NULL"));
+            assertEquals(1, count(st, "SELECT G33 FROM gds_im WHERE G33 LIKE '%53_9%'"));
+        }
+    }
+
+    private static int count(Statement st, String sql) throws SQLException {
+        int n = 0;
+        try (ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Test
+    public void testLogical() throws Exception {
+        File file = folder.newFile("flags.dbf");
+        DbfMetadata metadata = DbfMetadataUtils.fromFieldsString("ID,N,2,0|FLAG,L,1,0");
+        DbfWriter writer = new DbfWriter(metadata, file);
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < 4; i++) {
+            map.put("ID", new BigDecimal(i));
+            map.put("FLAG", Boolean.TRUE);
+            writer.write(map);
+        }
+        writer.close();
+        // the writer only writes T and F, so other markers are put right into the file
+        byte[] flags = {'Y', 'n', 'T', '?'};
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            for (int i = 0; i < flags.length; i++) {
+                raf.seek(metadata.getFullHeaderLength() + (long) i * metadata.getOneRecordLength()
+                        + metadata.getField("FLAG").getOffset());
+                raf.write(flags[i]);
+            }
+        }
+
+        try (DbfReader reader = new DbfReader(file)) {
+            assertEquals(Boolean.TRUE, reader.read().getBoolean("FLAG"));
+            assertEquals(Boolean.FALSE, reader.read().getBoolean("FLAG"));
+            assertEquals(Boolean.TRUE, reader.read().getBoolean("FLAG"));
+            DbfRecord rec = reader.read();
+            assertNull(rec.getBoolean("FLAG"));
+            assertTrue(rec.isNull("FLAG"));
+        }
+
+        try (Connection conn = DriverManager.getConnection(JdbfDriver.URL_PREFIX + folder.getRoot().getAbsolutePath());
+             Statement st = conn.createStatement()) {
+            assertEquals(2, count(st, "SELECT ID FROM flags WHERE FLAG = TRUE"));
+            assertEquals(1, count(st, "SELECT ID FROM flags WHERE FLAG = FALSE"));
+            assertEquals(1, count(st, "SELECT ID FROM flags WHERE FLAG IS NULL"));
+            try (ResultSet rs = st.executeQuery("SELECT ID, FLAG FROM flags WHERE FLAG IS NOT NULL")) {
+                List<Boolean> values = new ArrayList<>();
+                while (rs.next()) {
+                    values.add((Boolean) rs.getObject("FLAG"));
+                    assertFalse(rs.wasNull());
+                }
+                assertEquals(3, values.size());
+                assertEquals(Boolean.TRUE, values.get(0));
+                assertEquals(Boolean.FALSE, values.get(1));
+                assertEquals(Boolean.TRUE, values.get(2));
+            }
+        }
+    }
+
+    @Test
+    public void testGroupBy() throws Exception {
+        try (Connection conn = connect("data1"); Statement st = conn.createStatement()) {
+            Map<String, BigDecimal> sums = new HashMap<>();
+            Map<String, Long> counts = new HashMap<>();
+            try (ResultSet rs = st.executeQuery("SELECT G33, COUNT(*) AS cnt, SUM(G35) FROM gds_im GROUP BY G33")) {
+                assertEquals("SUM(G35)", rs.getMetaData().getColumnLabel(3));
+                while (rs.next()) {
+                    counts.put(rs.getString("G33"), rs.getLong("cnt"));
+                    sums.put(rs.getString(1), rs.getBigDecimal(3));
+                }
+            }
+            assertEquals(3, sums.size());
+            assertEquals(2L, (long) counts.get("5407619000"));
+            assertEquals(0, new BigDecimal("2308").compareTo(sums.get("5407619000")));
+            assertEquals(0, new BigDecimal("13578").compareTo(sums.get("6006321000")));
+
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*), COUNT(DISTINCT G33), MAX(CREATEDATE) FROM gds_im WHERE G35 > 654")) {
+                assertTrue(rs.next());
+                assertEquals(4, rs.getInt(1));
+                assertEquals(2, rs.getInt(2));
+                assertNull(rs.getDate(3));
+                assertFalse(rs.next());
+            }
+        }
+    }
+
+    @Test
+    public void testMemo() throws Exception {
+        List<String> expected = new ArrayList<>();
+        try (DbfReader reader = new DbfReader(getResourceFile("memo1/texto.dbf"), getResourceFile("memo1/texto.fpt"))) {
+            DbfRecord rec;
+            while ((rec = reader.read()) != null) {
+                expected.add(rec.getMemoAsString("TEXTEX"));
+            }
+        }
+        try (Connection conn = connect("memo1"); Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT TEXTEX FROM texto")) {
+            assertEquals(Types.LONGVARCHAR, rs.getMetaData().getColumnType(1));
+            List<String> actual = new ArrayList<>();
+            while (rs.next()) {
+                actual.add(rs.getString(1));
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        try (Connection conn = connect("data1"); Statement st = conn.createStatement()) {
+            try {
+                st.executeQuery("SELECT * FROM missing");
+                fail();
+            } catch (SQLException e) {
+                assertTrue(e.getMessage().contains("missing"));
+            }
+            try {
+                st.executeQuery("SELECT G33 FROM gds_im WHERE");
+                fail();
+            } catch (SQLSyntaxErrorException e) {
+                // expected
+            }
+            try {
+                st.executeQuery("SELECT G33, SUM(G35) FROM gds_im");
+                fail();
+            } catch (SQLException e) {
+                assertTrue(e.getMessage().contains("GROUP BY"));
+            }
+            try {
+                st.executeQuery("SELECT NOPE FROM gds_im");
+                fail();
+            } catch (SQLException e) {
+                assertTrue(e.getMessage().contains("NOPE"));
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package net.iryndin.jdbf;
+
+import net.iryndin.jdbf.core.DbfMetadata;
+import net.iryndin.jdbf.index.JdxCursor;
+import net.iryndin.jdbf.index.JdxIndex;
+import net.iryndin.jdbf.index.JdxKeyEncoder;
+import net.iryndin.jdbf.util.DbfMetadataUtils;
+import net.iryndin.jdbf.writer.DbfWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.iryndin.jdbf.ResourceUtils.getResourceFile;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestJdxIndex {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCharacterKey() throws Exception {
+        File jdx = folder.newFile("g33.jdx");
+        JdxIndex.build(getResourceFile("data1/gds_im.dbf"), jdx, "G33");
+        try (JdxIndex index = JdxIndex.open(jdx)) {
+            assertEquals(5, index.getEntriesQty());
+            assertEquals(1, index.find("5407619000"));
+            assertArrayEquals(new int[]{1, 3}, index.findAll("5407619000"));
+            assertArrayEquals(new int[]{2, 4}, index.findAll("6006321000"));
+            assertEquals(5, index.find("6005329000"));
+            assertEquals(-1, index.find("600532900"));
+            assertArrayEquals(new int[]{1, 3, 5, 2, 4}, recordNumbers(index.first()));
+        }
+    }
+
+    @Test
+    public void testCompositeKey() throws Exception {
+        File jdx = folder.newFile("g33g35.jdx");
+        // tiny memory budget makes every entry a separate sorted run
+        JdxIndex.build(getResourceFile("data1/gds_im.dbf"), jdx, 1, "G33", "G35");
+        try (JdxIndex index = JdxIndex.open(jdx)) {
+            assertEquals(2, index.find("6006321000", new BigDecimal("9000")));
+            assertEquals(4, index.find("6006321000", 4578));
+            assertEquals(-1, index.find("6006321000", 1000));
+            assertArrayEquals(new int[]{4, 2}, index.findAll("6006321000"));
+            assertArrayEquals(new int[]{1, 3, 5, 4, 2}, recordNumbers(index.first()));
+        }
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        File jdx = folder.newFile("g35.jdx");
+        JdxIndex.build(getResourceFile("data1/gds_im.dbf"), jdx, "G35");
+        try (JdxIndex index = JdxIndex.open(jdx)) {
+            JdxKeyEncoder encoder = index.getKeyEncoder();
+            assertArrayEquals(new int[]{1, 3, 4}, recordNumbers(index.range(encoder.encode(1000), encoder.encode(5000))));
+            assertArrayEquals(new int[]{5, 1}, recordNumbers(index.range(null, encoder.encode(1000))));
+            assertArrayEquals(new int[]{2}, recordNumbers(index.range(encoder.encode(4578.01), null)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownField() throws Exception {
+        JdxIndex.build(getResourceFile("data1/gds_im.dbf"), folder.newFile("x.jdx"), "NOFIELD");
+    }
+
+    @Test
+    public void testIntegerKeyRange() throws Exception {
+        JdxKeyEncoder encoder = new JdxKeyEncoder(DbfMetadataUtils.fromFieldsString("I,I,4,0"), "I");
+        assertArrayEquals(encoder.encode(Integer.MAX_VALUE), encoder.encode((long) Integer.MAX_VALUE));
+        try {
+            encoder.encode(5_000_000_000L);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            encoder.encode(new BigDecimal("1.5"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testWriterUpdatesIndex() throws Exception {
+        DbfMetadata metadata = DbfMetadataUtils.fromFieldsString("ID,N,10,0|NAME,C,20,0");
+        File dbf = folder.newFile("written.dbf");
+        File jdx = folder.newFile("written.jdx");
+        int recordsQty = 20000;
+        try (FileOutputStream out = new FileOutputStream(dbf)) {
+            DbfWriter writer = new DbfWriter(metadata, out);
+            writer.addIndex(JdxIndex.create(jdx, metadata, "NAME", "ID"));
+            Map<String, Object> map = new HashMap<>();
+            for (int i = 1; i <= recordsQty; i++) {
+                // keys arrive out of order and with duplicates of names
+                long id = (i * 7919L) % recordsQty;
+                map.put("ID", BigDecimal.valueOf(id));
+                map.put("NAME", "name" + (id % 100));
+                writer.write(map);
+            }
+            writer.close();
+        }
+
+        File rebuilt = folder.newFile("rebuilt.jdx");
+        JdxIndex.build(dbf, rebuilt, 64 * 1024, "NAME", "ID");
+        try (JdxIndex index = JdxIndex.open(jdx); JdxIndex expected = JdxIndex.open(rebuilt)) {
+            assertEquals(recordsQty, index.getEntriesQty());
+            assertTrue(index.getHeight() > 1);
+            assertArrayEquals(recordNumbers(expected.first()), recordNumbers(index.first()));
+            assertEquals(recordsQty / 100, index.findAll("name42").length);
+            for (int i = 1; i <= recordsQty; i += 997) {
+                long id = (i * 7919L) % recordsQty;
+                assertEquals(i, index.find("name" + (id % 100), id));
+            }
+        }
+
+        // inserts into existing index
+        try (JdxIndex index = JdxIndex.openForUpdate(rebuilt)) {
+            byte[] record = new byte[metadata.getOneRecordLength()];
+            java.util.Arrays.fill(record, (byte) ' ');
+            System.arraycopy("     20007".getBytes(), 0, record, 1, 10);
+            System.arraycopy("name7".getBytes(), 0, record, 11, 5);
+            index.insert(record, 0, recordsQty + 1);
+        }
+        try (JdxIndex index = JdxIndex.open(rebuilt)) {
+            assertEquals(recordsQty + 1, index.getEntriesQty());
+            assertEquals(recordsQty + 1, index.find("name7", 20007));
+        }
+    }
+
+    private static int[] recordNumbers(JdxCursor cursor) throws Exception {
+        List<Integer> list = new ArrayList<>();
+        int recordNumber;
+        while ((recordNumber = cursor.next()) > 0) {
+            list.add(recordNumber);
+        }
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+}
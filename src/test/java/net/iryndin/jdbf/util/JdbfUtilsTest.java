@@ -0,0 +1,45 @@
+package net.iryndin.jdbf.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * A test class for date decoding in JdbfUtils.
+ */
+public class JdbfUtilsTest {
+
+    @Test
+    public void epochDay() {
+        for (LocalDate d = LocalDate.of(1599, 1, 1); d.getYear() < 2401; d = d.plusDays(1)) {
+            Assert.assertEquals(d.toEpochDay(), JdbfUtils.epochDay(d.getYear(), d.getMonthValue(), d.getDayOfMonth()));
+        }
+    }
+
+    @Test
+    public void parseEpochDay() {
+        Assert.assertEquals(LocalDate.of(2012, 9, 6).toEpochDay(), JdbfUtils.parseEpochDay("20120906".getBytes(), 0));
+        Assert.assertEquals(LocalDate.of(2000, 2, 29).toEpochDay(), JdbfUtils.parseEpochDay("x20000229".getBytes(), 1));
+        Assert.assertEquals(JdbfUtils.INVALID_EPOCH_DAY, JdbfUtils.parseEpochDay("19000229".getBytes(), 0));
+        Assert.assertEquals(JdbfUtils.INVALID_EPOCH_DAY, JdbfUtils.parseEpochDay("20121301".getBytes(), 0));
+        Assert.assertEquals(JdbfUtils.INVALID_EPOCH_DAY, JdbfUtils.parseEpochDay("        ".getBytes(), 0));
+    }
+
+    @Test
+    public void localDateOfEpochDay() {
+        LocalDate d = LocalDate.of(2012, 9, 6);
+        Assert.assertSame(JdbfUtils.localDateOfEpochDay(d.toEpochDay()), JdbfUtils.localDateOfEpochDay(d.toEpochDay()));
+        Assert.assertEquals(d, JdbfUtils.localDateOfEpochDay(d.toEpochDay()));
+        Assert.assertEquals(LocalDate.of(1, 1, 1), JdbfUtils.localDateOfEpochDay(LocalDate.of(1, 1, 1).toEpochDay()));
+    }
+
+    @Test
+    public void parseJulianDateTime() {
+        // 2000-01-01 is Julian day 2451545
+        ZonedDateTime dt = JdbfUtils.parseJulianDateTime(2451545, 3723000, ZoneOffset.UTC);
+        Assert.assertEquals(ZonedDateTime.of(2000, 1, 1, 1, 2, 3, 0, ZoneOffset.UTC), dt);
+    }
+}
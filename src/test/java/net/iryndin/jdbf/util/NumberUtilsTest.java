@@ -0,0 +1,80 @@
+package net.iryndin.jdbf.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * A test class for NumberUtils.
+ */
+public class NumberUtilsTest {
+
+    private static byte[] b(String s) {
+        return s.getBytes();
+    }
+
+    private static long unscaled(String s, int scale) {
+        return NumberUtils.parseUnscaledLong(b(s), 0, s.length(), scale);
+    }
+
+    private static double dbl(String s) {
+        return NumberUtils.parseDouble(b(s), 0, s.length());
+    }
+
+    @Test
+    public void isNull() {
+        Assert.assertTrue(NumberUtils.isNull(b("     "), 0, 5));
+        Assert.assertTrue(NumberUtils.isNull(b(" ****"), 0, 5));
+        Assert.assertTrue(NumberUtils.isNull(new byte[3], 0, 3));
+        Assert.assertFalse(NumberUtils.isNull(b("   0"), 0, 4));
+    }
+
+    @Test
+    public void toUnscaledLong() {
+        Assert.assertEquals(101, NumberUtils.toUnscaledLong(new BigDecimal("1.001"), 2, RoundingMode.CEILING));
+        Assert.assertEquals(-101, NumberUtils.toUnscaledLong(new BigDecimal("-1.001"), 2, RoundingMode.FLOOR));
+        Assert.assertEquals(Long.MAX_VALUE, NumberUtils.toUnscaledLong(new BigDecimal("1e17"), 2, RoundingMode.FLOOR));
+        Assert.assertEquals(Long.MIN_VALUE, NumberUtils.toUnscaledLong(new BigDecimal("-1e17"), 2, RoundingMode.CEILING));
+        Assert.assertEquals(Long.MIN_VALUE, NumberUtils.toUnscaledLong(BigDecimal.valueOf(Long.MIN_VALUE), 0, RoundingMode.CEILING));
+        try {
+            NumberUtils.toUnscaledLong(BigDecimal.ONE, 19, RoundingMode.FLOOR);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void parseUnscaledLong() {
+        Assert.assertEquals(0, unscaled("      ", 2));
+        Assert.assertEquals(123456, unscaled("  1234.56", 2));
+        Assert.assertEquals(1234, unscaled("  1234.56", 0));
+        Assert.assertEquals(12345, unscaled("  1234.56", 1));
+        Assert.assertEquals(1234560, unscaled("  1234.56", 3));
+        Assert.assertEquals(-123400, unscaled(" -1234", 2));
+        Assert.assertEquals(-50, unscaled("  -.5", 2));
+        Assert.assertEquals(Long.MAX_VALUE - 9, unscaled("9223372036854775798", 0));
+        Assert.assertEquals(7, unscaled("0007", 0));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseUnscaledLongInvalid() {
+        unscaled(" 12a4", 0);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseUnscaledLongOverflow() {
+        unscaled("99999999999999999999", 0);
+    }
+
+    @Test
+    public void parseDouble() {
+        Assert.assertEquals(0.0, dbl("     "), 0.0);
+        Assert.assertEquals(1234.56, dbl("  1234.56"), 0.0);
+        Assert.assertEquals(-0.1, dbl("-0.1"), 0.0);
+        Assert.assertEquals(3.141592653589793116, dbl(" 3.141592653589793116"), 0.0);
+        Assert.assertEquals(12345678901234567890.0, dbl("12345678901234567890"), 0.0);
+    }
+}